@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2016—2017 Andrei Tomashpolskiy and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package bt.benchmarks;
+
+import bt.bencoding.BEEncoder;
+import bt.bencoding.BEParser;
+import bt.bencoding.BEReader;
+import bt.bencoding.model.BEMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing and encoding of real torrent files.
+ *
+ * @since 1.8
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BEncodingBenchmark {
+
+    @Param({"single_file.torrent", "multi_file.torrent"})
+    public String torrent;
+
+    private byte[] bytes;
+    private BEMap metainfo;
+    private ByteBuffer buffer;
+
+    @Setup
+    public void setUp() throws IOException {
+        bytes = readResource(torrent);
+        try (BEParser parser = new BEParser(bytes)) {
+            metainfo = parser.readMap();
+        }
+        buffer = ByteBuffer.allocate(BEEncoder.encoder().encodedLength(metainfo));
+    }
+
+    static byte[] readResource(String name) throws IOException {
+        try (InputStream in = BEncodingBenchmark.class.getResourceAsStream(name)) {
+            if (in == null) {
+                throw new IllegalArgumentException("Resource not found: " + name);
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] block = new byte[8192];
+            int read;
+            while ((read = in.read(block)) >= 0) {
+                out.write(block, 0, read);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    @Benchmark
+    public BEMap parse() {
+        try (BEParser parser = new BEParser(bytes)) {
+            return parser.readMap();
+        }
+    }
+
+    @Benchmark
+    public int read() {
+        BEReader reader = new BEReader(bytes);
+        reader.nextToken();
+        reader.skipValue();
+        return reader.getBytesRead();
+    }
+
+    @Benchmark
+    public byte[] encodeToStream() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length);
+        metainfo.writeTo(out);
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public ByteBuffer encodeToBuffer() {
+        buffer.clear();
+        BEEncoder.encoder().encode(metainfo, buffer);
+        return buffer;
+    }
+}
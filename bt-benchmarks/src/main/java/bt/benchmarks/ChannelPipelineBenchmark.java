@@ -0,0 +1,230 @@
+/*
+ * Copyright (c) 2016—2017 Andrei Tomashpolskiy and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package bt.benchmarks;
+
+import bt.metainfo.TorrentId;
+import bt.net.InetPeer;
+import bt.net.Peer;
+import bt.net.buffer.BorrowedBuffer;
+import bt.net.buffer.BufferMutator;
+import bt.net.crypto.CipherBufferMutator;
+import bt.net.pipeline.ChannelHandler;
+import bt.net.pipeline.ChannelHandlerContext;
+import bt.net.pipeline.ChannelPipeline;
+import bt.net.pipeline.DefaultChannelPipeline;
+import bt.protocol.Message;
+import bt.protocol.Piece;
+import bt.protocol.StandardBittorrentProtocol;
+import bt.protocol.crypto.MSECipher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends a batch of piece messages through a pair of channel pipelines (sender and receiver),
+ * optionally with MSE encryption.
+ *
+ * @since 1.8
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChannelPipelineBenchmark {
+
+    private static final int BLOCK_SIZE = 1 << 14;
+    private static final int BATCH_SIZE = 8;
+    private static final int BUFFER_SIZE = 1 << 18;
+
+    @Param({"false", "true"})
+    public boolean encrypted;
+
+    private ChannelPipeline sender;
+    private ChannelPipeline receiver;
+    private ChannelHandlerContext receiverContext;
+
+    private ByteBuffer outboundBuffer;
+    private ByteBuffer inboundBuffer;
+    private Message[] messages;
+
+    @Setup
+    public void setUp() {
+        Peer peer = new InetPeer(InetAddress.getLoopbackAddress(), 6891);
+        StandardBittorrentProtocol protocol = new StandardBittorrentProtocol(Collections.emptyMap());
+
+        List<BufferMutator> encoders = Collections.emptyList();
+        List<BufferMutator> decoders = Collections.emptyList();
+        if (encrypted) {
+            Random random = new Random(0);
+            byte[] secret = new byte[96];
+            random.nextBytes(secret);
+            byte[] torrentId = new byte[TorrentId.length()];
+            random.nextBytes(torrentId);
+
+            MSECipher initiatorCipher = MSECipher.forInitiator(secret, TorrentId.fromBytes(torrentId));
+            MSECipher receiverCipher = MSECipher.forReceiver(secret, TorrentId.fromBytes(torrentId));
+            encoders = Collections.singletonList(new CipherBufferMutator(initiatorCipher.getEncryptor()));
+            decoders = Collections.singletonList(new CipherBufferMutator(receiverCipher.getDecryptor()));
+        }
+
+        outboundBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        inboundBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        ByteBuffer unused = ByteBuffer.allocate(0);
+
+        sender = new DefaultChannelPipeline(peer, protocol, new FixedBuffer(unused), new FixedBuffer(outboundBuffer),
+                Collections.emptyList(), encoders);
+        sender.bindHandler(new NoOpChannelHandler());
+
+        receiver = new DefaultChannelPipeline(peer, protocol, new FixedBuffer(inboundBuffer), new FixedBuffer(unused),
+                decoders, Collections.emptyList());
+        receiverContext = receiver.bindHandler(new NoOpChannelHandler());
+
+        Random random = new Random(0);
+        messages = new Message[BATCH_SIZE];
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            byte[] block = new byte[BLOCK_SIZE];
+            random.nextBytes(block);
+            messages[i] = new Piece(i, 0, block);
+        }
+    }
+
+    @Benchmark
+    public void transferBatch(Blackhole blackhole) {
+        for (Message message : messages) {
+            if (!sender.encode(message)) {
+                throw new IllegalStateException("Failed to encode message");
+            }
+        }
+
+        // imitate network transfer: receiver reads as much data as fits into its buffer at a time
+        int received = 0;
+        outboundBuffer.flip();
+        while (outboundBuffer.hasRemaining()) {
+            ByteBuffer chunk = outboundBuffer.duplicate();
+            chunk.limit(chunk.position() + Math.min(chunk.remaining(), inboundBuffer.remaining()));
+            inboundBuffer.put(chunk);
+            outboundBuffer.position(chunk.position());
+            receiverContext.fireDataReceived();
+
+            Message message;
+            while ((message = receiver.decode()) != null) {
+                blackhole.consume(message);
+                received++;
+            }
+        }
+        outboundBuffer.clear();
+
+        if (received != BATCH_SIZE) {
+            throw new IllegalStateException("Expected " + BATCH_SIZE + " messages, received: " + received);
+        }
+    }
+
+    private static class FixedBuffer implements BorrowedBuffer<ByteBuffer> {
+
+        private final ByteBuffer buffer;
+
+        FixedBuffer(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public ByteBuffer lockAndGet() {
+            return buffer;
+        }
+
+        @Override
+        public void unlock() {
+            // do nothing
+        }
+
+        @Override
+        public void release() {
+            // do nothing
+        }
+    }
+
+    private static class NoOpChannelHandler implements ChannelHandler {
+
+        @Override
+        public boolean send(Message message) {
+            return false;
+        }
+
+        @Override
+        public Message receive() {
+            return null;
+        }
+
+        @Override
+        public void read() {
+            // do nothing
+        }
+
+        @Override
+        public void register() {
+            // do nothing
+        }
+
+        @Override
+        public void unregister() {
+            // do nothing
+        }
+
+        @Override
+        public void activate() {
+            // do nothing
+        }
+
+        @Override
+        public void deactivate() {
+            // do nothing
+        }
+
+        @Override
+        public void flush() {
+            // do nothing
+        }
+
+        @Override
+        public void close() {
+            // do nothing
+        }
+
+        @Override
+        public boolean isClosed() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2016—2017 Andrei Tomashpolskiy and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package bt.benchmarks;
+
+import bt.data.Bitfield;
+import bt.net.InetPeer;
+import bt.net.Peer;
+import bt.protocol.BitOrder;
+import bt.runtime.Config;
+import bt.torrent.BitfieldBasedStatistics;
+import bt.torrent.messaging.Assignments;
+import bt.torrent.selector.RarestFirstSelector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Piece selection and piece statistics at various piece counts.
+ * Each of the remote peers has a random half of all pieces.
+ *
+ * @since 1.8
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PieceSelectionBenchmark {
+
+    private static final int PEERS_TOTAL = 50;
+
+    @Param({"1024", "8192", "65536"})
+    public int piecesTotal;
+
+    private Bitfield localBitfield;
+    private BitfieldBasedStatistics statistics;
+    private List<Peer> peers;
+    private List<Bitfield> peerBitfields;
+    private Set<Peer> ready;
+    private Config config;
+
+    private Assignments assignments;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(0);
+
+        localBitfield = new Bitfield(piecesTotal);
+        statistics = new BitfieldBasedStatistics(localBitfield);
+        peers = new ArrayList<>(PEERS_TOTAL);
+        peerBitfields = new ArrayList<>(PEERS_TOTAL);
+        for (int i = 0; i < PEERS_TOTAL; i++) {
+            Peer peer = new InetPeer(InetAddress.getLoopbackAddress(), 10000 + i);
+            byte[] bitmask = new byte[(piecesTotal + 7) / 8];
+            random.nextBytes(bitmask);
+            Bitfield bitfield = new Bitfield(bitmask, BitOrder.BIG_ENDIAN, piecesTotal);
+
+            statistics.addBitfield(peer, bitfield);
+            peers.add(peer);
+            peerBitfields.add(bitfield);
+        }
+        ready = new HashSet<>(peers);
+        config = new Config();
+    }
+
+    @Setup(Level.Invocation)
+    public void createAssignments() {
+        assignments = new Assignments(localBitfield, RarestFirstSelector.rarest(), statistics, config);
+    }
+
+    @Benchmark
+    public long rarestFirst() {
+        return RarestFirstSelector.rarest().getNextPieces(statistics).count();
+    }
+
+    @Benchmark
+    public long randomizedRarestFirst() {
+        return RarestFirstSelector.randomizedRarest().getNextPieces(statistics).count();
+    }
+
+    @Benchmark
+    public Set<Peer> updateAssignments() {
+        return assignments.update(ready, Collections.emptySet());
+    }
+
+    @Benchmark
+    public long getCounts() {
+        long total = 0;
+        for (int i = 0; i < piecesTotal; i++) {
+            total += statistics.getCount(i);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public void replacePeerBitfield() {
+        Peer peer = peers.get(0);
+        statistics.removeBitfield(peer);
+        statistics.addBitfield(peer, peerBitfields.get(0));
+    }
+}
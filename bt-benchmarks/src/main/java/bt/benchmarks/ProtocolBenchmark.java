@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2016—2017 Andrei Tomashpolskiy and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package bt.benchmarks;
+
+import bt.metainfo.TorrentId;
+import bt.net.InetPeer;
+import bt.net.Peer;
+import bt.net.PeerId;
+import bt.protocol.Bitfield;
+import bt.protocol.Cancel;
+import bt.protocol.Choke;
+import bt.protocol.DecodingContext;
+import bt.protocol.EncodingContext;
+import bt.protocol.Handshake;
+import bt.protocol.Have;
+import bt.protocol.Interested;
+import bt.protocol.KeepAlive;
+import bt.protocol.Message;
+import bt.protocol.NotInterested;
+import bt.protocol.Piece;
+import bt.protocol.Request;
+import bt.protocol.StandardBittorrentProtocol;
+import bt.protocol.Unchoke;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding and decoding of each of the standard BitTorrent message types.
+ *
+ * @since 1.8
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProtocolBenchmark {
+
+    public enum MessageType {
+        HANDSHAKE, KEEPALIVE, CHOKE, UNCHOKE, INTERESTED, NOT_INTERESTED, HAVE, BITFIELD, REQUEST, PIECE, CANCEL
+    }
+
+    private static final int BLOCK_SIZE = 1 << 14;
+    private static final int PIECES_TOTAL = 8192;
+
+    @Param
+    public MessageType messageType;
+
+    private StandardBittorrentProtocol protocol;
+    private Peer peer;
+    private Message message;
+    private ByteBuffer outBuffer;
+    private ByteBuffer encoded;
+
+    @Setup
+    public void setUp() throws Exception {
+        protocol = new StandardBittorrentProtocol(Collections.emptyMap());
+        peer = new InetPeer(InetAddress.getLoopbackAddress(), 6891);
+        message = createMessage(messageType);
+
+        outBuffer = ByteBuffer.allocate(BLOCK_SIZE * 2);
+        if (!protocol.encode(new EncodingContext(peer), message, outBuffer)) {
+            throw new IllegalStateException("Failed to encode message: " + message);
+        }
+        outBuffer.flip();
+        encoded = ByteBuffer.allocate(outBuffer.remaining());
+        encoded.put(outBuffer);
+        encoded.flip();
+    }
+
+    private static Message createMessage(MessageType messageType) throws Exception {
+        Random random = new Random(0);
+        switch (messageType) {
+            case HANDSHAKE: {
+                byte[] bytes = new byte[20];
+                random.nextBytes(bytes);
+                TorrentId torrentId = TorrentId.fromBytes(bytes);
+                random.nextBytes(bytes);
+                return new Handshake(new byte[8], torrentId, PeerId.fromBytes(bytes));
+            }
+            case KEEPALIVE: return KeepAlive.instance();
+            case CHOKE: return Choke.instance();
+            case UNCHOKE: return Unchoke.instance();
+            case INTERESTED: return Interested.instance();
+            case NOT_INTERESTED: return NotInterested.instance();
+            case HAVE: return new Have(PIECES_TOTAL - 1);
+            case BITFIELD: {
+                byte[] bitfield = new byte[PIECES_TOTAL / 8];
+                random.nextBytes(bitfield);
+                return new Bitfield(bitfield);
+            }
+            case REQUEST: return new Request(PIECES_TOTAL - 1, BLOCK_SIZE, BLOCK_SIZE);
+            case PIECE: {
+                byte[] block = new byte[BLOCK_SIZE];
+                random.nextBytes(block);
+                return new Piece(PIECES_TOTAL - 1, BLOCK_SIZE, block);
+            }
+            case CANCEL: return new Cancel(PIECES_TOTAL - 1, BLOCK_SIZE, BLOCK_SIZE);
+            default: {
+                throw new IllegalArgumentException("Unknown message type: " + messageType);
+            }
+        }
+    }
+
+    @Benchmark
+    public ByteBuffer encode() {
+        outBuffer.clear();
+        protocol.encode(new EncodingContext(peer), message, outBuffer);
+        return outBuffer;
+    }
+
+    @Benchmark
+    public Message decode() {
+        encoded.rewind();
+        DecodingContext context = new DecodingContext(peer);
+        protocol.decode(context, encoded);
+        return context.getMessage();
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2016—2017 Andrei Tomashpolskiy and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package bt.benchmarks.swarm;
+
+import bt.module.BitTorrentProtocol;
+import bt.net.Peer;
+import bt.protocol.DecodingContext;
+import bt.protocol.EncodingContext;
+import bt.protocol.Message;
+import bt.protocol.Piece;
+import bt.protocol.Request;
+import bt.protocol.StandardBittorrentProtocol;
+import bt.protocol.handler.MessageHandler;
+import com.google.inject.Binder;
+import com.google.inject.Module;
+import com.google.inject.Provides;
+import com.google.inject.Singleton;
+
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Decorates the standard BitTorrent protocol to measure block latencies.
+ * Latency of a block is the time between encoding a request for this block
+ * and decoding the corresponding piece message, received from the same peer.
+ *
+ * <p>The same instance of this module should be shared by all runtimes in the swarm,
+ * so that latencies are collected by a single recorder.
+ *
+ * @since 1.8
+ */
+class BlockLatencyModule implements Module {
+
+    private final BlockLatencyRecorder recorder;
+
+    BlockLatencyModule(BlockLatencyRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    @Override
+    public void configure(Binder binder) {
+        // nothing to configure
+    }
+
+    @Provides
+    @Singleton
+    @BitTorrentProtocol
+    public MessageHandler<Message> provideBitTorrentProtocol(StandardBittorrentProtocol protocol) {
+        return new LatencyTrackingProtocol(protocol, recorder);
+    }
+
+    private static class LatencyTrackingProtocol implements MessageHandler<Message> {
+
+        private final MessageHandler<Message> delegate;
+        private final BlockLatencyRecorder recorder;
+        private final ConcurrentMap<BlockKey, Long> requestTimes;
+
+        LatencyTrackingProtocol(MessageHandler<Message> delegate, BlockLatencyRecorder recorder) {
+            this.delegate = delegate;
+            this.recorder = recorder;
+            this.requestTimes = new ConcurrentHashMap<>();
+        }
+
+        @Override
+        public Collection<Class<? extends Message>> getSupportedTypes() {
+            return delegate.getSupportedTypes();
+        }
+
+        @Override
+        public Class<? extends Message> readMessageType(ByteBuffer buffer) {
+            return delegate.readMessageType(buffer);
+        }
+
+        @Override
+        public boolean encode(EncodingContext context, Message message, ByteBuffer buffer) {
+            boolean encoded = delegate.encode(context, message, buffer);
+            if (encoded && message instanceof Request) {
+                Request request = (Request) message;
+                requestTimes.put(new BlockKey(context.getPeer(), request.getPieceIndex(), request.getOffset()),
+                        System.nanoTime());
+            }
+            return encoded;
+        }
+
+        @Override
+        public int decode(DecodingContext context, ByteBuffer buffer) {
+            int consumed = delegate.decode(context, buffer);
+            if (consumed > 0 && context.getMessage() instanceof Piece) {
+                Piece piece = (Piece) context.getMessage();
+                Long requestTime = requestTimes.remove(
+                        new BlockKey(context.getPeer(), piece.getPieceIndex(), piece.getOffset()));
+                if (requestTime != null) {
+                    recorder.record(System.nanoTime() - requestTime);
+                }
+            }
+            return consumed;
+        }
+    }
+
+    private static class BlockKey {
+
+        private final Peer peer;
+        private final int pieceIndex;
+        private final int offset;
+
+        BlockKey(Peer peer, int pieceIndex, int offset) {
+            this.peer = peer;
+            this.pieceIndex = pieceIndex;
+            this.offset = offset;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            BlockKey that = (BlockKey) o;
+            return pieceIndex == that.pieceIndex && offset == that.offset && peer.equals(that.peer);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(peer, pieceIndex, offset);
+        }
+    }
+}
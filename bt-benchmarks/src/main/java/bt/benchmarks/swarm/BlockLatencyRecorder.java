@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2016—2017 Andrei Tomashpolskiy and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package bt.benchmarks.swarm;
+
+import java.util.Arrays;
+
+/**
+ * Collects block latencies, i.e. time between sending a block request
+ * and receiving the requested block, across all peers in the swarm.
+ *
+ * @since 1.8
+ */
+class BlockLatencyRecorder {
+
+    private long[] latencies;
+    private int size;
+
+    BlockLatencyRecorder() {
+        this.latencies = new long[1024];
+    }
+
+    /**
+     * @param latencyNanos Block latency in nanoseconds
+     * @since 1.8
+     */
+    synchronized void record(long latencyNanos) {
+        if (size == latencies.length) {
+            latencies = Arrays.copyOf(latencies, size * 2);
+        }
+        latencies[size++] = latencyNanos;
+    }
+
+    /**
+     * @return Number of recorded latencies
+     * @since 1.8
+     */
+    synchronized int getCount() {
+        return size;
+    }
+
+    /**
+     * @param percentile Percentile in the range (0, 100]
+     * @return Latency in nanoseconds, that is not exceeded by the given percentage of all recorded latencies,
+     *         or -1 if no latencies have been recorded
+     * @since 1.8
+     */
+    synchronized long getPercentile(double percentile) {
+        if (percentile <= 0 || percentile > 100) {
+            throw new IllegalArgumentException("Invalid percentile: " + percentile);
+        }
+        if (size == 0) {
+            return -1;
+        }
+        long[] sorted = Arrays.copyOf(latencies, size);
+        Arrays.sort(sorted);
+        // nearest-rank method
+        int rank = (int) Math.ceil(percentile / 100 * size);
+        return sorted[Math.max(rank, 1) - 1];
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright (c) 2016—2017 Andrei Tomashpolskiy and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package bt.benchmarks.swarm;
+
+import bt.it.fixture.SharedTrackerModule;
+import bt.it.fixture.Swarm;
+import bt.it.fixture.SwarmBuilder;
+import bt.metainfo.Torrent;
+import bt.runtime.BtClient;
+import bt.runtime.Config;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.lang.management.ThreadMXBean;
+import java.net.InetAddress;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs a swarm of seeders and leechers, that communicate via the loopback interface,
+ * and measures how fast the leechers download the torrent.
+ *
+ * @since 1.8
+ */
+class SwarmBenchmark {
+
+    private final SwarmBenchmarkParams params;
+    private final SyntheticTorrent torrent;
+    private final Path fileRoot;
+    private final boolean useInMemoryFileSystem;
+    private final Duration timeout;
+
+    /**
+     * @param params Swarm configuration
+     * @param fileRoot Directory to store the peers' files in
+     * @param useInMemoryFileSystem Store the peers' files in memory instead of {@code fileRoot}
+     * @param timeout Max time to wait for the seeders to verify their data, and then for the leechers
+     *                to complete the download
+     * @since 1.8
+     */
+    SwarmBenchmark(SwarmBenchmarkParams params, Path fileRoot, boolean useInMemoryFileSystem, Duration timeout) {
+        this.params = params;
+        this.torrent = new SyntheticTorrent(params.getTorrentSize(), params.getPieceSize(), params.getFileCount(), 0);
+        this.fileRoot = fileRoot;
+        this.useInMemoryFileSystem = useInMemoryFileSystem;
+        this.timeout = timeout;
+    }
+
+    /**
+     * @return Number of ports, that are occupied by the swarm during a run
+     * @since 1.8
+     */
+    int getPortsCount() {
+        return params.getSeeders() + params.getLeechers();
+    }
+
+    /**
+     * Run the benchmark once.
+     *
+     * @param runId Unique ID of this run
+     * @param startingPort First port to assign to the swarm participants
+     * @throws TimeoutException if the swarm failed to complete the download in time
+     * @since 1.8
+     */
+    SwarmBenchmarkResult run(String runId, int startingPort) throws TimeoutException {
+        BlockLatencyRecorder latencies = new BlockLatencyRecorder();
+
+        // unique tracker URL, so that the shared tracker does not return peers from the previous runs
+        Torrent torrent = this.torrent.createTorrent("http://localhost/announce/" + UUID.randomUUID());
+
+        SwarmBuilder builder = SwarmBuilder.builder(runId, fileRoot, this.torrent.getFiles())
+                .config(createConfig())
+                .seeders(params.getSeeders())
+                .leechers(params.getLeechers())
+                .startingPort(startingPort)
+                .torrentSupplier(() -> torrent)
+                .module(new SharedTrackerModule())
+                .module(new BlockLatencyModule(latencies));
+        if (useInMemoryFileSystem) {
+            builder.useInMemoryFileSystem();
+        }
+
+        Swarm swarm = builder.build();
+        try {
+            List<BtClient> seeders = swarm.getSeederHandles();
+            List<BtClient> leechers = swarm.getLeecherHandles();
+
+            startSeeders(seeders);
+
+            long cpuBefore = getProcessCpuTime();
+            Map<Long, Long> allocatedBefore = getAllocatedBytesPerThread();
+            long started = System.nanoTime();
+
+            CompletableFuture<?>[] downloads = leechers.stream()
+                    .map(BtClient::startAsync)
+                    .toArray(CompletableFuture<?>[]::new);
+            await(CompletableFuture.allOf(downloads), "Leechers failed to complete the download");
+
+            long elapsed = System.nanoTime() - started;
+            long cpuAfter = getProcessCpuTime();
+            Map<Long, Long> allocatedAfter = getAllocatedBytesPerThread();
+
+            long cpu = (cpuBefore < 0 || cpuAfter < 0) ? -1 : cpuAfter - cpuBefore;
+            long allocated = diffAllocatedBytes(allocatedBefore, allocatedAfter);
+            long bytesTransferred = params.getTorrentSize() * params.getLeechers();
+
+            seeders.forEach(BtClient::stop);
+
+            return new SwarmBenchmarkResult(bytesTransferred, elapsed, cpu, allocated, latencies);
+        } finally {
+            swarm.shutdown();
+        }
+    }
+
+    private Config createConfig() {
+        Config config = new Config();
+        config.setAcceptorAddress(InetAddress.getLoopbackAddress());
+        config.setEncryptionPolicy(params.getEncryptionPolicy());
+        config.setTrackerQueryInterval(Duration.ofSeconds(1));
+        config.setPeerDiscoveryInterval(Duration.ofSeconds(1));
+        return config;
+    }
+
+    private void startSeeders(List<BtClient> seeders) throws TimeoutException {
+        int piecesTotal = torrent.getPiecesTotal();
+        CompletableFuture<?>[] verified = new CompletableFuture<?>[seeders.size()];
+        for (int i = 0; i < seeders.size(); i++) {
+            CompletableFuture<Void> seederVerified = new CompletableFuture<>();
+            seeders.get(i).startAsync(state -> {
+                if (state.getPiecesComplete() == piecesTotal) {
+                    seederVerified.complete(null);
+                }
+            }, 100);
+            verified[i] = seederVerified;
+        }
+        await(CompletableFuture.allOf(verified), "Seeders failed to verify their data");
+    }
+
+    private void await(CompletableFuture<?> future, String timeoutMessage) throws TimeoutException {
+        try {
+            future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Unexpectedly interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Unexpected error", e.getCause());
+        } catch (TimeoutException e) {
+            throw new TimeoutException(timeoutMessage + " in " + timeout + " (" + params + ")");
+        }
+    }
+
+    private static long getProcessCpuTime() {
+        OperatingSystemMXBean osBean = ManagementFactory.getOperatingSystemMXBean();
+        if (osBean instanceof com.sun.management.OperatingSystemMXBean) {
+            return ((com.sun.management.OperatingSystemMXBean) osBean).getProcessCpuTime();
+        }
+        return -1;
+    }
+
+    /**
+     * @return Mapping from ID of each live thread to the amount of memory, that it has allocated so far,
+     *         or null if allocated memory measurement is not supported
+     */
+    private static Map<Long, Long> getAllocatedBytesPerThread() {
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        if (!(threadBean instanceof com.sun.management.ThreadMXBean)) {
+            return null;
+        }
+        com.sun.management.ThreadMXBean sunThreadBean = (com.sun.management.ThreadMXBean) threadBean;
+        if (!sunThreadBean.isThreadAllocatedMemorySupported() || !sunThreadBean.isThreadAllocatedMemoryEnabled()) {
+            return null;
+        }
+
+        long[] threadIds = sunThreadBean.getAllThreadIds();
+        long[] allocated = sunThreadBean.getThreadAllocatedBytes(threadIds);
+        Map<Long, Long> result = new HashMap<>();
+        for (int i = 0; i < threadIds.length; i++) {
+            // -1 is returned for threads, that have terminated in between
+            if (allocated[i] >= 0) {
+                result.put(threadIds[i], allocated[i]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Allocations of threads, that terminated before the end of the measurement, are not accounted for,
+     * so this is a lower bound of the actual amount of allocated memory.
+     */
+    private static long diffAllocatedBytes(Map<Long, Long> before, Map<Long, Long> after) {
+        if (before == null || after == null) {
+            return -1;
+        }
+        long allocated = 0;
+        for (Map.Entry<Long, Long> e : after.entrySet()) {
+            allocated += e.getValue() - before.getOrDefault(e.getKey(), 0L);
+        }
+        return allocated;
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2016—2017 Andrei Tomashpolskiy and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package bt.benchmarks.swarm;
+
+import bt.protocol.crypto.EncryptionPolicy;
+
+/**
+ * Parameters of a single swarm benchmark configuration.
+ *
+ * @since 1.8
+ */
+class SwarmBenchmarkParams {
+
+    private final int seeders;
+    private final int leechers;
+    private final long torrentSize;
+    private final int pieceSize;
+    private final int fileCount;
+    private final EncryptionPolicy encryptionPolicy;
+
+    SwarmBenchmarkParams(int seeders,
+                         int leechers,
+                         long torrentSize,
+                         int pieceSize,
+                         int fileCount,
+                         EncryptionPolicy encryptionPolicy) {
+        if (seeders <= 0 || leechers <= 0) {
+            throw new IllegalArgumentException("Swarm must contain at least one seeder and one leecher; seeders: "
+                    + seeders + ", leechers: " + leechers);
+        }
+        this.seeders = seeders;
+        this.leechers = leechers;
+        this.torrentSize = torrentSize;
+        this.pieceSize = pieceSize;
+        this.fileCount = fileCount;
+        this.encryptionPolicy = encryptionPolicy;
+    }
+
+    int getSeeders() {
+        return seeders;
+    }
+
+    int getLeechers() {
+        return leechers;
+    }
+
+    long getTorrentSize() {
+        return torrentSize;
+    }
+
+    int getPieceSize() {
+        return pieceSize;
+    }
+
+    int getFileCount() {
+        return fileCount;
+    }
+
+    EncryptionPolicy getEncryptionPolicy() {
+        return encryptionPolicy;
+    }
+
+    @Override
+    public String toString() {
+        return "seeders=" + seeders + ", leechers=" + leechers + ", torrentSize=" + torrentSize
+                + ", pieceSize=" + pieceSize + ", fileCount=" + fileCount + ", encryptionPolicy=" + encryptionPolicy;
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2016—2017 Andrei Tomashpolskiy and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package bt.benchmarks.swarm;
+
+import java.util.Locale;
+
+/**
+ * Metrics, collected during a single run of the swarm benchmark.
+ *
+ * <p>Metrics, that are not supported by the current JVM, are reported as -1.
+ *
+ * @since 1.8
+ */
+class SwarmBenchmarkResult {
+
+    private static final double MB = 1024 * 1024;
+    private static final double GB = MB * 1024;
+
+    private final long bytesTransferred;
+    private final long elapsedNanos;
+    private final long cpuNanos;
+    private final long allocatedBytes;
+    private final int blocks;
+    private final long p50LatencyNanos;
+    private final long p99LatencyNanos;
+
+    /**
+     * @param bytesTransferred Total number of bytes, that has been downloaded by all leechers
+     * @param elapsedNanos Time between starting the leechers and the last of them completing the download
+     * @param cpuNanos CPU time, consumed by the process during the download, or -1 if not supported
+     * @param allocatedBytes Heap memory, allocated by all threads during the download, or -1 if not supported
+     * @param latencies Block latencies
+     * @since 1.8
+     */
+    SwarmBenchmarkResult(long bytesTransferred,
+                         long elapsedNanos,
+                         long cpuNanos,
+                         long allocatedBytes,
+                         BlockLatencyRecorder latencies) {
+        this.bytesTransferred = bytesTransferred;
+        this.elapsedNanos = elapsedNanos;
+        this.cpuNanos = cpuNanos;
+        this.allocatedBytes = allocatedBytes;
+        this.blocks = latencies.getCount();
+        this.p50LatencyNanos = latencies.getPercentile(50);
+        this.p99LatencyNanos = latencies.getPercentile(99);
+    }
+
+    double getTimeToCompleteMillis() {
+        return elapsedNanos / 1_000_000d;
+    }
+
+    double getThroughputMBps() {
+        return bytesTransferred / MB / seconds(elapsedNanos);
+    }
+
+    double getCpuSecondsPerGB() {
+        return (cpuNanos < 0) ? -1 : seconds(cpuNanos) / (bytesTransferred / GB);
+    }
+
+    double getAllocationRateMBps() {
+        return (allocatedBytes < 0) ? -1 : allocatedBytes / MB / seconds(elapsedNanos);
+    }
+
+    int getBlocks() {
+        return blocks;
+    }
+
+    double getP50LatencyMillis() {
+        return millis(p50LatencyNanos);
+    }
+
+    double getP99LatencyMillis() {
+        return millis(p99LatencyNanos);
+    }
+
+    private static double seconds(long nanos) {
+        return nanos / 1_000_000_000d;
+    }
+
+    private static double millis(long nanos) {
+        return (nanos < 0) ? -1 : nanos / 1_000_000d;
+    }
+
+    /**
+     * @return JSON representation of this result
+     * @since 1.8
+     */
+    String toJson() {
+        return String.format(Locale.ROOT,
+                "{\"timeToCompleteMs\": %.3f, \"throughputMBps\": %.3f, \"cpuSecondsPerGB\": %.3f, "
+                        + "\"allocationRateMBps\": %.3f, \"blocks\": %d, \"p50LatencyMs\": %.3f, \"p99LatencyMs\": %.3f}",
+                getTimeToCompleteMillis(), getThroughputMBps(), getCpuSecondsPerGB(),
+                getAllocationRateMBps(), getBlocks(), getP50LatencyMillis(), getP99LatencyMillis());
+    }
+}
@@ -0,0 +1,291 @@
+/*
+ * Copyright (c) 2016—2017 Andrei Tomashpolskiy and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package bt.benchmarks.swarm;
+
+import bt.protocol.crypto.EncryptionPolicy;
+import joptsimple.OptionException;
+import joptsimple.OptionParser;
+import joptsimple.OptionSet;
+import joptsimple.OptionSpec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs the swarm benchmark for each combination of the provided parameters
+ * and writes the results in JSON format.
+ *
+ * <p>Each parameter accepts a comma-separated list of values, e.g.
+ * {@code --leechers 1,4 --encryption REQUIRE_PLAINTEXT,REQUIRE_ENCRYPTED} results in four configurations.
+ * Sizes may be specified with one of the following suffixes: KB, MB, GB.
+ *
+ * <p>Process exits with non-zero status, if any of the runs failed to complete.
+ *
+ * @since 1.8
+ */
+public class SwarmBenchmarkRunner {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SwarmBenchmarkRunner.class);
+
+    private static final int MAX_PORT = 65535;
+
+    public static void main(String[] args) throws IOException {
+        OptionParser parser = new OptionParser();
+        OptionSpec<Void> helpSpec = parser.acceptsAll(Arrays.asList("?", "h", "help")).forHelp();
+        OptionSpec<Integer> seedersSpec = parser.accepts("seeders", "Number of seeders")
+                .withRequiredArg().ofType(Integer.class).withValuesSeparatedBy(',').defaultsTo(1);
+        OptionSpec<Integer> leechersSpec = parser.accepts("leechers", "Number of leechers")
+                .withRequiredArg().ofType(Integer.class).withValuesSeparatedBy(',').defaultsTo(1);
+        OptionSpec<String> sizeSpec = parser.accepts("size", "Total size of torrent's files")
+                .withRequiredArg().withValuesSeparatedBy(',').defaultsTo("64MB");
+        OptionSpec<String> pieceSizeSpec = parser.accepts("piece-size", "Piece size")
+                .withRequiredArg().withValuesSeparatedBy(',').defaultsTo("256KB");
+        OptionSpec<Integer> filesSpec = parser.accepts("files", "Number of files in torrent")
+                .withRequiredArg().ofType(Integer.class).withValuesSeparatedBy(',').defaultsTo(1);
+        OptionSpec<EncryptionPolicy> encryptionSpec = parser.accepts("encryption", "Encryption policy")
+                .withRequiredArg().ofType(EncryptionPolicy.class).withValuesSeparatedBy(',')
+                .defaultsTo(EncryptionPolicy.REQUIRE_PLAINTEXT);
+        OptionSpec<Integer> warmupsSpec = parser.accepts("warmups", "Number of warmup runs per configuration")
+                .withRequiredArg().ofType(Integer.class).defaultsTo(1);
+        OptionSpec<Integer> iterationsSpec = parser.accepts("iterations", "Number of measured runs per configuration")
+                .withRequiredArg().ofType(Integer.class).defaultsTo(3);
+        OptionSpec<Integer> timeoutSpec = parser.accepts("timeout", "Max duration of a single run, in seconds")
+                .withRequiredArg().ofType(Integer.class).defaultsTo(300);
+        OptionSpec<Integer> portSpec = parser.accepts("port", "First port to assign to swarm participants")
+                .withRequiredArg().ofType(Integer.class).defaultsTo(6891);
+        OptionSpec<Void> diskSpec = parser.accepts("disk", "Store files on disk instead of in memory");
+        OptionSpec<String> dirSpec = parser.accepts("dir", "Directory to store files in, when using disk storage")
+                .withRequiredArg().defaultsTo("swarm-benchmark");
+        OptionSpec<String> outputSpec = parser.accepts("output", "File to write results to")
+                .withRequiredArg().defaultsTo("swarm-benchmark.json");
+
+        OptionSet options;
+        List<SwarmBenchmarkParams> configurations;
+        try {
+            options = parser.parse(args);
+            if (options.has(helpSpec)) {
+                parser.printHelpOn(System.out);
+                return;
+            }
+            configurations = createConfigurations(
+                    options.valuesOf(seedersSpec),
+                    options.valuesOf(leechersSpec),
+                    parseSizes(options.valuesOf(sizeSpec)),
+                    parseSizes(options.valuesOf(pieceSizeSpec)),
+                    options.valuesOf(filesSpec),
+                    options.valuesOf(encryptionSpec));
+        } catch (OptionException | IllegalArgumentException e) {
+            System.err.println("Error parsing command line: " + e.getMessage());
+            parser.printHelpOn(System.err);
+            System.exit(1);
+            return;
+        }
+
+        SwarmBenchmarkRunner runner = new SwarmBenchmarkRunner(
+                options.valueOf(warmupsSpec),
+                options.valueOf(iterationsSpec),
+                Duration.ofSeconds(options.valueOf(timeoutSpec)),
+                options.valueOf(portSpec),
+                Paths.get(options.valueOf(dirSpec)),
+                !options.has(diskSpec));
+
+        boolean success = runner.run(configurations, Paths.get(options.valueOf(outputSpec)));
+        // runtimes may leave non-daemon threads behind
+        System.exit(success ? 0 : 1);
+    }
+
+    private static List<Long> parseSizes(List<String> values) {
+        List<Long> sizes = new ArrayList<>(values.size());
+        for (String value : values) {
+            sizes.add(parseSize(value));
+        }
+        return sizes;
+    }
+
+    private static long parseSize(String value) {
+        String s = value.trim().toUpperCase(Locale.ROOT);
+        long multiplier = 1;
+        if (s.endsWith("KB")) {
+            multiplier = 1024;
+        } else if (s.endsWith("MB")) {
+            multiplier = 1024 * 1024;
+        } else if (s.endsWith("GB")) {
+            multiplier = 1024 * 1024 * 1024;
+        }
+        if (multiplier > 1) {
+            s = s.substring(0, s.length() - 2);
+        }
+        try {
+            return Long.parseLong(s) * multiplier;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid size: " + value);
+        }
+    }
+
+    private static List<SwarmBenchmarkParams> createConfigurations(List<Integer> seeders,
+                                                                   List<Integer> leechers,
+                                                                   List<Long> torrentSizes,
+                                                                   List<Long> pieceSizes,
+                                                                   List<Integer> fileCounts,
+                                                                   List<EncryptionPolicy> encryptionPolicies) {
+        List<SwarmBenchmarkParams> configurations = new ArrayList<>();
+        for (int seederCount : seeders) {
+            for (int leecherCount : leechers) {
+                for (long torrentSize : torrentSizes) {
+                    for (long pieceSize : pieceSizes) {
+                        if (pieceSize > Integer.MAX_VALUE) {
+                            throw new IllegalArgumentException("Piece size is too large: " + pieceSize);
+                        }
+                        for (int fileCount : fileCounts) {
+                            for (EncryptionPolicy encryptionPolicy : encryptionPolicies) {
+                                configurations.add(new SwarmBenchmarkParams(seederCount, leecherCount,
+                                        torrentSize, (int) pieceSize, fileCount, encryptionPolicy));
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return configurations;
+    }
+
+    private final int warmups;
+    private final int iterations;
+    private final Duration timeout;
+    private final int startingPort;
+    private final Path fileRoot;
+    private final boolean useInMemoryFileSystem;
+
+    private int nextPort;
+    private int runCount;
+
+    SwarmBenchmarkRunner(int warmups,
+                         int iterations,
+                         Duration timeout,
+                         int startingPort,
+                         Path fileRoot,
+                         boolean useInMemoryFileSystem) {
+        this.warmups = warmups;
+        this.iterations = iterations;
+        this.timeout = timeout;
+        this.startingPort = startingPort;
+        this.fileRoot = fileRoot;
+        this.useInMemoryFileSystem = useInMemoryFileSystem;
+        this.nextPort = startingPort;
+    }
+
+    /**
+     * @return true if all runs have completed successfully
+     */
+    private boolean run(List<SwarmBenchmarkParams> configurations, Path output) throws IOException {
+        boolean success = true;
+        List<String> reports = new ArrayList<>(configurations.size());
+        for (SwarmBenchmarkParams params : configurations) {
+            LOGGER.info("Running swarm benchmark: {}", params);
+            SwarmBenchmark benchmark = new SwarmBenchmark(params, fileRoot, useInMemoryFileSystem, timeout);
+
+            List<String> runs = new ArrayList<>(iterations);
+            String error = null;
+            try {
+                for (int i = 0; i < warmups; i++) {
+                    SwarmBenchmarkResult result = runOnce(benchmark);
+                    System.out.println("Warmup " + (i + 1) + ": " + result.toJson());
+                }
+                for (int i = 0; i < iterations; i++) {
+                    SwarmBenchmarkResult result = runOnce(benchmark);
+                    System.out.println("Iteration " + (i + 1) + ": " + result.toJson());
+                    runs.add(result.toJson());
+                }
+            } catch (Exception e) {
+                LOGGER.error("Swarm benchmark failed: " + params, e);
+                error = String.valueOf(e.getMessage());
+                success = false;
+            }
+            reports.add(toJson(params, runs, error));
+        }
+
+        Path parent = output.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(output, StandardCharsets.UTF_8))) {
+            writer.println("[");
+            writer.println(String.join(",\n", reports));
+            writer.println("]");
+        }
+        LOGGER.info("Swarm benchmark results have been written to {}", output.toAbsolutePath());
+        return success;
+    }
+
+    private SwarmBenchmarkResult runOnce(SwarmBenchmark benchmark) throws TimeoutException {
+        int portsCount = benchmark.getPortsCount();
+        if (nextPort + portsCount > MAX_PORT) {
+            nextPort = startingPort;
+        }
+        // do not re-use ports of the previous runs, as some of the sockets might still be lingering
+        int port = nextPort;
+        nextPort += portsCount;
+        return benchmark.run("swarm-benchmark-" + (++runCount), port);
+    }
+
+    private static String toJson(SwarmBenchmarkParams params, List<String> runs, String error) {
+        StringBuilder buf = new StringBuilder();
+        buf.append("  {\"params\": {")
+                .append("\"seeders\": ").append(params.getSeeders())
+                .append(", \"leechers\": ").append(params.getLeechers())
+                .append(", \"torrentSize\": ").append(params.getTorrentSize())
+                .append(", \"pieceSize\": ").append(params.getPieceSize())
+                .append(", \"fileCount\": ").append(params.getFileCount())
+                .append(", \"encryptionPolicy\": \"").append(params.getEncryptionPolicy()).append("\"},\n");
+        if (error != null) {
+            buf.append("   \"error\": \"").append(escape(error)).append("\",\n");
+        }
+        buf.append("   \"runs\": [");
+        if (!runs.isEmpty()) {
+            buf.append("\n    ").append(String.join(",\n    ", runs)).append("\n   ");
+        }
+        buf.append("]}");
+        return buf.toString();
+    }
+
+    private static String escape(String s) {
+        StringBuilder buf = new StringBuilder(s.length());
+        for (char c : s.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                buf.append('\\').append(c);
+            } else if (c < 0x20) {
+                buf.append(String.format("\\u%04x", (int) c));
+            } else {
+                buf.append(c);
+            }
+        }
+        return buf.toString();
+    }
+}
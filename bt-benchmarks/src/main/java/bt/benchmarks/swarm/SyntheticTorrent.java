@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2016—2017 Andrei Tomashpolskiy and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package bt.benchmarks.swarm;
+
+import bt.bencoding.BEEncoder;
+import bt.bencoding.model.BEInteger;
+import bt.bencoding.model.BEList;
+import bt.bencoding.model.BEMap;
+import bt.bencoding.model.BEObject;
+import bt.bencoding.model.BEString;
+import bt.metainfo.MetadataService;
+import bt.metainfo.Torrent;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Torrent with pseudo-random contents, that is generated in memory.
+ *
+ * @since 1.8
+ */
+class SyntheticTorrent {
+
+    private static final String NAME = "swarm-benchmark";
+
+    private final Map<String[], byte[]> files;
+    private final int pieceSize;
+    private final byte[] pieceHashes;
+
+    /**
+     * @param size Total size of the torrent's files in bytes
+     * @param pieceSize Piece size in bytes
+     * @param fileCount Number of files. If greater than 1, then a multi-file torrent is created
+     * @param seed Seed for generating the files' contents
+     * @since 1.8
+     */
+    SyntheticTorrent(long size, int pieceSize, int fileCount, long seed) {
+        if (size <= 0 || pieceSize <= 0 || fileCount <= 0) {
+            throw new IllegalArgumentException("Invalid torrent parameters; size: " + size
+                    + ", piece size: " + pieceSize + ", file count: " + fileCount);
+        }
+        if (size / fileCount >= Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("File size is too large: " + (size / fileCount));
+        }
+        this.pieceSize = pieceSize;
+        this.files = createFiles(size, fileCount, new Random(seed));
+        this.pieceHashes = hashPieces(files.values(), pieceSize);
+    }
+
+    private static Map<String[], byte[]> createFiles(long size, int fileCount, Random random) {
+        Map<String[], byte[]> files = new LinkedHashMap<>();
+        if (fileCount == 1) {
+            files.put(new String[]{NAME}, randomBytes((int) size, random));
+        } else {
+            int fileSize = (int) (size / fileCount);
+            for (int i = 0; i < fileCount; i++) {
+                // last file gets the remainder
+                int length = (i == fileCount - 1) ? (int) (size - (long) fileSize * (fileCount - 1)) : fileSize;
+                files.put(new String[]{NAME, "file" + i + ".bin"}, randomBytes(length, random));
+            }
+        }
+        return files;
+    }
+
+    private static byte[] randomBytes(int length, Random random) {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+
+    private static byte[] hashPieces(Iterable<byte[]> contents, int pieceSize) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 is not supported", e);
+        }
+
+        ByteArrayOutputStream hashes = new ByteArrayOutputStream();
+        int pieceRemaining = pieceSize;
+        for (byte[] content : contents) {
+            int offset = 0;
+            while (offset < content.length) {
+                int len = Math.min(pieceRemaining, content.length - offset);
+                digest.update(content, offset, len);
+                offset += len;
+                pieceRemaining -= len;
+                if (pieceRemaining == 0) {
+                    hashes.write(digest.digest(), 0, 20);
+                    pieceRemaining = pieceSize;
+                }
+            }
+        }
+        if (pieceRemaining < pieceSize) {
+            hashes.write(digest.digest(), 0, 20);
+        }
+        return hashes.toByteArray();
+    }
+
+    /**
+     * @return Mapping from file paths (relative to peer's root directory) to file contents
+     * @since 1.8
+     */
+    Map<String[], byte[]> getFiles() {
+        return Collections.unmodifiableMap(files);
+    }
+
+    /**
+     * @return Total number of pieces
+     * @since 1.8
+     */
+    int getPiecesTotal() {
+        return pieceHashes.length / 20;
+    }
+
+    /**
+     * Create a torrent, that describes the generated files.
+     *
+     * @param announce Tracker URL
+     * @since 1.8
+     */
+    Torrent createTorrent(String announce) {
+        Map<String, BEObject<?>> info = new HashMap<>();
+        info.put("name", string(NAME));
+        info.put("piece length", integer(pieceSize));
+        info.put("pieces", new BEString(pieceHashes));
+        if (files.size() == 1) {
+            info.put("length", integer(files.values().iterator().next().length));
+        } else {
+            List<BEMap> fileList = new ArrayList<>(files.size());
+            files.forEach((path, content) -> {
+                List<BEString> pathElements = new ArrayList<>(path.length - 1);
+                // skip torrent name
+                Arrays.stream(path, 1, path.length).forEach(element -> pathElements.add(string(element)));
+
+                Map<String, BEObject<?>> file = new HashMap<>();
+                file.put("length", integer(content.length));
+                file.put("path", new BEList(null, pathElements));
+                fileList.add(new BEMap(null, file));
+            });
+            info.put("files", new BEList(null, fileList));
+        }
+
+        Map<String, BEObject<?>> metainfo = new HashMap<>();
+        metainfo.put("announce", string(announce));
+        metainfo.put("info", new BEMap(null, info));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            BEEncoder.encoder().encode(new BEMap(null, metainfo), out);
+        } catch (IOException e) {
+            // not going to happen with a byte array stream
+            throw new IllegalStateException("Unexpected I/O error", e);
+        }
+        return new MetadataService().fromByteArray(out.toByteArray());
+    }
+
+    private static BEString string(String s) {
+        return new BEString(s.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static BEInteger integer(long value) {
+        return new BEInteger(null, BigInteger.valueOf(value));
+    }
+}
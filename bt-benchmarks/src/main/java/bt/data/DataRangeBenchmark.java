@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2016—2017 Andrei Tomashpolskiy and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package bt.data;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building subranges of a multi-file data range, like it's done when mapping pieces and blocks to files.
+ * Files have random sizes, with the average of 64 KB.
+ *
+ * @since 1.8
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DataRangeBenchmark {
+
+    private static final int AVERAGE_FILE_SIZE = 1 << 16;
+    private static final int OFFSETS_TOTAL = 1024;
+
+    @Param({"10", "100", "1000", "10000"})
+    public int filesTotal;
+
+    @Param({"16384", "262144"})
+    public int subrangeLength;
+
+    private DataRange range;
+    private long[] offsets;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(0);
+
+        List<StorageUnit> units = new ArrayList<>(filesTotal);
+        long totalSize = 0;
+        for (int i = 0; i < filesTotal; i++) {
+            int size = 1 + random.nextInt(AVERAGE_FILE_SIZE * 2);
+            units.add(new MemoryStorageUnit(new byte[size]));
+            totalSize += size;
+        }
+        range = new ReadWriteDataRange(units, 0, units.get(units.size() - 1).capacity());
+
+        offsets = new long[OFFSETS_TOTAL];
+        long maxOffset = Math.max(1, totalSize - subrangeLength);
+        for (int i = 0; i < offsets.length; i++) {
+            offsets[i] = (long) (random.nextDouble() * maxOffset);
+        }
+    }
+
+    @Benchmark
+    public DataRange getSubrange() {
+        long offset = offsets[next++ & (OFFSETS_TOTAL - 1)];
+        return range.getSubrange(offset, Math.min(subrangeLength, range.length() - offset));
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2016—2017 Andrei Tomashpolskiy and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package bt.data;
+
+import bt.data.digest.JavaSecurityDigester;
+import bt.data.range.ByteRange;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SHA-1 digest of a single piece, that is either contiguous in memory
+ * or spread across several files.
+ *
+ * @since 1.8
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DigesterBenchmark {
+
+    private static final int FILES_PER_PIECE = 4;
+
+    @Param({"262144", "4194304"})
+    public int pieceSize;
+
+    @Param({"8192", "1048576"})
+    public int step;
+
+    private JavaSecurityDigester digester;
+    private ByteRange byteRange;
+    private DataRange dataRange;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(0);
+        byte[] piece = new byte[pieceSize];
+        random.nextBytes(piece);
+
+        digester = new JavaSecurityDigester("SHA-1", step);
+        byteRange = new ByteRange(piece);
+
+        int fileSize = pieceSize / FILES_PER_PIECE;
+        List<StorageUnit> units = new ArrayList<>(FILES_PER_PIECE);
+        for (int i = 0; i < FILES_PER_PIECE; i++) {
+            byte[] data = new byte[fileSize];
+            System.arraycopy(piece, i * fileSize, data, 0, fileSize);
+            units.add(new MemoryStorageUnit(data));
+        }
+        dataRange = new ReadWriteDataRange(units, 0, fileSize);
+    }
+
+    @Benchmark
+    public byte[] digestByteRange() {
+        return digester.digest(byteRange);
+    }
+
+    @Benchmark
+    public byte[] digestDataRange() {
+        return digester.digest(dataRange);
+    }
+}
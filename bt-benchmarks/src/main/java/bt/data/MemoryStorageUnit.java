@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2016—2017 Andrei Tomashpolskiy and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package bt.data;
+
+
+import java.nio.ByteBuffer;
+
+/**
+ * Storage unit, that keeps its data in memory.
+ */
+class MemoryStorageUnit implements StorageUnit {
+
+    private final byte[] data;
+
+    MemoryStorageUnit(byte[] data) {
+        this.data = data;
+    }
+
+    @Override
+    public void readBlock(ByteBuffer buffer, long offset) {
+        buffer.put(data, (int) offset, Math.min(buffer.remaining(), data.length - (int) offset));
+    }
+
+    @Override
+    public byte[] readBlock(long offset, int length) {
+        byte[] block = new byte[length];
+        System.arraycopy(data, (int) offset, block, 0, length);
+        return block;
+    }
+
+    @Override
+    public void writeBlock(ByteBuffer buffer, long offset) {
+        buffer.get(data, (int) offset, buffer.remaining());
+    }
+
+    @Override
+    public void writeBlock(byte[] block, long offset) {
+        System.arraycopy(block, 0, data, (int) offset, block.length);
+    }
+
+    @Override
+    public long capacity() {
+        return data.length;
+    }
+
+    @Override
+    public long size() {
+        return data.length;
+    }
+
+    @Override
+    public void close() {
+        // do nothing
+    }
+}
@@ -25,13 +25,11 @@ import bt.bencoding.model.BEString;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.TreeMap;
-import java.util.function.BinaryOperator;
-import java.util.stream.Collectors;
 
 /**
  * BEncoding encoder.
@@ -82,7 +80,7 @@ public class BEEncoder {
 
         BigInteger value = integer.getValue();
         write(out, BEParser.INTEGER_PREFIX);
-        write(out, Integer.toString(value.intValueExact()).getBytes(defaultCharset));
+        write(out, value.toString().getBytes(defaultCharset));
         write(out, BEParser.EOF);
     }
 
@@ -115,16 +113,7 @@ public class BEEncoder {
 
         write(out, BEParser.MAP_PREFIX);
 
-        TreeMap<byte[], BEObject<?>> values = map.getValue().entrySet().stream()
-                .collect(Collectors.toMap(
-                        e -> e.getKey().getBytes(defaultCharset),
-                        Map.Entry::getValue,
-                        (BinaryOperator<BEObject<?>>) (u, u2) -> {
-                            throw new IllegalStateException();
-                        },
-                        () -> new TreeMap<>(ByteStringComparator.comparator())));
-
-        for (Map.Entry<byte[], BEObject<?>> e : values.entrySet()) {
+        for (Map.Entry<byte[], BEObject<?>> e : map.getSortedEntries()) {
             encodeString(e.getKey(), out);
             e.getValue().writeTo(out);
         }
@@ -132,6 +121,179 @@ public class BEEncoder {
         write(out, BEParser.EOF);
     }
 
+    /**
+     * Calculate the exact length of the object's binary representation,
+     * i.e. the number of bytes, that will be produced by encoding this object.
+     *
+     * @since 1.8
+     */
+    public int encodedLength(BEObject<?> object) {
+        Objects.requireNonNull(object);
+
+        switch (object.getType()) {
+            case STRING: {
+                return stringLength(((BEString) object).length());
+            }
+            case INTEGER: {
+                BigInteger value = ((BEInteger) object).getValue();
+                int digits = (value.bitLength() < Long.SIZE) ?
+                        decimalLength(value.longValue()) : value.toString().length();
+                return digits + 2;
+            }
+            case LIST: {
+                int length = 2;
+                for (BEObject<?> value : ((BEList) object).getValue()) {
+                    length += encodedLength(value);
+                }
+                return length;
+            }
+            case MAP: {
+                int length = 2;
+                for (Map.Entry<byte[], BEObject<?>> e : ((BEMap) object).getSortedEntries()) {
+                    length += stringLength(e.getKey().length);
+                    length += encodedLength(e.getValue());
+                }
+                return length;
+            }
+            default: {
+                throw new IllegalArgumentException("Unexpected type: " + object.getType());
+            }
+        }
+    }
+
+    /**
+     * Write bencoded object directly to the provided buffer, starting with the buffer's current position.
+     * Nothing is written, if the buffer does not have enough space to hold the whole encoded object.
+     *
+     * @return true if the object has been written, false if the buffer has insufficient space
+     *         (see {@link #encodedLength(BEObject)})
+     * @since 1.8
+     */
+    public boolean encode(BEObject<?> object, ByteBuffer buffer) {
+        if (buffer.remaining() < encodedLength(object)) {
+            return false;
+        }
+        write(object, buffer);
+        return true;
+    }
+
+    /**
+     * Calculate the exact length of the binary representation of an integer.
+     * Allows to encode simple messages without creating the object model (see {@link #encode(long, ByteBuffer)}).
+     *
+     * @since 1.8
+     */
+    public int encodedLength(long integer) {
+        return decimalLength(integer) + 2;
+    }
+
+    /**
+     * Calculate the exact length of the binary representation of a string.
+     * Allows to encode simple messages without creating the object model (see {@link #encode(byte[], ByteBuffer)}).
+     *
+     * @since 1.8
+     */
+    public int encodedLength(byte[] string) {
+        return stringLength(string.length);
+    }
+
+    /**
+     * Write bencoded integer directly to the provided buffer, starting with the buffer's current position.
+     * It's up to the caller to ensure that the buffer has enough space (see {@link #encodedLength(long)}).
+     *
+     * @since 1.8
+     */
+    public void encode(long integer, ByteBuffer buffer) {
+        buffer.put((byte) BEParser.INTEGER_PREFIX);
+        writeDecimal(integer, buffer);
+        buffer.put((byte) BEParser.EOF);
+    }
+
+    /**
+     * Write bencoded string directly to the provided buffer, starting with the buffer's current position.
+     * It's up to the caller to ensure that the buffer has enough space (see {@link #encodedLength(byte[])}).
+     *
+     * @since 1.8
+     */
+    public void encode(byte[] string, ByteBuffer buffer) {
+        writeString(string, buffer);
+    }
+
+    private void write(BEObject<?> object, ByteBuffer buffer) {
+        switch (object.getType()) {
+            case STRING: {
+                writeString(((BEString) object).getValue(), buffer);
+                break;
+            }
+            case INTEGER: {
+                BigInteger value = ((BEInteger) object).getValue();
+                buffer.put((byte) BEParser.INTEGER_PREFIX);
+                if (value.bitLength() < Long.SIZE) {
+                    writeDecimal(value.longValue(), buffer);
+                } else {
+                    buffer.put(value.toString().getBytes(defaultCharset));
+                }
+                buffer.put((byte) BEParser.EOF);
+                break;
+            }
+            case LIST: {
+                buffer.put((byte) BEParser.LIST_PREFIX);
+                for (BEObject<?> value : ((BEList) object).getValue()) {
+                    write(value, buffer);
+                }
+                buffer.put((byte) BEParser.EOF);
+                break;
+            }
+            case MAP: {
+                buffer.put((byte) BEParser.MAP_PREFIX);
+                for (Map.Entry<byte[], BEObject<?>> e : ((BEMap) object).getSortedEntries()) {
+                    writeString(e.getKey(), buffer);
+                    write(e.getValue(), buffer);
+                }
+                buffer.put((byte) BEParser.EOF);
+                break;
+            }
+            default: {
+                throw new IllegalArgumentException("Unexpected type: " + object.getType());
+            }
+        }
+    }
+
+    private static void writeString(byte[] bytes, ByteBuffer buffer) {
+        writeDecimal(bytes.length, buffer);
+        buffer.put((byte) ':');
+        buffer.put(bytes);
+    }
+
+    private static int stringLength(int length) {
+        return decimalLength(length) + 1 + length;
+    }
+
+    private static int decimalLength(long value) {
+        // working with non-positive values to correctly handle Long.MIN_VALUE
+        long n = (value < 0) ? value : -value;
+        int length = (value < 0) ? 2 : 1;
+        while (n <= -10) {
+            n /= 10;
+            length++;
+        }
+        return length;
+    }
+
+    private static void writeDecimal(long value, ByteBuffer buffer) {
+        int end = buffer.position() + decimalLength(value);
+        int i = end;
+        long n = (value < 0) ? value : -value;
+        do {
+            buffer.put(--i, (byte) ('0' - (n % 10)));
+            n /= 10;
+        } while (n != 0);
+        if (value < 0) {
+            buffer.put(--i, (byte) '-');
+        }
+        buffer.position(end);
+    }
+
     private void write(OutputStream out, int i) throws IOException {
         out.write(i);
     }
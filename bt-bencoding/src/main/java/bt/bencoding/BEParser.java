@@ -25,6 +25,10 @@ import bt.bencoding.model.BEString;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.Objects;
 
 /**
@@ -40,7 +44,9 @@ public class BEParser implements AutoCloseable {
     static final char LIST_PREFIX = 'l';
     static final char MAP_PREFIX = 'd';
 
+    // exactly one of the scanners is used, depending on the source
     private Scanner scanner;
+    private BufferScanner bufferScanner;
     private final BEType type;
     private Object parsedObject;
 
@@ -75,6 +81,9 @@ public class BEParser implements AutoCloseable {
     /**
      * Create a parser for the provided bencoded document.
      *
+     * <p>The array is parsed in place, without copying,
+     * so it must not be modified until the parsed objects are no longer used.
+     *
      * @param bs Bencoded document.
      * @since 1.0
      */
@@ -83,8 +92,49 @@ public class BEParser implements AutoCloseable {
         if (bs == null || bs.length == 0) {
             throw new IllegalArgumentException("Can't parse bytes array: null or empty");
         }
-        this.scanner = new Scanner(bs);
-        this.type = getTypeForPrefix((char) scanner.peek());
+        this.bufferScanner = new BufferScanner(ByteBuffer.wrap(bs));
+        this.type = getTypeForPrefix((char) bufferScanner.peek());
+    }
+
+    /**
+     * Create a parser for the provided bencoded document.
+     *
+     * <p>The document is parsed in place: parsed objects are backed by the regions of the provided buffer,
+     * and their binary representations ({@link BEObject#getContent()}) are copied only upon request.
+     * Hence, the caller should not modify the buffer's contents while the parsed objects are in use.
+     *
+     * @param buffer Buffer, containing the bencoded document between its' position and limit.
+     *               Position and limit of the buffer are not modified.
+     * @since 1.8
+     */
+    public BEParser(ByteBuffer buffer) {
+
+        if (buffer == null || !buffer.hasRemaining()) {
+            throw new IllegalArgumentException("Can't parse buffer: null or empty");
+        }
+        this.bufferScanner = new BufferScanner(buffer);
+        this.type = getTypeForPrefix((char) bufferScanner.peek());
+    }
+
+    /**
+     * Create a parser for the provided file.
+     * The file is memory-mapped and parsed in place (see {@link #BEParser(ByteBuffer)}).
+     *
+     * @param file File's content must be a well-formed bencoded document.
+     * @since 1.8
+     */
+    public BEParser(Path file) {
+        this(map(file));
+    }
+
+    private static ByteBuffer map(Path file) {
+        Objects.requireNonNull(file, "Missing file");
+        // mapping remains valid after the channel has been closed
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException e) {
+            throw new BtParseException("Failed to map file: " + file, new byte[0], e);
+        }
     }
 
     /**
@@ -201,11 +251,21 @@ public class BEParser implements AutoCloseable {
         @SuppressWarnings("unchecked")
         T result = (T) parsedObject;
         if (result == null) {
-            try {
-                // relying on the default constructor being present
-                parsedObject = result = scanner.readObject(builderClass.newInstance());
-            } catch (Exception e) {
-                throw new BtParseException("Failed to read from encoded data", scanner.getScannedContents(), e);
+            if (bufferScanner != null) {
+                try {
+                    @SuppressWarnings("unchecked")
+                    T object = (T) bufferScanner.readObject();
+                    parsedObject = result = object;
+                } catch (Exception e) {
+                    throw new BtParseException("Failed to read from encoded data", bufferScanner.getScannedContents(), e);
+                }
+            } else {
+                try {
+                    // relying on the default constructor being present
+                    parsedObject = result = scanner.readObject(builderClass.newInstance());
+                } catch (Exception e) {
+                    throw new BtParseException("Failed to read from encoded data", scanner.getScannedContents(), e);
+                }
             }
         }
         return result;
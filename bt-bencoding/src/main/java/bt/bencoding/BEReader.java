@@ -0,0 +1,461 @@
+/*
+ * Copyright (c) 2016—2017 Andrei Tomashpolskiy and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package bt.bencoding;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * Streaming (pull) reader of bencoded documents.
+ *
+ * <p>Unlike {@link BEParser}, does not build a tree of objects:
+ * the caller advances through the document token by token,
+ * reads the values it is interested in (integers are read as primitive longs)
+ * and skips the rest. Strings are not copied unless requested.
+ *
+ * <p>Typical usage:
+ *
+ * <pre>
+ * BEReader reader = new BEReader(bytes);
+ * reader.nextToken(); // MAP_START
+ * while (reader.nextToken() != BEReader.Token.END) {
+ *     String key = reader.readString();
+ *     reader.nextToken();
+ *     if ("interval".equals(key)) {
+ *         interval = reader.readLong();
+ *     } else {
+ *         reader.skipValue();
+ *     }
+ * }
+ * </pre>
+ *
+ * <p>Instances of this class are not thread-safe.
+ *
+ * @since 1.8
+ */
+public class BEReader {
+
+    /**
+     * Bencoding token.
+     *
+     * @since 1.8
+     */
+    public enum Token {
+
+        /**
+         * Start of a dictionary. Followed by alternating keys (strings) and values, and terminated by {@link #END}.
+         *
+         * @since 1.8
+         */
+        MAP_START,
+
+        /**
+         * Start of a list. Followed by values and terminated by {@link #END}.
+         *
+         * @since 1.8
+         */
+        LIST_START,
+
+        /**
+         * End of the current dictionary or list.
+         *
+         * @since 1.8
+         */
+        END,
+
+        /**
+         * Binary string.
+         *
+         * @since 1.8
+         */
+        STRING,
+
+        /**
+         * Integer.
+         *
+         * @since 1.8
+         */
+        INTEGER
+    }
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final ByteBuffer source;
+    private final int start;
+    private final int limit;
+    private int position;
+
+    private Token token;
+    private int tokenStart;
+    // for strings: bounds of the string's value; for integers: bounds of the decimal representation
+    private int valueStart;
+    private int valueEnd;
+
+    // number of values read in each of the enclosing containers;
+    // negative values are used for dictionaries, positive for lists
+    private int[] containers;
+    private int depth;
+    private boolean finished;
+
+    /**
+     * Create a reader for the provided bencoded document.
+     *
+     * @since 1.8
+     */
+    public BEReader(byte[] bytes) {
+        this(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * Create a reader for the provided bencoded document.
+     *
+     * @param buffer Buffer, containing the bencoded document between its' position and limit.
+     *               Position and limit of the buffer are not modified.
+     *               The caller should not modify the buffer's contents while reading.
+     * @since 1.8
+     */
+    public BEReader(ByteBuffer buffer) {
+        this.source = buffer;
+        this.start = buffer.position();
+        this.limit = buffer.limit();
+        this.position = start;
+        this.containers = new int[8];
+    }
+
+    /**
+     * Advance to the next token.
+     *
+     * <p>Strings and integers are consumed entirely,
+     * and their values can be retrieved by the means of {@code read*} methods
+     * until the next call to this method.
+     *
+     * @return Next token, or null if the root object has been read entirely
+     * @throws BtParseException if the document is malformed
+     * @since 1.8
+     */
+    public Token nextToken() {
+        if (finished || (depth == 0 && token != null)) {
+            // root object has been read
+            finished = true;
+            token = null;
+            return null;
+        }
+
+        tokenStart = position;
+        int c = next();
+        switch (c) {
+            case BEParser.MAP_PREFIX: {
+                onValue();
+                push(-1);
+                token = Token.MAP_START;
+                break;
+            }
+            case BEParser.LIST_PREFIX: {
+                onValue();
+                push(1);
+                token = Token.LIST_START;
+                break;
+            }
+            case BEParser.EOF: {
+                if (depth == 0) {
+                    throw error("Unexpected end of container");
+                }
+                int count = containers[depth - 1];
+                if (count < 0 && count % 2 == 0) {
+                    // count starts with -1 for dictionaries
+                    throw error("Missing value for dictionary key");
+                }
+                depth--;
+                token = Token.END;
+                break;
+            }
+            case BEParser.INTEGER_PREFIX: {
+                onValue();
+                readIntegerBounds();
+                token = Token.INTEGER;
+                break;
+            }
+            default: {
+                if (c < '0' || c > '9') {
+                    throw error("Invalid type prefix: " + (char) c);
+                }
+                position--;
+                onString();
+                readStringBounds();
+                token = Token.STRING;
+            }
+        }
+        return token;
+    }
+
+    /**
+     * @return Current token (i.e. the token returned by the last call to {@link #nextToken()})
+     * @since 1.8
+     */
+    public Token currentToken() {
+        return token;
+    }
+
+    /**
+     * @return true if there are more values in the current dictionary or list,
+     *         i.e. the next token is not {@link Token#END}
+     * @since 1.8
+     */
+    public boolean hasNext() {
+        return position < limit && source.get(position) != BEParser.EOF;
+    }
+
+    /**
+     * Skip the current value. If the current token is the start of a dictionary or a list,
+     * then the reader advances past the corresponding {@link Token#END} token.
+     * Otherwise, has no effect.
+     *
+     * @since 1.8
+     */
+    public void skipValue() {
+        if (token == Token.MAP_START || token == Token.LIST_START) {
+            int targetDepth = depth - 1;
+            while (depth > targetDepth) {
+                nextToken();
+            }
+        }
+    }
+
+    /**
+     * Skip the current value and get its' binary representation.
+     *
+     * @return View of the source, containing the complete binary representation of the current value
+     *         (including type prefix and terminator, if applicable)
+     * @since 1.8
+     */
+    public ByteBuffer readRawValue() {
+        if (token == null || token == Token.END) {
+            throw new IllegalStateException("Current token is not a value: " + token);
+        }
+        int valueStart = tokenStart;
+        skipValue();
+        return view(valueStart, position);
+    }
+
+    /**
+     * @return Value of the current integer
+     * @throws IllegalStateException if the current token is not an integer
+     * @throws ArithmeticException if the value does not fit into a long
+     * @since 1.8
+     */
+    public long readLong() {
+        assertToken(Token.INTEGER);
+        int i = valueStart;
+        boolean negative = (source.get(i) == '-');
+        if (negative) {
+            i++;
+        }
+        long value = 0;
+        for (; i < valueEnd; i++) {
+            int digit = source.get(i) - '0';
+            // accumulating negative value to be able to represent Long.MIN_VALUE
+            if (value < (Long.MIN_VALUE + digit) / 10) {
+                throw new ArithmeticException("Integer overflow: " + new String(copy(valueStart, valueEnd), UTF_8));
+            }
+            value = value * 10 - digit;
+        }
+        if (!negative) {
+            if (value == Long.MIN_VALUE) {
+                throw new ArithmeticException("Integer overflow: " + new String(copy(valueStart, valueEnd), UTF_8));
+            }
+            value = -value;
+        }
+        return value;
+    }
+
+    /**
+     * @return Value of the current integer
+     * @throws IllegalStateException if the current token is not an integer
+     * @throws ArithmeticException if the value does not fit into an int
+     * @since 1.8
+     */
+    public int readInt() {
+        long value = readLong();
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new ArithmeticException("Integer overflow: " + value);
+        }
+        return (int) value;
+    }
+
+    /**
+     * @return Value of the current integer of arbitrary size
+     * @throws IllegalStateException if the current token is not an integer
+     * @since 1.8
+     */
+    public BigInteger readBigInteger() {
+        assertToken(Token.INTEGER);
+        return new BigInteger(new String(copy(valueStart, valueEnd), UTF_8));
+    }
+
+    /**
+     * @return Copy of the current string
+     * @throws IllegalStateException if the current token is not a string
+     * @since 1.8
+     */
+    public byte[] readBytes() {
+        assertToken(Token.STRING);
+        return copy(valueStart, valueEnd);
+    }
+
+    /**
+     * @return View of the source, containing the current string (without copying)
+     * @throws IllegalStateException if the current token is not a string
+     * @since 1.8
+     */
+    public ByteBuffer readBuffer() {
+        assertToken(Token.STRING);
+        return view(valueStart, valueEnd);
+    }
+
+    /**
+     * @return Current string, decoded with UTF-8 charset
+     * @throws IllegalStateException if the current token is not a string
+     * @since 1.8
+     */
+    public String readString() {
+        return readString(UTF_8);
+    }
+
+    /**
+     * @return Current string, decoded with the provided charset
+     * @throws IllegalStateException if the current token is not a string
+     * @since 1.8
+     */
+    public String readString(Charset charset) {
+        assertToken(Token.STRING);
+        if (source.hasArray()) {
+            return new String(source.array(), source.arrayOffset() + valueStart, valueEnd - valueStart, charset);
+        }
+        return new String(copy(valueStart, valueEnd), charset);
+    }
+
+    /**
+     * @return Number of bytes of the source, that have been read so far
+     * @since 1.8
+     */
+    public int getBytesRead() {
+        return position - start;
+    }
+
+    private void onValue() {
+        if (depth > 0) {
+            int count = containers[depth - 1];
+            if (count < 0 && count % 2 != 0) {
+                throw error("Dictionary key must be a string");
+            }
+            containers[depth - 1] = (count < 0) ? count - 1 : count + 1;
+        }
+    }
+
+    private void onString() {
+        if (depth > 0) {
+            int count = containers[depth - 1];
+            containers[depth - 1] = (count < 0) ? count - 1 : count + 1;
+        }
+    }
+
+    private void push(int initialCount) {
+        if (depth == containers.length) {
+            containers = Arrays.copyOf(containers, depth * 2);
+        }
+        containers[depth++] = initialCount;
+    }
+
+    private void readStringBounds() {
+        long length = 0;
+        int digits = 0;
+        int c;
+        while ((c = next()) != BEStringBuilder.DELIMITER) {
+            if (c < '0' || c > '9') {
+                throw error("Unexpected token while reading string's length (as ASCII char): " + (char) c);
+            }
+            length = length * 10 + (c - '0');
+            if (length > Integer.MAX_VALUE) {
+                throw error("String is too long");
+            }
+            digits++;
+        }
+        if (digits == 0) {
+            throw error("Missing string length");
+        }
+        if (length > limit - position) {
+            throw error("Insufficient content for string of length " + length);
+        }
+        valueStart = position;
+        valueEnd = position + (int) length;
+        position = valueEnd;
+    }
+
+    private void readIntegerBounds() {
+        valueStart = position;
+        int c = next();
+        if (c == '-') {
+            c = next();
+        }
+        int digits = 0;
+        while (c != BEParser.EOF) {
+            if (c < '0' || c > '9') {
+                throw error("Unexpected token while reading integer (as ASCII char): " + (char) c);
+            }
+            digits++;
+            c = next();
+        }
+        if (digits == 0) {
+            throw error("Integer has no digits");
+        }
+        valueEnd = position - 1;
+    }
+
+    private int next() {
+        if (position >= limit) {
+            throw error("Unexpected end of data");
+        }
+        return source.get(position++);
+    }
+
+    private void assertToken(Token expected) {
+        if (token != expected) {
+            throw new IllegalStateException("Current token is not " + expected.name().toLowerCase() + ": " + token);
+        }
+    }
+
+    private ByteBuffer view(int from, int to) {
+        ByteBuffer view = source.duplicate();
+        view.limit(to);
+        view.position(from);
+        return view.slice();
+    }
+
+    private byte[] copy(int from, int to) {
+        byte[] bytes = new byte[to - from];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = source.get(from + i);
+        }
+        return bytes;
+    }
+
+    private BtParseException error(String message) {
+        return new BtParseException(message, copy(start, Math.min(position, limit)));
+    }
+}
@@ -0,0 +1,234 @@
+/*
+ * Copyright (c) 2016—2017 Andrei Tomashpolskiy and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package bt.bencoding;
+
+import bt.bencoding.model.BEInteger;
+import bt.bencoding.model.BEList;
+import bt.bencoding.model.BEMap;
+import bt.bencoding.model.BEObject;
+import bt.bencoding.model.BEString;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Index-based scanner over an in-memory (or memory-mapped) bencoded document.
+ *
+ * <p>Unlike {@link Scanner}, does not copy the scanned data:
+ * parsed objects are backed by views of the source buffer,
+ * and their binary representations are copied only on demand.
+ *
+ * @since 1.8
+ */
+class BufferScanner {
+
+    // max number of decimal digits, that always fit into a long
+    private static final int MAX_LONG_DIGITS = 18;
+
+    private static final Charset KEY_CHARSET = Charset.forName("UTF-8");
+
+    private final ByteBuffer source;
+    private final int limit;
+    private int position;
+
+    /**
+     * @param source Buffer, containing the bencoded document between its' position and limit.
+     *               Position and limit of the buffer are not modified.
+     */
+    BufferScanner(ByteBuffer source) {
+        this.source = source;
+        this.position = source.position();
+        this.limit = source.limit();
+    }
+
+    int peek() {
+        return (position < limit) ? source.get(position) : -1;
+    }
+
+    BEObject<?> readObject() {
+        int c = peek();
+        if (c == -1) {
+            throw new IllegalStateException("Unexpected end of data");
+        }
+        switch (BEParser.getTypeForPrefix((char) c)) {
+            case STRING: {
+                return readString();
+            }
+            case INTEGER: {
+                return readInteger();
+            }
+            case LIST: {
+                return readList();
+            }
+            case MAP: {
+                return readMap();
+            }
+            default: {
+                throw new IllegalStateException("Invalid type prefix: " + (char) c);
+            }
+        }
+    }
+
+    BEString readString() {
+        int length = readStringLength();
+        BEString string = BEString.fromBuffer(view(position, length));
+        position += length;
+        return string;
+    }
+
+    private int readStringLength() {
+        long length = 0;
+        int digits = 0;
+        int c;
+        while ((c = next()) != BEStringBuilder.DELIMITER) {
+            if (c < '0' || c > '9') {
+                throw new IllegalArgumentException(
+                        "Unexpected token while reading string's length (as ASCII char): " + (char) c);
+            }
+            length = length * 10 + (c - '0');
+            if (length > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("String is too long");
+            }
+            digits++;
+        }
+        if (digits == 0) {
+            throw new IllegalArgumentException("Missing string length");
+        }
+        if (length > limit - position) {
+            throw new IllegalStateException("Can't build string: insufficient content");
+        }
+        return (int) length;
+    }
+
+    BEInteger readInteger() {
+        int start = position;
+        expect(BEParser.INTEGER_PREFIX);
+
+        boolean negative = (peek() == '-');
+        if (negative) {
+            position++;
+        }
+
+        int digitsStart = position;
+        long value = 0;
+        int c;
+        while ((c = next()) != BEParser.EOF) {
+            if (c < '0' || c > '9') {
+                throw new IllegalArgumentException(
+                        "Unexpected token while reading integer (as ASCII char): " + (char) c);
+            }
+            value = value * 10 + (c - '0');
+        }
+        int digits = position - 1 - digitsStart;
+        if (digits == 0) {
+            throw new IllegalArgumentException("Can't build integer -- no digits");
+        }
+
+        BigInteger bigValue;
+        if (digits <= MAX_LONG_DIGITS) {
+            bigValue = BigInteger.valueOf(negative ? -value : value);
+        } else {
+            // value might have overflowed; parse the decimal representation
+            byte[] chars = new byte[position - 1 - start - 1];
+            for (int i = 0; i < chars.length; i++) {
+                chars[i] = source.get(start + 1 + i);
+            }
+            bigValue = new BigInteger(new String(chars, KEY_CHARSET));
+        }
+        return BEInteger.fromBuffer(view(start, position - start), bigValue);
+    }
+
+    BEList readList() {
+        int start = position;
+        expect(BEParser.LIST_PREFIX);
+
+        List<BEObject<?>> values = new ArrayList<>();
+        while (peek() != BEParser.EOF) {
+            values.add(readObject());
+        }
+        position++;
+        return BEList.fromBuffer(view(start, position - start), values);
+    }
+
+    BEMap readMap() {
+        int start = position;
+        expect(BEParser.MAP_PREFIX);
+
+        Map<String, BEObject<?>> values = new HashMap<>();
+        while (peek() != BEParser.EOF) {
+            String key = readKey();
+            values.put(key, readObject());
+        }
+        position++;
+        return BEMap.fromBuffer(view(start, position - start), values);
+    }
+
+    private String readKey() {
+        int length = readStringLength();
+        String key;
+        if (source.hasArray()) {
+            key = new String(source.array(), source.arrayOffset() + position, length, KEY_CHARSET);
+        } else {
+            byte[] bytes = new byte[length];
+            ByteBuffer view = source.duplicate();
+            view.position(position);
+            view.get(bytes, 0, length);
+            key = new String(bytes, KEY_CHARSET);
+        }
+        position += length;
+        return key;
+    }
+
+    private int next() {
+        if (position >= limit) {
+            throw new IllegalStateException("Unexpected end of data");
+        }
+        return source.get(position++);
+    }
+
+    private void expect(char c) {
+        int b = next();
+        if (b != c) {
+            throw new IllegalArgumentException("Unexpected token (as ASCII char): " + (char) b + "; expected: " + c);
+        }
+    }
+
+    // the only per-object allocation; the model's content holder keeps absolute indices and does not slice it again
+    private ByteBuffer view(int start, int length) {
+        ByteBuffer view = source.duplicate();
+        view.limit(start + length);
+        view.position(start);
+        return view;
+    }
+
+    /**
+     * @return Copy of the portion of the source, that has been scanned so far
+     */
+    byte[] getScannedContents() {
+        int start = source.position();
+        byte[] bytes = new byte[Math.min(position, limit) - start];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = source.get(start + i);
+        }
+        return bytes;
+    }
+}
@@ -23,12 +23,18 @@ import java.util.Comparator;
  *
  * This means that negative numbers go after positive numbers,
  * because they represent higher order characters (128-255).
+ *
+ * @since 1.8
  */
-class ByteStringComparator implements Comparator<byte[]> {
+public class ByteStringComparator implements Comparator<byte[]> {
 
     private static final ByteStringComparator instance = new ByteStringComparator();
 
-    static ByteStringComparator comparator() {
+    /**
+     * @return Shared comparator instance
+     * @since 1.8
+     */
+    public static ByteStringComparator comparator() {
         return instance;
     }
 
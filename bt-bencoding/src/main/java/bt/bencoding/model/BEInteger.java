@@ -21,6 +21,7 @@ import bt.bencoding.BEType;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.math.BigInteger;
 
 /**
@@ -33,7 +34,7 @@ import java.math.BigInteger;
  */
 public class BEInteger implements BEObject<BigInteger> {
 
-    private byte[] content;
+    private LazyContent content;
     private BigInteger value;
     private BEEncoder encoder;
 
@@ -43,6 +44,25 @@ public class BEInteger implements BEObject<BigInteger> {
      * @since 1.0
      */
     public BEInteger(byte[] content, BigInteger value) {
+        this.content = new LazyContent(content);
+        this.value = value;
+        encoder = BEEncoder.encoder();
+    }
+
+    /**
+     * Create a integer, that is backed by a region of the source buffer.
+     * The region is copied to a byte array upon the first request of this integer's content.
+     *
+     * @param content View of the source buffer, containing the binary representation of this integer
+     *                (between the buffer's position and limit)
+     * @param value Parsed value
+     * @since 1.8
+     */
+    public static BEInteger fromBuffer(ByteBuffer content, BigInteger value) {
+        return new BEInteger(new LazyContent(content), value);
+    }
+
+    private BEInteger(LazyContent content, BigInteger value) {
         this.content = content;
         this.value = value;
         encoder = BEEncoder.encoder();
@@ -55,7 +75,7 @@ public class BEInteger implements BEObject<BigInteger> {
 
     @Override
     public byte[] getContent() {
-        return content;
+        return content.get();
     }
 
     @Override
@@ -21,6 +21,7 @@ import bt.bencoding.BEType;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -32,7 +33,7 @@ import java.util.List;
  */
 public class BEList implements BEObject<List<? extends BEObject<?>>> {
 
-    private byte[] content;
+    private LazyContent content;
     private List<? extends BEObject<?>> value;
     private BEEncoder encoder;
 
@@ -42,6 +43,25 @@ public class BEList implements BEObject<List<? extends BEObject<?>>> {
      * @since 1.0
      */
     public BEList(byte[] content, List<? extends BEObject<?>> value) {
+        this.content = new LazyContent(content);
+        this.value = Collections.unmodifiableList(value);
+        encoder = BEEncoder.encoder();
+    }
+
+    /**
+     * Create a list, that is backed by a region of the source buffer.
+     * The region is copied to a byte array upon the first request of this list's content.
+     *
+     * @param content View of the source buffer, containing the binary representation of this list
+     *                (between the buffer's position and limit)
+     * @param value Parsed value
+     * @since 1.8
+     */
+    public static BEList fromBuffer(ByteBuffer content, List<? extends BEObject<?>> value) {
+        return new BEList(new LazyContent(content), value);
+    }
+
+    private BEList(LazyContent content, List<? extends BEObject<?>> value) {
         this.content = content;
         this.value = Collections.unmodifiableList(value);
         encoder = BEEncoder.encoder();
@@ -54,7 +74,7 @@ public class BEList implements BEObject<List<? extends BEObject<?>>> {
 
     @Override
     public byte[] getContent() {
-        return content;
+        return content.get();
     }
 
     @Override
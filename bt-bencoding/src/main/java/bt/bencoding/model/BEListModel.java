@@ -30,6 +30,10 @@ class BEListModel extends BaseBEObjectModel {
         this.elementModel = elementModel;
     }
 
+    BEObjectModel getElementModel() {
+        return elementModel;
+    }
+
     @Override
     public BEType getType() {
         return BEType.LIST;
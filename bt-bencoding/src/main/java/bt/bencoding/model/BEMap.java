@@ -18,11 +18,17 @@ package bt.bencoding.model;
 
 import bt.bencoding.BEEncoder;
 import bt.bencoding.BEType;
+import bt.bencoding.ByteStringComparator;
 
 import java.io.IOException;
 import java.io.OutputStream;
-import java.util.Arrays;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.AbstractMap;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -32,18 +38,41 @@ import java.util.Map;
  */
 public class BEMap implements BEObject<Map<String, BEObject<?>>> {
 
-    private byte[] content;
+    private LazyContent content;
     private Map<String, BEObject<?>> value;
     private BEEncoder encoder;
 
+    private volatile List<Map.Entry<byte[], BEObject<?>>> sortedEntries;
+
     /**
      * @param content Binary representation of this dictionary, as read from source.
-     * @param value Parsed value
+     * @param value Parsed value; copied, so that subsequent modifications of the provided map
+     *              do not affect this dictionary
      * @since 1.0
      */
     public BEMap(byte[] content, Map<String, BEObject<?>> value) {
+        this.content = new LazyContent(content);
+        this.value = Collections.unmodifiableMap(new LinkedHashMap<>(value));
+        encoder = BEEncoder.encoder();
+    }
+
+    /**
+     * Create a dictionary, that is backed by a region of the source buffer.
+     * The region is copied to a byte array upon the first request of this dictionary's content.
+     *
+     * @param content View of the source buffer, containing the binary representation of this dictionary
+     *                (between the buffer's position and limit)
+     * @param value Parsed value; copied, so that subsequent modifications of the provided map
+     *              do not affect this dictionary
+     * @since 1.8
+     */
+    public static BEMap fromBuffer(ByteBuffer content, Map<String, BEObject<?>> value) {
+        return new BEMap(new LazyContent(content), value);
+    }
+
+    private BEMap(LazyContent content, Map<String, BEObject<?>> value) {
         this.content = content;
-        this.value = Collections.unmodifiableMap(value);
+        this.value = Collections.unmodifiableMap(new LinkedHashMap<>(value));
         encoder = BEEncoder.encoder();
     }
 
@@ -54,7 +83,7 @@ public class BEMap implements BEObject<Map<String, BEObject<?>>> {
 
     @Override
     public byte[] getContent() {
-        return content;
+        return content.get();
     }
 
     @Override
@@ -62,6 +91,29 @@ public class BEMap implements BEObject<Map<String, BEObject<?>>> {
         return value;
     }
 
+    /**
+     * Get this dictionary's entries in the order, that is mandated by the encoding:
+     * keys are compared as raw strings, i.e. by their UTF-8 representation.
+     * The order is computed upon the first request and then cached
+     * (this dictionary is immutable, so the cached order never goes stale).
+     *
+     * @return Entries sorted by binary representation of keys (UTF-8), paired with their values
+     * @since 1.8
+     */
+    public List<Map.Entry<byte[], BEObject<?>>> getSortedEntries() {
+        List<Map.Entry<byte[], BEObject<?>>> entries = sortedEntries;
+        if (entries == null) {
+            Charset charset = Charset.forName("UTF-8");
+            entries = new ArrayList<>(value.size());
+            for (Map.Entry<String, BEObject<?>> e : value.entrySet()) {
+                entries.add(new AbstractMap.SimpleImmutableEntry<>(e.getKey().getBytes(charset), e.getValue()));
+            }
+            entries.sort((e1, e2) -> ByteStringComparator.comparator().compare(e1.getKey(), e2.getKey()));
+            sortedEntries = entries = Collections.unmodifiableList(entries);
+        }
+        return entries;
+    }
+
     @Override
     public void writeTo(OutputStream out) throws IOException {
         encoder.encode(this, out);
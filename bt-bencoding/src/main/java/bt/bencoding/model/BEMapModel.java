@@ -31,6 +31,10 @@ class BEMapModel extends BaseBEObjectModel {
         this.entriesModel = entriesModel;
     }
 
+    Map<String, BEObjectModel> getEntriesModel() {
+        return entriesModel;
+    }
+
     @Override
     public BEType getType() {
         return BEType.MAP;
@@ -21,6 +21,7 @@ import bt.bencoding.BEType;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.util.Arrays;
 
@@ -32,7 +33,7 @@ import java.util.Arrays;
 public class BEString implements BEObject<byte[]> {
     private static final Charset defaultCharset = Charset.forName("UTF-8");
 
-    private byte[] content;
+    private LazyContent content;
     private BEEncoder encoder;
 
     private volatile String stringValue;
@@ -44,11 +45,37 @@ public class BEString implements BEObject<byte[]> {
      * @since 1.0
      */
     public BEString(byte[] content) {
+        this.content = new LazyContent(content);
+        this.encoder = BEEncoder.encoder();
+        this.lock = new Object();
+    }
+
+    /**
+     * Create a string, that is backed by a region of the source buffer.
+     * The region is copied to a byte array upon the first request of this string's content or value.
+     *
+     * @param content View of the source buffer, containing the binary representation of this string
+     *                (between the buffer's position and limit)
+     * @since 1.8
+     */
+    public static BEString fromBuffer(ByteBuffer content) {
+        return new BEString(new LazyContent(content));
+    }
+
+    private BEString(LazyContent content) {
         this.content = content;
         this.encoder = BEEncoder.encoder();
         this.lock = new Object();
     }
 
+    /**
+     * @return Length of this string in bytes
+     * @since 1.8
+     */
+    public int length() {
+        return content.length();
+    }
+
     @Override
     public BEType getType() {
         return BEType.STRING;
@@ -56,12 +83,12 @@ public class BEString implements BEObject<byte[]> {
 
     @Override
     public byte[] getContent() {
-        return content;
+        return content.get();
     }
 
     @Override
     public byte[] getValue() {
-        return content;
+        return content.get();
     }
 
     @Override
@@ -70,12 +97,12 @@ public class BEString implements BEObject<byte[]> {
     }
 
     public String getValue(Charset charset) {
-        return new String(content, charset);
+        return new String(content.get(), charset);
     }
 
     @Override
     public int hashCode() {
-        return Arrays.hashCode(content);
+        return Arrays.hashCode(content.get());
     }
 
     @Override
@@ -89,7 +116,7 @@ public class BEString implements BEObject<byte[]> {
             return true;
         }
 
-        return Arrays.equals(content, ((BEString) obj).getContent());
+        return Arrays.equals(content.get(), ((BEString) obj).getContent());
     }
 
     @Override
@@ -97,7 +124,7 @@ public class BEString implements BEObject<byte[]> {
         if (stringValue == null) {
             synchronized (lock) {
                 if (stringValue == null) {
-                    stringValue = new String(content, defaultCharset);
+                    stringValue = new String(content.get(), defaultCharset);
                 }
             }
         }
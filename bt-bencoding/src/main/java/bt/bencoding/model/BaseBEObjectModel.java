@@ -28,6 +28,10 @@ abstract class BaseBEObjectModel implements BEObjectModel {
         this.rules = rules;
     }
 
+    List<Rule> getRules() {
+        return rules;
+    }
+
     @Override
     public final ValidationResult validate(Object object) {
 
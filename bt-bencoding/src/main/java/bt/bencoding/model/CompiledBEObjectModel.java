@@ -0,0 +1,437 @@
+/*
+ * Copyright (c) 2016—2017 Andrei Tomashpolskiy and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package bt.bencoding.model;
+
+import bt.bencoding.BEParser;
+import bt.bencoding.BEReader;
+import bt.bencoding.BEReader.Token;
+import bt.bencoding.BEType;
+import bt.bencoding.model.rule.ExclusiveRule;
+import bt.bencoding.model.rule.RequiredRule;
+import bt.bencoding.model.rule.Rule;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Object model, that has been compiled into a tree of specialized validators.
+ *
+ * <p>Compilation resolves all dictionary keys, that are referenced by the model's entries and rules,
+ * to fixed indices, and rules are turned into bitmask checks, so that validation of a dictionary
+ * performs a single lookup per declared key and does not allocate intermediate collections.
+ *
+ * <p>Besides validating parsed objects, compiled model can validate the binary representation
+ * directly from a {@link BEReader}, without building an object tree at all.
+ *
+ * <p>Models of unknown types and dictionaries with unsupported rules (or more than 64 keys)
+ * are kept as-is and validated by the original model.
+ *
+ * @since 1.8
+ */
+public class CompiledBEObjectModel implements BEObjectModel {
+
+    /**
+     * Compile an object model.
+     *
+     * @param model Object model
+     * @return Compiled model, that produces the same validation results as the original model
+     * @since 1.8
+     */
+    public static CompiledBEObjectModel compile(BEObjectModel model) {
+        Objects.requireNonNull(model);
+        if (model instanceof CompiledBEObjectModel) {
+            return (CompiledBEObjectModel) model;
+        }
+        return new CompiledBEObjectModel(compileNode(model));
+    }
+
+    private static Node compileNode(BEObjectModel model) {
+        if (model instanceof BaseBEObjectModel) {
+            List<Rule> rules = ((BaseBEObjectModel) model).getRules();
+            if (model instanceof BEMapModel) {
+                Node node = compileMap((BEMapModel) model, rules);
+                if (node != null) {
+                    return node;
+                }
+            } else if (rules.isEmpty()) {
+                if (model instanceof BEListModel) {
+                    return new ListNode(compileNode(((BEListModel) model).getElementModel()));
+                } else if (model instanceof BEStringModel || model instanceof BEIntegerModel) {
+                    return new ScalarNode(model.getType());
+                }
+            }
+        }
+        return new DelegatingNode(model);
+    }
+
+    private static Node compileMap(BEMapModel model, List<Rule> rules) {
+        Map<String, Integer> keyIndices = new LinkedHashMap<>();
+        List<Node> children = new ArrayList<>();
+        model.getEntriesModel().forEach((key, entryModel) -> {
+            keyIndices.put(key, children.size());
+            children.add(compileNode(entryModel));
+        });
+
+        List<RuleCheck> checks = new ArrayList<>(rules.size() + 1);
+        for (Rule rule : rules) {
+            if (rule instanceof RequiredRule) {
+                long required = mask(((RequiredRule) rule).getRequiredKeys(), keyIndices, children);
+                checks.add(new RuleCheck(new long[0], 0, required, rule.getDescription()));
+            } else if (rule instanceof ExclusiveRule) {
+                ExclusiveRule exclusiveRule = (ExclusiveRule) rule;
+                Collection<Set<String>> exclusives = exclusiveRule.getExclusives();
+
+                long[] groups = new long[exclusives.size()];
+                long allExclusives = 0;
+                int i = 0;
+                for (Set<String> exclusive : exclusives) {
+                    groups[i] = mask(exclusive, keyIndices, children);
+                    allExclusives |= groups[i++];
+                }
+                long required = mask(exclusiveRule.getRequiredKeys(), keyIndices, children);
+                checks.add(new RuleCheck(groups, required & allExclusives, required & ~allExclusives,
+                        rule.getDescription()));
+            } else {
+                return null;
+            }
+        }
+
+        if (children.size() > Long.SIZE) {
+            return null;
+        }
+        return new MapNode(keyIndices, children.toArray(new Node[children.size()]),
+                checks.toArray(new RuleCheck[checks.size()]));
+    }
+
+    private static long mask(Collection<String> keys, Map<String, Integer> keyIndices, List<Node> children) {
+        long mask = 0;
+        for (String key : keys) {
+            Integer index = keyIndices.get(key);
+            if (index == null) {
+                // key is referenced by a rule, but has no model of its own
+                index = children.size();
+                keyIndices.put(key, index);
+                children.add(null);
+            }
+            if (index < Long.SIZE) {
+                mask |= 1L << index;
+            }
+        }
+        return mask;
+    }
+
+    private final Node root;
+
+    private CompiledBEObjectModel(Node root) {
+        this.root = root;
+    }
+
+    @Override
+    public BEType getType() {
+        return root.type;
+    }
+
+    @Override
+    public ValidationResult validate(Object object) {
+        ValidationResult result = new ValidationResult();
+        root.validate(object, result);
+        return result;
+    }
+
+    /**
+     * Validate the binary representation of an object.
+     *
+     * <p>If the reader's current token is null (i.e. no tokens have been read yet),
+     * then the root object is validated. Otherwise, the value denoted by the current token is validated.
+     * In both cases the validated value is consumed entirely.
+     *
+     * @param reader Reader
+     * @return Validation result
+     * @throws bt.bencoding.BtParseException if the binary representation is malformed
+     * @since 1.8
+     */
+    public ValidationResult validate(BEReader reader) {
+        if (reader.currentToken() == null) {
+            reader.nextToken();
+        }
+        ValidationResult result = new ValidationResult();
+        root.validate(reader, result);
+        return result;
+    }
+
+    private static BEType getType(Token token) {
+        switch (token) {
+            case MAP_START: return BEType.MAP;
+            case LIST_START: return BEType.LIST;
+            case STRING: return BEType.STRING;
+            case INTEGER: return BEType.INTEGER;
+            default: {
+                throw new IllegalStateException("Current token is not a value: " + token);
+            }
+        }
+    }
+
+    private static abstract class Node {
+
+        final BEType type;
+        final Class<?> javaType;
+
+        Node(BEType type) {
+            this.type = type;
+            this.javaType = TypesMapping.getJavaTypeForBEType(type);
+        }
+
+        void validate(Object object, ValidationResult result) {
+            if (object == null) {
+                // absent optional values are validated by the enclosing dictionary's rules
+                return;
+            }
+            if (object instanceof BEObject) {
+                object = ((BEObject<?>) object).getValue();
+            }
+            if (!javaType.isInstance(object)) {
+                result.addMessage(wrongType(object.getClass()));
+                return;
+            }
+            validateValue(object, result);
+        }
+
+        void validate(BEReader reader, ValidationResult result) {
+            BEType actualType = getType(reader.currentToken());
+            if (actualType != type) {
+                result.addMessage(wrongType(TypesMapping.getJavaTypeForBEType(actualType)));
+                reader.skipValue();
+                return;
+            }
+            validateValue(reader, result);
+        }
+
+        private String wrongType(Class<?> actualType) {
+            return "Wrong type -- expected " + javaType.getName() + ", actual: " + actualType.getName();
+        }
+
+        abstract void validateValue(Object value, ValidationResult result);
+
+        abstract void validateValue(BEReader reader, ValidationResult result);
+    }
+
+    private static class ScalarNode extends Node {
+
+        ScalarNode(BEType type) {
+            super(type);
+        }
+
+        @Override
+        void validateValue(Object value, ValidationResult result) {
+            // only type is checked
+        }
+
+        @Override
+        void validateValue(BEReader reader, ValidationResult result) {
+            // value has already been consumed by the reader
+        }
+    }
+
+    private static class ListNode extends Node {
+
+        private final Node elementNode;
+
+        ListNode(Node elementNode) {
+            super(BEType.LIST);
+            this.elementNode = elementNode;
+        }
+
+        @Override
+        void validateValue(Object value, ValidationResult result) {
+            for (Object element : (List<?>) value) {
+                elementNode.validate(element, result);
+            }
+        }
+
+        @Override
+        void validateValue(BEReader reader, ValidationResult result) {
+            while (reader.nextToken() != Token.END) {
+                elementNode.validate(reader, result);
+            }
+        }
+    }
+
+    private static class MapNode extends Node {
+
+        private final String[] keys;
+        private final Map<String, Integer> keyIndices;
+        private final Node[] children;
+        private final RuleCheck[] checks;
+
+        MapNode(Map<String, Integer> keyIndices, Node[] children, RuleCheck[] checks) {
+            super(BEType.MAP);
+            this.keys = keyIndices.keySet().toArray(new String[keyIndices.size()]);
+            this.keyIndices = new HashMap<>(keyIndices);
+            this.children = children;
+            this.checks = checks;
+        }
+
+        @Override
+        void validateValue(Object value, ValidationResult result) {
+            Map<?, ?> map = (Map<?, ?>) value;
+
+            long present = 0;
+            for (int i = 0; i < keys.length; i++) {
+                if (map.get(keys[i]) != null) {
+                    present |= 1L << i;
+                }
+            }
+
+            // fail-fast if any rules failed;
+            // looking up the entries again rather than collecting them to keep validation allocation-free
+            if (checkRules(present, result)) {
+                for (int i = 0; i < children.length; i++) {
+                    if (children[i] != null && (present & (1L << i)) != 0) {
+                        children[i].validate(map.get(keys[i]), result);
+                    }
+                }
+            }
+        }
+
+        @Override
+        void validateValue(BEReader reader, ValidationResult result) {
+            ValidationResult entriesResult = new ValidationResult();
+            long present = 0;
+            while (reader.nextToken() != Token.END) {
+                Integer index = keyIndices.get(reader.readString());
+                reader.nextToken();
+                if (index == null) {
+                    reader.skipValue();
+                    continue;
+                }
+                present |= 1L << index;
+                if (children[index] != null) {
+                    children[index].validate(reader, entriesResult);
+                } else {
+                    reader.skipValue();
+                }
+            }
+
+            // fail-fast if any rules failed
+            if (checkRules(present, result)) {
+                entriesResult.getMessages().forEach(result::addMessage);
+            }
+        }
+
+        private boolean checkRules(long present, ValidationResult result) {
+            boolean success = true;
+            for (RuleCheck check : checks) {
+                if (!check.test(present)) {
+                    result.addMessage(check.description);
+                    success = false;
+                }
+            }
+            return success;
+        }
+    }
+
+    /**
+     * Flattened form of {@link RequiredRule} and {@link ExclusiveRule}.
+     */
+    private static class RuleCheck {
+
+        private final long[] exclusiveGroups;
+        private final long exclusiveRequired;
+        private final long otherRequired;
+        private final String description;
+
+        RuleCheck(long[] exclusiveGroups, long exclusiveRequired, long otherRequired, String description) {
+            this.exclusiveGroups = exclusiveGroups;
+            this.exclusiveRequired = exclusiveRequired;
+            this.otherRequired = otherRequired;
+            this.description = description;
+        }
+
+        boolean test(long present) {
+            int count = 0;
+            for (long group : exclusiveGroups) {
+                if ((present & group) != 0 && ++count > 1) {
+                    return false;
+                }
+            }
+            if (count == 0 && (present & exclusiveRequired) != exclusiveRequired) {
+                return false;
+            }
+            return (present & otherRequired) == otherRequired;
+        }
+    }
+
+    private static class DelegatingNode extends Node {
+
+        private final BEObjectModel model;
+
+        DelegatingNode(BEObjectModel model) {
+            super(model.getType());
+            this.model = model;
+        }
+
+        // type is checked by the target model
+
+        @Override
+        void validate(Object object, ValidationResult result) {
+            validateValue(object, result);
+        }
+
+        @Override
+        void validate(BEReader reader, ValidationResult result) {
+            validateValue(reader, result);
+        }
+
+        @Override
+        void validateValue(Object value, ValidationResult result) {
+            model.validate(value).getMessages().forEach(result::addMessage);
+        }
+
+        @Override
+        void validateValue(BEReader reader, ValidationResult result) {
+            ValidationResult targetResult;
+            if (model instanceof CompiledBEObjectModel) {
+                targetResult = ((CompiledBEObjectModel) model).validate(reader);
+            } else {
+                // generic models work only with the object tree
+                targetResult = model.validate(readObject(reader.readRawValue()));
+            }
+            targetResult.getMessages().forEach(result::addMessage);
+        }
+
+        private static BEObject<?> readObject(ByteBuffer buffer) {
+            try (BEParser parser = new BEParser(buffer)) {
+                switch (parser.readType()) {
+                    case MAP: return parser.readMap();
+                    case LIST: return parser.readList();
+                    case STRING: return parser.readString();
+                    case INTEGER: return parser.readInteger();
+                    default: {
+                        throw new IllegalStateException("Unknown type: " + parser.readType());
+                    }
+                }
+            }
+        }
+    }
+}
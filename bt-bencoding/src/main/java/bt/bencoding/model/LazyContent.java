@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2016—2017 Andrei Tomashpolskiy and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package bt.bencoding.model;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Binary representation of a bencoded object.
+ * Either a byte array, or a region of the source buffer,
+ * which is copied to a byte array upon first request.
+ *
+ * @since 1.8
+ */
+final class LazyContent {
+
+    private final ByteBuffer source;
+    // region of the source; absolute indices are used, so the source's position and limit are irrelevant
+    private final int offset;
+    private final int length;
+    private volatile byte[] content;
+
+    LazyContent(byte[] content) {
+        this.source = null;
+        this.offset = 0;
+        this.length = (content == null) ? 0 : content.length;
+        this.content = content;
+    }
+
+    /**
+     * @param view View of the source buffer; position and limit of the view (at the time of this call)
+     *             are treated as the start and the end of the object's representation
+     */
+    LazyContent(ByteBuffer view) {
+        this.source = view;
+        this.offset = view.position();
+        this.length = view.remaining();
+    }
+
+    byte[] get() {
+        byte[] content = this.content;
+        if (content == null && source != null) {
+            synchronized (this) {
+                content = this.content;
+                if (content == null) {
+                    content = new byte[length];
+                    // the source is shared, so its position is not modified
+                    ByteBuffer view = source.duplicate();
+                    view.position(offset);
+                    view.get(content, 0, length);
+                    this.content = content;
+                }
+            }
+        }
+        return content;
+    }
+
+    int length() {
+        return length;
+    }
+}
@@ -21,6 +21,7 @@ import bt.bencoding.model.ClassUtil;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -65,6 +66,7 @@ public class ExclusiveRule implements Rule {
     private RequiredRule exclusiveRequired;
     private RequiredRule otherRequired;
     private Collection<Set<String>> exclusives;
+    private List<String> required;
 
     /**
      * @param exclusives Collection of sets of mutually exclusive attributes.
@@ -74,6 +76,7 @@ public class ExclusiveRule implements Rule {
     public ExclusiveRule(Collection<Set<String>> exclusives, List<String> required) {
 
         this.shouldCheckRequired = true;
+        this.required = required;
 
         List<String> allExclusives = exclusives.stream().flatMap(Collection::stream).collect(Collectors.toList());
 
@@ -96,6 +99,23 @@ public class ExclusiveRule implements Rule {
      */
     public ExclusiveRule(Collection<Set<String>> exclusives) {
         this.exclusives = exclusives;
+        this.required = Collections.emptyList();
+    }
+
+    /**
+     * @return Collection of sets of mutually exclusive attributes
+     * @since 1.8
+     */
+    public Collection<Set<String>> getExclusives() {
+        return Collections.unmodifiableCollection(exclusives);
+    }
+
+    /**
+     * @return List of required attributes (empty, if this rule does not check required attributes)
+     * @since 1.8
+     */
+    public List<String> getRequiredKeys() {
+        return Collections.unmodifiableList(required);
     }
 
     @Override
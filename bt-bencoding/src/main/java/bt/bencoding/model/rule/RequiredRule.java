@@ -19,6 +19,7 @@ package bt.bencoding.model.rule;
 import bt.bencoding.model.ClassUtil;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -39,6 +40,14 @@ public class RequiredRule implements Rule {
         this.requiredKeys = requiredKeys;
     }
 
+    /**
+     * @return List of required attributes
+     * @since 1.8
+     */
+    public List<String> getRequiredKeys() {
+        return Collections.unmodifiableList(requiredKeys);
+    }
+
     @Override
     public boolean validate(Object object) {
 
@@ -26,6 +26,7 @@ import org.junit.Test;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -33,7 +34,10 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 public class BEEncoderTest {
 
@@ -72,6 +76,25 @@ public class BEEncoderTest {
         assertEquals(l, parser.readList().getValue());
     }
 
+    @Test
+    public void testEncode_Map_NotAffectedBySubsequentModificationsOfSourceMap() {
+        Map<String, BEObject<?>> m = new HashMap<>();
+        m.put("b", new BEInteger(null, BigInteger.ONE));
+        BEMap map = new BEMap(null, m);
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        assertTrue(BEEncoder.encoder().encode(map, buffer));
+
+        m.put("a", new BEInteger(null, BigInteger.ONE));
+        buffer.clear();
+        assertTrue(BEEncoder.encoder().encode(map, buffer));
+        buffer.flip();
+
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        assertArrayEquals("d1:bi1ee".getBytes(defaultCharset), bytes);
+        assertEquals(1, map.getValue().size());
+    }
+
     @Test
     public void testEncode_Map() {
 
@@ -91,6 +114,70 @@ public class BEEncoderTest {
         assertEquals(m, parser.readMap().getValue());
     }
 
+    @Test
+    public void testEncode_Integer_Long() {
+
+        BigInteger max = BigInteger.valueOf(Long.MAX_VALUE);
+        BigInteger min = BigInteger.valueOf(Long.MIN_VALUE);
+        BigInteger big = max.multiply(BigInteger.TEN);
+
+        for (BigInteger i : Arrays.asList(max, min, big, BigInteger.ZERO)) {
+            BEParser parser = encodeAndCreateParser(new BEInteger(null, i));
+            assertEquals(BEType.INTEGER, parser.readType());
+            assertEquals(i, parser.readInteger().getValue());
+
+            byte[] encoded = encodeToBuffer(new BEInteger(null, i));
+            assertEquals("i" + i + "e", new String(encoded, defaultCharset));
+        }
+    }
+
+    @Test
+    public void testEncode_Buffer_SameAsStream() {
+
+        Map<String, BEObject<?>> inner = new HashMap<>();
+        inner.put("z", new BEInteger(null, BigInteger.valueOf(-1)));
+        inner.put("a", new BEString(new byte[0]));
+        inner.put("\u00e9", new BEInteger(null, BigInteger.valueOf(1_000_000_000_000L)));
+
+        Map<String, BEObject<?>> m = new HashMap<>();
+        m.put("list", new BEList(null, Arrays.asList(new BEMap(null, inner), new BEString(new byte[300]))));
+        m.put("int", new BEInteger(null, BigInteger.valueOf(42)));
+        BEMap map = new BEMap(null, m);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            map.writeTo(out);
+        } catch (IOException e) {
+            // can't happen
+        }
+        byte[] expected = out.toByteArray();
+
+        assertEquals(expected.length, BEEncoder.encoder().encodedLength(map));
+        assertArrayEquals(expected, encodeToBuffer(map));
+        // cached key order is reused
+        assertArrayEquals(expected, encodeToBuffer(map));
+    }
+
+    @Test
+    public void testEncode_Buffer_InsufficientSpace() {
+
+        BEString s = new BEString("some string".getBytes(defaultCharset));
+        ByteBuffer buffer = ByteBuffer.allocate(13);
+        buffer.put((byte) 1);
+
+        assertFalse(BEEncoder.encoder().encode(s, buffer));
+        assertEquals(1, buffer.position());
+    }
+
+    private static byte[] encodeToBuffer(BEObject<?> object) {
+        ByteBuffer buffer = ByteBuffer.allocate(1024);
+        assertTrue(BEEncoder.encoder().encode(object, buffer));
+        buffer.flip();
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
     private static BEParser encodeAndCreateParser(BEObject<?> object) {
         ByteArrayOutputStream out = new ByteArrayOutputStream();
         try {
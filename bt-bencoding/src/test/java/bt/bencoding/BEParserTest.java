@@ -16,13 +16,18 @@
 
 package bt.bencoding;
 
+import bt.bencoding.model.BEInteger;
 import bt.bencoding.model.BEList;
+import bt.bencoding.model.BEMap;
 import bt.bencoding.model.BEObject;
 import bt.bencoding.model.BEString;
 import org.junit.Test;
 
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Map;
 import java.util.stream.Collectors;
 
@@ -143,4 +148,59 @@ public class BEParserTest {
                         .collect(Collectors.toList())
                         .toArray());
     }
+
+    @Test
+    public void testParse_Buffer_ContentIsSliceOfSource() {
+        byte[] bytes = "xxd4:spaml1:a1:be3:inti-42eeyy".getBytes(charset);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        buffer.position(2);
+        buffer.limit(bytes.length - 2);
+
+        BEMap map = new BEParser(buffer).readMap();
+        assertEquals(2, buffer.position());
+        assertEquals(bytes.length - 2, buffer.limit());
+
+        assertArrayEquals("d4:spaml1:a1:be3:inti-42ee".getBytes(charset), map.getContent());
+        assertArrayEquals("l1:a1:be".getBytes(charset), map.getValue().get("spam").getContent());
+        assertArrayEquals("i-42e".getBytes(charset), map.getValue().get("int").getContent());
+        assertEquals(BigInteger.valueOf(-42), ((BEInteger) map.getValue().get("int")).getValue());
+    }
+
+    @Test
+    public void testParse_DirectBuffer() {
+        byte[] bytes = "d3:key5:valuee".getBytes(charset);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+        buffer.put(bytes);
+        buffer.flip();
+
+        BEMap map = new BEParser(buffer).readMap();
+        assertArrayEquals(bytes, map.getContent());
+        assertEquals("value", map.getValue().get("key").toString());
+        assertEquals(5, ((BEString) map.getValue().get("key")).length());
+    }
+
+    @Test
+    public void testParse_MappedFile() throws Exception {
+        byte[] bytes = "l4:spam4:eggsi1ee".getBytes(charset);
+        Path file = Files.createTempFile("bt-bencoding", ".torrent");
+        try {
+            Files.write(file, bytes);
+            BEList list = new BEParser(file).readList();
+            assertEquals(3, list.getValue().size());
+            assertArrayEquals(bytes, list.getContent());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testParse_Integer_BeyondLongRange() {
+        BEParser parser = new BEParser("i123456789012345678901234567890e".getBytes());
+        assertEquals(new BigInteger("123456789012345678901234567890"), parser.readInteger().getValue());
+    }
+
+    @Test(expected = BtParseException.class)
+    public void testParse_Map_Exception_NotTerminated() {
+        new BEParser("d3:key5:value".getBytes()).readMap();
+    }
 }
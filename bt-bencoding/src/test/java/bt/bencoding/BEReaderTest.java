@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2016—2017 Andrei Tomashpolskiy and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package bt.bencoding;
+
+import bt.bencoding.BEReader.Token;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class BEReaderTest {
+
+    private Charset charset = Charset.forName("UTF-8");
+
+    private BEReader reader(String s) {
+        return new BEReader(s.getBytes(charset));
+    }
+
+    @Test
+    public void testRead_Tokens() {
+        BEReader reader = reader("d4:spaml1:ai-1ee3:intd0:0:ee");
+
+        assertEquals(Token.MAP_START, reader.nextToken());
+        assertEquals(Token.STRING, reader.nextToken());
+        assertEquals("spam", reader.readString());
+        assertEquals(Token.LIST_START, reader.nextToken());
+        assertEquals(Token.STRING, reader.nextToken());
+        assertArrayEquals("a".getBytes(charset), reader.readBytes());
+        assertEquals(Token.INTEGER, reader.nextToken());
+        assertEquals(-1, reader.readLong());
+        assertEquals(Token.END, reader.nextToken());
+        assertEquals(Token.STRING, reader.nextToken());
+        assertEquals("int", reader.readString());
+        assertEquals(Token.MAP_START, reader.nextToken());
+        assertEquals(Token.STRING, reader.nextToken());
+        assertEquals("", reader.readString());
+        assertEquals(Token.STRING, reader.nextToken());
+        assertEquals(0, reader.readBuffer().remaining());
+        assertEquals(Token.END, reader.nextToken());
+        assertEquals(Token.END, reader.nextToken());
+        assertNull(reader.nextToken());
+    }
+
+    @Test
+    public void testRead_SkipValue() {
+        BEReader reader = reader("d1:ad1:bl1:ci1eee1:xi42ee");
+
+        assertEquals(Token.MAP_START, reader.nextToken());
+        reader.nextToken();
+        assertEquals(Token.MAP_START, reader.nextToken());
+        reader.skipValue();
+        assertEquals(Token.STRING, reader.nextToken());
+        assertEquals("x", reader.readString());
+        assertEquals(Token.INTEGER, reader.nextToken());
+        assertEquals(42, reader.readLong());
+        assertFalse(reader.hasNext());
+        assertEquals(Token.END, reader.nextToken());
+    }
+
+    @Test
+    public void testRead_RawValue() {
+        byte[] bytes = "d4:infod6:lengthi1eee".getBytes(charset);
+        BEReader reader = new BEReader(bytes);
+
+        reader.nextToken();
+        reader.nextToken();
+        assertTrue(reader.hasNext());
+        reader.nextToken();
+        ByteBuffer raw = reader.readRawValue();
+        byte[] rawBytes = new byte[raw.remaining()];
+        raw.get(rawBytes);
+        assertArrayEquals("d6:lengthi1ee".getBytes(charset), rawBytes);
+        assertEquals(Token.END, reader.nextToken());
+        assertEquals(bytes.length, reader.getBytesRead());
+    }
+
+    @Test
+    public void testRead_TrailingData() {
+        BEReader reader = reader("d1:ai1eetrailing");
+        reader.nextToken();
+        reader.skipValue();
+        assertEquals(8, reader.getBytesRead());
+        assertNull(reader.nextToken());
+    }
+
+    @Test
+    public void testRead_LongLimits() {
+        BEReader reader = reader("li9223372036854775807ei-9223372036854775808ei9223372036854775808ee");
+        reader.nextToken();
+        reader.nextToken();
+        assertEquals(Long.MAX_VALUE, reader.readLong());
+        reader.nextToken();
+        assertEquals(Long.MIN_VALUE, reader.readLong());
+        reader.nextToken();
+        assertEquals(new BigInteger("9223372036854775808"), reader.readBigInteger());
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void testRead_LongOverflow() {
+        BEReader reader = reader("i9223372036854775808e");
+        reader.nextToken();
+        reader.readLong();
+    }
+
+    @Test(expected = BtParseException.class)
+    public void testRead_Exception_NonStringKey() {
+        BEReader reader = reader("di1ei1ee");
+        reader.nextToken();
+        reader.nextToken();
+    }
+
+    @Test(expected = BtParseException.class)
+    public void testRead_Exception_MissingValue() {
+        BEReader reader = reader("d1:ae");
+        reader.nextToken();
+        reader.nextToken();
+        reader.nextToken();
+    }
+
+    @Test(expected = BtParseException.class)
+    public void testRead_Exception_InsufficientContent() {
+        reader("7:abcdef").nextToken();
+    }
+
+    @Test(expected = BtParseException.class)
+    public void testRead_Exception_NotTerminated() {
+        BEReader reader = reader("l1:a");
+        reader.nextToken();
+        reader.skipValue();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testRead_Exception_WrongType() {
+        BEReader reader = reader("1:a");
+        reader.nextToken();
+        reader.readLong();
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2016—2017 Andrei Tomashpolskiy and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package bt.bencoding.model;
+
+import bt.bencoding.BEParser;
+import bt.bencoding.BEReader;
+import bt.bencoding.BEType;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class CompiledBEObjectModelTest {
+
+    private static final Charset charset = Charset.forName("UTF-8");
+
+    private BEObjectModel model;
+    private CompiledBEObjectModel compiledModel;
+
+    @Before
+    public void setUp() {
+        try (InputStream in = CompiledBEObjectModelTest.class.getResourceAsStream("metainfo_correct.yml")) {
+            model = new YamlBEObjectModelLoader().load(in);
+        } catch (IOException e) {
+            throw new RuntimeException("Unexpected I/O exception", e);
+        }
+        compiledModel = CompiledBEObjectModel.compile(model);
+    }
+
+    private static byte[] readTorrent(String name) {
+        try {
+            return Files.readAllBytes(Paths.get(CompiledBEObjectModelTest.class.getResource(name).toURI()));
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to read file: " + name, e);
+        }
+    }
+
+    private static BEMap parse(byte[] bytes) {
+        try (BEParser parser = new BEParser(bytes)) {
+            return parser.readMap();
+        }
+    }
+
+    @Test
+    public void testValidateTorrent() {
+        assertSameResult("single_file_correct.torrent", true);
+    }
+
+    @Test
+    public void testValidateTorrent_MissingProperty() {
+        assertSameResult("single_file_missing_property.torrent", false);
+    }
+
+    @Test
+    public void testValidateTorrent_InvalidType() {
+        assertSameResult("single_file_invalid_type.torrent", false);
+    }
+
+    @Test
+    public void testValidateTorrent_MutuallyExclusiveProperties() {
+        assertSameResult("single_file_exclusive_properties.torrent", false);
+    }
+
+    @Test
+    public void testValidate_Reader_ConsumesValue() {
+        byte[] bytes = readTorrent("single_file_correct.torrent");
+        BEReader reader = new BEReader(bytes);
+
+        assertTrue(compiledModel.validate(reader).isSuccess());
+        assertNull(reader.nextToken());
+    }
+
+    @Test
+    public void testValidate_CustomEntryModel() {
+        // custom models can't be compiled and are delegated to
+        BEObjectModel customModel = new BEObjectModel() {
+            @Override
+            public BEType getType() {
+                return BEType.STRING;
+            }
+
+            @Override
+            public ValidationResult validate(Object object) {
+                ValidationResult result = new ValidationResult();
+                Object value = (object instanceof BEString) ? ((BEString) object).getValue(charset) : null;
+                if (!"ok".equals(value)) {
+                    result.addMessage("Not ok: " + value);
+                }
+                return result;
+            }
+        };
+        CompiledBEObjectModel model = CompiledBEObjectModel.compile(new BEMapModel(
+                Collections.singletonMap("key", customModel), Collections.emptyList()));
+
+        byte[] valid = "d3:key2:ok5:other1:xe".getBytes(charset);
+        assertTrue(model.validate(parse(valid)).isSuccess());
+        assertTrue(model.validate(new BEReader(valid)).isSuccess());
+
+        byte[] invalid = "d3:key3:nok5:other1:xe".getBytes(charset);
+        assertEquals(Collections.singletonList("Not ok: nok"), model.validate(parse(invalid)).getMessages());
+        BEReader reader = new BEReader(invalid);
+        assertEquals(Collections.singletonList("Not ok: nok"), model.validate(reader).getMessages());
+        assertNull(reader.nextToken());
+    }
+
+    @Test
+    public void testCompile_Idempotent() {
+        assertTrue(compiledModel == CompiledBEObjectModel.compile(compiledModel));
+        assertEquals(model.getType(), compiledModel.getType());
+    }
+
+    private void assertSameResult(String torrentName, boolean expectedSuccess) {
+        byte[] bytes = readTorrent(torrentName);
+        BEMap torrent = parse(bytes);
+
+        ValidationResult expected = model.validate(torrent);
+        ValidationResult compiledResult = compiledModel.validate(torrent);
+        ValidationResult streamingResult = compiledModel.validate(new BEReader(bytes));
+
+        assertEquals(expectedSuccess, expected.isSuccess());
+        assertEquals(expected.isSuccess(), compiledResult.isSuccess());
+        assertEquals(expected.getMessages(), compiledResult.getMessages());
+        assertEquals(expected.isSuccess(), streamingResult.isSuccess());
+        assertEquals(expected.getMessages().size(), streamingResult.getMessages().size());
+        if (!expectedSuccess) {
+            assertFalse(streamingResult.getMessages().isEmpty());
+            assertEquals(expected.getMessages().get(0), streamingResult.getMessages().get(0));
+        }
+    }
+}
@@ -16,14 +16,17 @@
 
 package bt;
 
+import bt.module.ClientScheduler;
 import bt.processor.ProcessingContext;
 import bt.processor.Processor;
 import bt.processor.ProcessorFactory;
 import bt.processor.listener.ListenerSource;
 import bt.runtime.BtClient;
 import bt.runtime.BtRuntime;
+import com.google.inject.Key;
 
 import java.util.Objects;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.function.Supplier;
 
 /**
@@ -93,7 +96,10 @@ public abstract class BaseClientBuilder<B extends BaseClientBuilder> {
         ListenerSource<C> listenerSource = new ListenerSource<>(contextType);
         collectStageListeners(listenerSource);
 
-        return new DefaultClient<>(runtime, processor(runtime, contextType), context, listenerSource);
+        ScheduledExecutorService listenerScheduler = runtime.getInjector()
+                .getInstance(Key.get(ScheduledExecutorService.class, ClientScheduler.class));
+
+        return new DefaultClient<>(runtime, processor(runtime, contextType), context, listenerSource, listenerScheduler);
     }
 
     /**
@@ -25,8 +25,8 @@ import bt.torrent.TorrentSessionState;
 
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
@@ -41,23 +41,27 @@ class DefaultClient<C extends ProcessingContext> implements BtClient {
     private Processor<C> processor;
     private ListenerSource<C> listenerSource;
     private C context;
+    private ScheduledExecutorService listenerScheduler;
 
     private volatile Optional<CompletableFuture<?>> futureOptional;
     private volatile Optional<Consumer<TorrentSessionState>> listenerOptional;
 
-    private volatile ScheduledExecutorService listenerExecutor;
+    private volatile Optional<ScheduledFuture<?>> listenerFutureOptional;
 
     public DefaultClient(BtRuntime runtime,
                          Processor<C> processor,
                          C context,
-                         ListenerSource<C> listenerSource) {
+                         ListenerSource<C> listenerSource,
+                         ScheduledExecutorService listenerScheduler) {
         this.runtime = runtime;
         this.processor = processor;
         this.context = context;
         this.listenerSource = listenerSource;
+        this.listenerScheduler = listenerScheduler;
 
         this.futureOptional = Optional.empty();
         this.listenerOptional = Optional.empty();
+        this.listenerFutureOptional = Optional.empty();
     }
 
     @Override
@@ -66,10 +70,9 @@ class DefaultClient<C extends ProcessingContext> implements BtClient {
             throw new BtException("Can't start -- already running");
         }
 
-        this.listenerExecutor = Executors.newSingleThreadScheduledExecutor();
         this.listenerOptional = Optional.of(listener);
-
-        listenerExecutor.scheduleAtFixedRate(this::notifyListener, period, period, TimeUnit.MILLISECONDS);
+        this.listenerFutureOptional = Optional.of(
+                listenerScheduler.scheduleAtFixedRate(this::notifyListener, period, period, TimeUnit.MILLISECONDS));
 
         return doStartAsync();
     }
@@ -80,7 +83,8 @@ class DefaultClient<C extends ProcessingContext> implements BtClient {
     }
 
     private void shutdownListener() {
-        listenerExecutor.shutdownNow();
+        listenerFutureOptional.ifPresent(f -> f.cancel(false));
+        listenerFutureOptional = Optional.empty();
     }
 
     @Override
@@ -20,7 +20,9 @@ import bt.BtException;
 import bt.protocol.BitOrder;
 import bt.protocol.Protocols;
 
+import java.util.ArrayList;
 import java.util.BitSet;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.locks.ReentrantLock;
@@ -69,6 +71,12 @@ public class Bitfield {
 
     private final ReentrantLock lock;
 
+    /**
+     * Callbacks, that should be invoked once there are no pieces remaining.
+     * Guarded by {@link #lock}.
+     */
+    private List<Runnable> completionListeners;
+
     /**
      * Creates "local" bitfield from a list of chunk descriptors.
      *
@@ -356,12 +364,52 @@ public class Bitfield {
     public void markVerified(int pieceIndex) {
         assertChunkComplete(pieceIndex);
 
+        List<Runnable> listeners;
         lock.lock();
         try {
             bitmask.set(pieceIndex);
+            listeners = pollCompletionListeners();
         } finally {
             lock.unlock();
         }
+        notifyCompleted(listeners);
+    }
+
+    /**
+     * Register a one-time callback, that will be invoked as soon as there are no pieces remaining
+     * (see {@link #getPiecesRemaining()}). If there are no pieces remaining already,
+     * then the callback is invoked immediately in the calling thread.
+     * Otherwise it is invoked in the thread, that has marked the last remaining piece as verified or skipped.
+     *
+     * @since 1.8
+     */
+    public void addCompletionListener(Runnable listener) {
+        List<Runnable> listeners;
+        lock.lock();
+        try {
+            if (completionListeners == null) {
+                completionListeners = new ArrayList<>();
+            }
+            completionListeners.add(listener);
+            listeners = pollCompletionListeners();
+        } finally {
+            lock.unlock();
+        }
+        notifyCompleted(listeners);
+    }
+
+    // should be called under lock
+    private List<Runnable> pollCompletionListeners() {
+        if (completionListeners == null || completionListeners.isEmpty() || getPiecesRemaining() > 0) {
+            return Collections.emptyList();
+        }
+        List<Runnable> listeners = completionListeners;
+        completionListeners = null;
+        return listeners;
+    }
+
+    private void notifyCompleted(List<Runnable> listeners) {
+        listeners.forEach(Runnable::run);
     }
 
     private void assertChunkComplete(int pieceIndex) {
@@ -389,15 +437,18 @@ public class Bitfield {
     public void skip(int pieceIndex) {
         validatePieceIndex(pieceIndex);
 
+        List<Runnable> listeners;
         lock.lock();
         try {
             if (skipped == null) {
                 skipped = new BitSet(getPiecesTotal());
             }
             skipped.set(pieceIndex);
+            listeners = pollCompletionListeners();
         } finally {
             lock.unlock();
         }
+        notifyCompleted(listeners);
     }
 
     /**
@@ -0,0 +1,383 @@
+/*
+ * Copyright (c) 2016—2017 Andrei Tomashpolskiy and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package bt.data;
+
+import java.nio.ByteBuffer;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Compact list of torrent's chunks.
+ *
+ * <p>Instead of keeping a separate data range, block set and lock for each chunk,
+ * this list keeps a single torrent-wide table of storage unit offsets, a single block bitmap
+ * and a fixed number of striped locks. Chunk descriptors are lightweight views,
+ * that are created on demand in {@link #get(int)}, so the memory footprint of a torrent
+ * does not depend on how many chunk descriptors are in use at any given moment.
+ *
+ * @since 1.8
+ */
+class ChunkTable extends AbstractList<ChunkDescriptor> implements RandomAccess {
+
+    private static final int LOCK_STRIPES = 64;
+
+    private final FileOffsetTable units;
+    private final long chunkSize;
+    private final long blockSize;
+    private final int chunksTotal;
+
+    /**
+     * Concatenated chunk hashes
+     */
+    private final byte[] checksums;
+    private final int checksumLength;
+
+    /**
+     * Block availability bitmask: 1 for present blocks.
+     * Each chunk occupies a whole number of words,
+     * so that no word is shared between chunks that are guarded by different locks.
+     */
+    private final long[] bitmap;
+    private final int wordsPerChunk;
+
+    private final ReadWriteLock[] locks;
+
+    /**
+     * @param units Storage units of the torrent
+     * @param chunkSize Size of each chunk, except for the last one
+     * @param blockSize Size of a block in a chunk
+     * @param checksums Concatenated chunk hashes
+     * @param checksumLength Length of a single chunk hash
+     * @since 1.8
+     */
+    ChunkTable(FileOffsetTable units, long chunkSize, long blockSize, byte[] checksums, int checksumLength) {
+        if (chunkSize <= 0 || blockSize <= 0 || blockSize > chunkSize) {
+            throw new IllegalArgumentException("Illegal arguments: chunk size (" + chunkSize + "), block size (" + blockSize + ")");
+        }
+
+        long chunksTotal = (units.length() + chunkSize - 1) / chunkSize;
+        if (chunksTotal * checksumLength != checksums.length) {
+            throw new IllegalArgumentException("Invalid number of checksums: expected " + chunksTotal +
+                    ", actual: " + (checksums.length / checksumLength));
+        }
+
+        long blocksPerChunk = (chunkSize + blockSize - 1) / blockSize;
+        if (blocksPerChunk > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many blocks: chunk size (" + chunkSize +
+                    "), block size (" + blockSize + "), total blocks (" + blocksPerChunk + ")");
+        }
+
+        this.units = units;
+        this.chunkSize = chunkSize;
+        this.blockSize = blockSize;
+        this.chunksTotal = (int) chunksTotal;
+        this.checksums = checksums;
+        this.checksumLength = checksumLength;
+
+        this.wordsPerChunk = (int) ((blocksPerChunk + Long.SIZE - 1) / Long.SIZE);
+        this.bitmap = new long[this.chunksTotal * wordsPerChunk];
+
+        this.locks = new ReadWriteLock[Math.max(1, Math.min(LOCK_STRIPES, this.chunksTotal))];
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new ReentrantReadWriteLock();
+        }
+    }
+
+    @Override
+    public ChunkDescriptor get(int index) {
+        if (index < 0 || index >= chunksTotal) {
+            throw new IndexOutOfBoundsException("Invalid chunk index: " + index + ", expected 0.." + (chunksTotal - 1));
+        }
+        return new ChunkView(index);
+    }
+
+    @Override
+    public int size() {
+        return chunksTotal;
+    }
+
+    /**
+     * Read a block of chunk's data.
+     *
+     * @param chunkIndex Index of the chunk
+     * @param offset Offset in the chunk
+     * @param length Length of the block
+     * @since 1.8
+     */
+    byte[] readBlock(int chunkIndex, long offset, int length) {
+        checkBlock(chunkIndex, offset, length);
+
+        byte[] block = new byte[length];
+        ReadWriteLock lock = getLock(chunkIndex);
+        lock.readLock().lock();
+        try {
+            units.readBlock(chunkOffset(chunkIndex) + offset, ByteBuffer.wrap(block));
+        } finally {
+            lock.readLock().unlock();
+        }
+        return block;
+    }
+
+    /**
+     * Write a block of chunk's data and mark the blocks, that are fully covered by it, as present.
+     *
+     * @param chunkIndex Index of the chunk
+     * @param offset Offset in the chunk
+     * @param block Block of data
+     * @since 1.8
+     */
+    void writeBlock(int chunkIndex, long offset, byte[] block) {
+        checkBlock(chunkIndex, offset, block.length);
+
+        ReadWriteLock lock = getLock(chunkIndex);
+        lock.writeLock().lock();
+        try {
+            units.writeBlock(chunkOffset(chunkIndex) + offset, ByteBuffer.wrap(block).asReadOnlyBuffer());
+            markAvailable(chunkIndex, offset, block.length);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void checkBlock(int chunkIndex, long offset, int length) {
+        if (chunkIndex < 0 || chunkIndex >= chunksTotal) {
+            throw new IllegalArgumentException("Invalid chunk index: " + chunkIndex + ", expected 0.." + (chunksTotal - 1));
+        }
+        if (offset < 0 || length < 0 || offset + length > chunkLength(chunkIndex)) {
+            throw new IllegalArgumentException("Insufficient data (offset: " + offset + ", requested length: " + length + ")");
+        }
+    }
+
+    private ReadWriteLock getLock(int chunkIndex) {
+        return locks[chunkIndex % locks.length];
+    }
+
+    private long chunkOffset(int chunkIndex) {
+        return chunkIndex * chunkSize;
+    }
+
+    private long chunkLength(int chunkIndex) {
+        return Math.min(chunkSize, units.length() - chunkOffset(chunkIndex));
+    }
+
+    private int blockCount(int chunkIndex) {
+        return (int) ((chunkLength(chunkIndex) + blockSize - 1) / blockSize);
+    }
+
+    private boolean isSet(int chunkIndex, int blockIndex) {
+        int word = chunkIndex * wordsPerChunk + (blockIndex >>> 6);
+        return (bitmap[word] & (1L << blockIndex)) != 0;
+    }
+
+    private void set(int chunkIndex, int fromBlockIndex, int toBlockIndex) {
+        int base = chunkIndex * wordsPerChunk;
+        for (int i = fromBlockIndex; i < toBlockIndex; i++) {
+            bitmap[base + (i >>> 6)] |= (1L << i);
+        }
+    }
+
+    private int cardinality(int chunkIndex) {
+        int base = chunkIndex * wordsPerChunk;
+        int count = 0;
+        for (int i = 0; i < wordsPerChunk; i++) {
+            count += Long.bitCount(bitmap[base + i]);
+        }
+        return count;
+    }
+
+    /**
+     * Only those blocks are considered present that fit fully in the written data;
+     * the last block of a chunk (which may be smaller than the others)
+     * is considered present only when all of its data has been written.
+     * Must be called while holding the chunk's write lock.
+     */
+    private void markAvailable(int chunkIndex, long offset, long length) {
+        long chunkLength = chunkLength(chunkIndex);
+        int blockCount = blockCount(chunkIndex);
+
+        long lastBlockOffset = (blockCount - 1) * blockSize;
+        if (offset <= lastBlockOffset && offset + length >= chunkLength) {
+            set(chunkIndex, blockCount - 1, blockCount);
+        }
+        if (length >= blockSize) {
+            int firstBlockIndex = (int) ((offset + blockSize - 1) / blockSize);
+            int lastBlockIndex = (int) ((offset + length) / blockSize) - 1;
+            if (lastBlockIndex >= firstBlockIndex) {
+                set(chunkIndex, firstBlockIndex, lastBlockIndex + 1);
+            }
+        }
+    }
+
+    private class ChunkView implements ChunkDescriptor {
+
+        private final int chunkIndex;
+
+        ChunkView(int chunkIndex) {
+            this.chunkIndex = chunkIndex;
+        }
+
+        @Override
+        public byte[] getChecksum() {
+            int offset = chunkIndex * checksumLength;
+            return Arrays.copyOfRange(checksums, offset, offset + checksumLength);
+        }
+
+        @Override
+        public DataRange getData() {
+            return new ChunkDataRange(chunkIndex, 0, chunkLength(chunkIndex));
+        }
+
+        @Override
+        public int blockCount() {
+            return ChunkTable.this.blockCount(chunkIndex);
+        }
+
+        @Override
+        public long length() {
+            return chunkLength(chunkIndex);
+        }
+
+        @Override
+        public long blockSize() {
+            return blockSize;
+        }
+
+        @Override
+        public long lastBlockSize() {
+            long lastBlockSize = chunkLength(chunkIndex) % blockSize;
+            return (lastBlockSize > 0) ? lastBlockSize : blockSize;
+        }
+
+        @Override
+        public boolean isPresent(int blockIndex) {
+            int blockCount = blockCount();
+            if (blockIndex < 0 || blockIndex >= blockCount) {
+                throw new IllegalArgumentException("Invalid block index: " + blockIndex + ". Expected 0.." + (blockCount - 1));
+            }
+            ReadWriteLock lock = getLock(chunkIndex);
+            lock.readLock().lock();
+            try {
+                return isSet(chunkIndex, blockIndex);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        @Override
+        public boolean isComplete() {
+            ReadWriteLock lock = getLock(chunkIndex);
+            lock.readLock().lock();
+            try {
+                return cardinality(chunkIndex) == blockCount();
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        @Override
+        public boolean isEmpty() {
+            ReadWriteLock lock = getLock(chunkIndex);
+            lock.readLock().lock();
+            try {
+                return cardinality(chunkIndex) == 0;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+    }
+
+    private class ChunkDataRange implements DataRange {
+
+        private final int chunkIndex;
+        private final long offsetInChunk;
+        private final long length;
+
+        ChunkDataRange(int chunkIndex, long offsetInChunk, long length) {
+            this.chunkIndex = chunkIndex;
+            this.offsetInChunk = offsetInChunk;
+            this.length = length;
+        }
+
+        @Override
+        public long length() {
+            return length;
+        }
+
+        @Override
+        public DataRange getSubrange(long offset, long length) {
+            if (length == 0) {
+                throw new IllegalArgumentException("Requested empty subrange, expected length of 1.." + length());
+            }
+            if (offset < 0 || length < 0) {
+                throw new IllegalArgumentException("Illegal arguments: offset (" + offset + "), length (" + length + ")");
+            }
+            if (offset >= length()) {
+                throw new IllegalArgumentException("Offset is too large: " + offset + ", expected 0.." + (length() - 1));
+            }
+            if (offset + length > length()) {
+                throw new IllegalArgumentException("Insufficient data (offset: " + offset + ", requested length: " + length + ")");
+            }
+            if (offset == 0 && length == length()) {
+                return this;
+            }
+            return new ChunkDataRange(chunkIndex, offsetInChunk + offset, length);
+        }
+
+        @Override
+        public DataRange getSubrange(long offset) {
+            if (offset < 0) {
+                throw new IllegalArgumentException("Illegal arguments: offset (" + offset + ")");
+            }
+            return offset == 0 ? this : getSubrange(offset, length() - offset);
+        }
+
+        @Override
+        public byte[] getBytes() {
+            if (length > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Range is too big: " + length);
+            }
+            return readBlock(chunkIndex, offsetInChunk, (int) length);
+        }
+
+        @Override
+        public void putBytes(byte[] block) {
+            if (block.length > length) {
+                throw new IllegalArgumentException(String.format(
+                        "Data does not fit in this range (expected max %d bytes, actual: %d)", length, block.length));
+            }
+            writeBlock(chunkIndex, offsetInChunk, block);
+        }
+
+        @Override
+        public void visitUnits(DataRangeVisitor visitor) {
+            ReadWriteLock lock = getLock(chunkIndex);
+            lock.writeLock().lock();
+            try {
+                toUnitRange().visitUnits(visitor);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        private DataRange toUnitRange() {
+            return units.getRange(chunkOffset(chunkIndex) + offsetInChunk, length);
+        }
+    }
+}
@@ -50,4 +50,35 @@ public interface DataDescriptor extends Closeable {
      * @since 1.7
      */
     List<TorrentFile> getFilesForPiece(int pieceIndex);
+
+    /**
+     * Read a block of data.
+     *
+     * <p>Default implementation reads the block via the piece's {@link ChunkDescriptor#getData()};
+     * implementations are encouraged to provide a more efficient way of addressing the underlying storage units.
+     *
+     * @param pieceIndex Index of the piece
+     * @param offset Offset in the piece
+     * @param length Length of the block
+     * @return Block of data
+     * @since 1.8
+     */
+    default byte[] readBlock(int pieceIndex, int offset, int length) {
+        return getChunkDescriptors().get(pieceIndex).getData().getSubrange(offset, length).getBytes();
+    }
+
+    /**
+     * Write a block of data and mark the blocks of the piece, that are fully covered by it, as present.
+     *
+     * <p>Default implementation writes the block via the piece's {@link ChunkDescriptor#getData()};
+     * implementations are encouraged to provide a more efficient way of addressing the underlying storage units.
+     *
+     * @param pieceIndex Index of the piece
+     * @param offset Offset in the piece
+     * @param block Block of data
+     * @since 1.8
+     */
+    default void writeBlock(int pieceIndex, int offset, byte[] block) {
+        getChunkDescriptors().get(pieceIndex).getData().getSubrange(offset).putBytes(block);
+    }
 }
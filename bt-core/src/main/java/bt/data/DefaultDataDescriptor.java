@@ -17,15 +17,13 @@
 package bt.data;
 
 import bt.BtException;
-import bt.data.range.BlockRange;
-import bt.data.range.Ranges;
 import bt.metainfo.Torrent;
 import bt.metainfo.TorrentFile;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -36,13 +34,19 @@ class DefaultDataDescriptor implements DataDescriptor {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(DefaultDataDescriptor.class);
 
+    // length of a SHA-1 hash
+    private static final int CHECKSUM_LENGTH = 20;
+
     private Storage storage;
 
     private Torrent torrent;
     private List<ChunkDescriptor> chunkDescriptors;
+    private ChunkTable chunkTable;
     private Bitfield bitfield;
 
-    private Map<Integer, List<TorrentFile>> filesForPieces;
+    private FileOffsetTable unitTable;
+    private List<TorrentFile> filesForUnits;
+    private long chunkSize;
     private Set<StorageUnit> storageUnits;
 
     private ChunkVerifier verifier;
@@ -61,16 +65,14 @@ class DefaultDataDescriptor implements DataDescriptor {
     private void init(long transferBlockSize) {
         List<TorrentFile> files = torrent.getFiles();
 
-        long totalSize = torrent.getSize();
         long chunkSize = torrent.getChunkSize();
 
         if (transferBlockSize > chunkSize) {
             transferBlockSize = chunkSize;
         }
 
-        int chunksTotal = (int) Math.ceil(totalSize / chunkSize);
-        Map<Integer, List<TorrentFile>> filesForPieces = new HashMap<>((int)(chunksTotal / 0.75d) + 1);
-        List<ChunkDescriptor> chunks = new ArrayList<>(chunksTotal + 1);
+        ChunkTable chunkTable = null;
+        FileOffsetTable unitTable = null;
 
         Iterator<byte[]> chunkHashes = torrent.getChunkHashes().iterator();
 
@@ -79,9 +81,12 @@ class DefaultDataDescriptor implements DataDescriptor {
 
         // filter out empty files (and create them at once)
         List<StorageUnit> nonEmptyStorageUnits = new ArrayList<>();
-        for (StorageUnit unit : storageUnitsToFilesMap.keySet()) {
+        List<TorrentFile> filesForUnits = new ArrayList<>();
+        for (Map.Entry<StorageUnit, TorrentFile> entry : storageUnitsToFilesMap.entrySet()) {
+            StorageUnit unit = entry.getKey();
             if (unit.capacity() > 0) {
                 nonEmptyStorageUnits.add(unit);
+                filesForUnits.add(entry.getValue());
             } else {
                 try {
                     // TODO: think about adding some explicit "initialization/creation" method
@@ -93,47 +98,42 @@ class DefaultDataDescriptor implements DataDescriptor {
         }
 
         if (nonEmptyStorageUnits.size() > 0) {
-            long limitInLastUnit = nonEmptyStorageUnits.get(nonEmptyStorageUnits.size() - 1).capacity();
-            DataRange data = new ReadWriteDataRange(nonEmptyStorageUnits, 0, limitInLastUnit);
-
-            long off, lim;
-            long remaining = totalSize;
-            while (remaining > 0) {
-                off = chunks.size() * chunkSize;
-                lim = Math.min(chunkSize, remaining);
+            unitTable = new FileOffsetTable(nonEmptyStorageUnits);
 
-                DataRange subrange = data.getSubrange(off, lim);
+            long chunksTotal = (unitTable.length() + chunkSize - 1) / chunkSize;
+            if (chunksTotal * CHECKSUM_LENGTH > Integer.MAX_VALUE) {
+                throw new BtException("Too many chunks in the torrent: " + chunksTotal);
+            }
 
+            byte[] checksums = new byte[(int) chunksTotal * CHECKSUM_LENGTH];
+            for (int i = 0; i < chunksTotal; i++) {
                 if (!chunkHashes.hasNext()) {
                     throw new BtException("Wrong number of chunk hashes in the torrent: too few");
                 }
-
-                List<TorrentFile> chunkFiles = new ArrayList<>();
-                subrange.visitUnits((unit, off1, lim1) -> chunkFiles.add(storageUnitsToFilesMap.get(unit)));
-                filesForPieces.put(chunks.size(), chunkFiles);
-
-                chunks.add(buildChunkDescriptor(subrange, transferBlockSize, chunkHashes.next()));
-
-                remaining -= chunkSize;
+                byte[] checksum = chunkHashes.next();
+                if (checksum.length != CHECKSUM_LENGTH) {
+                    throw new BtException("Invalid chunk hash length: " + checksum.length +
+                            ", expected " + CHECKSUM_LENGTH);
+                }
+                System.arraycopy(checksum, 0, checksums, i * CHECKSUM_LENGTH, CHECKSUM_LENGTH);
             }
+
+            chunkTable = new ChunkTable(unitTable, chunkSize, transferBlockSize, checksums, CHECKSUM_LENGTH);
         }
 
         if (chunkHashes.hasNext()) {
             throw new BtException("Wrong number of chunk hashes in the torrent: too many");
         }
 
+        List<ChunkDescriptor> chunks = (chunkTable == null) ? Collections.emptyList() : chunkTable;
+
         this.bitfield = buildBitfield(chunks);
         this.chunkDescriptors = chunks;
+        this.chunkTable = chunkTable;
+        this.chunkSize = chunkSize;
         this.storageUnits = storageUnitsToFilesMap.keySet();
-        this.filesForPieces = filesForPieces;
-    }
-
-    private ChunkDescriptor buildChunkDescriptor(DataRange data, long blockSize, byte[] checksum) {
-        BlockRange<DataRange> blockData = Ranges.blockRange(data, blockSize);
-        DataRange synchronizedData = Ranges.synchronizedDataRange(blockData);
-        BlockSet synchronizedBlockSet = Ranges.synchronizedBlockSet(blockData.getBlockSet());
-
-        return new DefaultChunkDescriptor(synchronizedData, synchronizedBlockSet, checksum);
+        this.unitTable = unitTable;
+        this.filesForUnits = filesForUnits;
     }
 
     private Bitfield buildBitfield(List<ChunkDescriptor> chunks) {
@@ -154,11 +154,34 @@ class DefaultDataDescriptor implements DataDescriptor {
 
     @Override
     public List<TorrentFile> getFilesForPiece(int pieceIndex) {
+        checkPieceIndex(pieceIndex);
+
+        long offset = pieceIndex * chunkSize;
+        long limit = Math.min(offset + chunkSize, unitTable.length());
+
+        int firstUnit = unitTable.unitIndex(offset);
+        int lastUnit = unitTable.unitIndex(limit - 1);
+
+        return new ArrayList<>(filesForUnits.subList(firstUnit, lastUnit + 1));
+    }
+
+    @Override
+    public byte[] readBlock(int pieceIndex, int offset, int length) {
+        checkPieceIndex(pieceIndex);
+        return chunkTable.readBlock(pieceIndex, offset, length);
+    }
+
+    @Override
+    public void writeBlock(int pieceIndex, int offset, byte[] block) {
+        checkPieceIndex(pieceIndex);
+        chunkTable.writeBlock(pieceIndex, offset, block);
+    }
+
+    private void checkPieceIndex(int pieceIndex) {
         if (pieceIndex < 0 || pieceIndex >= bitfield.getPiecesTotal()) {
             throw new IllegalArgumentException("Invalid piece index: " + pieceIndex +
                     ", expected 0.." + bitfield.getPiecesTotal());
         }
-        return filesForPieces.get(pieceIndex);
     }
 
     @Override
@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) 2016—2017 Andrei Tomashpolskiy and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package bt.data;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Torrent-wide table of storage unit offsets.
+ *
+ * <p>Maps "virtual" addresses in the torrent's data (i.e. offsets from the beginning of the first file)
+ * to storage units via binary search, so that a data range for any part of the torrent
+ * can be built in O(log n) time, without keeping per-chunk copies of the unit list.
+ *
+ * @since 1.8
+ */
+class FileOffsetTable {
+
+    private final List<StorageUnit> units;
+
+    /**
+     * Offset of the beginning of the n-th unit relative to the beginning of the torrent's data.
+     * Units are guaranteed to be non-empty, so the offsets are strictly increasing.
+     */
+    private final long[] offsets;
+    private final long length;
+
+    /**
+     * @param units List of non-empty storage units, in the order they appear in the torrent
+     * @since 1.8
+     */
+    FileOffsetTable(List<StorageUnit> units) {
+        if (units.isEmpty()) {
+            throw new IllegalArgumentException("Empty list of units");
+        }
+
+        long[] offsets = new long[units.size()];
+        long length = 0;
+        for (int i = 0; i < units.size(); i++) {
+            long capacity = units.get(i).capacity();
+            if (capacity <= 0) {
+                throw new IllegalArgumentException("Empty unit at index " + i + ": " + units.get(i));
+            }
+            offsets[i] = length;
+            length += capacity;
+        }
+
+        this.units = units;
+        this.offsets = offsets;
+        this.length = length;
+    }
+
+    /**
+     * @return Total length of all units in the table
+     * @since 1.8
+     */
+    long length() {
+        return length;
+    }
+
+    /**
+     * @return Number of units in the table
+     * @since 1.8
+     */
+    int size() {
+        return units.size();
+    }
+
+    /**
+     * @since 1.8
+     */
+    StorageUnit getUnit(int unitIndex) {
+        return units.get(unitIndex);
+    }
+
+    /**
+     * @return Offset of the beginning of the unit relative to the beginning of the torrent's data
+     * @since 1.8
+     */
+    long getOffset(int unitIndex) {
+        return offsets[unitIndex];
+    }
+
+    /**
+     * @param offset Offset relative to the beginning of the torrent's data
+     * @return Index of the unit, that contains the byte at the given offset
+     * @since 1.8
+     */
+    int unitIndex(long offset) {
+        if (offset < 0 || offset >= length) {
+            throw new IllegalArgumentException("Invalid offset: " + offset + ", expected 0.." + (length - 1));
+        }
+        int i = Arrays.binarySearch(offsets, offset);
+        // if the offset is not the beginning of some unit,
+        // then it belongs to the unit preceding the insertion point
+        return (i >= 0) ? i : -(i + 1) - 1;
+    }
+
+    /**
+     * Build a data range for a part of the torrent's data.
+     *
+     * @param offset Offset relative to the beginning of the torrent's data; inclusive
+     * @param length Length of the range
+     * @since 1.8
+     */
+    DataRange getRange(long offset, long length) {
+        if (length <= 0 || offset + length > this.length) {
+            throw new IllegalArgumentException("Insufficient data (offset: " + offset + ", requested length: " + length + ")");
+        }
+        int firstUnit = unitIndex(offset);
+        int lastUnit = unitIndex(offset + length - 1);
+
+        long offsetInFirstUnit = offset - offsets[firstUnit];
+        long limitInLastUnit = offset + length - offsets[lastUnit];
+
+        return new ReadWriteDataRange(units, offsets, firstUnit, offsetInFirstUnit, lastUnit, limitInLastUnit);
+    }
+
+    /**
+     * Read data into the buffer, starting with the given offset.
+     * Exactly {@code buffer.remaining()} bytes are read, possibly from several units.
+     *
+     * @param offset Offset relative to the beginning of the torrent's data
+     * @since 1.8
+     */
+    void readBlock(long offset, ByteBuffer buffer) {
+        transfer(offset, buffer, false);
+    }
+
+    /**
+     * Write the remaining contents of the buffer, starting with the given offset,
+     * possibly to several units.
+     *
+     * @param offset Offset relative to the beginning of the torrent's data
+     * @since 1.8
+     */
+    void writeBlock(long offset, ByteBuffer buffer) {
+        transfer(offset, buffer, true);
+    }
+
+    private void transfer(long offset, ByteBuffer buffer, boolean write) {
+        int position = buffer.position();
+        int limit = buffer.limit();
+        if (position == limit) {
+            return;
+        } else if (offset < 0 || offset + (limit - position) > length) {
+            throw new IllegalArgumentException("Insufficient data (offset: " + offset +
+                    ", requested length: " + (limit - position) + ")");
+        }
+
+        int unitIndex = unitIndex(offset);
+        long offsetInUnit = offset - offsets[unitIndex];
+        try {
+            while (position < limit) {
+                StorageUnit unit = units.get(unitIndex);
+                long unitLimit = (unitIndex == offsets.length - 1) ? length : offsets[unitIndex + 1];
+                int next = (int) Math.min(limit, position + (unitLimit - offsets[unitIndex] - offsetInUnit));
+
+                buffer.limit(next);
+                buffer.position(position);
+                if (write) {
+                    unit.writeBlock(buffer, offsetInUnit);
+                } else {
+                    unit.readBlock(buffer, offsetInUnit);
+                }
+
+                position = next;
+                unitIndex++;
+                offsetInUnit = 0;
+            }
+        } finally {
+            buffer.limit(limit);
+        }
+        buffer.position(limit);
+    }
+}
@@ -17,7 +17,6 @@
 package bt.data;
 
 import java.nio.ByteBuffer;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
@@ -35,18 +34,20 @@ class ReadWriteDataRange implements DataRange {
     private final long length;
 
     /**
-     * This is a "map" of this range's "virtual addresses" (offsets) into the range's files.
-     * Size of this map is equal to the number of range's files.
+     * This is a "map" of "virtual addresses" (offsets) into the files of {@link #units}.
+     * Size of this map is equal to the number of units in the list (not only the units of this range).
      * The number x at some position n is the "virtual" offset that designates the beginning
      * of the n-th file. So, a request to build a range beginning with offset x,
      * will translate to offset 0 in the n-th file (i.e. the beginning of the file).
      *
      * Obviously, the number at position 0 is always 0
-     * and translates into the offset in the first file in the range (this offset is set upon creation of the range).
+     * and translates into the beginning of the first file in the list.
      *
-     * Also, it's guaranted that the address at position n+1 is always greater than address at position n.
+     * Also, it's guaranteed that the address at position n+1 is never less than address at position n
+     * (it's equal only if the n-th file is empty). The map is shared between a range and all of its subranges,
+     * so that subranges can be built in O(log n) time without copying the list of units.
      */
-    private long[] fileOffsets;
+    private final long[] fileOffsets;
 
     /**
      * Create a data range.
@@ -61,17 +62,31 @@ class ReadWriteDataRange implements DataRange {
                               long offsetInFirstUnit,
                               long limitInLastUnit) {
         this(units,
+             calculateOffsets(units),
              0,
              offsetInFirstUnit,
              units.size() - 1,
              limitInLastUnit);
     }
 
-    private ReadWriteDataRange(List<StorageUnit> units,
-                               int firstUnit,
-                               long offsetInFirstUnit,
-                               int lastUnit,
-                               long limitInLastUnit) {
+    /**
+     * Create a data range over a part of the list of units.
+     *
+     * @param units List of storage units
+     * @param fileOffsets Offsets of the units' beginnings, relative to the beginning of the first unit in {@code units}
+     * @param firstUnit Index of the first unit of the range in {@code units}
+     * @param offsetInFirstUnit Offset from the beginning of the first unit of the range; inclusive
+     * @param lastUnit Index of the last unit of the range in {@code units}
+     * @param limitInLastUnit Offset from the beginning of the last unit of the range; exclusive
+     *
+     * @since 1.8
+     */
+    ReadWriteDataRange(List<StorageUnit> units,
+                       long[] fileOffsets,
+                       int firstUnit,
+                       long offsetInFirstUnit,
+                       int lastUnit,
+                       long limitInLastUnit) {
 
         if (units.isEmpty()) {
             throw new IllegalArgumentException("Empty list of units");
@@ -99,39 +114,20 @@ class ReadWriteDataRange implements DataRange {
         }
 
         this.units = units;
-        this.fileOffsets = calculateOffsets(units, offsetInFirstUnit);
+        this.fileOffsets = fileOffsets;
 
         this.firstUnit = firstUnit;
         this.lastUnit = lastUnit;
         this.offsetInFirstUnit = offsetInFirstUnit;
         this.limitInLastUnit = limitInLastUnit;
 
-        this.length = calculateLength(units, offsetInFirstUnit, limitInLastUnit);
-    }
-
-    private static long calculateLength(List<StorageUnit> units, long offsetInFirstUnit, long limitInLastUnit) {
-        long size;
-        if (units.size() == 1) {
-            size = limitInLastUnit - offsetInFirstUnit;
-        } else {
-            size = units.get(0).capacity() - offsetInFirstUnit;
-            for (int i = 1; i < units.size() - 1; i++) {
-                size += units.get(i).capacity();
-            }
-            size += limitInLastUnit;
-        }
-        return size;
+        this.length = (fileOffsets[lastUnit] + limitInLastUnit) - (fileOffsets[firstUnit] + offsetInFirstUnit);
     }
 
-    private static long[] calculateOffsets(List<StorageUnit> units, long offsetInFirstUnit) {
+    private static long[] calculateOffsets(List<StorageUnit> units) {
         long[] fileOffsets = new long[units.size()];
-        // first "virtual" address (first file begins with offset 0)
-        fileOffsets[0] = 0;
-        if (units.size() > 1) {
-            // it's possible that chunk does not have access to the entire first file
-            fileOffsets[1] = units.get(0).capacity() - offsetInFirstUnit;
-        }
-        for (int i = 2; i < units.size(); i++) {
+        // first "virtual" address is always 0 (first file begins with offset 0)
+        for (int i = 1; i < units.size(); i++) {
             fileOffsets[i] = fileOffsets[i - 1] + units.get(i - 1).capacity();
         }
         return fileOffsets;
@@ -157,67 +153,42 @@ class ReadWriteDataRange implements DataRange {
             return this;
         }
 
-        int firstRequestedFileIndex,
-            lastRequestedFileIndex;
-
-        long offsetInFirstRequestedFile,
-             limitInLastRequestedFile;
-
-        // determine the file that the requested block begins in
-        firstRequestedFileIndex = -1;
-        for (int i = 0; i < units.size(); i++) {
-            if (offset < fileOffsets[i]) {
-                firstRequestedFileIndex = i - 1;
-                break;
-            } else if (i == units.size() - 1) {
-                // reached the last file
-                firstRequestedFileIndex = i;
-            }
+        if (length > length() - offset) {
+            // data in this range is insufficient to fulfill the block request
+            throw new IllegalArgumentException("Insufficient data (offset: " + offset + ", requested length: " + length + ")");
         }
 
-        offsetInFirstRequestedFile = offset - fileOffsets[firstRequestedFileIndex];
-        if (firstRequestedFileIndex == 0) {
-            // if the first requested file is the first file in chunk,
-            // then we need to begin from this chunk's offset in that file
-            // (in case this chunk has access only to a portion of the file)
-            offsetInFirstRequestedFile += offsetInFirstUnit;
-        }
+        // "virtual" addresses of the requested block's first byte (inclusive) and last byte (exclusive)
+        long begin = fileOffsets[firstUnit] + offsetInFirstUnit + offset;
+        long end = begin + length;
 
-        lastRequestedFileIndex = firstRequestedFileIndex;
-        long remaining = length;
-        do {
-            // determine which files overlap with the requested block
-            if (firstRequestedFileIndex == lastRequestedFileIndex) {
-                remaining -= (units.get(lastRequestedFileIndex).capacity() - offsetInFirstRequestedFile);
-            } else {
-                remaining -= units.get(lastRequestedFileIndex).capacity();
-            }
-        } while (remaining > 0 && ++lastRequestedFileIndex < units.size());
+        int firstRequestedFileIndex = unitIndex(begin);
+        int lastRequestedFileIndex = unitIndex(end - 1);
 
-        if (lastRequestedFileIndex >= units.size()) {
-            // data in this chunk is insufficient to fulfill the block request
-            throw new IllegalArgumentException("Insufficient data (offset: " + offset + ", requested length: " + length + ")");
+        return new ReadWriteDataRange(
+                units,
+                fileOffsets,
+                firstRequestedFileIndex,
+                begin - fileOffsets[firstRequestedFileIndex],
+                lastRequestedFileIndex,
+                end - fileOffsets[lastRequestedFileIndex]);
+    }
+
+    /**
+     * @return Index of the (non-empty) unit of this range, that contains the byte with the given "virtual" address
+     */
+    private int unitIndex(long address) {
+        int i = Arrays.binarySearch(fileOffsets, firstUnit, lastUnit + 1, address);
+        if (i < 0) {
+            // address is not the beginning of some unit,
+            // hence it belongs to the unit preceding the insertion point
+            return -(i + 1) - 1;
         }
-        // if remaining is negative now, then we need to
-        // strip off some data from the last file
-        limitInLastRequestedFile = units.get(lastRequestedFileIndex).capacity() + remaining;
-
-        if (lastRequestedFileIndex == units.size() - 1) {
-            if (limitInLastRequestedFile > limitInLastUnit) {
-                // data in this chunk is insufficient to fulfill the block request
-                throw new IllegalArgumentException("Insufficient data (offset: " + offset + ", requested length: " + length + ")");
-            }
+        // skip empty units, that begin at the same address
+        while (i < lastUnit && fileOffsets[i + 1] == address) {
+            i++;
         }
-
-        List<StorageUnit> _units = new ArrayList<>();
-        int len = lastRequestedFileIndex - firstRequestedFileIndex;
-        _units.addAll(Arrays.asList(Arrays.copyOfRange(units.toArray(
-                new StorageUnit[len]), firstRequestedFileIndex, lastRequestedFileIndex + 1)));
-
-        return new ReadWriteDataRange(
-                _units,
-                offsetInFirstRequestedFile,
-                limitInLastRequestedFile);
+        return i;
     }
 
     @Override
@@ -22,173 +22,516 @@ import bt.net.Peer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 
 /**
  * Basic implementation of event bus, that connects event producers and listeners.
- * In this implementation all events are delivered synchronously.
+ *
+ * <p>Events are published without locking: listener lists are copy-on-write,
+ * and an event object is not even created, if there are no listeners for it.
+ * Listeners can subscribe either to all events of some type or only to events of a particular torrent;
+ * in the latter case the listener is not invoked for other torrents' events at all.</p>
+ *
+ * <p>By default listeners are invoked synchronously in the thread, that fired the event.
+ * Listeners, that are registered via {@link #async()}, receive events through a bounded queue
+ * (one per listener), that is drained in a separate thread. Events are dropped, if the listener's queue is full.</p>
  *
  * @since 1.5
  */
 public class EventBus implements EventSink, EventSource {
     private static final Logger LOGGER = LoggerFactory.getLogger(EventBus.class);
 
-    private final ConcurrentMap<Class<? extends BaseEvent>, Collection<Consumer<? extends BaseEvent>>> listeners;
-
-    private final ReentrantReadWriteLock eventLock;
+    private final Map<Class<? extends BaseEvent>, Listeners> listeners;
+    private final AtomicLong idSequence;
 
-    private long idSequence;
+    private final Executor asyncExecutor;
+    private final int asyncQueueSize;
+    private final EventSource asyncSource;
 
+    /**
+     * Create an event bus, that only supports synchronous delivery of events.
+     *
+     * @since 1.5
+     */
     public EventBus() {
-        this.listeners = new ConcurrentHashMap<>();
-        this.eventLock = new ReentrantReadWriteLock();
+        this(null, 0);
+    }
+
+    /**
+     * @param asyncExecutor Executor to drain the queues of asynchronous listeners
+     * @param asyncQueueSize Max number of pending events per asynchronous listener
+     * @since 1.8
+     */
+    public EventBus(Executor asyncExecutor, int asyncQueueSize) {
+        if (asyncExecutor != null && asyncQueueSize <= 0) {
+            throw new IllegalArgumentException("Invalid queue size: " + asyncQueueSize);
+        }
+
+        Map<Class<? extends BaseEvent>, Listeners> listeners = new HashMap<>();
+        listeners.put(PeerDiscoveredEvent.class, new Listeners());
+        listeners.put(PeerConnectedEvent.class, new Listeners());
+        listeners.put(PeerDisconnectedEvent.class, new Listeners());
+        listeners.put(PeerBitfieldUpdatedEvent.class, new Listeners());
+        listeners.put(TorrentStartedEvent.class, new Listeners());
+        listeners.put(TorrentStoppedEvent.class, new Listeners());
+        listeners.put(TorrentUnregisteredEvent.class, new Listeners());
+        this.listeners = listeners;
+        this.idSequence = new AtomicLong();
+
+        this.asyncExecutor = asyncExecutor;
+        this.asyncQueueSize = asyncQueueSize;
+        this.asyncSource = new AsyncEventSource();
     }
 
     @Override
-    public synchronized void firePeerDiscovered(TorrentId torrentId, Peer peer) {
-        long timestamp = System.currentTimeMillis();
-        if (hasListeners(PeerDiscoveredEvent.class)) {
-            long id = nextId();
-            fireEvent(new PeerDiscoveredEvent(id, timestamp, torrentId, peer));
+    public void firePeerDiscovered(TorrentId torrentId, Peer peer) {
+        Listeners listeners = this.listeners.get(PeerDiscoveredEvent.class);
+        if (listeners.hasListeners(torrentId)) {
+            fireEvent(listeners, new PeerDiscoveredEvent(nextId(), System.currentTimeMillis(), torrentId, peer));
         }
     }
 
     @Override
-    public synchronized void firePeerConnected(TorrentId torrentId, Peer peer) {
-        long timestamp = System.currentTimeMillis();
-        if (hasListeners(PeerConnectedEvent.class)) {
-            long id = nextId();
-            fireEvent(new PeerConnectedEvent(id, timestamp, torrentId, peer));
+    public void firePeerConnected(TorrentId torrentId, Peer peer) {
+        Listeners listeners = this.listeners.get(PeerConnectedEvent.class);
+        if (listeners.hasListeners(torrentId)) {
+            fireEvent(listeners, new PeerConnectedEvent(nextId(), System.currentTimeMillis(), torrentId, peer));
         }
     }
 
     @Override
-    public synchronized void firePeerDisconnected(TorrentId torrentId, Peer peer) {
-        long timestamp = System.currentTimeMillis();
-        if (hasListeners(PeerDisconnectedEvent.class)) {
-            long id = nextId();
-            fireEvent(new PeerDisconnectedEvent(id, timestamp, torrentId, peer));
+    public void firePeerDisconnected(TorrentId torrentId, Peer peer) {
+        Listeners listeners = this.listeners.get(PeerDisconnectedEvent.class);
+        if (listeners.hasListeners(torrentId)) {
+            fireEvent(listeners, new PeerDisconnectedEvent(nextId(), System.currentTimeMillis(), torrentId, peer));
         }
     }
 
     @Override
     public void firePeerBitfieldUpdated(TorrentId torrentId, Peer peer, Bitfield bitfield) {
-        long timestamp = System.currentTimeMillis();
-        if (hasListeners(PeerBitfieldUpdatedEvent.class)) {
-            long id = nextId();
-            fireEvent(new PeerBitfieldUpdatedEvent(id, timestamp, torrentId, peer, bitfield));
+        Listeners listeners = this.listeners.get(PeerBitfieldUpdatedEvent.class);
+        if (listeners.hasListeners(torrentId)) {
+            fireEvent(listeners,
+                    new PeerBitfieldUpdatedEvent(nextId(), System.currentTimeMillis(), torrentId, peer, bitfield));
         }
     }
 
     @Override
     public void fireTorrentStarted(TorrentId torrentId) {
-        long timestamp = System.currentTimeMillis();
-        if (hasListeners(TorrentStartedEvent.class)) {
-            long id = nextId();
-            fireEvent(new TorrentStartedEvent(id, timestamp, torrentId));
+        Listeners listeners = this.listeners.get(TorrentStartedEvent.class);
+        if (listeners.hasListeners(torrentId)) {
+            fireEvent(listeners, new TorrentStartedEvent(nextId(), System.currentTimeMillis(), torrentId));
         }
     }
 
     @Override
     public void fireTorrentStopped(TorrentId torrentId) {
-        long timestamp = System.currentTimeMillis();
-        if (hasListeners(TorrentStoppedEvent.class)) {
-            long id = nextId();
-            fireEvent(new TorrentStoppedEvent(id, timestamp, torrentId));
+        Listeners listeners = this.listeners.get(TorrentStoppedEvent.class);
+        if (listeners.hasListeners(torrentId)) {
+            fireEvent(listeners, new TorrentStoppedEvent(nextId(), System.currentTimeMillis(), torrentId));
         }
     }
 
-    private boolean hasListeners(Class<? extends BaseEvent> eventType) {
-        Collection<Consumer<? extends BaseEvent>> listeners = this.listeners.get(eventType);
-        return listeners != null && !listeners.isEmpty();
+    @Override
+    public void fireTorrentUnregistered(TorrentId torrentId) {
+        Listeners listeners = this.listeners.get(TorrentUnregisteredEvent.class);
+        if (listeners.hasListeners(torrentId)) {
+            fireEvent(listeners, new TorrentUnregisteredEvent(nextId(), System.currentTimeMillis(), torrentId));
+        }
+        // torrent is gone, so its' listeners will never be invoked again
+        this.listeners.values().forEach(it -> it.perTorrent.remove(torrentId));
     }
 
-    private synchronized long nextId() {
-        return ++idSequence;
+    private long nextId() {
+        return idSequence.incrementAndGet();
     }
 
-    private <E extends BaseEvent> void fireEvent(E event) {
-        eventLock.readLock().lock();
-        try {
-            Collection<Consumer<? extends BaseEvent>> listeners = this.listeners.get(event.getClass());
-            if (LOGGER.isTraceEnabled()) {
-                int count = (listeners == null) ? 0 : listeners.size();
-                LOGGER.trace("Firing event: {}. Listeners count: {}", event, count);
-            }
-            if (listeners != null && !listeners.isEmpty()) {
-                for (Consumer<? extends BaseEvent> listener : listeners) {
-                    @SuppressWarnings("unchecked")
-                    Consumer<E> _listener = (Consumer<E>) listener;
-                    _listener.accept(event);
-                }
+    private <E extends BaseEvent & TorrentEvent> void fireEvent(Listeners listeners, E event) {
+        List<Subscription> torrentListeners = listeners.perTorrent.get(event.getTorrentId());
+        if (LOGGER.isTraceEnabled()) {
+            int count = listeners.global.size() + ((torrentListeners == null) ? 0 : torrentListeners.size());
+            LOGGER.trace("Firing event: {}. Listeners count: {}", event, count);
+        }
+        for (Subscription listener : listeners.global) {
+            listener.accept(event);
+        }
+        if (torrentListeners != null) {
+            for (Subscription listener : torrentListeners) {
+                listener.accept(event);
             }
-        } finally {
-            eventLock.readLock().unlock();
         }
     }
 
     @Override
     public EventSource onPeerDiscovered(Consumer<PeerDiscoveredEvent> listener) {
-        addListener(PeerDiscoveredEvent.class, listener);
+        addListener(PeerDiscoveredEvent.class, null, listener, false);
+        return this;
+    }
+
+    @Override
+    public EventSource onPeerDiscovered(TorrentId torrentId, Consumer<PeerDiscoveredEvent> listener) {
+        addListener(PeerDiscoveredEvent.class, torrentId, listener, false);
         return this;
     }
 
     @Override
     public EventSource onPeerConnected(Consumer<PeerConnectedEvent> listener) {
-        addListener(PeerConnectedEvent.class, listener);
+        addListener(PeerConnectedEvent.class, null, listener, false);
+        return this;
+    }
+
+    @Override
+    public EventSource onPeerConnected(TorrentId torrentId, Consumer<PeerConnectedEvent> listener) {
+        addListener(PeerConnectedEvent.class, torrentId, listener, false);
         return this;
     }
 
     @Override
     public EventSource onPeerDisconnected(Consumer<PeerDisconnectedEvent> listener) {
-        addListener(PeerDisconnectedEvent.class, listener);
+        addListener(PeerDisconnectedEvent.class, null, listener, false);
+        return this;
+    }
+
+    @Override
+    public EventSource onPeerDisconnected(TorrentId torrentId, Consumer<PeerDisconnectedEvent> listener) {
+        addListener(PeerDisconnectedEvent.class, torrentId, listener, false);
         return this;
     }
 
     @Override
     public EventSource onPeerBitfieldUpdated(Consumer<PeerBitfieldUpdatedEvent> listener) {
-        addListener(PeerBitfieldUpdatedEvent.class, listener);
+        addListener(PeerBitfieldUpdatedEvent.class, null, listener, false);
+        return this;
+    }
+
+    @Override
+    public EventSource onPeerBitfieldUpdated(TorrentId torrentId, Consumer<PeerBitfieldUpdatedEvent> listener) {
+        addListener(PeerBitfieldUpdatedEvent.class, torrentId, listener, false);
         return this;
     }
 
     @Override
     public EventSource onTorrentStarted(Consumer<TorrentStartedEvent> listener) {
-        addListener(TorrentStartedEvent.class, listener);
+        addListener(TorrentStartedEvent.class, null, listener, false);
+        return this;
+    }
+
+    @Override
+    public EventSource onTorrentStarted(TorrentId torrentId, Consumer<TorrentStartedEvent> listener) {
+        addListener(TorrentStartedEvent.class, torrentId, listener, false);
         return this;
     }
 
     @Override
     public EventSource onTorrentStopped(Consumer<TorrentStoppedEvent> listener) {
-        addListener(TorrentStoppedEvent.class, listener);
+        addListener(TorrentStoppedEvent.class, null, listener, false);
         return this;
     }
 
-    private <E extends BaseEvent> void addListener(Class<E> eventType, Consumer<E> listener) {
-        Collection<Consumer<? extends BaseEvent>> listeners = this.listeners.get(eventType);
-        if (listeners == null) {
-            listeners = ConcurrentHashMap.newKeySet();
-            Collection<Consumer<? extends BaseEvent>> existing = this.listeners.putIfAbsent(eventType, listeners);
-            if (existing != null) {
-                listeners = existing;
+    @Override
+    public EventSource onTorrentStopped(TorrentId torrentId, Consumer<TorrentStoppedEvent> listener) {
+        addListener(TorrentStoppedEvent.class, torrentId, listener, false);
+        return this;
+    }
+
+    @Override
+    public EventSource onTorrentUnregistered(Consumer<TorrentUnregisteredEvent> listener) {
+        addListener(TorrentUnregisteredEvent.class, null, listener, false);
+        return this;
+    }
+
+    @Override
+    public EventSource onTorrentUnregistered(TorrentId torrentId, Consumer<TorrentUnregisteredEvent> listener) {
+        addListener(TorrentUnregisteredEvent.class, torrentId, listener, false);
+        return this;
+    }
+
+    @Override
+    public EventSource async() {
+        if (asyncExecutor == null) {
+            throw new IllegalStateException("Asynchronous delivery of events is not supported by this event bus");
+        }
+        return asyncSource;
+    }
+
+    @Override
+    public boolean removeListener(Consumer<?> listener) {
+        Objects.requireNonNull(listener);
+
+        boolean removed = false;
+        for (Listeners listeners : this.listeners.values()) {
+            removed |= listeners.global.removeIf(subscription -> subscription.isFor(listener));
+            for (TorrentId torrentId : listeners.perTorrent.keySet()) {
+                removed |= listeners.removePerTorrent(torrentId, listener);
+            }
+        }
+        return removed;
+    }
+
+    @Override
+    public boolean removeListener(TorrentId torrentId, Consumer<?> listener) {
+        Objects.requireNonNull(torrentId);
+        Objects.requireNonNull(listener);
+
+        boolean removed = false;
+        for (Listeners listeners : this.listeners.values()) {
+            removed |= listeners.removePerTorrent(torrentId, listener);
+        }
+        return removed;
+    }
+
+    private <E extends BaseEvent> void addListener(Class<E> eventType,
+                                                   TorrentId torrentId,
+                                                   Consumer<E> listener,
+                                                   boolean async) {
+        Objects.requireNonNull(listener);
+
+        Consumer<E> safeListener = event -> {
+            try {
+                listener.accept(event);
+            } catch (Exception ex) {
+                LOGGER.error("Listener invocation failed", ex);
+            }
+        };
+        if (async) {
+            safeListener = new AsyncListener<>(safeListener, asyncExecutor, asyncQueueSize);
+        }
+
+        @SuppressWarnings("unchecked")
+        Subscription subscription = new Subscription(listener, (Consumer<BaseEvent>) safeListener);
+        Listeners listeners = this.listeners.get(eventType);
+        if (torrentId == null) {
+            listeners.global.add(subscription);
+        } else {
+            listeners.addPerTorrent(torrentId, subscription);
+        }
+    }
+
+    /**
+     * Remembers the original listener, so that it could be unsubscribed.
+     */
+    private static class Subscription implements Consumer<BaseEvent> {
+        private final Object listener;
+        private final Consumer<BaseEvent> delivery;
+
+        Subscription(Object listener, Consumer<BaseEvent> delivery) {
+            this.listener = listener;
+            this.delivery = delivery;
+        }
+
+        boolean isFor(Object listener) {
+            return this.listener == listener;
+        }
+
+        @Override
+        public void accept(BaseEvent event) {
+            delivery.accept(event);
+        }
+    }
+
+    private static class Listeners {
+        private final List<Subscription> global;
+        private final ConcurrentMap<TorrentId, List<Subscription>> perTorrent;
+
+        Listeners() {
+            this.global = new CopyOnWriteArrayList<>();
+            this.perTorrent = new ConcurrentHashMap<>();
+        }
+
+        boolean hasListeners(TorrentId torrentId) {
+            if (!global.isEmpty()) {
+                return true;
+            }
+            List<Subscription> torrentListeners = perTorrent.get(torrentId);
+            return torrentListeners != null && !torrentListeners.isEmpty();
+        }
+
+        // lists are modified inside of compute* to not race with the removal of empty lists
+
+        void addPerTorrent(TorrentId torrentId, Subscription subscription) {
+            perTorrent.compute(torrentId, (id, list) -> {
+                if (list == null) {
+                    list = new CopyOnWriteArrayList<>();
+                }
+                list.add(subscription);
+                return list;
+            });
+        }
+
+        boolean removePerTorrent(TorrentId torrentId, Object listener) {
+            boolean[] removed = new boolean[1];
+            perTorrent.computeIfPresent(torrentId, (id, list) -> {
+                removed[0] = list.removeIf(subscription -> subscription.isFor(listener));
+                return list.isEmpty() ? null : list;
+            });
+            return removed[0];
+        }
+    }
+
+    /**
+     * Delivers events to the delegate listener in the order of their arrival,
+     * but never in more than one thread at a time.
+     */
+    private static class AsyncListener<E> implements Consumer<E>, Runnable {
+
+        private final Consumer<E> delegate;
+        private final Executor executor;
+        private final BlockingQueue<E> queue;
+        private final AtomicBoolean scheduled;
+
+        AsyncListener(Consumer<E> delegate, Executor executor, int queueSize) {
+            this.delegate = delegate;
+            this.executor = executor;
+            this.queue = new ArrayBlockingQueue<>(queueSize);
+            this.scheduled = new AtomicBoolean(false);
+        }
+
+        @Override
+        public void accept(E event) {
+            if (!queue.offer(event)) {
+                LOGGER.warn("Dropping event, because listener's queue is full: {}", event);
+                return;
             }
+            schedule();
         }
 
-        eventLock.writeLock().lock();
-        try {
-            Consumer<E> safeListener = event -> {
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
                 try {
-                    listener.accept(event);
-                } catch (Exception ex) {
-                    LOGGER.error("Listener invocation failed", ex);
+                    executor.execute(this);
+                } catch (RejectedExecutionException e) {
+                    scheduled.set(false);
+                    LOGGER.warn("Failed to schedule delivery of events, probably the runtime is shutting down");
                 }
-            };
-            listeners.add(safeListener);
-        } finally {
-            eventLock.writeLock().unlock();
+            }
+        }
+
+        @Override
+        public void run() {
+            E event;
+            while ((event = queue.poll()) != null) {
+                delegate.accept(event);
+            }
+            scheduled.set(false);
+            // an event might have been added after the queue has been drained, but before the flag is reset
+            if (!queue.isEmpty()) {
+                schedule();
+            }
+        }
+    }
+
+    private class AsyncEventSource implements EventSource {
+
+        @Override
+        public EventSource onPeerDiscovered(Consumer<PeerDiscoveredEvent> listener) {
+            addListener(PeerDiscoveredEvent.class, null, listener, true);
+            return this;
+        }
+
+        @Override
+        public EventSource onPeerDiscovered(TorrentId torrentId, Consumer<PeerDiscoveredEvent> listener) {
+            addListener(PeerDiscoveredEvent.class, torrentId, listener, true);
+            return this;
+        }
+
+        @Override
+        public EventSource onPeerConnected(Consumer<PeerConnectedEvent> listener) {
+            addListener(PeerConnectedEvent.class, null, listener, true);
+            return this;
+        }
+
+        @Override
+        public EventSource onPeerConnected(TorrentId torrentId, Consumer<PeerConnectedEvent> listener) {
+            addListener(PeerConnectedEvent.class, torrentId, listener, true);
+            return this;
+        }
+
+        @Override
+        public EventSource onPeerDisconnected(Consumer<PeerDisconnectedEvent> listener) {
+            addListener(PeerDisconnectedEvent.class, null, listener, true);
+            return this;
+        }
+
+        @Override
+        public EventSource onPeerDisconnected(TorrentId torrentId, Consumer<PeerDisconnectedEvent> listener) {
+            addListener(PeerDisconnectedEvent.class, torrentId, listener, true);
+            return this;
+        }
+
+        @Override
+        public EventSource onPeerBitfieldUpdated(Consumer<PeerBitfieldUpdatedEvent> listener) {
+            addListener(PeerBitfieldUpdatedEvent.class, null, listener, true);
+            return this;
+        }
+
+        @Override
+        public EventSource onPeerBitfieldUpdated(TorrentId torrentId, Consumer<PeerBitfieldUpdatedEvent> listener) {
+            addListener(PeerBitfieldUpdatedEvent.class, torrentId, listener, true);
+            return this;
+        }
+
+        @Override
+        public EventSource onTorrentStarted(Consumer<TorrentStartedEvent> listener) {
+            addListener(TorrentStartedEvent.class, null, listener, true);
+            return this;
+        }
+
+        @Override
+        public EventSource onTorrentStarted(TorrentId torrentId, Consumer<TorrentStartedEvent> listener) {
+            addListener(TorrentStartedEvent.class, torrentId, listener, true);
+            return this;
+        }
+
+        @Override
+        public EventSource onTorrentStopped(Consumer<TorrentStoppedEvent> listener) {
+            addListener(TorrentStoppedEvent.class, null, listener, true);
+            return this;
+        }
+
+        @Override
+        public EventSource onTorrentStopped(TorrentId torrentId, Consumer<TorrentStoppedEvent> listener) {
+            addListener(TorrentStoppedEvent.class, torrentId, listener, true);
+            return this;
+        }
+
+        @Override
+        public EventSource onTorrentUnregistered(Consumer<TorrentUnregisteredEvent> listener) {
+            addListener(TorrentUnregisteredEvent.class, null, listener, true);
+            return this;
+        }
+
+        @Override
+        public EventSource onTorrentUnregistered(TorrentId torrentId, Consumer<TorrentUnregisteredEvent> listener) {
+            addListener(TorrentUnregisteredEvent.class, torrentId, listener, true);
+            return this;
+        }
+
+        @Override
+        public EventSource async() {
+            return this;
+        }
+
+        @Override
+        public boolean removeListener(Consumer<?> listener) {
+            return EventBus.this.removeListener(listener);
+        }
+
+        @Override
+        public boolean removeListener(TorrentId torrentId, Consumer<?> listener) {
+            return EventBus.this.removeListener(torrentId, listener);
         }
     }
 }
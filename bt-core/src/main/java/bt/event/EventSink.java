@@ -68,4 +68,14 @@ public interface EventSink {
      * @since 1.5
      */
     void fireTorrentStopped(TorrentId torrentId);
+
+    /**
+     * Generate event, that some torrent has been removed from the runtime.
+     * Default implementation does nothing.
+     *
+     * @since 1.8
+     */
+    default void fireTorrentUnregistered(TorrentId torrentId) {
+        // do nothing
+    }
 }
@@ -16,6 +16,8 @@
 
 package bt.event;
 
+import bt.metainfo.TorrentId;
+
 import java.util.function.Consumer;
 
 /**
@@ -32,6 +34,13 @@ public interface EventSource {
      */
     EventSource onPeerDiscovered(Consumer<PeerDiscoveredEvent> listener);
 
+    /**
+     * Fired, when a new peer has been discovered for a given torrent.
+     *
+     * @since 1.8
+     */
+    EventSource onPeerDiscovered(TorrentId torrentId, Consumer<PeerDiscoveredEvent> listener);
+
     /**
      * Fired, when a new connection with some peer has been established.
      *
@@ -39,6 +48,13 @@ public interface EventSource {
      */
     EventSource onPeerConnected(Consumer<PeerConnectedEvent> listener);
 
+    /**
+     * Fired, when a new connection with some peer has been established for a given torrent.
+     *
+     * @since 1.8
+     */
+    EventSource onPeerConnected(TorrentId torrentId, Consumer<PeerConnectedEvent> listener);
+
     /**
      * Fired, when a connection with some peer has been terminated.
      *
@@ -46,6 +62,13 @@ public interface EventSource {
      */
     EventSource onPeerDisconnected(Consumer<PeerDisconnectedEvent> listener);
 
+    /**
+     * Fired, when a connection with some peer has been terminated for a given torrent.
+     *
+     * @since 1.8
+     */
+    EventSource onPeerDisconnected(TorrentId torrentId, Consumer<PeerDisconnectedEvent> listener);
+
     /**
      * Fired, when local information about some peer's data has been updated.
      *
@@ -53,6 +76,13 @@ public interface EventSource {
      */
     EventSource onPeerBitfieldUpdated(Consumer<PeerBitfieldUpdatedEvent> listener);
 
+    /**
+     * Fired, when local information about some peer's data has been updated for a given torrent.
+     *
+     * @since 1.8
+     */
+    EventSource onPeerBitfieldUpdated(TorrentId torrentId, Consumer<PeerBitfieldUpdatedEvent> listener);
+
     /**
      * Fired, when processing of some torrent has begun.
      *
@@ -60,10 +90,74 @@ public interface EventSource {
      */
     EventSource onTorrentStarted(Consumer<TorrentStartedEvent> listener);
 
+    /**
+     * Fired, when processing of a given torrent has begun.
+     *
+     * @since 1.8
+     */
+    EventSource onTorrentStarted(TorrentId torrentId, Consumer<TorrentStartedEvent> listener);
+
     /**
      * Fired, when processing of some torrent has finished.
      *
      * @since 1.5
      */
     EventSource onTorrentStopped(Consumer<TorrentStoppedEvent> listener);
+
+    /**
+     * Fired, when processing of a given torrent has finished.
+     *
+     * @since 1.8
+     */
+    EventSource onTorrentStopped(TorrentId torrentId, Consumer<TorrentStoppedEvent> listener);
+
+    /**
+     * Fired, when some torrent has been removed from the runtime.
+     *
+     * @since 1.8
+     */
+    EventSource onTorrentUnregistered(Consumer<TorrentUnregisteredEvent> listener);
+
+    /**
+     * Fired, when a given torrent has been removed from the runtime.
+     * All listeners, that have been subscribed to events of this torrent,
+     * are discarded after this event has been fired.
+     *
+     * @since 1.8
+     */
+    EventSource onTorrentUnregistered(TorrentId torrentId, Consumer<TorrentUnregisteredEvent> listener);
+
+    /**
+     * Get a view of this event source, that delivers events to its' listeners asynchronously
+     * (i.e. not in the thread, that fired the event). Each listener has its' own bounded queue of pending events;
+     * events are delivered to a particular listener in the order of their arrival
+     * and are dropped, if the listener can't keep up with the rate of events.
+     *
+     * @throws IllegalStateException if asynchronous delivery is not supported
+     * @since 1.8
+     */
+    EventSource async();
+
+    /**
+     * Unsubscribe the listener from all events, that it has been subscribed to via this event source
+     * (or via its' asynchronous view, see {@link #async()}), both global and per-torrent.
+     * Listeners are matched by identity.
+     *
+     * <p>This method has to look up the listener in subscriptions of all torrents;
+     * use {@link #removeListener(TorrentId, Consumer)} for listeners of a particular torrent.
+     *
+     * @return true if the listener has been subscribed to any events
+     * @since 1.8
+     */
+    boolean removeListener(Consumer<?> listener);
+
+    /**
+     * Unsubscribe the listener from events of a given torrent, that it has been subscribed to
+     * via this event source (or via its' asynchronous view, see {@link #async()}).
+     * Global subscriptions of the listener are not affected. Listeners are matched by identity.
+     *
+     * @return true if the listener has been subscribed to any events of the given torrent
+     * @since 1.8
+     */
+    boolean removeListener(TorrentId torrentId, Consumer<?> listener);
 }
@@ -16,110 +16,124 @@
 
 package bt.magnet;
 
-import bt.bencoding.BEParser;
-import bt.bencoding.model.BEInteger;
-import bt.bencoding.model.BEMap;
-import bt.bencoding.model.BEObject;
+import bt.bencoding.BEEncoder;
+import bt.bencoding.BEReader;
+import bt.bencoding.BEReader.Token;
 import bt.protocol.DecodingContext;
 import bt.protocol.EncodingContext;
+import bt.protocol.InvalidMessageException;
 import bt.protocol.handler.MessageHandler;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
-import java.io.OutputStream;
-import java.math.BigInteger;
 import java.nio.ByteBuffer;
-import java.util.Arrays;
+import java.nio.charset.Charset;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 
 /**
  * @since 1.3
  */
 public class UtMetadataMessageHandler implements MessageHandler<UtMetadata> {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    // dictionary keys in the order, that is mandated by the encoding
+    private static final byte[] MESSAGE_TYPE_KEY = UtMetadata.messageTypeField().getBytes(UTF_8);
+    private static final byte[] PIECE_INDEX_KEY = UtMetadata.pieceIndexField().getBytes(UTF_8);
+    private static final byte[] TOTAL_SIZE_KEY = UtMetadata.totalSizeField().getBytes(UTF_8);
+
     private final Collection<Class<? extends UtMetadata>> supportedTypes = Collections.singleton(UtMetadata.class);
 
     @Override
     public boolean encode(EncodingContext context, UtMetadata message, ByteBuffer buffer) {
-        boolean encoded = false;
-        try (ByteArrayOutputStream bos = new ByteArrayOutputStream()) {
-            writeMessage(message, bos);
-            byte[] payload = bos.toByteArray();
-            if (buffer.remaining() >= payload.length) {
-                buffer.put(payload);
-                encoded = true;
-            }
-        } catch (IOException e) {
-            // can't happen
+        // the dictionary is written field by field, without building the object model
+        BEEncoder encoder = BEEncoder.encoder();
+        int typeId = message.getType().id();
+        int pieceIndex = message.getPieceIndex();
+        byte[] data = message.getData().orElse(null);
+
+        int length = 2
+                + encoder.encodedLength(MESSAGE_TYPE_KEY) + encoder.encodedLength(typeId)
+                + encoder.encodedLength(PIECE_INDEX_KEY) + encoder.encodedLength(pieceIndex);
+        int totalSize = 0;
+        if (data != null) {
+            totalSize = message.getTotalSize().get();
+            length += encoder.encodedLength(TOTAL_SIZE_KEY) + encoder.encodedLength(totalSize) + data.length;
+        }
+        if (buffer.remaining() < length) {
+            return false;
         }
-        return encoded;
-    }
 
-    private void writeMessage(UtMetadata message, OutputStream out) throws IOException {
-        BEMap m = new BEMap(null, new HashMap<String, BEObject<?>>() {{
-            put(UtMetadata.messageTypeField(), new BEInteger(null, BigInteger.valueOf(message.getType().id())));
-            put(UtMetadata.pieceIndexField(), new BEInteger(null, BigInteger.valueOf(message.getPieceIndex())));
-            if (message.getData().isPresent()) {
-                put(UtMetadata.totalSizeField(), new BEInteger(null, BigInteger.valueOf(message.getTotalSize().get())));
-            }
-        }});
-        m.writeTo(out);
-        if (message.getData().isPresent()) {
-            out.write(message.getData().get());
+        buffer.put((byte) 'd');
+        encoder.encode(MESSAGE_TYPE_KEY, buffer);
+        encoder.encode(typeId, buffer);
+        encoder.encode(PIECE_INDEX_KEY, buffer);
+        encoder.encode(pieceIndex, buffer);
+        if (data != null) {
+            encoder.encode(TOTAL_SIZE_KEY, buffer);
+            encoder.encode(totalSize, buffer);
+        }
+        buffer.put((byte) 'e');
+        if (data != null) {
+            buffer.put(data);
         }
+        return true;
     }
 
     @Override
     public int decode(DecodingContext context, ByteBuffer buffer) {
-        byte[] payload = new byte[buffer.remaining()];
-        buffer.get(payload);
-        try (BEParser parser = new BEParser(payload)) {
-            BEMap m = parser.readMap();
-            int length = m.getContent().length;
-            UtMetadata.Type messageType = getMessageType(m);
-            int pieceIndex = getPieceIndex(m);
-            switch (messageType) {
-                case REQUEST: {
-                    context.setMessage(UtMetadata.request(pieceIndex));
-                    return length;
-                }
-                case DATA: {
-                    byte[] data = Arrays.copyOfRange(payload, length, payload.length);
-                    context.setMessage(UtMetadata.data(pieceIndex, getTotalSize(m), data));
-                    return payload.length;
-                }
-                case REJECT: {
-                    context.setMessage(UtMetadata.reject(pieceIndex));
-                    return length;
-                }
-                default: {
-                    throw new IllegalStateException("Unknown message type: " + messageType.name());
-                }
-            }
-        }
-    }
+        int begin = buffer.position();
 
-    private UtMetadata.Type getMessageType(BEMap m) {
-        BEInteger type = (BEInteger) m.getValue().get(UtMetadata.messageTypeField());
-        int typeId = type.getValue().intValueExact();
-        return UtMetadata.Type.forId(typeId);
-    }
+        BEReader reader = new BEReader(buffer);
+        if (reader.nextToken() != Token.MAP_START) {
+            throw new InvalidMessageException("ut_metadata message is not a dictionary");
+        }
 
-    private int getPieceIndex(BEMap m) {
-        return getIntAttribute(UtMetadata.pieceIndexField(), m);
-    }
+        Integer typeId = null, pieceIndex = null, totalSize = null;
+        while (reader.nextToken() != Token.END) {
+            String key = reader.readString();
+            reader.nextToken();
+            if (UtMetadata.messageTypeField().equals(key)) {
+                typeId = reader.readInt();
+            } else if (UtMetadata.pieceIndexField().equals(key)) {
+                pieceIndex = reader.readInt();
+            } else if (UtMetadata.totalSizeField().equals(key)) {
+                totalSize = reader.readInt();
+            } else {
+                reader.skipValue();
+            }
+        }
+        int length = reader.getBytesRead();
 
-    private int getTotalSize(BEMap m) {
-        return getIntAttribute(UtMetadata.totalSizeField(), m);
+        UtMetadata.Type messageType = UtMetadata.Type.forId(getAttribute(UtMetadata.messageTypeField(), typeId));
+        switch (messageType) {
+            case REQUEST: {
+                context.setMessage(UtMetadata.request(getAttribute(UtMetadata.pieceIndexField(), pieceIndex)));
+                buffer.position(begin + length);
+                return length;
+            }
+            case DATA: {
+                buffer.position(begin + length);
+                byte[] data = new byte[buffer.remaining()];
+                buffer.get(data);
+                context.setMessage(UtMetadata.data(getAttribute(UtMetadata.pieceIndexField(), pieceIndex),
+                        getAttribute(UtMetadata.totalSizeField(), totalSize), data));
+                return length + data.length;
+            }
+            case REJECT: {
+                context.setMessage(UtMetadata.reject(getAttribute(UtMetadata.pieceIndexField(), pieceIndex)));
+                buffer.position(begin + length);
+                return length;
+            }
+            default: {
+                throw new IllegalStateException("Unknown message type: " + messageType.name());
+            }
+        }
     }
 
-    private int getIntAttribute(String name, BEMap m) {
-        BEInteger value = ((BEInteger) m.getValue().get(name));
+    private static int getAttribute(String name, Integer value) {
         if (value == null) {
             throw new IllegalStateException("Message attribute is missing: " + name);
         }
-        return value.getValue().intValueExact();
+        return value;
     }
 
     @Override
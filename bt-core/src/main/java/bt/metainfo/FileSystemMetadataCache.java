@@ -0,0 +1,298 @@
+/*
+ * Copyright (c) 2016—2017 Andrei Tomashpolskiy and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package bt.metainfo;
+
+import bt.protocol.Protocols;
+import bt.runtime.Config;
+import bt.service.CryptoUtil;
+import com.google.inject.Inject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Stores info dictionaries in a local directory (see {@link Config#setMetadataCacheDirectory(Path)}),
+ * one file per torrent, named after the hex-encoded torrent ID.
+ * Contents of each file are re-verified against the torrent ID upon loading.
+ * Total size of the cache is bounded (see {@link Config#setMetadataCacheMaxSize(long)});
+ * least recently used entries are evicted first.
+ *
+ * <p>If the cache directory is not configured, the cache is disabled.
+ *
+ *<p><b>Note that this class implements a service.
+ * Hence, is not a part of the public API and is a subject to change.</b></p>
+ *
+ * @since 1.8
+ */
+public class FileSystemMetadataCache implements IMetadataCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FileSystemMetadataCache.class);
+
+    private static final String FILE_EXTENSION = ".info";
+    private static final String TEMP_FILE_EXTENSION = ".tmp";
+
+    private final Path directory;
+    private final long maxSize;
+
+    // access-ordered, i.e. eldest entry is the least recently used one;
+    // guarded by itself, the lock is held only for bookkeeping and never during I/O or hashing
+    private final LinkedHashMap<TorrentId, Long> entrySizes;
+    private long totalSize;
+    // entries that are currently being written to disk
+    private final Set<TorrentId> pendingWrites;
+
+    @Inject
+    public FileSystemMetadataCache(Config config) {
+        this.directory = config.getMetadataCacheDirectory();
+        this.maxSize = config.getMetadataCacheMaxSize();
+        this.entrySizes = new LinkedHashMap<>(16, 0.75f, true);
+        this.pendingWrites = ConcurrentHashMap.newKeySet();
+
+        if (directory != null) {
+            loadEntries();
+        }
+    }
+
+    private void loadEntries() {
+        List<Path> files = new ArrayList<>();
+        List<Path> tempFiles = new ArrayList<>();
+        try {
+            Files.createDirectories(directory);
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + FILE_EXTENSION)) {
+                stream.forEach(files::add);
+            }
+            // left over, if the process has died in the middle of writing an entry
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + TEMP_FILE_EXTENSION)) {
+                stream.forEach(tempFiles::add);
+            }
+        } catch (IOException e) {
+            LOGGER.error("Failed to read metadata cache directory: " + directory, e);
+            return;
+        }
+
+        for (Path tempFile : tempFiles) {
+            try {
+                Files.deleteIfExists(tempFile);
+            } catch (IOException e) {
+                LOGGER.warn("Failed to delete stale metadata cache file: " + tempFile, e);
+            }
+        }
+
+        // restore LRU order from the last access times
+        files.sort(Comparator.comparing(FileSystemMetadataCache::getLastModifiedTime));
+
+        List<TorrentId> evicted;
+        synchronized (entrySizes) {
+            for (Path file : files) {
+                Optional<TorrentId> torrentId = getTorrentId(file);
+                if (!torrentId.isPresent()) {
+                    continue;
+                }
+                try {
+                    long size = Files.size(file);
+                    entrySizes.put(torrentId.get(), size);
+                    totalSize += size;
+                } catch (IOException e) {
+                    LOGGER.warn("Failed to read metadata cache file: " + file, e);
+                }
+            }
+            evicted = evictIfNeeded();
+        }
+        evicted.forEach(this::deleteFile);
+
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Loaded {} entries from metadata cache directory: {}", entrySizes.size(), directory);
+        }
+    }
+
+    private static FileTime getLastModifiedTime(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private static Optional<TorrentId> getTorrentId(Path file) {
+        String fileName = file.getFileName().toString();
+        String hex = fileName.substring(0, fileName.length() - FILE_EXTENSION.length());
+        if (hex.length() != TorrentId.length() * 2) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(TorrentId.fromBytes(Protocols.fromHex(hex)));
+        } catch (Exception e) {
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public Optional<byte[]> get(TorrentId torrentId) {
+        if (directory == null) {
+            return Optional.empty();
+        }
+
+        synchronized (entrySizes) {
+            // also updates the LRU order
+            if (entrySizes.get(torrentId) == null) {
+                return Optional.empty();
+            }
+        }
+
+        Path file = getFile(torrentId);
+        byte[] infoDictionary;
+        try {
+            infoDictionary = Files.readAllBytes(file);
+        } catch (IOException e) {
+            LOGGER.warn("Failed to read metadata cache file: " + file, e);
+            remove(torrentId);
+            return Optional.empty();
+        }
+
+        if (!Arrays.equals(CryptoUtil.getSha1Digest(infoDictionary), torrentId.getBytes())) {
+            LOGGER.warn("Cached metadata is corrupted and will be removed (torrent ID: {})", torrentId);
+            remove(torrentId);
+            return Optional.empty();
+        }
+
+        try {
+            // persist LRU order
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            // ignore
+        }
+        return Optional.of(infoDictionary);
+    }
+
+    @Override
+    public void put(TorrentId torrentId, byte[] infoDictionary) {
+        if (directory == null || infoDictionary.length > maxSize) {
+            return;
+        }
+        synchronized (entrySizes) {
+            if (entrySizes.containsKey(torrentId)) {
+                return;
+            }
+        }
+        // only one thread writes a given entry
+        if (!pendingWrites.add(torrentId)) {
+            return;
+        }
+
+        List<TorrentId> evicted;
+        try {
+            if (!Arrays.equals(CryptoUtil.getSha1Digest(infoDictionary), torrentId.getBytes())) {
+                LOGGER.warn("Will not cache metadata, that does not match the torrent ID: {}", torrentId);
+                return;
+            }
+
+            Path file = getFile(torrentId);
+            Path tempFile = directory.resolve(file.getFileName() + TEMP_FILE_EXTENSION);
+            try {
+                Files.write(tempFile, infoDictionary);
+                try {
+                    Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } catch (IOException e) {
+                LOGGER.warn("Failed to write metadata cache file: " + file, e);
+                try {
+                    Files.deleteIfExists(tempFile);
+                } catch (IOException e1) {
+                    // ignore, will be deleted upon next start
+                }
+                return;
+            }
+
+            synchronized (entrySizes) {
+                if (entrySizes.put(torrentId, (long) infoDictionary.length) == null) {
+                    totalSize += infoDictionary.length;
+                }
+                evicted = evictIfNeeded();
+            }
+        } finally {
+            pendingWrites.remove(torrentId);
+        }
+        evicted.forEach(this::deleteFile);
+    }
+
+    /**
+     * Remove least recently used entries until the cache fits into the size limit.
+     * Must be called while holding the lock; it's up to the caller to delete the returned entries' files.
+     */
+    private List<TorrentId> evictIfNeeded() {
+        List<TorrentId> evicted = Collections.emptyList();
+        Iterator<Map.Entry<TorrentId, Long>> iter = entrySizes.entrySet().iterator();
+        while (totalSize > maxSize && iter.hasNext()) {
+            Map.Entry<TorrentId, Long> eldest = iter.next();
+            iter.remove();
+            totalSize -= eldest.getValue();
+            if (evicted.isEmpty()) {
+                evicted = new ArrayList<>();
+            }
+            evicted.add(eldest.getKey());
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Evicted metadata from cache (torrent ID: {})", eldest.getKey());
+            }
+        }
+        return evicted;
+    }
+
+    private void remove(TorrentId torrentId) {
+        synchronized (entrySizes) {
+            Long size = entrySizes.remove(torrentId);
+            if (size == null) {
+                // already removed or evicted by another thread
+                return;
+            }
+            totalSize -= size;
+        }
+        deleteFile(torrentId);
+    }
+
+    private void deleteFile(TorrentId torrentId) {
+        Path file = getFile(torrentId);
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            LOGGER.warn("Failed to delete metadata cache file: " + file, e);
+        }
+    }
+
+    private Path getFile(TorrentId torrentId) {
+        return directory.resolve(Protocols.toHex(torrentId.getBytes()) + FILE_EXTENSION);
+    }
+}
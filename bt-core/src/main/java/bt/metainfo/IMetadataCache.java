@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2016—2017 Andrei Tomashpolskiy and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package bt.metainfo;
+
+import java.util.Optional;
+
+/**
+ * Persistent cache of verified info dictionaries, keyed by torrent ID.
+ * Allows to skip the metadata exchange phase for magnet links,
+ * that have already been processed before.
+ *
+ * @since 1.8
+ */
+public interface IMetadataCache {
+
+    /**
+     * Get the info dictionary for a given torrent.
+     *
+     * @return Bencoded info dictionary, which SHA-1 digest is equal to the torrent ID,
+     *         or {@link Optional#empty()}, if the info dictionary is not present in the cache
+     * @since 1.8
+     */
+    Optional<byte[]> get(TorrentId torrentId);
+
+    /**
+     * Store the info dictionary for a given torrent.
+     * Info dictionaries, which SHA-1 digest does not match the torrent ID, are ignored.
+     *
+     * @param infoDictionary Bencoded info dictionary
+     * @since 1.8
+     */
+    void put(TorrentId torrentId, byte[] infoDictionary);
+}
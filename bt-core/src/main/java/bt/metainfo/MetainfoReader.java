@@ -0,0 +1,328 @@
+/*
+ * Copyright (c) 2016—2017 Andrei Tomashpolskiy and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package bt.metainfo;
+
+import bt.BtException;
+import bt.bencoding.BEReader;
+import bt.service.CryptoUtil;
+import bt.tracker.AnnounceKey;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Builds a torrent from its bencoded metainfo in a single pass over the document.
+ * No intermediate object tree is created.
+ *
+ * <p>Document must have been validated beforehand, either against the /metainfo.yml model
+ * (standard BEP-3 metainfo) or against the /infodict.yml model (standalone info dictionary,
+ * i.e. BEP-9 exchanged metadata); this class does not check types or presence of the entries.
+ *
+ * <p>Instances of this class are not thread-safe and should be used only once.
+ *
+ * @since 1.8
+ */
+class MetainfoReader {
+
+    private static final String ANNOUNCE_KEY = "announce";
+    private static final String ANNOUNCE_LIST_KEY = "announce-list";
+    private static final String INFOMAP_KEY = "info";
+    private static final String TORRENT_NAME_KEY = "name";
+    private static final String CHUNK_SIZE_KEY = "piece length";
+    private static final String CHUNK_HASHES_KEY = "pieces";
+    private static final String TORRENT_SIZE_KEY = "length";
+    private static final String FILES_KEY = "files";
+    private static final String FILE_SIZE_KEY = "length";
+    private static final String FILE_PATH_ELEMENTS_KEY = "path";
+    private static final String PRIVATE_KEY = "private";
+    private static final String CREATION_DATE_KEY = "creation date";
+    private static final String CREATED_BY_KEY = "created by";
+
+    private final ByteBuffer document;
+    private final Charset charset;
+    private final boolean standard;
+    private final BEReader reader;
+
+    private String announce;
+    private List<List<String>> announceList;
+    private BigInteger creationDate;
+    private String createdBy;
+    private final InfoDictionary info;
+    private int infoStart;
+    private int infoEnd;
+
+    /**
+     * @param document Buffer, containing the bencoded metainfo between its' position and limit.
+     *                 Position and limit of the buffer are not modified.
+     * @param standard true, if the document is a standard BEP-3 metainfo;
+     *                 false, if the document is a standalone info dictionary
+     */
+    MetainfoReader(ByteBuffer document, Charset charset, boolean standard) {
+        this.document = document;
+        this.charset = charset;
+        this.standard = standard;
+        this.reader = new BEReader(document);
+        this.info = new InfoDictionary();
+    }
+
+    /**
+     * @throws bt.bencoding.BtParseException if the document is malformed
+     * @throws BtException if the document can't be converted to a torrent
+     */
+    Torrent read() {
+        reader.nextToken();
+        try {
+            if (standard) {
+                readRoot();
+            } else {
+                readEntries();
+            }
+        } catch (ArithmeticException e) {
+            throw new BtException("Invalid metainfo format", e);
+        }
+        int documentEnd = reader.getBytesRead();
+
+        TorrentSource source;
+        byte[] exchangedMetadata;
+        if (standard) {
+            byte[] metadata = copy(0, documentEnd);
+            exchangedMetadata = Arrays.copyOfRange(metadata, infoStart, infoEnd);
+            source = new TorrentSource() {
+                @Override
+                public Optional<byte[]> getMetadata() {
+                    return Optional.of(metadata);
+                }
+
+                @Override
+                public byte[] getExchangedMetadata() {
+                    return exchangedMetadata;
+                }
+            };
+        } else {
+            exchangedMetadata = copy(0, documentEnd);
+            source = new TorrentSource() {
+                @Override
+                public Optional<byte[]> getMetadata() {
+                    return Optional.empty();
+                }
+
+                @Override
+                public byte[] getExchangedMetadata() {
+                    return exchangedMetadata;
+                }
+            };
+        }
+
+        DefaultTorrent torrent = new DefaultTorrent(source);
+        try {
+            torrent.setTorrentId(TorrentId.fromBytes(CryptoUtil.getSha1Digest(exchangedMetadata)));
+            info.apply(torrent);
+
+            if (creationDate != null) {
+                // TODO: some torrents contain bogus values here (like 101010101010), which causes an exception
+                torrent.setCreationDate(Instant.ofEpochMilli(creationDate.intValueExact() * 1000L));
+            }
+            if (createdBy != null) {
+                torrent.setCreatedBy(createdBy);
+            }
+
+            // TODO: support for private torrents with multiple trackers
+            if (!info.isPrivate && announceList != null) {
+                torrent.setAnnounceKey(new AnnounceKey(announceList));
+            } else if (announce != null) {
+                torrent.setAnnounceKey(new AnnounceKey(announce));
+            }
+        } catch (Exception e) {
+            throw new BtException("Invalid metainfo format", e);
+        }
+        return torrent;
+    }
+
+    private void readRoot() {
+        while (reader.hasNext()) {
+            reader.nextToken();
+            String key = reader.readString();
+            reader.nextToken();
+            switch (key) {
+                case ANNOUNCE_KEY: {
+                    announce = reader.readString(charset);
+                    break;
+                }
+                case ANNOUNCE_LIST_KEY: {
+                    announceList = readAnnounceList();
+                    break;
+                }
+                case INFOMAP_KEY: {
+                    // map start token is a single byte
+                    infoStart = reader.getBytesRead() - 1;
+                    readEntries();
+                    infoEnd = reader.getBytesRead();
+                    break;
+                }
+                case CREATION_DATE_KEY: {
+                    creationDate = reader.readBigInteger();
+                    break;
+                }
+                case CREATED_BY_KEY: {
+                    createdBy = reader.readString(charset);
+                    break;
+                }
+                default: {
+                    reader.skipValue();
+                }
+            }
+        }
+        reader.nextToken();
+    }
+
+    /**
+     * Read entries of the info dictionary, which is denoted by the current token.
+     */
+    private void readEntries() {
+        while (reader.hasNext()) {
+            reader.nextToken();
+            String key = reader.readString();
+            reader.nextToken();
+            info.readEntry(key);
+        }
+        reader.nextToken();
+    }
+
+    private List<List<String>> readAnnounceList() {
+        List<List<String>> tiers = new ArrayList<>();
+        while (reader.hasNext()) {
+            reader.nextToken();
+            tiers.add(readStrings());
+        }
+        reader.nextToken();
+        return tiers;
+    }
+
+    private List<String> readStrings() {
+        List<String> strings = new ArrayList<>();
+        while (reader.hasNext()) {
+            reader.nextToken();
+            strings.add(reader.readString(charset));
+        }
+        reader.nextToken();
+        return strings;
+    }
+
+    private byte[] copy(int from, int to) {
+        ByteBuffer view = document.duplicate();
+        view.limit(document.position() + to);
+        view.position(document.position() + from);
+        byte[] bytes = new byte[to - from];
+        view.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * Entries of the info dictionary, either nested in the standard metainfo,
+     * or located in the root of a standalone info dictionary.
+     */
+    private class InfoDictionary {
+
+        private String name;
+        private long chunkSize;
+        private byte[] chunkHashes;
+        private Long size;
+        private List<TorrentFile> files;
+        private long filesSize;
+        private boolean isPrivate;
+
+        void readEntry(String key) {
+            switch (key) {
+                case TORRENT_NAME_KEY: {
+                    name = reader.readString(charset);
+                    break;
+                }
+                case CHUNK_SIZE_KEY: {
+                    chunkSize = reader.readLong();
+                    break;
+                }
+                case CHUNK_HASHES_KEY: {
+                    chunkHashes = reader.readBytes();
+                    break;
+                }
+                case TORRENT_SIZE_KEY: {
+                    size = reader.readLong();
+                    break;
+                }
+                case FILES_KEY: {
+                    readFiles();
+                    break;
+                }
+                case PRIVATE_KEY: {
+                    isPrivate = BigInteger.ONE.equals(reader.readBigInteger());
+                    break;
+                }
+                default: {
+                    reader.skipValue();
+                }
+            }
+        }
+
+        private void readFiles() {
+            files = new ArrayList<>();
+            while (reader.hasNext()) {
+                reader.nextToken();
+                DefaultTorrentFile file = new DefaultTorrentFile();
+                while (reader.hasNext()) {
+                    reader.nextToken();
+                    String key = reader.readString();
+                    reader.nextToken();
+                    if (FILE_SIZE_KEY.equals(key)) {
+                        long fileSize = reader.readLong();
+                        file.setSize(fileSize);
+                        filesSize = Math.addExact(filesSize, fileSize);
+                    } else if (FILE_PATH_ELEMENTS_KEY.equals(key)) {
+                        file.setPathElements(readStrings());
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                reader.nextToken();
+                files.add(file);
+            }
+            reader.nextToken();
+        }
+
+        void apply(DefaultTorrent torrent) {
+            if (name != null) {
+                torrent.setName(name);
+            }
+            torrent.setChunkSize(chunkSize);
+            torrent.setChunkHashes(chunkHashes);
+            if (size != null) {
+                torrent.setSize(size);
+            } else {
+                torrent.setFiles(files);
+                torrent.setSize(filesSize);
+            }
+            if (isPrivate) {
+                torrent.setPrivate(true);
+            }
+        }
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2016—2017 Andrei Tomashpolskiy and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package bt.metrics;
+
+/**
+ * Counter, that can be incremented and decremented,
+ * e.g. to track the number of processed messages or the current size of some queue.
+ *
+ * @since 1.8
+ */
+public interface Counter {
+
+    /**
+     * Increment the counter by one.
+     *
+     * @since 1.8
+     */
+    default void inc() {
+        inc(1);
+    }
+
+    /**
+     * Increment the counter by the given amount.
+     *
+     * @since 1.8
+     */
+    void inc(long n);
+
+    /**
+     * Decrement the counter by one.
+     *
+     * @since 1.8
+     */
+    default void dec() {
+        inc(-1);
+    }
+}
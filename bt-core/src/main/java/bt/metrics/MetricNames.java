@@ -0,0 +1,286 @@
+/*
+ * Copyright (c) 2016—2017 Andrei Tomashpolskiy and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package bt.metrics;
+
+/**
+ * Names of metrics, that are reported by Bt core services and standard extensions.
+ * All durations are reported in nanoseconds.
+ *
+ * @since 1.8
+ */
+public final class MetricNames {
+
+    private MetricNames() {
+    }
+
+    /**
+     * Histogram: duration of a single iteration of the message dispatching loop (excluding idle waiting).
+     *
+     * @since 1.8
+     */
+    public static final String DISPATCHER_LOOP_TIME = "bt.net.dispatcher.loop-time";
+
+    /**
+     * Counter: messages, that have been read from peer connections and passed to the consumers.
+     *
+     * @since 1.8
+     */
+    public static final String DISPATCHER_MESSAGES_RECEIVED = "bt.net.dispatcher.messages-received";
+
+    /**
+     * Counter: messages, that have been obtained from the suppliers and posted to peer connections.
+     *
+     * @since 1.8
+     */
+    public static final String DISPATCHER_MESSAGES_SENT = "bt.net.dispatcher.messages-sent";
+
+    /**
+     * Counter: number of times the data receiver's selector has returned from select().
+     *
+     * @since 1.8
+     */
+    public static final String RECEIVER_SELECTOR_WAKEUPS = "bt.net.receiver.selector-wakeups";
+
+    /**
+     * Counter: selection keys (i.e. ready channels), that have been processed by the data receiver.
+     *
+     * @since 1.8
+     */
+    public static final String RECEIVER_KEYS_PROCESSED = "bt.net.receiver.keys-processed";
+
+    /**
+     * Gauge: current number of connections in the connection pool.
+     *
+     * @since 1.8
+     */
+    public static final String POOL_CONNECTIONS = "bt.net.pool.connections";
+
+    /**
+     * Counter: connections, that have been added to the connection pool.
+     *
+     * @since 1.8
+     */
+    public static final String POOL_CONNECTIONS_ADDED = "bt.net.pool.connections-added";
+
+    /**
+     * Counter: connections, that have been closed due to exceeding of the connections limit.
+     *
+     * @since 1.8
+     */
+    public static final String POOL_CONNECTIONS_REJECTED = "bt.net.pool.connections-rejected";
+
+    /**
+     * Counter: connections, that have been removed from the connection pool (closed or inactive).
+     *
+     * @since 1.8
+     */
+    public static final String POOL_CONNECTIONS_REMOVED = "bt.net.pool.connections-removed";
+
+    /**
+     * Counter: attempts to establish an outgoing connection.
+     *
+     * @since 1.8
+     */
+    public static final String CONNECTIONS_OUTGOING_ATTEMPTS = "bt.net.connections.outgoing.attempts";
+
+    /**
+     * Counter: outgoing connections, that failed to be established (including handshake failures).
+     *
+     * @since 1.8
+     */
+    public static final String CONNECTIONS_OUTGOING_FAILURES = "bt.net.connections.outgoing.failures";
+
+    /**
+     * Histogram: time to establish an outgoing connection (including handshakes).
+     *
+     * @since 1.8
+     */
+    public static final String CONNECTIONS_OUTGOING_TIME = "bt.net.connections.outgoing.time";
+
+    /**
+     * Counter: incoming connections, that have been accepted.
+     *
+     * @since 1.8
+     */
+    public static final String CONNECTIONS_INCOMING_ACCEPTED = "bt.net.connections.incoming.accepted";
+
+    /**
+     * Counter: incoming connections, that failed to be established (including handshake failures).
+     *
+     * @since 1.8
+     */
+    public static final String CONNECTIONS_INCOMING_FAILURES = "bt.net.connections.incoming.failures";
+
+    /**
+     * Counter: number of borrowed I/O buffers (incremented on borrow and decremented on release).
+     *
+     * @since 1.8
+     */
+    public static final String BUFFERS_BORROWED = "bt.net.buffers.borrowed";
+
+    /**
+     * Counter: I/O buffers, that have been allocated, because there were no released buffers to re-use.
+     *
+     * @since 1.8
+     */
+    public static final String BUFFERS_ALLOCATED = "bt.net.buffers.allocated";
+
+    /**
+     * Gauge: number of released I/O buffers, that are available for re-use.
+     *
+     * @since 1.8
+     */
+    public static final String BUFFERS_POOLED = "bt.net.buffers.pooled";
+
+    /**
+     * Gauge: total size of direct memory, that has been allocated for the pool of I/O buffers, in bytes.
+     *
+     * @see bt.runtime.Config#getMaxBufferPoolSize()
+     * @since 1.8
+     */
+    public static final String BUFFERS_POOL_CAPACITY = "bt.net.buffers.pool.capacity";
+
+    /**
+     * Gauge: size of pooled I/O buffers, that are currently in use, in bytes.
+     *
+     * @since 1.8
+     */
+    public static final String BUFFERS_POOL_USED = "bt.net.buffers.pool.used";
+
+    /**
+     * Counter: I/O buffers, that have been returned to the pool, because their borrowers were idle.
+     *
+     * @see bt.runtime.Config#getIdleBufferReleaseThreshold()
+     * @since 1.8
+     */
+    public static final String BUFFERS_IDLE_RELEASED = "bt.net.buffers.idle-released";
+
+    /**
+     * Counter: I/O buffers, that have been allocated on the heap, because the pool has reached its' max size.
+     *
+     * @since 1.8
+     */
+    public static final String BUFFERS_HEAP_ALLOCATED = "bt.net.buffers.heap-allocated";
+
+    /**
+     * Counter: number of pending tasks in all data workers
+     * (incremented on submission and decremented on completion).
+     *
+     * @since 1.8
+     */
+    public static final String DATA_WORKER_PENDING_TASKS = "bt.data.worker.pending-tasks";
+
+    /**
+     * Counter: tasks, that have been rejected by data workers due to exceeding of the max queue size.
+     *
+     * @since 1.8
+     */
+    public static final String DATA_WORKER_REJECTED_TASKS = "bt.data.worker.rejected-tasks";
+
+    /**
+     * Histogram: time to read a block from storage.
+     *
+     * @since 1.8
+     */
+    public static final String DATA_BLOCK_READ_TIME = "bt.data.worker.block-read-time";
+
+    /**
+     * Histogram: time to write a block to storage.
+     *
+     * @since 1.8
+     */
+    public static final String DATA_BLOCK_WRITE_TIME = "bt.data.worker.block-write-time";
+
+    /**
+     * Counter: bytes, that have been hashed during verification of downloaded pieces.
+     * Together with {@link #DATA_VERIFICATION_TIME} gives the hash verification throughput.
+     *
+     * @since 1.8
+     */
+    public static final String DATA_VERIFIED_BYTES = "bt.data.verification.bytes";
+
+    /**
+     * Histogram: time to verify a downloaded piece.
+     *
+     * @since 1.8
+     */
+    public static final String DATA_VERIFICATION_TIME = "bt.data.verification.time";
+
+    /**
+     * Counter: downloaded pieces, that failed verification.
+     *
+     * @since 1.8
+     */
+    public static final String DATA_VERIFICATION_FAILURES = "bt.data.verification.failures";
+
+    /**
+     * Counter: tracker queries.
+     *
+     * @since 1.8
+     */
+    public static final String TRACKER_QUERIES = "bt.peer.tracker.queries";
+
+    /**
+     * Counter: tracker queries, that returned an error or failed with an exception.
+     *
+     * @since 1.8
+     */
+    public static final String TRACKER_QUERY_FAILURES = "bt.peer.tracker.query-failures";
+
+    /**
+     * Histogram: duration of a tracker query.
+     *
+     * @since 1.8
+     */
+    public static final String TRACKER_QUERY_TIME = "bt.peer.tracker.query-time";
+
+    /**
+     * Counter: peers, that have been returned by trackers.
+     *
+     * @since 1.8
+     */
+    public static final String TRACKER_PEERS = "bt.peer.tracker.peers";
+
+    /**
+     * Counter: DHT peer lookups (including lookups combined with announces).
+     *
+     * @since 1.8
+     */
+    public static final String DHT_LOOKUPS = "bt.peer.dht.lookups";
+
+    /**
+     * Counter: DHT peer lookups, that failed with an exception.
+     *
+     * @since 1.8
+     */
+    public static final String DHT_LOOKUP_FAILURES = "bt.peer.dht.lookup-failures";
+
+    /**
+     * Histogram: duration of a DHT peer lookup.
+     *
+     * @since 1.8
+     */
+    public static final String DHT_LOOKUP_TIME = "bt.peer.dht.lookup-time";
+
+    /**
+     * Counter: peers, that have been discovered via DHT.
+     *
+     * @since 1.8
+     */
+    public static final String DHT_PEERS = "bt.peer.dht.peers";
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2016—2017 Andrei Tomashpolskiy and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package bt.metrics;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Registry of runtime metrics.
+ *
+ * <p>Core services obtain their instruments (counters, histograms and gauges) once, on creation,
+ * and update them on hot paths. Default implementation ({@link NoOpMetrics}) discards all updates,
+ * so that instrumentation has negligible overhead, unless a custom implementation is provided.
+ * Custom implementation can be provided by binding it in a custom module:
+ *
+ * <pre>{@code
+ * Bt.client()
+ *     .module(binder -> binder.bind(Metrics.class).to(MyMetrics.class).in(Singleton.class))
+ *     ...
+ * }</pre>
+ *
+ * <p>See {@link MetricNames} for the list of metrics, that are reported by Bt.
+ *
+ * @since 1.8
+ */
+public interface Metrics {
+
+    /**
+     * Get or create a counter with the given name.
+     * Subsequent invocations with the same name must return the same counter.
+     *
+     * @since 1.8
+     */
+    Counter counter(String name);
+
+    /**
+     * Get or create a histogram with the given name.
+     * Subsequent invocations with the same name must return the same histogram.
+     *
+     * @since 1.8
+     */
+    Histogram histogram(String name);
+
+    /**
+     * Register a gauge with the given name. Value supplier will be invoked each time the metric is read,
+     * so it should be cheap and thread-safe.
+     *
+     * @param name Gauge name
+     * @param value Supplier of the current value
+     * @since 1.8
+     */
+    void gauge(String name, LongSupplier value);
+
+    /**
+     * Allows callers to skip expensive measurements (like calls to {@link System#nanoTime()}),
+     * when metrics are discarded anyway.
+     *
+     * @return true if this registry records metrics
+     * @since 1.8
+     */
+    default boolean isEnabled() {
+        return true;
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2016—2017 Andrei Tomashpolskiy and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package bt.metrics;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Default metrics registry, that discards all updates.
+ *
+ * @since 1.8
+ */
+public final class NoOpMetrics implements Metrics {
+
+    private static final Counter NOOP_COUNTER = n -> {};
+    private static final Histogram NOOP_HISTOGRAM = value -> {};
+
+    @Override
+    public Counter counter(String name) {
+        return NOOP_COUNTER;
+    }
+
+    @Override
+    public Histogram histogram(String name) {
+        return NOOP_HISTOGRAM;
+    }
+
+    @Override
+    public void gauge(String name, LongSupplier value) {
+        // do nothing
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return false;
+    }
+}
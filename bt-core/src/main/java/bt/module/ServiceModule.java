@@ -16,6 +16,7 @@
 
 package bt.module;
 
+import bt.CountingThreadFactory;
 import bt.data.ChunkVerifier;
 import bt.data.DataDescriptorFactory;
 import bt.data.DefaultChunkVerifier;
@@ -25,8 +26,12 @@ import bt.data.digest.JavaSecurityDigester;
 import bt.event.EventBus;
 import bt.event.EventSink;
 import bt.event.EventSource;
+import bt.metainfo.FileSystemMetadataCache;
+import bt.metainfo.IMetadataCache;
 import bt.metainfo.IMetadataService;
 import bt.metainfo.MetadataService;
+import bt.metrics.Metrics;
+import bt.metrics.NoOpMetrics;
 import bt.net.*;
 import bt.net.buffer.BufferManager;
 import bt.net.buffer.IBufferManager;
@@ -60,6 +65,8 @@ import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.nio.channels.Selector;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 
 /**
  * This module contributes all core services,
@@ -151,8 +158,10 @@ public class ServiceModule implements Module {
         binder.bind(IRuntimeLifecycleBinder.class).to(RuntimeLifecycleBinder.class).in(Singleton.class);
         binder.bind(ProcessorFactory.class).to(TorrentProcessorFactory.class).in(Singleton.class);
         binder.bind(IPeerCache.class).to(PeerCache.class).in(Singleton.class);
+        binder.bind(IMetadataCache.class).to(FileSystemMetadataCache.class).in(Singleton.class);
         binder.bind(IBufferManager.class).to(BufferManager.class).in(Singleton.class);
         binder.bind(IChannelPipelineFactory.class).to(ChannelPipelineFactory.class).in(Singleton.class);
+        binder.bind(Metrics.class).to(NoOpMetrics.class).in(Singleton.class);
 
         // single instance of event bus provides two different injectable services
         binder.bind(EventSink.class).to(EventBus.class).in(Singleton.class);
@@ -188,14 +197,28 @@ public class ServiceModule implements Module {
     public IDataWorkerFactory provideDataWorkerFactory(
             IRuntimeLifecycleBinder lifecycleBinder,
             ChunkVerifier verifier,
+            Metrics metrics,
             Config config) {
-        return new DataWorkerFactory(lifecycleBinder, verifier, config.getMaxIOQueueSize());
+        return new DataWorkerFactory(lifecycleBinder, verifier, metrics, config.getMaxIOQueueSize());
     }
 
     @Provides
     @Singleton
-    public EventBus provideEventBus() {
-        return new EventBus();
+    @ClientScheduler
+    public ScheduledExecutorService provideClientScheduler(IRuntimeLifecycleBinder lifecycleBinder) {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+                CountingThreadFactory.factory("bt.service.client-scheduler"));
+        lifecycleBinder.onShutdown("Shutdown client scheduler", scheduler::shutdownNow);
+        return scheduler;
+    }
+
+    @Provides
+    @Singleton
+    public EventBus provideEventBus(IRuntimeLifecycleBinder lifecycleBinder, Config config) {
+        ExecutorService executor = Executors.newCachedThreadPool(
+                CountingThreadFactory.daemonFactory("bt.event.async-dispatcher"));
+        lifecycleBinder.onShutdown("Shutdown async event dispatcher", executor::shutdownNow);
+        return new EventBus(executor, config.getAsyncEventQueueSize());
     }
 
     @Provides
@@ -18,6 +18,10 @@ package bt.net;
 
 import bt.CountingThreadFactory;
 import bt.metainfo.TorrentId;
+import bt.metrics.Counter;
+import bt.metrics.Histogram;
+import bt.metrics.MetricNames;
+import bt.metrics.Metrics;
 import bt.runtime.Config;
 import bt.service.IRuntimeLifecycleBinder;
 import com.google.inject.Inject;
@@ -45,11 +49,17 @@ public class ConnectionSource implements IConnectionSource {
     // TODO: weak map
     private final ConcurrentMap<Peer, Long> unreachablePeers;
 
+    private final boolean metricsEnabled;
+    private final Counter outgoingAttempts;
+    private final Counter outgoingFailures;
+    private final Histogram outgoingTime;
+
     @Inject
     public ConnectionSource(Set<PeerConnectionAcceptor> connectionAcceptors,
                             IPeerConnectionFactory connectionFactory,
                             IPeerConnectionPool connectionPool,
                             IRuntimeLifecycleBinder lifecycleBinder,
+                            Metrics metrics,
                             Config config) {
 
         this.connectionFactory = connectionFactory;
@@ -64,8 +74,13 @@ public class ConnectionSource implements IConnectionSource {
         this.pendingConnections = new ConcurrentHashMap<>();
         this.unreachablePeers = new ConcurrentHashMap<>();
 
-        IncomingConnectionListener incomingListener =
-                new IncomingConnectionListener(connectionAcceptors, connectionExecutor, connectionPool, config);
+        this.metricsEnabled = metrics.isEnabled();
+        this.outgoingAttempts = metrics.counter(MetricNames.CONNECTIONS_OUTGOING_ATTEMPTS);
+        this.outgoingFailures = metrics.counter(MetricNames.CONNECTIONS_OUTGOING_FAILURES);
+        this.outgoingTime = metrics.histogram(MetricNames.CONNECTIONS_OUTGOING_TIME);
+
+        IncomingConnectionListener incomingListener = new IncomingConnectionListener(
+                connectionAcceptors, connectionExecutor, connectionPool, metrics, config);
         lifecycleBinder.onStartup("Initialize incoming connection acceptors", incomingListener::startup);
         lifecycleBinder.onShutdown("Shutdown incoming connection acceptors", incomingListener::shutdown);
     }
@@ -109,6 +124,8 @@ public class ConnectionSource implements IConnectionSource {
             }
         }
 
+        // early check to avoid establishing connections, that will be rejected anyway;
+        // the limit itself is enforced atomically by the pool, when a new connection is added
         if (connectionPool.size() >= config.getMaxPeerConnections()) {
             if (LOGGER.isDebugEnabled()) {
                 LOGGER.debug("Will not attempt to establish connection to peer: {}. " +
@@ -126,10 +143,15 @@ public class ConnectionSource implements IConnectionSource {
                 return connection;
             }
 
+            outgoingAttempts.inc();
             connection = CompletableFuture.supplyAsync(() -> {
+                long started = metricsEnabled ? System.nanoTime() : 0;
                 try {
                     ConnectionResult connectionResult =
                             connectionFactory.createOutgoingConnection(peer, torrentId);
+                    if (metricsEnabled) {
+                        outgoingTime.update(System.nanoTime() - started);
+                    }
                     if (connectionResult.isSuccess()) {
                         PeerConnection established = connectionResult.getConnection();
                         PeerConnection added = connectionPool.addConnectionIfAbsent(established);
@@ -146,6 +168,9 @@ public class ConnectionSource implements IConnectionSource {
                     }
                 }
             }, connectionExecutor).whenComplete((acquiredConnection, throwable) -> {
+                if (acquiredConnection == null || !acquiredConnection.isSuccess() || throwable != null) {
+                    outgoingFailures.inc();
+                }
                 if (acquiredConnection == null || throwable != null) {
                     if (LOGGER.isDebugEnabled()) {
                         LOGGER.debug("Peer is unreachable: {}. Will prevent further attempts to establish connection.", peer);
@@ -16,6 +16,9 @@
 
 package bt.net;
 
+import bt.metrics.Counter;
+import bt.metrics.MetricNames;
+import bt.metrics.Metrics;
 import bt.module.PeerConnectionSelector;
 import bt.net.pipeline.ChannelHandlerContext;
 import bt.service.IRuntimeLifecycleBinder;
@@ -37,13 +40,18 @@ public class DataReceivingLoop implements Runnable, DataReceiver {
     private static final int NO_OPS = 0;
 
     private final SharedSelector selector;
+    private final Counter selectorWakeups;
+    private final Counter keysProcessed;
 
     private volatile boolean shutdown;
 
     @Inject
     public DataReceivingLoop(@PeerConnectionSelector SharedSelector selector,
-                             IRuntimeLifecycleBinder lifecycleBinder) {
+                             IRuntimeLifecycleBinder lifecycleBinder,
+                             Metrics metrics) {
         this.selector = selector;
+        this.selectorWakeups = metrics.counter(MetricNames.RECEIVER_SELECTOR_WAKEUPS);
+        this.keysProcessed = metrics.counter(MetricNames.RECEIVER_KEYS_PROCESSED);
 
         schedule(lifecycleBinder);
     }
@@ -107,6 +115,7 @@ public class DataReceivingLoop implements Runnable, DataReceiver {
                 long t1 = System.nanoTime();
                 long timeToBlockMillis = 1000;
                 while (selector.select(timeToBlockMillis) == 0) {
+                    selectorWakeups.inc();
                     Thread.yield();
                     long t2 = System.nanoTime();
                     // check that the selection timeout period is expired, before dealing with unprocessed keys;
@@ -118,6 +127,8 @@ public class DataReceivingLoop implements Runnable, DataReceiver {
                     }
                 }
 
+                selectorWakeups.inc();
+
                 Iterator<SelectionKey> selectedKeys = selector.selectedKeys().iterator();
                 while (selectedKeys.hasNext()) {
                     try {
@@ -125,6 +136,7 @@ public class DataReceivingLoop implements Runnable, DataReceiver {
                         // we'll try again in the next loop iteration
                         if (processKey(selectedKeys.next())) {
                             selectedKeys.remove();
+                            keysProcessed.inc();
                         }
                     } catch (ClosedSelectorException e) {
                         // selector has been closed, there's no point to continue processing
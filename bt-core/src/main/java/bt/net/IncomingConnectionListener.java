@@ -17,6 +17,9 @@
 package bt.net;
 
 import bt.CountingThreadFactory;
+import bt.metrics.Counter;
+import bt.metrics.MetricNames;
+import bt.metrics.Metrics;
 import bt.runtime.Config;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -32,6 +35,8 @@ public class IncomingConnectionListener {
     private final ExecutorService connectionExecutor;
     private final IPeerConnectionPool connectionPool;
     private final Config config;
+    private final Counter connectionsAccepted;
+    private final Counter connectionsFailed;
 
     private final ExecutorService executor;
     private volatile boolean shutdown;
@@ -39,11 +44,14 @@ public class IncomingConnectionListener {
     public IncomingConnectionListener(Set<PeerConnectionAcceptor> connectionAcceptors,
                                       ExecutorService connectionExecutor,
                                       IPeerConnectionPool connectionPool,
+                                      Metrics metrics,
                                       Config config) {
         this.connectionAcceptors = connectionAcceptors;
         this.connectionExecutor = connectionExecutor;
         this.connectionPool = connectionPool;
         this.config = config;
+        this.connectionsAccepted = metrics.counter(MetricNames.CONNECTIONS_INCOMING_ACCEPTED);
+        this.connectionsFailed = metrics.counter(MetricNames.CONNECTIONS_INCOMING_FAILURES);
 
         this.executor = Executors.newFixedThreadPool(
                 connectionAcceptors.size(),
@@ -83,8 +91,11 @@ public class IncomingConnectionListener {
                 if (connectionResult.isSuccess()) {
                     if (!shutdown && mightAddConnection()) {
                         connectionPool.addConnectionIfAbsent(connectionResult.getConnection());
+                        connectionsAccepted.inc();
                         added = true;
                     }
+                } else {
+                    connectionsFailed.inc();
                 }
             }
             if (!added) {
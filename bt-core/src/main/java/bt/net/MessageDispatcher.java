@@ -16,7 +16,12 @@
 
 package bt.net;
 
+import bt.event.EventSource;
 import bt.metainfo.TorrentId;
+import bt.metrics.Counter;
+import bt.metrics.Histogram;
+import bt.metrics.MetricNames;
+import bt.metrics.Metrics;
 import bt.protocol.Message;
 import bt.runtime.Config;
 import bt.service.IRuntimeLifecycleBinder;
@@ -49,10 +54,17 @@ public class MessageDispatcher implements IMessageDispatcher {
     private final TorrentRegistry torrentRegistry;
     private final Object modificationLock;
 
+    private final boolean metricsEnabled;
+    private final Histogram loopTime;
+    private final Counter messagesReceived;
+    private final Counter messagesSent;
+
     @Inject
     public MessageDispatcher(IRuntimeLifecycleBinder lifecycleBinder,
                              IPeerConnectionPool pool,
                              TorrentRegistry torrentRegistry,
+                             EventSource eventSource,
+                             Metrics metrics,
                              Config config) {
 
         this.consumers = new ConcurrentHashMap<>();
@@ -60,7 +72,20 @@ public class MessageDispatcher implements IMessageDispatcher {
         this.torrentRegistry = torrentRegistry;
         this.modificationLock = new Object();
 
+        this.metricsEnabled = metrics.isEnabled();
+        this.loopTime = metrics.histogram(MetricNames.DISPATCHER_LOOP_TIME);
+        this.messagesReceived = metrics.counter(MetricNames.DISPATCHER_MESSAGES_RECEIVED);
+        this.messagesSent = metrics.counter(MetricNames.DISPATCHER_MESSAGES_SENT);
+
         initializeMessageLoop(lifecycleBinder, pool, config);
+        eventSource.onTorrentUnregistered(e -> onTorrentUnregistered(e.getTorrentId()));
+    }
+
+    private void onTorrentUnregistered(TorrentId torrentId) {
+        synchronized (modificationLock) {
+            consumers.remove(torrentId);
+            suppliers.remove(torrentId);
+        }
     }
 
     private void initializeMessageLoop(IRuntimeLifecycleBinder lifecycleBinder,
@@ -93,6 +118,8 @@ public class MessageDispatcher implements IMessageDispatcher {
         @Override
         public void run() {
             while (!shutdown) {
+                long started = metricsEnabled ? System.nanoTime() : 0;
+
                 if (!consumers.isEmpty()) {
                     Iterator<Map.Entry<TorrentId, Map<Peer, Collection<ConnectionMessageConsumer>>>> iter = consumers.entrySet().iterator();
                     while (iter.hasNext()) {
@@ -131,13 +158,16 @@ public class MessageDispatcher implements IMessageDispatcher {
                     }
                 }
 
+                if (metricsEnabled) {
+                    loopTime.update(System.nanoTime() - started);
+                }
                 loopControl.iterationFinished();
             }
         }
 
         private void processConsumerMap(TorrentId torrentId) {
             Map<Peer, Collection<ConnectionMessageConsumer>> consumerMap = consumers.get(torrentId);
-            if (consumerMap.isEmpty()) {
+            if (consumerMap == null || consumerMap.isEmpty()) {
                 return;
             }
 
@@ -168,6 +198,7 @@ public class MessageDispatcher implements IMessageDispatcher {
                             }
 
                             loopControl.incrementProcessed();
+                            messagesReceived.inc();
                             for (ConnectionMessageConsumer consumer : peerConsumers) {
                                 try {
                                     consumer.getConsumer().accept(message);
@@ -183,7 +214,7 @@ public class MessageDispatcher implements IMessageDispatcher {
 
         private void processSupplierMap(TorrentId torrentId) {
             Map<Peer, Collection<ConnectionMessageSupplier>> supplierMap = suppliers.get(torrentId);
-            if (supplierMap.isEmpty()) {
+            if (supplierMap == null || supplierMap.isEmpty()) {
                 return;
             }
 
@@ -216,6 +247,7 @@ public class MessageDispatcher implements IMessageDispatcher {
                             loopControl.incrementProcessed();
                             try {
                                 connection.postMessage(message);
+                                messagesSent.inc();
                             } catch (Exception e) {
                                 LOGGER.error("Error when writing message", e);
                             }
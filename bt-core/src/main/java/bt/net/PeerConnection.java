@@ -101,4 +101,18 @@ public interface PeerConnection extends Closeable {
      * @since 1.0
      */
     boolean isClosed();
+
+    /**
+     * Add a listener, that will be invoked once, when this connection is closed
+     * (either explicitly, or due to an I/O error). If the connection has already been closed,
+     * then the listener is invoked immediately.
+     *
+     * <p>Default implementation does nothing, i.e. close notifications are optional;
+     * the connection pool will discover closed connections on its own in such case.
+     *
+     * @since 1.8
+     */
+    default void addCloseListener(Runnable listener) {
+        // close notifications are not supported
+    }
 }
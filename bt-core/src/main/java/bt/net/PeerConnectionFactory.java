@@ -17,12 +17,13 @@
 package bt.net;
 
 import bt.event.EventSource;
+import bt.event.TorrentStartedEvent;
+import bt.event.TorrentStoppedEvent;
 import bt.metainfo.TorrentId;
 import bt.net.buffer.BorrowedBuffer;
 import bt.net.buffer.IBufferManager;
 import bt.net.crypto.CipherBufferMutator;
 import bt.net.crypto.MSEHandshakeProcessor;
-import bt.net.pipeline.ChannelHandler;
 import bt.net.pipeline.ChannelPipeline;
 import bt.net.pipeline.ChannelPipelineBuilder;
 import bt.net.pipeline.IChannelPipelineFactory;
@@ -45,6 +46,7 @@ import java.nio.channels.SocketChannel;
 import java.time.Duration;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public class PeerConnectionFactory implements IPeerConnectionFactory {
     private static final Logger LOGGER = LoggerFactory.getLogger(PeerConnectionFactory.class);
@@ -78,7 +80,7 @@ public class PeerConnectionFactory implements IPeerConnectionFactory {
         this.connectionHandlerFactory = connectionHandlerFactory;
         this.channelPipelineFactory = channelPipelineFactory;
         this.bufferManager = bufferManager;
-        this.cryptoHandshakeProcessor = new MSEHandshakeProcessor(torrentRegistry, protocol, config);
+        this.cryptoHandshakeProcessor = new MSEHandshakeProcessor(torrentRegistry, protocol, eventSource, config);
         this.dataReceiver = dataReceiver;
         this.eventSource = eventSource;
         this.localOutgoingSocketAddress = new InetSocketAddress(config.getAcceptorAddress(), 0);
@@ -168,7 +170,7 @@ public class PeerConnectionFactory implements IPeerConnectionFactory {
         }
 
         ChannelPipeline pipeline = createPipeline(peer, channel, in, out, cipherOptional);
-        ChannelHandler channelHandler = new SocketChannelHandler(channel, in, out, pipeline::bindHandler, dataReceiver);
+        SocketChannelHandler channelHandler = new SocketChannelHandler(channel, in, out, pipeline::bindHandler, dataReceiver);
         channelHandler.register();
 
         PeerConnection connection = new SocketPeerConnection(peer, channelHandler);
@@ -188,16 +190,16 @@ public class PeerConnectionFactory implements IPeerConnectionFactory {
         }
     }
 
-    private void subscribeHandler(TorrentId torrentId, ChannelHandler channelHandler) {
-        eventSource.onTorrentStarted(event -> {
-            if (event.getTorrentId().equals(torrentId)) {
-                channelHandler.activate();
-            }
-        });
-        eventSource.onTorrentStopped(event -> {
-            if (event.getTorrentId().equals(torrentId)) {
-                channelHandler.deactivate();
-            }
+    private void subscribeHandler(TorrentId torrentId, SocketChannelHandler channelHandler) {
+        Consumer<TorrentStartedEvent> onStarted = event -> channelHandler.activate();
+        Consumer<TorrentStoppedEvent> onStopped = event -> channelHandler.deactivate();
+        eventSource.onTorrentStarted(torrentId, onStarted)
+                .onTorrentStopped(torrentId, onStopped);
+        // per-torrent listeners are discarded, when the torrent is unregistered,
+        // but the connection might be closed much earlier
+        channelHandler.addCloseListener(() -> {
+            eventSource.removeListener(torrentId, onStarted);
+            eventSource.removeListener(torrentId, onStopped);
         });
     }
 
@@ -215,8 +217,8 @@ public class PeerConnectionFactory implements IPeerConnectionFactory {
         builder.outboundBuffer(out);
 
         cipherOptional.ifPresent(cipher -> {
-            builder.decoders(new CipherBufferMutator(cipher.getDecryptionCipher()));
-            builder.encoders(new CipherBufferMutator(cipher.getEncryptionCipher()));
+            builder.decoders(new CipherBufferMutator(cipher.getDecryptor()));
+            builder.encoders(new CipherBufferMutator(cipher.getEncryptor()));
         });
 
         return builder.build();
@@ -18,7 +18,11 @@ package bt.net;
 
 import bt.CountingThreadFactory;
 import bt.event.EventSink;
+import bt.event.EventSource;
 import bt.metainfo.TorrentId;
+import bt.metrics.Counter;
+import bt.metrics.MetricNames;
+import bt.metrics.Metrics;
 import bt.runtime.Config;
 import bt.service.IRuntimeLifecycleBinder;
 import com.google.inject.Inject;
@@ -26,17 +30,22 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.Duration;
-import java.util.Collection;
+import java.util.Iterator;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
+import java.util.function.LongSupplier;
 
 /**
  *<p><b>Note that this class implements a service.
@@ -46,28 +55,62 @@ public class PeerConnectionPool implements IPeerConnectionPool {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(PeerConnectionPool.class);
 
+    private static final Duration CLEANER_INTERVAL = Duration.ofSeconds(1);
+
     private Config config;
     private EventSink eventSink;
     private ScheduledExecutorService cleaner;
     private Connections connections;
-    private ReentrantLock cleanerLock;
+    private InactivityWheel inactivityWheel;
+    private Set<PeerConnection> closedConnections;
     private Duration peerConnectionInactivityThreshold;
+    private LongSupplier clock;
+
+    private Counter connectionsAdded;
+    private Counter connectionsRejected;
+    private Counter connectionsRemoved;
 
     @Inject
     public PeerConnectionPool(
             EventSink eventSink,
+            EventSource eventSource,
             IRuntimeLifecycleBinder lifecycleBinder,
+            Metrics metrics,
             Config config) {
+        this(eventSink, eventSource, lifecycleBinder, metrics, config, System::currentTimeMillis);
+    }
+
+    /**
+     * @param clock Source of time in milliseconds; must be consistent with {@link PeerConnection#getLastActive()}
+     */
+    PeerConnectionPool(
+            EventSink eventSink,
+            EventSource eventSource,
+            IRuntimeLifecycleBinder lifecycleBinder,
+            Metrics metrics,
+            Config config,
+            LongSupplier clock) {
 
         this.config = config;
         this.eventSink = eventSink;
+        this.clock = clock;
         this.peerConnectionInactivityThreshold = config.getPeerConnectionInactivityThreshold();
         this.connections = new Connections();
-        this.cleanerLock = new ReentrantLock();
+        this.inactivityWheel = new InactivityWheel(
+                CLEANER_INTERVAL.toMillis(), peerConnectionInactivityThreshold.toMillis(), clock.getAsLong());
+        this.closedConnections = ConcurrentHashMap.newKeySet();
+
+        metrics.gauge(MetricNames.POOL_CONNECTIONS, connections::count);
+        this.connectionsAdded = metrics.counter(MetricNames.POOL_CONNECTIONS_ADDED);
+        this.connectionsRejected = metrics.counter(MetricNames.POOL_CONNECTIONS_REJECTED);
+        this.connectionsRemoved = metrics.counter(MetricNames.POOL_CONNECTIONS_REMOVED);
+
+        eventSource.onTorrentUnregistered(e -> onTorrentUnregistered(e.getTorrentId()));
 
         this.cleaner = Executors.newScheduledThreadPool(1, r -> new Thread(r, "bt.net.pool.cleaner"));
         lifecycleBinder.onStartup("Schedule periodic cleanup of stale peer connections",
-                () -> cleaner.scheduleAtFixedRate(new Cleaner(), 1, 1, TimeUnit.SECONDS));
+                () -> cleaner.scheduleAtFixedRate(this::cleanup,
+                        CLEANER_INTERVAL.toMillis(), CLEANER_INTERVAL.toMillis(), TimeUnit.MILLISECONDS));
 
         ExecutorService executor = Executors.newFixedThreadPool(
                 config.getMaxPendingConnectionRequests(),
@@ -79,12 +122,18 @@ public class PeerConnectionPool implements IPeerConnectionPool {
 
     @Override
     public PeerConnection getConnection(Peer peer, TorrentId torrentId) {
-        return connections.get(peer, torrentId).orElse(null);
+        return getConnection(new ConnectionKey(peer, torrentId));
     }
 
     @Override
     public PeerConnection getConnection(ConnectionKey key) {
-        return connections.get(key).orElse(null);
+        PeerConnection connection = connections.get(key).orElse(null);
+        if (connection != null && connection.isClosed()) {
+            // for connections, that don't notify about being closed,
+            // closed connections are collected when they are looked up, and purged by the cleaner
+            closedConnections.add(connection);
+        }
+        return connection;
     }
 
     @Override
@@ -115,72 +164,105 @@ public class PeerConnectionPool implements IPeerConnectionPool {
     }
 
     private boolean addConnection(PeerConnection newConnection) {
-        boolean added = false;
-        PeerConnection existingConnection = null;
-
-        cleanerLock.lock();
-        try {
-            if (connections.count() >= config.getMaxPeerConnections()) {
-                if (LOGGER.isDebugEnabled()) {
-                    LOGGER.debug("Closing newly created connection with {} due to exceeding of connections limit",
-                            newConnection.getRemotePeer());
-                }
-                newConnection.closeQuietly();
-            } else {
-                existingConnection = connections.putIfAbsent(newConnection);
-                added = (existingConnection == null);
+        if (!connections.reserveSlot(config.getMaxPeerConnections())) {
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Closing newly created connection with {} due to exceeding of connections limit",
+                        newConnection.getRemotePeer());
             }
-        } finally {
-            cleanerLock.unlock();
+            newConnection.closeQuietly();
+            connectionsRejected.inc();
+            return false;
         }
+
+        PeerConnection existingConnection = connections.putIfAbsent(newConnection);
         if (existingConnection != null) {
+            connections.releaseSlot();
             if (LOGGER.isDebugEnabled()) {
                 LOGGER.debug("Connection already exists for peer: " + newConnection.getRemotePeer());
             }
             newConnection.closeQuietly();
-            newConnection = existingConnection;
+            return false;
         }
 
-        if (added) {
-            eventSink.firePeerConnected(newConnection.getTorrentId(), newConnection.getRemotePeer());
+        connectionsAdded.inc();
+        inactivityWheel.schedule(newConnection, getDeadline(newConnection));
+        eventSink.firePeerConnected(newConnection.getTorrentId(), newConnection.getRemotePeer());
+        subscribeToClose(newConnection);
+        return true;
+    }
+
+    private void subscribeToClose(PeerConnection connection) {
+        // if close notifications are not supported by the connection,
+        // then closed connection will be found on lookup or by the inactivity sweep
+        connection.addCloseListener(() -> onConnectionClosed(connection));
+    }
+
+    private void onConnectionClosed(PeerConnection connection) {
+        closedConnections.add(connection);
+        // listener may be invoked while the connection's locks are held,
+        // so don't purge and fire events in the calling thread
+        try {
+            cleaner.execute(this::purgeClosedConnections);
+        } catch (RejectedExecutionException e) {
+            // pool is shutting down
         }
-        return added;
     }
 
-    private class Cleaner implements Runnable {
-        @Override
-        public void run() {
-            if (connections.count() == 0) {
+    private void onTorrentUnregistered(TorrentId torrentId) {
+        connections.visitConnections(torrentId, this::purgeConnection);
+    }
+
+    private long getDeadline(PeerConnection connection) {
+        return connection.getLastActive() + peerConnectionInactivityThreshold.toMillis();
+    }
+
+    /**
+     * Purge connections, that have been found closed, and visit connections,
+     * that were due to become inactive since the previous invocation.
+     * Connections, that have been active in the meantime, are rescheduled.
+     */
+    void cleanup() {
+        purgeClosedConnections();
+
+        long now = clock.getAsLong();
+        inactivityWheel.advance(now, connection -> {
+            if (!connections.contains(connection)) {
+                return; // already purged
+            }
+            if (connection.isClosed()) {
+                purgeConnection(connection);
                 return;
             }
 
-            cleanerLock.lock();
-            try {
-                connections.visitConnections(connection -> {
-                    if (connection.isClosed()) {
-                        purgeConnection(connection);
-
-                    } else if (System.currentTimeMillis() - connection.getLastActive()
-                            >= peerConnectionInactivityThreshold.toMillis()) {
-
-                        if (LOGGER.isDebugEnabled()) {
-                            LOGGER.debug("Removing inactive peer connection: {}", connection.getRemotePeer());
-                        }
-                        purgeConnection(connection);
-                    }
-                    // can send keep-alives here based on lastActiveTime
-                });
-
-            } finally {
-                cleanerLock.unlock();
+            long deadline = getDeadline(connection);
+            if (deadline <= now) {
+                if (LOGGER.isDebugEnabled()) {
+                    LOGGER.debug("Removing inactive peer connection: {}", connection.getRemotePeer());
+                }
+                purgeConnection(connection);
+            } else {
+                // can send keep-alives here based on lastActiveTime
+                inactivityWheel.schedule(connection, deadline);
+            }
+        });
+    }
+
+    private void purgeClosedConnections() {
+        if (!closedConnections.isEmpty()) {
+            Iterator<PeerConnection> iter = closedConnections.iterator();
+            while (iter.hasNext()) {
+                purgeConnection(iter.next());
+                iter.remove();
             }
         }
     }
 
     private void purgeConnection(PeerConnection connection) {
-        connections.remove(connection);
         connection.closeQuietly();
-        eventSink.firePeerDisconnected(connection.getTorrentId(), connection.getRemotePeer());
+        if (connections.remove(connection)) {
+            connectionsRemoved.inc();
+            eventSink.firePeerDisconnected(connection.getTorrentId(), connection.getRemotePeer());
+        }
     }
 
     private void shutdown() {
@@ -201,53 +283,108 @@ public class PeerConnectionPool implements IPeerConnectionPool {
     }
 }
 
+/**
+ * Connections, indexed both by connection key and by torrent.
+ * Number of connections is tracked by an atomic counter of reserved slots,
+ * so that the connections limit can be enforced without locking.
+ */
 class Connections {
-    private ConcurrentMap<ConnectionKey, PeerConnection> connections;
-    private ConcurrentMap<TorrentId, Collection<PeerConnection>> connectionsByTorrent;
+    private final ConcurrentMap<ConnectionKey, PeerConnection> connections;
+    private final ConcurrentMap<TorrentId, Set<PeerConnection>> connectionsByTorrent;
+    private final AtomicInteger slots;
 
     Connections() {
         this.connections = new ConcurrentHashMap<>();
         this.connectionsByTorrent = new ConcurrentHashMap<>();
+        this.slots = new AtomicInteger();
     }
 
+    /**
+     * @return Number of connections, including the ones that are being added
+     */
     int count() {
-        return connections.size();
+        return slots.get();
+    }
+
+    /**
+     * Reserve a slot for a new connection.
+     *
+     * @return true, if the slot has been reserved; false, if the limit has been reached
+     */
+    boolean reserveSlot(int limit) {
+        int reserved;
+        do {
+            reserved = slots.get();
+            if (reserved >= limit) {
+                return false;
+            }
+        } while (!slots.compareAndSet(reserved, reserved + 1));
+        return true;
+    }
+
+    void releaseSlot() {
+        slots.decrementAndGet();
     }
 
-    synchronized boolean remove(PeerConnection connection) {
+    /**
+     * Remove a connection and release its' slot.
+     *
+     * @return true, if the connection has been removed by this invocation
+     */
+    boolean remove(PeerConnection connection) {
         Objects.requireNonNull(connection);
 
-        Peer peer = connection.getRemotePeer();
         TorrentId torrentId = connection.getTorrentId();
-        ConnectionKey key = new ConnectionKey(peer, torrentId);
+        ConnectionKey key = new ConnectionKey(connection.getRemotePeer(), torrentId);
 
-        PeerConnection removed = connections.remove(key);
-        boolean success = (removed == connection);
+        boolean success = connections.remove(key, connection);
         if (success) {
-            Collection<PeerConnection> torrentConnections = connectionsByTorrent.get(torrentId);
-            torrentConnections.remove(removed);
-            if (torrentConnections.isEmpty()) {
-                connectionsByTorrent.remove(torrentId);
-            }
+            releaseSlot();
+            removeFromTorrent(torrentId, connection);
         }
         return success;
     }
 
-    synchronized PeerConnection putIfAbsent(PeerConnection connection) {
+    /**
+     * Add a connection, for which a slot has already been reserved.
+     *
+     * @return Existing connection for the same key, or null, if the connection has been added
+     */
+    PeerConnection putIfAbsent(PeerConnection connection) {
         Objects.requireNonNull(connection);
 
-        Peer peer = connection.getRemotePeer();
         TorrentId torrentId = connection.getTorrentId();
-        ConnectionKey key = new ConnectionKey(peer, torrentId);
+        ConnectionKey key = new ConnectionKey(connection.getRemotePeer(), torrentId);
 
         PeerConnection existing = connections.putIfAbsent(key, connection);
         if (existing == null) {
-            connectionsByTorrent.computeIfAbsent(torrentId, id -> ConcurrentHashMap.newKeySet())
-                    .add(connection);
+            connectionsByTorrent.compute(torrentId, (id, torrentConnections) -> {
+                if (torrentConnections == null) {
+                    torrentConnections = ConcurrentHashMap.newKeySet();
+                }
+                torrentConnections.add(connection);
+                return torrentConnections;
+            });
+            // the connection might have been removed concurrently, before it was added to the torrent's set
+            if (connections.get(key) != connection) {
+                removeFromTorrent(torrentId, connection);
+            }
         }
         return existing;
     }
 
+    private void removeFromTorrent(TorrentId torrentId, PeerConnection connection) {
+        connectionsByTorrent.computeIfPresent(torrentId, (id, torrentConnections) -> {
+            torrentConnections.remove(connection);
+            return torrentConnections.isEmpty() ? null : torrentConnections;
+        });
+    }
+
+    boolean contains(PeerConnection connection) {
+        ConnectionKey key = new ConnectionKey(connection.getRemotePeer(), connection.getTorrentId());
+        return connections.get(key) == connection;
+    }
+
     Optional<PeerConnection> get(Peer peer, TorrentId torrentId) {
         return get(new ConnectionKey(peer, torrentId));
     }
@@ -261,9 +398,67 @@ class Connections {
     }
 
     void visitConnections(TorrentId torrentId, Consumer<PeerConnection> visitor) {
-        Collection<PeerConnection> connections = connectionsByTorrent.get(torrentId);
+        Set<PeerConnection> connections = connectionsByTorrent.get(torrentId);
         if (connections != null) {
             connections.forEach(visitor::accept);
         }
     }
 }
+
+/**
+ * Hashed timer wheel, that holds connections in buckets by the time when they are due to become inactive.
+ * On each tick only the connections from the current bucket are visited,
+ * so the cost of a sweep does not depend on the total number of connections.
+ *
+ * <p>Scheduling is thread-safe; advancing is expected to be performed by a single thread.</p>
+ */
+class InactivityWheel {
+    private final long tickMillis;
+    private final Queue<PeerConnection>[] buckets;
+    // last tick, that has been processed
+    private volatile long currentTick;
+
+    @SuppressWarnings("unchecked")
+    InactivityWheel(long tickMillis, long inactivityThresholdMillis, long now) {
+        this.tickMillis = tickMillis;
+        // any deadline fits into a single rotation of the wheel
+        int size = (int) (inactivityThresholdMillis / tickMillis) + 2;
+        this.buckets = new Queue[size];
+        for (int i = 0; i < size; i++) {
+            buckets[i] = new ConcurrentLinkedQueue<>();
+        }
+        this.currentTick = now / tickMillis;
+    }
+
+    /**
+     * Schedule a connection to be visited when its' deadline is reached.
+     * Deadlines in the past are visited on the next tick.
+     */
+    void schedule(PeerConnection connection, long deadlineMillis) {
+        long tick = Math.max(deadlineMillis / tickMillis, currentTick + 1);
+        // deadlines beyond the wheel's rotation are visited early and rescheduled
+        tick = Math.min(tick, currentTick + buckets.length - 1);
+        buckets[(int) (tick % buckets.length)].add(connection);
+    }
+
+    /**
+     * Visit and remove connections from all buckets up to the current time.
+     * The visitor may re-schedule the connections.
+     */
+    void advance(long now, Consumer<PeerConnection> visitor) {
+        long targetTick = now / tickMillis;
+        // no need to visit the same bucket twice, if the cleaner has been delayed for more than a rotation
+        long tick = Math.max(currentTick, targetTick - buckets.length);
+        while (tick < targetTick) {
+            tick++;
+            currentTick = tick;
+            Queue<PeerConnection> bucket = buckets[(int) (tick % buckets.length)];
+            // connections re-scheduled by the visitor (or concurrently) always go to the later buckets,
+            // because the current tick has already been updated, so polling until empty terminates
+            PeerConnection connection;
+            while ((connection = bucket.poll()) != null) {
+                visitor.accept(connection);
+            }
+        }
+    }
+}
@@ -164,6 +164,11 @@ public class SocketPeerConnection implements PeerConnection {
         return handler.isClosed();
     }
 
+    @Override
+    public void addCloseListener(Runnable listener) {
+        handler.addCloseListener(listener);
+    }
+
     @Override
     public long getLastActive() {
         return lastActive.get();
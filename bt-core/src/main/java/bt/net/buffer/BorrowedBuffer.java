@@ -48,6 +48,13 @@ public interface BorrowedBuffer<T extends Buffer> {
      *
      * This method will block the calling thread until the buffer is in UNLOCKED state.
      *
+     * If the buffer is UNLOCKED and empty (i.e. its' position is 0),
+     * the buffer manager may temporarily return the underlying buffer to the pool
+     * (e.g. if the buffer has not been used for a long time).
+     * In such case a new cleared buffer will be acquired on the next call to this method.
+     * Hence, the borrower should not leave any data in the buffer, when its' position is 0
+     * (e.g. should not unlock the buffer in "flipped" state).
+     *
      * @return Buffer or null if the buffer has already been released
      * @since 1.6
      */
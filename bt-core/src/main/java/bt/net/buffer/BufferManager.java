@@ -16,29 +16,90 @@
 
 package bt.net.buffer;
 
+import bt.metrics.Counter;
+import bt.metrics.MetricNames;
+import bt.metrics.Metrics;
+import bt.metrics.NoOpMetrics;
 import bt.runtime.Config;
 import com.google.inject.Inject;
 
-import java.lang.ref.SoftReference;
-import java.nio.Buffer;
 import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.Deque;
-import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Pool of direct buffers.
+ *
+ * <p>Buffers are grouped in size classes (powers of two of the default buffer size, down to 4 KB).
+ * Buffers of each size class are carved from larger direct memory regions ("slabs"),
+ * and the total size of slabs is limited by {@link Config#getMaxBufferPoolSize()}.
+ * When the limit is reached, and there are no released buffers to re-use,
+ * empty buffers of idle borrowers are returned to the pool (see {@link Config#getIdleBufferReleaseThreshold()}),
+ * and if that is not enough, new buffers are allocated on the heap.
+ *
+ * @since 1.6
+ */
 public class BufferManager implements IBufferManager {
 
-    private ConcurrentMap<Class<?>, Deque<SoftReference<?>>> releasedBuffers;
+    // size of the smallest size class
+    private static final int MIN_BUFFER_SIZE = 4 * 1024;
+    // preferred size of a direct memory region, that is split into buffers of the same size class
+    private static final int SLAB_SIZE = 1024 * 1024;
+    // max interval between consecutive scans for idle buffers
+    private static final long MAX_IDLE_SCAN_INTERVAL = TimeUnit.SECONDS.toNanos(1);
 
     private final int bufferSize;
+    // ordered by buffer size, ascending
+    private final SizeClass[] sizeClasses;
+
+    private final long maxPoolSize;
+    private final long idleReleaseThreshold;
+    private final long idleScanInterval;
+
+    private final AtomicLong poolCapacity;
+    private final AtomicLong poolUsed;
+    private final Set<DefaultBorrowedBuffer> borrowedBuffers;
+    private final AtomicLong lastIdleScan;
+
+    private final Counter buffersBorrowed;
+    private final Counter buffersAllocated;
+    private final Counter buffersIdleReleased;
+    private final Counter buffersHeapAllocated;
 
-    @Inject
     public BufferManager(Config config) {
+        this(config, new NoOpMetrics());
+    }
+
+    /**
+     * @since 1.8
+     */
+    @Inject
+    public BufferManager(Config config, Metrics metrics) {
         this.bufferSize = getBufferSize(config.getMaxTransferBlockSize());
-        this.releasedBuffers = new ConcurrentHashMap<>();
+        this.sizeClasses = createSizeClasses(bufferSize);
+
+        this.maxPoolSize = config.getMaxBufferPoolSize();
+        this.idleReleaseThreshold = config.getIdleBufferReleaseThreshold().toNanos();
+        this.idleScanInterval = Math.min(MAX_IDLE_SCAN_INTERVAL, idleReleaseThreshold);
+
+        this.poolCapacity = new AtomicLong();
+        this.poolUsed = new AtomicLong();
+        this.borrowedBuffers = ConcurrentHashMap.newKeySet();
+        this.lastIdleScan = new AtomicLong(System.nanoTime() - idleScanInterval);
+
+        this.buffersBorrowed = metrics.counter(MetricNames.BUFFERS_BORROWED);
+        this.buffersAllocated = metrics.counter(MetricNames.BUFFERS_ALLOCATED);
+        this.buffersIdleReleased = metrics.counter(MetricNames.BUFFERS_IDLE_RELEASED);
+        this.buffersHeapAllocated = metrics.counter(MetricNames.BUFFERS_HEAP_ALLOCATED);
+        metrics.gauge(MetricNames.BUFFERS_POOLED, () -> Arrays.stream(sizeClasses).mapToInt(c -> c.releasedBuffers.size()).sum());
+        metrics.gauge(MetricNames.BUFFERS_POOL_CAPACITY, poolCapacity::get);
+        metrics.gauge(MetricNames.BUFFERS_POOL_USED, poolUsed::get);
     }
 
     private static int getBufferSize(long maxTransferBlockSize) {
@@ -48,54 +109,188 @@ public class BufferManager implements IBufferManager {
         return (int) (maxTransferBlockSize) * 2;
     }
 
+    private SizeClass[] createSizeClasses(int bufferSize) {
+        int count = 1;
+        for (int size = bufferSize; size / 2 >= MIN_BUFFER_SIZE; size /= 2) {
+            count++;
+        }
+        SizeClass[] sizeClasses = new SizeClass[count];
+        for (int i = count - 1, size = bufferSize; i >= 0; i--, size /= 2) {
+            sizeClasses[i] = new SizeClass(size);
+        }
+        return sizeClasses;
+    }
+
     @Override
-    @SuppressWarnings("unchecked")
     public BorrowedBuffer<ByteBuffer> borrowByteBuffer() {
-        Deque<SoftReference<?>> deque = getReleasedBuffersDeque(ByteBuffer.class);
-        SoftReference<ByteBuffer> ref;
-        ByteBuffer buffer = null;
-        do {
-            ref = (SoftReference<ByteBuffer>) deque.pollLast();
-            if (ref != null) {
-                buffer = ref.get();
+        return borrow(sizeClasses[sizeClasses.length - 1]);
+    }
+
+    @Override
+    public BorrowedBuffer<ByteBuffer> borrowByteBuffer(int capacity) {
+        for (SizeClass sizeClass : sizeClasses) {
+            if (sizeClass.bufferSize >= capacity) {
+                return borrow(sizeClass);
             }
-            // check if the referenced buffer has been garbage collected
-        } while (ref != null && buffer == null);
+        }
+        throw new IllegalArgumentException("Requested capacity is too large: " + capacity + ", max: " + bufferSize);
+    }
+
+    private BorrowedBuffer<ByteBuffer> borrow(SizeClass sizeClass) {
+        DefaultBorrowedBuffer buffer = new DefaultBorrowedBuffer(sizeClass, acquire(sizeClass));
+        borrowedBuffers.add(buffer);
+        buffersBorrowed.inc();
+        return buffer;
+    }
+
+    private ByteBuffer acquire(SizeClass sizeClass) {
+        ByteBuffer buffer = sizeClass.releasedBuffers.pollLast();
+        if (buffer == null && releaseIdleBuffers()) {
+            buffer = sizeClass.releasedBuffers.pollLast();
+        }
 
         if (buffer == null) {
-            buffer = ByteBuffer.allocateDirect(bufferSize);
+            buffer = sizeClass.allocate();
+            if (buffer == null) {
+                // pool is exhausted
+                buffer = ByteBuffer.allocate(sizeClass.bufferSize);
+                buffersHeapAllocated.inc();
+            }
+            buffersAllocated.inc();
         } else {
             // reset buffer before re-using
             buffer.clear();
         }
-        return new DefaultBorrowedBuffer<>(buffer);
+
+        if (buffer.isDirect()) {
+            poolUsed.addAndGet(sizeClass.bufferSize);
+        }
+        return buffer;
     }
 
-    private <T extends Buffer> Deque<SoftReference<?>> getReleasedBuffersDeque(Class<T> bufferType) {
-        return releasedBuffers.computeIfAbsent(bufferType, it -> new LinkedBlockingDeque<>());
+    private void giveBack(SizeClass sizeClass, ByteBuffer buffer) {
+        // heap buffers are not pooled
+        if (buffer.isDirect()) {
+            poolUsed.addAndGet(-sizeClass.bufferSize);
+            sizeClass.releasedBuffers.add(buffer);
+        }
+    }
+
+    /**
+     * @return true, if idle buffers have been scanned
+     */
+    private boolean releaseIdleBuffers() {
+        long now = System.nanoTime();
+        long lastScan = lastIdleScan.get();
+        if (now - lastScan < idleScanInterval || !lastIdleScan.compareAndSet(lastScan, now)) {
+            return false;
+        }
+        borrowedBuffers.forEach(buffer -> buffer.releaseIfIdle(now));
+        return true;
+    }
+
+    /**
+     * Reserve direct memory for a new slab, without exceeding the max pool size.
+     *
+     * @return Number of reserved bytes (multiple of buffer size, not greater than {@code size}), or 0
+     */
+    private long reserve(int bufferSize, long size) {
+        long capacity, reserved;
+        do {
+            capacity = poolCapacity.get();
+            reserved = Math.min(size, ((maxPoolSize - capacity) / bufferSize) * bufferSize);
+            if (reserved <= 0) {
+                return 0;
+            }
+        } while (!poolCapacity.compareAndSet(capacity, capacity + reserved));
+        return reserved;
+    }
+
+    private class SizeClass {
+
+        private final int bufferSize;
+        private final Deque<ByteBuffer> releasedBuffers;
+
+        // guarded by this
+        private ByteBuffer slab;
+
+        SizeClass(int bufferSize) {
+            this.bufferSize = bufferSize;
+            this.releasedBuffers = new LinkedBlockingDeque<>();
+        }
+
+        /**
+         * @return New buffer or null, if the pool has reached its' max size
+         */
+        synchronized ByteBuffer allocate() {
+            if (slab == null || slab.remaining() < bufferSize) {
+                long slabSize = reserve(bufferSize, Math.max(1, SLAB_SIZE / bufferSize) * (long) bufferSize);
+                if (slabSize == 0) {
+                    slab = null;
+                    return null;
+                }
+                slab = ByteBuffer.allocateDirect((int) slabSize);
+            }
+
+            int position = slab.position();
+            slab.limit(position + bufferSize);
+            ByteBuffer buffer = slab.slice();
+            slab.limit(slab.capacity());
+            slab.position(position + bufferSize);
+            return buffer;
+        }
     }
 
-    private class DefaultBorrowedBuffer<T extends Buffer> implements BorrowedBuffer<T> {
+    private class DefaultBorrowedBuffer implements BorrowedBuffer<ByteBuffer> {
 
-        private volatile T buffer;
+        private final SizeClass sizeClass;
         private final ReentrantLock lock;
 
-        DefaultBorrowedBuffer(T buffer) {
-            this.buffer = Objects.requireNonNull(buffer);
+        // null, if the buffer has been released or returned to the pool due to inactivity
+        private volatile ByteBuffer buffer;
+        private volatile boolean released;
+        private volatile long lastUsed;
+
+        DefaultBorrowedBuffer(SizeClass sizeClass, ByteBuffer buffer) {
+            this.sizeClass = sizeClass;
             this.lock = new ReentrantLock();
+            this.buffer = buffer;
+            this.lastUsed = System.nanoTime();
         }
 
         @Override
-        public T lockAndGet() {
+        public ByteBuffer lockAndGet() {
             lock.lock();
+            if (buffer == null && !released) {
+                buffer = acquire(sizeClass);
+            }
             return buffer;
         }
 
         @Override
         public void unlock() {
+            lastUsed = System.nanoTime();
             lock.unlock();
         }
 
+        void releaseIfIdle(long now) {
+            if (!lock.tryLock()) {
+                return;
+            }
+            try {
+                // do not release the buffer, if it's locked by the current thread,
+                // or if it contains some data (i.e. it's position is not zero)
+                if (lock.getHoldCount() == 1 && !released && buffer != null
+                        && buffer.position() == 0 && now - lastUsed >= idleReleaseThreshold) {
+                    giveBack(sizeClass, buffer);
+                    buffer = null;
+                    buffersIdleReleased.inc();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
         @Override
         public void release() {
             lock.lock();
@@ -105,8 +300,13 @@ public class BufferManager implements IBufferManager {
                 throw new IllegalStateException("Buffer is locked and can't be released");
             }
             try {
-                if (buffer != null) {
-                    getReleasedBuffersDeque(ByteBuffer.class).add(new SoftReference<>(buffer));
+                if (!released) {
+                    released = true;
+                    borrowedBuffers.remove(this);
+                    if (buffer != null) {
+                        giveBack(sizeClass, buffer);
+                    }
+                    buffersBorrowed.dec();
                 }
             } finally {
                 buffer = null;
@@ -41,4 +41,19 @@ public interface IBufferManager {
      * @since 1.6
      */
     BorrowedBuffer<ByteBuffer> borrowByteBuffer();
+
+    /**
+     * Temporarily borrow a direct byte buffer with at least the requested capacity.
+     * Implementations, that maintain several size classes of buffers,
+     * will return a buffer from the smallest suitable size class.
+     *
+     * <p>Default implementation returns a buffer of the default size
+     * and is suitable only for requests, that do not exceed the default size.
+     *
+     * @param capacity Min capacity of the buffer
+     * @since 1.8
+     */
+    default BorrowedBuffer<ByteBuffer> borrowByteBuffer(int capacity) {
+        return borrowByteBuffer();
+    }
 }
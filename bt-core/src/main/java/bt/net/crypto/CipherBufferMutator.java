@@ -17,6 +17,7 @@
 package bt.net.crypto;
 
 import bt.net.buffer.BufferMutator;
+import bt.protocol.crypto.ARC4;
 
 import javax.crypto.Cipher;
 import java.nio.ByteBuffer;
@@ -28,18 +29,34 @@ import java.nio.ByteBuffer;
  */
 public class CipherBufferMutator implements BufferMutator {
 
+    private final ARC4 keystream;
     private final Cipher cipher;
 
+    /**
+     * Create a mutator, that encrypts or decrypts data in place, without allocating intermediate arrays.
+     *
+     * @since 1.8
+     */
+    public CipherBufferMutator(ARC4 keystream) {
+        this.keystream = keystream;
+        this.cipher = null;
+    }
+
     /**
      * @since 1.6
+     * @deprecated since 1.8 in favor of {@link #CipherBufferMutator(ARC4)}
      */
+    @Deprecated
     public CipherBufferMutator(Cipher cipher) {
+        this.keystream = null;
         this.cipher = cipher;
     }
 
     @Override
     public void mutate(ByteBuffer buffer) {
-        if (buffer.hasRemaining()) {
+        if (keystream != null) {
+            keystream.update(buffer);
+        } else if (buffer.hasRemaining()) {
             int position = buffer.position();
             byte[] bytes = new byte[buffer.remaining()];
             buffer.get(bytes);
@@ -16,6 +16,9 @@
 
 package bt.net.crypto;
 
+import bt.net.buffer.BufferMutator;
+import bt.protocol.crypto.ARC4;
+
 import javax.crypto.Cipher;
 import java.io.IOException;
 import java.nio.ByteBuffer;
@@ -29,8 +32,20 @@ import java.nio.channels.ByteChannel;
 public class EncryptedChannel implements ByteChannel {
 
     private final ByteChannel delegate;
-    private final Cipher cipherIn;
-    private final Cipher cipherOut;
+    private final BufferMutator cipherIn;
+    private final BufferMutator cipherOut;
+
+    /**
+     * Create an encrypted byte channel, that encrypts and decrypts data in place.
+     *
+     * @param delegate Delegate byte channel
+     * @param cipherIn Keystream for decrypting incoming data
+     * @param cipherOut Keystream for encrypting outgoing data
+     * @since 1.8
+     */
+    public EncryptedChannel(ByteChannel delegate, ARC4 cipherIn, ARC4 cipherOut) {
+        this(delegate, new CipherBufferMutator(cipherIn), new CipherBufferMutator(cipherOut));
+    }
 
     /**
      * Create an encrypted byte channel.
@@ -39,8 +54,14 @@ public class EncryptedChannel implements ByteChannel {
      * @param cipherIn Cipher for decrypting incoming data
      * @param cipherOut Cipher for encrypting outgoing data
      * @since 1.2
+     * @deprecated since 1.8 in favor of {@link #EncryptedChannel(ByteChannel, ARC4, ARC4)}
      */
+    @Deprecated
     public EncryptedChannel(ByteChannel delegate, Cipher cipherIn, Cipher cipherOut) {
+        this(delegate, new CipherBufferMutator(cipherIn), new CipherBufferMutator(cipherOut));
+    }
+
+    private EncryptedChannel(ByteChannel delegate, BufferMutator cipherIn, BufferMutator cipherOut) {
         this.delegate = delegate;
         this.cipherIn = cipherIn;
         this.cipherOut = cipherOut;
@@ -56,16 +77,8 @@ public class EncryptedChannel implements ByteChannel {
             if (read > 0) {
                 dst.limit(dst.position());
                 dst.position(position);
-                byte[] bytes = new byte[dst.remaining()];
-                dst.get(bytes);
+                cipherIn.mutate(dst);
                 dst.limit(limit);
-                dst.position(position);
-                try {
-                    bytes = cipherIn.update(bytes);
-                } catch (Exception e) {
-                    throw new RuntimeException(e);
-                }
-                dst.put(bytes);
             }
         }
         return read;
@@ -76,15 +89,7 @@ public class EncryptedChannel implements ByteChannel {
         int written = 0;
         if (src.hasRemaining()) {
             int position = src.position();
-            byte[] bytes = new byte[src.remaining()];
-            src.get(bytes);
-            src.position(position);
-            try {
-                bytes = cipherOut.update(bytes);
-            } catch (Exception e) {
-                throw new RuntimeException(e);
-            }
-            src.put(bytes);
+            cipherOut.mutate(src);
             src.position(position);
             while (src.hasRemaining()) {
                 // write fully
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2016—2017 Andrei Tomashpolskiy and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package bt.net.crypto;
+
+import java.math.BigInteger;
+
+/**
+ * Modular exponentiation with a fixed base and modulus.
+ *
+ * <p>Precomputes a table of base^(d * 2^(w*i)) mod m for each w-bit window i of the exponent
+ * and each digit d, so that exponentiation takes one modular multiplication per non-zero window
+ * and no squarings. Products are reduced with Barrett reduction, which replaces division by the modulus
+ * with two multiplications.</p>
+ *
+ * <p>Exponents, that are longer than the table, are delegated to {@link BigInteger#modPow(BigInteger, BigInteger)}.</p>
+ *
+ * @since 1.8
+ */
+class FixedBaseModPow {
+
+    private static final int DEFAULT_WINDOW_BITS = 5;
+
+    private final BigInteger base;
+    private final BigInteger modulus;
+    private final int windowBits;
+    private final int maxExponentBits;
+    private final BigInteger[][] table;
+
+    // Barrett reduction parameters
+    private final int k;
+    private final BigInteger mu;
+
+    /**
+     * @param maxExponentBits Max bit length of exponents, for which the table should be computed
+     */
+    FixedBaseModPow(BigInteger base, BigInteger modulus, int maxExponentBits) {
+        this(base, modulus, maxExponentBits, DEFAULT_WINDOW_BITS);
+    }
+
+    FixedBaseModPow(BigInteger base, BigInteger modulus, int maxExponentBits, int windowBits) {
+        if (modulus.signum() <= 0) {
+            throw new IllegalArgumentException("Invalid modulus: " + modulus);
+        }
+        if (maxExponentBits <= 0 || windowBits <= 0 || windowBits > 16) {
+            throw new IllegalArgumentException("Invalid parameters: max exponent bits (" + maxExponentBits + ")," +
+                    " window bits (" + windowBits + ")");
+        }
+        this.base = base;
+        this.modulus = modulus;
+        this.windowBits = windowBits;
+        this.maxExponentBits = maxExponentBits;
+
+        this.k = modulus.bitLength();
+        this.mu = BigInteger.ONE.shiftLeft(2 * k).divide(modulus);
+
+        int windowCount = (maxExponentBits + windowBits - 1) / windowBits;
+        int digitCount = 1 << windowBits;
+        this.table = new BigInteger[windowCount][digitCount];
+
+        BigInteger windowBase = base.mod(modulus); // base^(2^(w*i))
+        for (int i = 0; i < windowCount; i++) {
+            BigInteger[] row = table[i];
+            row[0] = BigInteger.ONE;
+            for (int d = 1; d < digitCount; d++) {
+                row[d] = reduce(row[d - 1].multiply(windowBase));
+            }
+            windowBase = reduce(row[digitCount - 1].multiply(windowBase));
+        }
+    }
+
+    /**
+     * @return base^exponent mod modulus
+     */
+    BigInteger pow(BigInteger exponent) {
+        if (exponent.signum() < 0 || exponent.bitLength() > maxExponentBits) {
+            return base.modPow(exponent, modulus);
+        }
+
+        BigInteger result = BigInteger.ONE;
+        boolean first = true;
+        int bitLength = exponent.bitLength();
+        for (int i = 0, offset = 0; offset < bitLength; i++, offset += windowBits) {
+            int digit = 0;
+            for (int b = 0; b < windowBits; b++) {
+                if (exponent.testBit(offset + b)) {
+                    digit |= 1 << b;
+                }
+            }
+            if (digit != 0) {
+                if (first) {
+                    result = table[i][digit];
+                    first = false;
+                } else {
+                    result = reduce(result.multiply(table[i][digit]));
+                }
+            }
+        }
+        return first ? BigInteger.ONE.mod(modulus) : result;
+    }
+
+    /**
+     * Barrett reduction; x must be non-negative and less than modulus^2.
+     */
+    private BigInteger reduce(BigInteger x) {
+        BigInteger q = x.shiftRight(k - 1).multiply(mu).shiftRight(k + 1);
+        BigInteger r = x.subtract(q.multiply(modulus));
+        while (r.compareTo(modulus) >= 0) {
+            r = r.subtract(modulus);
+        }
+        return r;
+    }
+}
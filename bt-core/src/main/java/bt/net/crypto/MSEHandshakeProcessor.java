@@ -16,6 +16,7 @@
 
 package bt.net.crypto;
 
+import bt.event.EventSource;
 import bt.metainfo.TorrentId;
 import bt.net.BigIntegers;
 import bt.net.ByteChannelReader;
@@ -61,6 +62,7 @@ public class MSEHandshakeProcessor {
 
     private final MSEKeyPairGenerator keyGenerator;
     private final TorrentRegistry torrentRegistry;
+    private final SkeyHashIndex skeyHashIndex;
     private final MessageHandler<Message> protocol;
     private final EncryptionPolicy localEncryptionPolicy;
 
@@ -70,6 +72,7 @@ public class MSEHandshakeProcessor {
     public MSEHandshakeProcessor(
             TorrentRegistry torrentRegistry,
             MessageHandler<Message> protocol,
+            EventSource eventSource,
             Config config) {
 
         this.localEncryptionPolicy = config.getEncryptionPolicy();
@@ -113,9 +116,20 @@ public class MSEHandshakeProcessor {
         }
         this.mseDisabled = mseDisabled;
 
-        this.keyGenerator = new MSEKeyPairGenerator(msePrivateKeySize);
+        this.keyGenerator = mseDisabled ? new MSEKeyPairGenerator(msePrivateKeySize)
+                : new MSEKeyPairGenerator(msePrivateKeySize, config.getMseKeyPairPoolSize());
         this.torrentRegistry = torrentRegistry;
         this.protocol = protocol;
+
+        // only active torrents can be requested by the remote peer
+        this.skeyHashIndex = new SkeyHashIndex();
+        eventSource.onTorrentStarted(e -> skeyHashIndex.add(e.getTorrentId()))
+                .onTorrentStopped(e -> skeyHashIndex.remove(e.getTorrentId()));
+        torrentRegistry.getTorrentIds().forEach(torrentId -> {
+            if (torrentRegistry.isSupportedAndActive(torrentId)) {
+                skeyHashIndex.add(torrentId);
+            }
+        });
     }
 
     public Optional<MSECipher> negotiateOutgoing(Peer peer, ByteChannel channel, TorrentId torrentId, ByteBuffer in, ByteBuffer out) throws IOException {
@@ -188,7 +202,7 @@ public class MSEHandshakeProcessor {
 
         byte[] Sbytes = BigIntegers.encodeUnsigned(S, MSEKeyPairGenerator.PUBLIC_KEY_BYTES);
         MSECipher cipher = MSECipher.forInitiator(Sbytes, torrentId);
-        ByteChannel encryptedChannel = new EncryptedChannel(channel, cipher.getDecryptionCipher(), cipher.getEncryptionCipher());
+        ByteChannel encryptedChannel = new EncryptedChannel(channel, cipher.getDecryptor(), cipher.getEncryptor());
         // - ENCRYPT(VC, crypto_provide, len(PadC), PadC, len(IA))
         out.put(VC_RAW_BYTES);
         out.put(getCryptoProvideBitfield(localEncryptionPolicy));
@@ -207,11 +221,7 @@ public class MSEHandshakeProcessor {
         byte[] encryptedVC;
         {
             MSECipher throwawayCipher = MSECipher.forInitiator(Sbytes, torrentId);
-            try {
-                encryptedVC = throwawayCipher.getDecryptionCipher().doFinal(VC_RAW_BYTES);
-            } catch (Exception e) {
-                throw new RuntimeException("Failed to encrypt VC", e);
-            }
+            encryptedVC = throwawayCipher.getDecryptor().update(Arrays.copyOf(VC_RAW_BYTES, VC_RAW_BYTES.length));
         }
         // synchronize on the incoming stream of data
         int phase2Min = encryptedVC.length + 4/*crypto_select*/ + 2/*padding_len*/;
@@ -230,12 +240,9 @@ public class MSEHandshakeProcessor {
         // and decrypt these bytes in the incoming data buffer for later processing
         in.limit(initpos + phase2Read);
         {
-            cipher.getDecryptionCipher().update(new byte[VC_RAW_BYTES.length]);
-            byte[] encryptedData = new byte[in.remaining()];
-            in.get(encryptedData);
+            cipher.getDecryptor().skip(VC_RAW_BYTES.length);
             in.position(matchpos);
-            byte[] decryptedData = cipher.getDecryptionCipher().update(encryptedData);
-            in.put(decryptedData);
+            cipher.getDecryptor().update(in);
             in.position(matchpos);
         }
 
@@ -383,19 +390,10 @@ public class MSEHandshakeProcessor {
 
         // - HASH('req2', SKEY) xor HASH('req3', S)
         in.get(bytes); // read SKEY/S hash
-        TorrentId requestedTorrent = null;
         digest.update("req3".getBytes("ASCII"));
         digest.update(BigIntegers.encodeUnsigned(S, keyGenerator.getPublicKeySize()));
         byte[] b2 = digest.digest();
-        for (TorrentId torrentId : torrentRegistry.getTorrentIds()) {
-            digest.update("req2".getBytes("ASCII"));
-            digest.update(torrentId.getBytes());
-            byte[] b1 = digest.digest();
-            if (Arrays.equals(xor(b1, b2), bytes)) {
-                requestedTorrent = torrentId;
-                break;
-            }
-        }
+        TorrentId requestedTorrent = skeyHashIndex.get(xor(bytes, b2)).orElse(null);
         // check that torrent is supported and active
         if (requestedTorrent == null) {
             throw new IllegalStateException("Unsupported torrent requested");
@@ -409,20 +407,13 @@ public class MSEHandshakeProcessor {
 
         byte[] Sbytes = BigIntegers.encodeUnsigned(S, MSEKeyPairGenerator.PUBLIC_KEY_BYTES);
         MSECipher cipher = MSECipher.forReceiver(Sbytes, requestedTorrent);
-        ByteChannel encryptedChannel = new EncryptedChannel(channel, cipher.getDecryptionCipher(), cipher.getEncryptionCipher());
+        ByteChannel encryptedChannel = new EncryptedChannel(channel, cipher.getDecryptor(), cipher.getEncryptor());
         ByteChannelReader encryptedReader = reader(encryptedChannel);
 
         // - ENCRYPT(VC, crypto_provide, len(PadC), PadC, len(IA))
         // derypt encrypted leftovers from step #3
         int pos = in.position();
-        byte[] leftovers = new byte[in.remaining()];
-        in.get(leftovers);
-        in.position(pos);
-        try {
-            in.put(cipher.getDecryptionCipher().update(leftovers));
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to decrypt leftover bytes: " + leftovers.length);
-        }
+        cipher.getDecryptor().update(in);
         in.position(pos);
 
         byte[] theirVC = new byte[8];
@@ -24,6 +24,13 @@ import java.security.KeyPair;
 import java.security.PrivateKey;
 import java.security.PublicKey;
 import java.security.SecureRandom;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 class MSEKeyPairGenerator {
 
@@ -38,23 +45,94 @@ class MSEKeyPairGenerator {
 
     static final int PUBLIC_KEY_BYTES = 96;
 
+    private static final AtomicLong POOL_THREAD_INDEX = new AtomicLong();
+
     private final SecureRandom random;
     private final int privateKeySize;
+    private final FixedBaseModPow publicKeyCalculator;
+
+    // key pairs are precomputed in background, if pool is enabled
+    private final BlockingQueue<KeyPair> pool;
+    private final ThreadPoolExecutor poolExecutor;
+    private final AtomicBoolean refilling;
 
     MSEKeyPairGenerator(int privateKeySize) {
+        this(privateKeySize, 0);
+    }
+
+    /**
+     * @param privateKeySize Private key size in bytes
+     * @param poolSize Number of key pairs to precompute in background; 0 to disable precomputation
+     */
+    MSEKeyPairGenerator(int privateKeySize, int poolSize) {
         if (privateKeySize < 16 || privateKeySize > 512) {
             throw new IllegalArgumentException("Illegal key size: " + privateKeySize + "; expected 16..512 bytes");
         }
+        if (poolSize < 0) {
+            throw new IllegalArgumentException("Illegal pool size: " + poolSize);
+        }
         this.random = new SecureRandom();
         this.privateKeySize = privateKeySize;
+        this.publicKeyCalculator = new FixedBaseModPow(G, P, privateKeySize * 8);
+
+        if (poolSize > 0) {
+            this.pool = new ArrayBlockingQueue<>(poolSize);
+            // single low-priority thread, that terminates when the pool is full
+            this.poolExecutor = new ThreadPoolExecutor(1, 1, 10, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+                Thread t = new Thread(r, "bt.net.crypto.mse-key-generator-" + POOL_THREAD_INDEX.incrementAndGet());
+                t.setDaemon(true);
+                t.setPriority(Thread.MIN_PRIORITY);
+                return t;
+            });
+            this.poolExecutor.allowCoreThreadTimeOut(true);
+            this.refilling = new AtomicBoolean(false);
+            refillPool();
+        } else {
+            this.pool = null;
+            this.poolExecutor = null;
+            this.refilling = null;
+        }
     }
 
     KeyPair generateKeyPair() {
-        MSEPrivateKey privateKey = new MSEPrivateKey(privateKeySize, random);
-        MSEPublicKey publicKey = privateKey.getPublicKey();
+        if (pool == null) {
+            return createKeyPair();
+        }
+        KeyPair keyPair = pool.poll();
+        refillPool();
+        return (keyPair == null) ? createKeyPair() : keyPair;
+    }
+
+    private KeyPair createKeyPair() {
+        BigInteger privateKeyValue = generatePrivateKey(privateKeySize, random);
+        MSEPublicKey publicKey = new MSEPublicKey(publicKeyCalculator.pow(privateKeyValue));
+        MSEPrivateKey privateKey = new MSEPrivateKey(privateKeyValue, publicKey);
         return new KeyPair(publicKey, privateKey);
     }
 
+    // private key: random N bit integer
+    private static BigInteger generatePrivateKey(int size, SecureRandom random) {
+        byte[] bytes = new byte[size];
+        for (int i = 0; i < size; i++) {
+            bytes[i] = (byte) random.nextInt(256);
+        }
+        return BigIntegers.decodeUnsigned(ByteBuffer.wrap(bytes), size);
+    }
+
+    private void refillPool() {
+        if (pool.remainingCapacity() > 0 && refilling.compareAndSet(false, true)) {
+            poolExecutor.execute(() -> {
+                try {
+                    while (pool.remainingCapacity() > 0) {
+                        pool.offer(createKeyPair());
+                    }
+                } finally {
+                    refilling.set(false);
+                }
+            });
+        }
+    }
+
     int getPublicKeySize() {
         return PUBLIC_KEY_BYTES;
     }
@@ -107,34 +185,14 @@ class MSEKeyPairGenerator {
     private static class MSEPrivateKey implements PrivateKey {
 
         private final BigInteger value;
-        private volatile MSEPublicKey publicKey;
-        private final Object lock;
-
-        /**
-         * @param size Key size in bytes
-         */
-        MSEPrivateKey(int size, SecureRandom random) {
-            this.value = generatePrivateKey(size, random);
-            this.lock = new Object();
-        }
+        private final MSEPublicKey publicKey;
 
-        // private key: random N bit integer
-        private BigInteger generatePrivateKey(int size, SecureRandom random) {
-            byte[] bytes = new byte[size];
-            for (int i = 0; i < size; i++) {
-                bytes[i] = (byte) random.nextInt(256);
-            }
-            return BigIntegers.decodeUnsigned(ByteBuffer.wrap(bytes), size);
+        MSEPrivateKey(BigInteger value, MSEPublicKey publicKey) {
+            this.value = value;
+            this.publicKey = publicKey;
         }
 
         MSEPublicKey getPublicKey() {
-            if (publicKey == null) {
-                synchronized (lock) {
-                    if (publicKey == null) {
-                        publicKey = new MSEPublicKey(G.modPow(value, P));
-                    }
-                }
-            }
             return publicKey;
         }
 
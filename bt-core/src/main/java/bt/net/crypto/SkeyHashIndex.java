@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2016—2017 Andrei Tomashpolskiy and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package bt.net.crypto;
+
+import bt.metainfo.TorrentId;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Index of torrents by HASH('req2', SKEY), where SKEY is the torrent's info hash.
+ * Allows to identify the torrent, requested by the initiator of MSE handshake,
+ * without hashing the IDs of all torrents, known to the runtime.
+ *
+ * @since 1.8
+ */
+class SkeyHashIndex {
+
+    private static final byte[] REQ2 = "req2".getBytes(StandardCharsets.US_ASCII);
+
+    // hashes are wrapped in byte buffers, which compare by content
+    private final ConcurrentMap<ByteBuffer, TorrentId> torrentIds;
+
+    SkeyHashIndex() {
+        this.torrentIds = new ConcurrentHashMap<>();
+    }
+
+    void add(TorrentId torrentId) {
+        torrentIds.put(ByteBuffer.wrap(hash(torrentId)), torrentId);
+    }
+
+    void remove(TorrentId torrentId) {
+        torrentIds.remove(ByteBuffer.wrap(hash(torrentId)));
+    }
+
+    /**
+     * @param skeyHash HASH('req2', SKEY)
+     * @return ID of the torrent, that has the given hash, if it's present in the index
+     */
+    Optional<TorrentId> get(byte[] skeyHash) {
+        return Optional.ofNullable(torrentIds.get(ByteBuffer.wrap(skeyHash)));
+    }
+
+    private static byte[] hash(TorrentId torrentId) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+        digest.update(REQ2);
+        digest.update(torrentId.getBytes());
+        return digest.digest();
+    }
+}
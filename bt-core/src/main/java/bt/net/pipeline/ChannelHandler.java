@@ -84,4 +84,17 @@ public interface ChannelHandler {
      * @since 1.6
      */
     boolean isClosed();
+
+    /**
+     * Add a listener, that will be invoked once, when this handler is closed
+     * (either explicitly, or due to an I/O error). If the handler has already been closed,
+     * then the listener is invoked immediately.
+     *
+     * <p>Default implementation does nothing, i.e. close notifications are optional.
+     *
+     * @since 1.8
+     */
+    default void addCloseListener(Runnable listener) {
+        // close notifications are not supported
+    }
 }
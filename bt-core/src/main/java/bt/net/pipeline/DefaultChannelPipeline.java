@@ -112,6 +112,11 @@ public class DefaultChannelPipeline implements ChannelPipeline {
                 }
 
                 buffer.clear();
+                if (decodedDataOffset == undecodedDataOffset) {
+                    // all data has been consumed; keep the buffer empty,
+                    // so that it could be returned to the pool, if the connection becomes idle
+                    decodedDataOffset = undecodedDataOffset = 0;
+                }
                 buffer.position(undecodedDataOffset);
                 if (!buffer.hasRemaining()) {
                     buffer.position(decodedDataOffset);
@@ -122,6 +127,7 @@ public class DefaultChannelPipeline implements ChannelPipeline {
                 }
             } else if (decodedDataOffset == undecodedDataOffset) {
                 buffer.clear();
+                decodedDataOffset = undecodedDataOffset = 0;
             } if (decodedDataOffset > undecodedDataOffset) {
                 throw new IllegalStateException("decodedDataOffset > undecodedDataOffset: " + decodedDataOffset + " > " + undecodedDataOffset);
             }
@@ -27,6 +27,8 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.SocketChannel;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.function.Function;
 
 public class SocketChannelHandler implements ChannelHandler {
@@ -41,6 +43,7 @@ public class SocketChannelHandler implements ChannelHandler {
     private final Object inboundBufferLock;
     private final Object outboundBufferLock;
     private final AtomicBoolean shutdown;
+    private final Queue<Runnable> closeListeners;
 
     public SocketChannelHandler(
             SocketChannel channel,
@@ -58,6 +61,34 @@ public class SocketChannelHandler implements ChannelHandler {
         this.inboundBufferLock = new Object();
         this.outboundBufferLock = new Object();
         this.shutdown = new AtomicBoolean(false);
+        this.closeListeners = new ConcurrentLinkedQueue<>();
+    }
+
+    /**
+     * Add a listener, that will be invoked once, when this handler is closed
+     * (either explicitly, or due to an I/O error). If the handler has already been closed,
+     * then the listener is invoked immediately.
+     *
+     * @since 1.8
+     */
+    @Override
+    public void addCloseListener(Runnable listener) {
+        closeListeners.add(listener);
+        if (shutdown.get()) {
+            notifyCloseListeners();
+        }
+    }
+
+    private void notifyCloseListeners() {
+        Runnable listener;
+        // each listener is removed exactly once, so it's never invoked twice
+        while ((listener = closeListeners.poll()) != null) {
+            try {
+                listener.run();
+            } catch (Exception e) {
+                LOGGER.error("Close listener failed", e);
+            }
+        }
     }
 
     @Override
@@ -180,6 +211,7 @@ public class SocketChannelHandler implements ChannelHandler {
             }
             closeChannel();
             releaseBuffers();
+            notifyCloseListeners();
         }
     }
 
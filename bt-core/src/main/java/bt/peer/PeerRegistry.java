@@ -17,8 +17,10 @@
 package bt.peer;
 
 import bt.event.EventSink;
+import bt.event.EventSource;
 import bt.metainfo.Torrent;
 import bt.metainfo.TorrentId;
+import bt.metrics.Metrics;
 import bt.net.InetPeer;
 import bt.net.Peer;
 import bt.runtime.Config;
@@ -74,8 +76,10 @@ public class PeerRegistry implements IPeerRegistry {
                         TorrentRegistry torrentRegistry,
                         ITrackerService trackerService,
                         EventSink eventSink,
+                        EventSource eventSource,
                         IPeerCache cache,
                         Set<PeerSourceFactory> extraPeerSourceFactories,
+                        Metrics metrics,
                         Config config) {
 
         this.localPeer = new InetPeer(config.getAcceptorAddress(), config.getAcceptorPort(), idService.getLocalPeerId());
@@ -85,15 +89,27 @@ public class PeerRegistry implements IPeerRegistry {
         this.trackerService = trackerService;
         this.eventSink = eventSink;
         this.trackerPeerSourceFactory = new TrackerPeerSourceFactory(trackerService, torrentRegistry,
-                lifecycleBinder, config.getTrackerQueryInterval());
+                lifecycleBinder, metrics, config.getTrackerQueryInterval());
         this.extraPeerSourceFactories = extraPeerSourceFactories;
 
         this.extraAnnounceKeys = new ConcurrentHashMap<>();
         this.extraAnnounceKeysLock = new ReentrantLock();
 
+        eventSource.onTorrentUnregistered(e -> onTorrentUnregistered(e.getTorrentId()));
+
         createExecutor(lifecycleBinder, config.getPeerDiscoveryInterval());
     }
 
+    private void onTorrentUnregistered(TorrentId torrentId) {
+        extraAnnounceKeysLock.lock();
+        try {
+            extraAnnounceKeys.remove(torrentId);
+        } finally {
+            extraAnnounceKeysLock.unlock();
+        }
+        trackerPeerSourceFactory.removePeerSources(torrentId);
+    }
+
     private void createExecutor(IRuntimeLifecycleBinder lifecycleBinder, Duration peerDiscoveryInterval) {
         ScheduledExecutorService executor =
                 Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "bt.peer.peer-collector"));
@@ -22,6 +22,7 @@ import org.slf4j.LoggerFactory;
 
 import java.util.Collection;
 import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
@@ -78,7 +79,7 @@ public abstract class ScheduledPeerSource implements PeerSource {
                 }
 
                 if (futureOptional.get() == null) {
-                    futureOptional.set(executor.submit(() -> collectPeers(peers::add)));
+                    futureOptional.set(collectPeersAsync(peers::add));
                 }
             } finally {
                 lock.unlock();
@@ -86,6 +87,19 @@ public abstract class ScheduledPeerSource implements PeerSource {
         }
     }
 
+    /**
+     * Start collecting peers. Next collection will not be started until the returned future is done.
+     *
+     * <p>Default implementation runs {@link #collectPeers(Consumer)} in this peer source's executor.
+     * Peer sources, that perform non-blocking I/O, may override this method
+     * to avoid occupying an executor's thread while waiting for the results.</p>
+     *
+     * @since 1.8
+     */
+    protected CompletableFuture<?> collectPeersAsync(Consumer<Peer> peerConsumer) {
+        return CompletableFuture.runAsync(() -> collectPeers(peerConsumer), executor);
+    }
+
     /**
      * @since 1.1
      */
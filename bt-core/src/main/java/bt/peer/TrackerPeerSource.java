@@ -18,6 +18,10 @@ package bt.peer;
 
 import bt.BtException;
 import bt.metainfo.TorrentId;
+import bt.metrics.Counter;
+import bt.metrics.Histogram;
+import bt.metrics.MetricNames;
+import bt.metrics.Metrics;
 import bt.net.Peer;
 import bt.tracker.Tracker;
 import bt.tracker.TrackerResponse;
@@ -25,39 +29,82 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutorService;
 import java.util.function.Consumer;
+import java.util.function.Function;
 
 class TrackerPeerSource extends ScheduledPeerSource {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(TrackerPeerSource.class);
 
+    private ExecutorService executor;
     private Tracker tracker;
     private TorrentId torrentId;
     private Duration trackerQueryInterval;
 
+    private boolean metricsEnabled;
+    private Counter queries;
+    private Counter queryFailures;
+    private Histogram queryTime;
+    private Counter peersReturned;
+
     private volatile long lastRefreshed;
 
-    TrackerPeerSource(ExecutorService executor, Tracker tracker, TorrentId torrentId, Duration trackerQueryInterval) {
+    TrackerPeerSource(ExecutorService executor,
+                      Tracker tracker,
+                      TorrentId torrentId,
+                      Metrics metrics,
+                      Duration trackerQueryInterval) {
         super(executor);
+        this.executor = executor;
         this.tracker = tracker;
         this.torrentId = torrentId;
         this.trackerQueryInterval = trackerQueryInterval;
+
+        this.metricsEnabled = metrics.isEnabled();
+        this.queries = metrics.counter(MetricNames.TRACKER_QUERIES);
+        this.queryFailures = metrics.counter(MetricNames.TRACKER_QUERY_FAILURES);
+        this.queryTime = metrics.histogram(MetricNames.TRACKER_QUERY_TIME);
+        this.peersReturned = metrics.counter(MetricNames.TRACKER_PEERS);
     }
 
     @Override
     protected void collectPeers(Consumer<Peer> peerConsumer) {
-        if (System.currentTimeMillis() - lastRefreshed >= trackerQueryInterval.toMillis()) {
-            TrackerResponse response;
-            try {
-                // TODO: report stats
-                response = tracker.request(torrentId).query();
-            } finally {
-                lastRefreshed = System.currentTimeMillis();
+        try {
+            collectPeersAsync(peerConsumer).join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            throw (cause instanceof RuntimeException) ? (RuntimeException) cause : e;
+        }
+    }
+
+    @Override
+    protected CompletableFuture<?> collectPeersAsync(Consumer<Peer> peerConsumer) {
+        if (System.currentTimeMillis() - lastRefreshed < trackerQueryInterval.toMillis()) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        queries.inc();
+        long started = metricsEnabled ? System.nanoTime() : 0;
+        // trackers, that don't support non-blocking I/O, perform the query in the calling thread,
+        // so it's initiated from the executor; others release the executor's thread right away
+        return CompletableFuture.supplyAsync(() -> tracker.request(torrentId).queryAsync(peer -> {
+            peersReturned.inc();
+            peerConsumer.accept(peer);
+        }), executor).thenCompose(Function.identity()).handle((response, e) -> {
+            lastRefreshed = System.currentTimeMillis();
+            if (metricsEnabled) {
+                queryTime.update(System.nanoTime() - started);
             }
-            if (response.isSuccess()) {
-                response.getPeers().forEach(peerConsumer::accept);
-            } else {
+            if (e != null) {
+                queryFailures.inc();
+                Throwable cause = (e instanceof CompletionException) ? e.getCause() : e;
+                throw (cause instanceof RuntimeException) ? (RuntimeException) cause : new BtException(cause.getMessage(), cause);
+            }
+            if (!response.isSuccess()) {
+                queryFailures.inc();
                 if (response.getError().isPresent()) {
                     throw new BtException("Failed to get peers for torrent", response.getError().get());
                 } else {
@@ -65,7 +112,8 @@ class TrackerPeerSource extends ScheduledPeerSource {
                             "unexpected error during interaction with the tracker; message: " + response.getErrorMessage());
                 }
             }
-        }
+            return null;
+        });
     }
 
     @Override
@@ -18,6 +18,7 @@ package bt.peer;
 
 import bt.metainfo.Torrent;
 import bt.metainfo.TorrentId;
+import bt.metrics.Metrics;
 import bt.net.Peer;
 import bt.service.IRuntimeLifecycleBinder;
 import bt.torrent.TorrentRegistry;
@@ -39,6 +40,7 @@ class TrackerPeerSourceFactory implements PeerSourceFactory {
 
     private ITrackerService trackerService;
     private TorrentRegistry torrentRegistry;
+    private Metrics metrics;
     private Duration trackerQueryInterval;
     private ConcurrentMap<TorrentId, ConcurrentMap<AnnounceKey, TrackerPeerSource>> peerSources;
 
@@ -47,9 +49,11 @@ class TrackerPeerSourceFactory implements PeerSourceFactory {
     public TrackerPeerSourceFactory(ITrackerService trackerService,
                                     TorrentRegistry torrentRegistry,
                                     IRuntimeLifecycleBinder lifecycleBinder,
+                                    Metrics metrics,
                                     Duration trackerQueryInterval) {
         this.trackerService = trackerService;
         this.torrentRegistry = torrentRegistry;
+        this.metrics = metrics;
         this.trackerQueryInterval = trackerQueryInterval;
         this.peerSources = new ConcurrentHashMap<>();
 
@@ -113,8 +117,17 @@ class TrackerPeerSourceFactory implements PeerSourceFactory {
         return map;
     }
 
+    /**
+     * Discard all peer sources of a given torrent.
+     *
+     * @since 1.8
+     */
+    void removePeerSources(TorrentId torrentId) {
+        peerSources.remove(torrentId);
+    }
+
     private TrackerPeerSource createTrackerPeerSource(TorrentId torrentId, AnnounceKey announceKey) {
-        return new TrackerPeerSource(executor, trackerService.getTracker(announceKey), torrentId, trackerQueryInterval);
+        return new TrackerPeerSource(executor, trackerService.getTracker(announceKey), torrentId, metrics, trackerQueryInterval);
     }
 
     private static final PeerSource noopSource = new PeerSource() {
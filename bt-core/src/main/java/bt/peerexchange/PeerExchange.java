@@ -17,6 +17,9 @@
 package bt.peerexchange;
 
 import bt.BtException;
+import bt.bencoding.BEEncoder;
+import bt.bencoding.BEReader;
+import bt.bencoding.BEReader.Token;
 import bt.bencoding.model.BEMap;
 import bt.bencoding.model.BEObject;
 import bt.bencoding.model.BEString;
@@ -29,12 +32,11 @@ import bt.tracker.CompactPeerInfo.AddressType;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Map;
 import java.util.stream.Collectors;
 
 class PeerExchange extends ExtendedMessage {
@@ -52,37 +54,80 @@ class PeerExchange extends ExtendedMessage {
         return new Builder();
     }
 
-    public static PeerExchange parse(BEMap message) {
-        Map<String, BEObject<?>> m = message.getValue();
+    /**
+     * Read a PEX message, skipping unknown keys.
+     *
+     * @param reader Reader, positioned at the start of the message's dictionary
+     */
+    public static PeerExchange parse(BEReader reader) {
+        if (reader.nextToken() != Token.MAP_START) {
+            throw new InvalidMessageException("PEX message is not a dictionary");
+        }
+
+        byte[] addedIpv4 = null, addedIpv4Flags = null, addedIpv6 = null, addedIpv6Flags = null;
+        byte[] droppedIpv4 = null, droppedIpv6 = null;
+        while (reader.nextToken() != Token.END) {
+            String key = reader.readString();
+            if (reader.nextToken() != Token.STRING) {
+                reader.skipValue();
+                continue;
+            }
+            switch (key) {
+                case ADDED_IPV4_KEY: {
+                    addedIpv4 = reader.readBytes();
+                    break;
+                }
+                case ADDED_IPV4_FLAGS_KEY: {
+                    addedIpv4Flags = reader.readBytes();
+                    break;
+                }
+                case ADDED_IPV6_KEY: {
+                    addedIpv6 = reader.readBytes();
+                    break;
+                }
+                case ADDED_IPV6_FLAGS_KEY: {
+                    addedIpv6Flags = reader.readBytes();
+                    break;
+                }
+                case DROPPED_IPV4_KEY: {
+                    droppedIpv4 = reader.readBytes();
+                    break;
+                }
+                case DROPPED_IPV6_KEY: {
+                    droppedIpv6 = reader.readBytes();
+                    break;
+                }
+                default: {
+                    // ignore
+                }
+            }
+        }
 
         Collection<Peer> added = new HashSet<>();
-        extractPeers(m, ADDED_IPV4_KEY, ADDED_IPV4_FLAGS_KEY, AddressType.IPV4, added);
-        extractPeers(m, ADDED_IPV6_KEY, ADDED_IPV6_FLAGS_KEY, AddressType.IPV6, added);
+        extractPeers(addedIpv4, addedIpv4Flags, AddressType.IPV4, added);
+        extractPeers(addedIpv6, addedIpv6Flags, AddressType.IPV6, added);
 
         Collection<Peer> dropped = new HashSet<>();
-        extractPeers(m, DROPPED_IPV4_KEY, null, AddressType.IPV4, dropped);
-        extractPeers(m, DROPPED_IPV6_KEY, null, AddressType.IPV6, dropped);
+        extractPeers(droppedIpv4, null, AddressType.IPV4, dropped);
+        extractPeers(droppedIpv6, null, AddressType.IPV6, dropped);
 
         return new PeerExchange(added, dropped);
     }
 
-    private static void extractPeers(Map<String, BEObject<?>> m,
-                              String peersKey,
-                              String flagsKey,
-                              AddressType addressType,
-                              Collection<Peer> destination) {
-        if (m.containsKey(peersKey)) {
-            byte[] peers = ((BEString) m.get(peersKey)).getValue();
-            if (flagsKey != null && m.containsKey(flagsKey)) {
-                byte[] flags = ((BEString) m.get(flagsKey)).getValue();
-                extractPeers(peers, flags, addressType, destination);
+    private static void extractPeers(byte[] peers,
+                                     byte[] flags,
+                                     AddressType addressType,
+                                     Collection<Peer> destination) {
+        if (peers != null) {
+            if (flags != null) {
+                extractPeersWithFlags(peers, flags, addressType, destination);
             } else {
                 extractPeers(peers, addressType, destination);
             }
         }
     }
 
-    private static void extractPeers(byte[] peers, byte[] flags, AddressType addressType, Collection<Peer> destination) {
+    private static void extractPeersWithFlags(byte[] peers, byte[] flags, AddressType addressType, Collection<Peer> destination) {
         byte[] cryptoFlags = new byte[flags.length];
         for (int i = 0; i < flags.length; i++) {
             cryptoFlags[i] = (byte) (flags[i] & CRYPTO_FLAG);
@@ -116,7 +161,7 @@ class PeerExchange extends ExtendedMessage {
         return dropped;
     }
 
-    void writeTo(OutputStream out) throws IOException {
+    boolean writeTo(ByteBuffer buffer) {
 
         if (message == null) {
             message = new BEMap(null, new HashMap<String, BEObject<?>>() {{
@@ -132,7 +177,7 @@ class PeerExchange extends ExtendedMessage {
                 put(DROPPED_IPV6_KEY, encodePeers(filterByAddressType(dropped, AddressType.IPV6)));
             }});
         }
-        message.writeTo(out);
+        return BEEncoder.encoder().encode(message, buffer);
     }
 
     private static Collection<Peer> filterByAddressType(Collection<Peer> peers, AddressType addressType) {
@@ -16,14 +16,11 @@
 
 package bt.peerexchange;
 
-import bt.bencoding.BEParser;
-import bt.bencoding.model.BEMap;
+import bt.bencoding.BEReader;
 import bt.protocol.DecodingContext;
 import bt.protocol.EncodingContext;
 import bt.protocol.handler.MessageHandler;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.Collection;
 import java.util.Collections;
@@ -49,31 +46,17 @@ class PeerExchangeMessageHandler implements MessageHandler<PeerExchange> {
     @Override
     public int decode(DecodingContext context, ByteBuffer buffer) {
 
-        byte[] payload = new byte[buffer.remaining()];
-        buffer.get(payload);
-        try (BEParser parser = new BEParser(payload)) {
-            BEMap messageContent = parser.readMap();
-            PeerExchange message = PeerExchange.parse(messageContent);
-            context.setMessage(message);
-            return messageContent.getContent().length;
-        }
+        BEReader reader = new BEReader(buffer);
+        PeerExchange message = PeerExchange.parse(reader);
+        context.setMessage(message);
+
+        int consumed = reader.getBytesRead();
+        buffer.position(buffer.position() + consumed);
+        return consumed;
     }
 
     @Override
     public boolean encode(EncodingContext context, PeerExchange message, ByteBuffer buffer) {
-        ByteArrayOutputStream bos = new ByteArrayOutputStream();
-        try {
-            message.writeTo(bos);
-        } catch (IOException e) {
-            // can't happen
-        }
-
-        byte[] payload = bos.toByteArray();
-        if (buffer.remaining() < payload.length) {
-            return false;
-        }
-
-        buffer.put(payload);
-        return true;
+        return message.writeTo(buffer);
     }
 }
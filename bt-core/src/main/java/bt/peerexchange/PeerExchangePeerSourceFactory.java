@@ -82,7 +82,8 @@ public class PeerExchangePeerSourceFactory implements PeerSourceFactory {
         this.maxEventsPerMessage = config.getMaxEventsPerMessage();
 
         eventSource.onPeerConnected(e -> onPeerConnected(e.getTorrentId(), e.getPeer()))
-                .onPeerDisconnected(e -> onPeerDisconnected(e.getTorrentId(), e.getPeer()));
+                .onPeerDisconnected(e -> onPeerDisconnected(e.getTorrentId(), e.getPeer()))
+                .onTorrentUnregistered(e -> onTorrentUnregistered(e.getTorrentId()));
 
         ScheduledExecutorService executor =
                 Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "bt.peerexchange.cleaner"));
@@ -101,6 +102,11 @@ public class PeerExchangePeerSourceFactory implements PeerSourceFactory {
         lastSentPEXMessage.remove(peer);
     }
 
+    private void onTorrentUnregistered(TorrentId torrentId) {
+        peerSources.remove(torrentId);
+        peerEvents.remove(torrentId);
+    }
+
     private Queue<PeerEvent> getPeerEvents(TorrentId torrentId) {
         Queue<PeerEvent> events = peerEvents.get(torrentId);
         if (events == null) {
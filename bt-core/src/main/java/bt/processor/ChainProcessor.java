@@ -25,12 +25,17 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutorService;
 import java.util.function.BiFunction;
 
 /**
  * Base implementation of a generic asynchronous executor of processing chains.
  *
+ * Stages are executed one after another in the provided executor.
+ * While a stage is waiting for its' completion (see {@link ProcessingStage#executeAsync(ProcessingContext)}),
+ * no thread is occupied by the processing chain.
+ *
  * @param <C> Type of processing context
  * @since 1.5
  */
@@ -78,45 +83,87 @@ public class ChainProcessor<C extends ProcessingContext> implements Processor<C>
 
     @Override
     public CompletableFuture<?> process(C context, ListenerSource<C> listenerSource) {
-        Runnable r = () -> executeStage(chainHead, context, listenerSource);
-        return CompletableFuture.runAsync(r, executor);
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        executor.execute(() -> executeStage(chainHead, context, listenerSource, result));
+        return result;
     }
 
-    private void executeStage(ProcessingStage<C> chainHead,
+    private void executeStage(ProcessingStage<C> stage,
                               C context,
-                              ListenerSource<C> listenerSource) {
-        ProcessingEvent stageFinished = chainHead.after();
-        Collection<BiFunction<C, ProcessingStage<C>, ProcessingStage<C>>> listeners;
-        if (stageFinished != null) {
-            listeners = listenerSource.getListeners(stageFinished);
+                              ListenerSource<C> listenerSource,
+                              CompletableFuture<Void> result) {
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug(String.format("Processing next stage: torrent ID (%s), stage (%s)",
+                    context.getTorrentId().orElse(null), stage.getClass().getName()));
+        }
+
+        CompletableFuture<ProcessingStage<C>> future = executeAsync(stage, context);
+
+        if (future.isDone()) {
+            // synchronous stage, continue in the current thread
+            onStageFinished(stage, context, listenerSource, result, future);
         } else {
-            listeners = Collections.emptyList();
+            // do not run the rest of the chain in the thread, that has completed the stage
+            future.whenCompleteAsync((next, e) ->
+                    onStageFinished(stage, context, listenerSource, result, future), executor);
+        }
+    }
+
+    private CompletableFuture<ProcessingStage<C>> executeAsync(ProcessingStage<C> stage, C context) {
+        try {
+            return stage.executeAsync(context);
+        } catch (Exception e) {
+            CompletableFuture<ProcessingStage<C>> future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+            return future;
+        }
+    }
+
+    private void onStageFinished(ProcessingStage<C> stage,
+                                 C context,
+                                 ListenerSource<C> listenerSource,
+                                 CompletableFuture<Void> result,
+                                 CompletableFuture<ProcessingStage<C>> future) {
+        ProcessingStage<C> next;
+        try {
+            next = finishStage(stage, context, getListeners(stage, listenerSource), future);
+        } catch (Exception e) {
+            result.completeExceptionally(e);
+            return;
         }
 
-        ProcessingStage<C> next = doExecute(chainHead, context, listeners);
         if (next != null) {
-            executeStage(next, context, listenerSource);
+            executeStage(next, context, listenerSource, result);
+        } else {
+            result.complete(null);
         }
     }
 
-    private ProcessingStage<C> doExecute(ProcessingStage<C> stage,
-                                         C context,
-                                         Collection<BiFunction<C, ProcessingStage<C>, ProcessingStage<C>>> listeners) {
-        if (LOGGER.isDebugEnabled()) {
-            LOGGER.debug(String.format("Processing next stage: torrent ID (%s), stage (%s)",
-                    context.getTorrentId().orElse(null), stage.getClass().getName()));
+    private Collection<BiFunction<C, ProcessingStage<C>, ProcessingStage<C>>> getListeners(
+            ProcessingStage<C> stage, ListenerSource<C> listenerSource) {
+        ProcessingEvent stageFinished = stage.after();
+        if (stageFinished != null) {
+            return listenerSource.getListeners(stageFinished);
+        } else {
+            return Collections.emptyList();
         }
+    }
 
+    private ProcessingStage<C> finishStage(ProcessingStage<C> stage,
+                                           C context,
+                                           Collection<BiFunction<C, ProcessingStage<C>, ProcessingStage<C>>> listeners,
+                                           CompletableFuture<ProcessingStage<C>> future) {
         ProcessingStage<C> next;
         try {
-            next = stage.execute(context);
+            next = future.join();
             if (LOGGER.isDebugEnabled()) {
                 LOGGER.debug(String.format("Finished processing stage: torrent ID (%s), stage (%s)",
                         context.getTorrentId().orElse(null), stage.getClass().getName()));
             }
         } catch (Exception e) {
+            Throwable cause = (e instanceof CompletionException && e.getCause() != null) ? e.getCause() : e;
             LOGGER.error(String.format("Processing failed with error: torrent ID (%s), stage (%s)",
-                    context.getTorrentId().orElse(null), stage.getClass().getName()), e);
+                    context.getTorrentId().orElse(null), stage.getClass().getName()), cause);
             finalizer.ifPresent(f -> f.finalizeContext(context));
             throw e;
         }
@@ -18,6 +18,8 @@ package bt.processor;
 
 import bt.processor.listener.ProcessingEvent;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * @param <C> Type of processing context
  * @since 1.3
@@ -36,4 +38,20 @@ public interface ProcessingStage<C extends ProcessingContext> {
      * @since 1.3
      */
     ProcessingStage<C> execute(C context);
+
+    /**
+     * Begin asynchronous execution of this stage.
+     *
+     * Stages, that have to wait for some external condition (e.g. for the torrent to be stopped),
+     * should override this method and return a future, that will be completed, when the condition is met,
+     * instead of blocking the calling thread.
+     * Default implementation executes the stage synchronously.
+     *
+     * @param context Processing context
+     * @return Future, that will be completed with the next stage
+     * @since 1.8
+     */
+    default CompletableFuture<ProcessingStage<C>> executeAsync(C context) {
+        return CompletableFuture.completedFuture(execute(context));
+    }
 }
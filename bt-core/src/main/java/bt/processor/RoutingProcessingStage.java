@@ -16,6 +16,8 @@
 
 package bt.processor;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Base class for chained processing stage implementations.
  *
@@ -39,6 +41,11 @@ public abstract class RoutingProcessingStage<C extends ProcessingContext> implem
         return doExecute(context, next);
     }
 
+    @Override
+    public CompletableFuture<ProcessingStage<C>> executeAsync(C context) {
+        return doExecuteAsync(context, next);
+    }
+
     /**
      * Execute current stage and calculate the next stage.
      *
@@ -52,4 +59,17 @@ public abstract class RoutingProcessingStage<C extends ProcessingContext> implem
      * @since 1.5
      */
     protected abstract ProcessingStage<C> doExecute(C context, ProcessingStage<C> next);
+
+    /**
+     * Asynchronous counterpart of {@link #doExecute(ProcessingContext, ProcessingStage)}.
+     * Default implementation executes the stage synchronously.
+     *
+     * @param context Processing context
+     * @param next Default next stage (usually statically configured in ProcessorFactory)
+     * @return Future, that will be completed with the actual next stage
+     * @since 1.8
+     */
+    protected CompletableFuture<ProcessingStage<C>> doExecuteAsync(C context, ProcessingStage<C> next) {
+        return CompletableFuture.completedFuture(doExecute(context, next));
+    }
 }
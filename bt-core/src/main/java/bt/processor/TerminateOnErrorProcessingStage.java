@@ -19,6 +19,10 @@ package bt.processor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
 /**
  * Base processing stage, that terminates processing chain in case of error.
  *
@@ -43,6 +47,36 @@ public abstract class TerminateOnErrorProcessingStage<C extends ProcessingContex
         return next;
     }
 
+    @Override
+    protected final CompletableFuture<ProcessingStage<C>> doExecuteAsync(C context, ProcessingStage<C> next) {
+        CompletableFuture<?> future;
+        try {
+            future = doExecuteAsync(context);
+        } catch (Exception e) {
+            future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+        }
+        return future.handle((result, e) -> {
+            if (isCancellation(e)) {
+                if (LOGGER.isDebugEnabled()) {
+                    LOGGER.debug("Processing has been cancelled, will finalize context and terminate...");
+                }
+                return null; // terminate processing chain
+            } else if (e != null) {
+                LOGGER.error("Unexpected error during processing, will finalize context and terminate...", e);
+                return null; // terminate processing chain
+            }
+            return next;
+        });
+    }
+
+    private static boolean isCancellation(Throwable e) {
+        if (e instanceof CompletionException) {
+            e = e.getCause();
+        }
+        return e instanceof CancellationException;
+    }
+
     /**
      * Perform processing. Implementations are free to throw exceptions,
      * in which case the processing chain will be terminated.
@@ -50,4 +84,17 @@ public abstract class TerminateOnErrorProcessingStage<C extends ProcessingContex
      * @since 1.5
      */
     protected abstract void doExecute(C context);
+
+    /**
+     * Begin asynchronous processing. If the returned future completes exceptionally,
+     * then the processing chain will be terminated. Cancelling the returned future
+     * terminates the processing chain as well, but is not considered an error.
+     * Default implementation performs processing synchronously.
+     *
+     * @since 1.8
+     */
+    protected CompletableFuture<?> doExecuteAsync(C context) {
+        doExecute(context);
+        return CompletableFuture.completedFuture(null);
+    }
 }
@@ -18,6 +18,7 @@ package bt.processor;
 
 import bt.event.EventSink;
 import bt.event.EventSource;
+import bt.metainfo.IMetadataCache;
 import bt.metainfo.IMetadataService;
 import bt.module.ClientExecutor;
 import bt.module.MessagingAgents;
@@ -58,6 +59,7 @@ public class TorrentProcessorFactory implements ProcessorFactory {
     private IMessageDispatcher messageDispatcher;
     private Set<Object> messagingAgents;
     private IMetadataService metadataService;
+    private IMetadataCache metadataCache;
     private EventSource eventSource;
     private EventSink eventSink;
     private Config config;
@@ -74,6 +76,7 @@ public class TorrentProcessorFactory implements ProcessorFactory {
                                    IMessageDispatcher messageDispatcher,
                                    @MessagingAgents Set<Object> messagingAgents,
                                    IMetadataService metadataService,
+                                   IMetadataCache metadataCache,
                                    EventSource eventSource,
                                    EventSink eventSink,
                                    Config config) {
@@ -86,6 +89,7 @@ public class TorrentProcessorFactory implements ProcessorFactory {
         this.messageDispatcher = messageDispatcher;
         this.messagingAgents = messagingAgents;
         this.metadataService = metadataService;
+        this.metadataCache = metadataCache;
         this.eventSource = eventSource;
         this.eventSink = eventSink;
         this.config = config;
@@ -104,14 +108,15 @@ public class TorrentProcessorFactory implements ProcessorFactory {
 
     protected ChainProcessor<TorrentContext> createTorrentProcessor() {
 
-        ProcessingStage<TorrentContext> stage5 = new SeedStage<>(null, torrentRegistry);
+        ProcessingStage<TorrentContext> stage5 = new SeedStage<>(null, torrentRegistry, eventSource);
 
-        ProcessingStage<TorrentContext> stage4 = new ProcessTorrentStage<>(stage5, torrentRegistry, trackerService);
+        ProcessingStage<TorrentContext> stage4 = new ProcessTorrentStage<>(stage5, torrentRegistry, trackerService,
+                eventSource, executor);
 
         ProcessingStage<TorrentContext> stage3 = new ChooseFilesStage<>(stage4, torrentRegistry, config);
 
         ProcessingStage<TorrentContext> stage2 = new InitializeTorrentProcessingStage<>(stage3, torrentRegistry,
-                dataWorkerFactory, eventSink, config);
+                dataWorkerFactory, eventSink, metadataCache, config);
 
         ProcessingStage<TorrentContext> stage1 = new CreateSessionStage<>(stage2, torrentRegistry, eventSource,
                 connectionSource, messageDispatcher, messagingAgents, config);
@@ -123,17 +128,18 @@ public class TorrentProcessorFactory implements ProcessorFactory {
 
     protected ChainProcessor<MagnetContext> createMagnetProcessor() {
 
-        ProcessingStage<MagnetContext> stage5 = new SeedStage<>(null, torrentRegistry);
+        ProcessingStage<MagnetContext> stage5 = new SeedStage<>(null, torrentRegistry, eventSource);
 
-        ProcessingStage<MagnetContext> stage4 = new ProcessMagnetTorrentStage(stage5, torrentRegistry, trackerService);
+        ProcessingStage<MagnetContext> stage4 = new ProcessMagnetTorrentStage(stage5, torrentRegistry, trackerService,
+                eventSource, executor);
 
         ProcessingStage<MagnetContext> stage3 = new ChooseFilesStage<>(stage4, torrentRegistry, config);
 
         ProcessingStage<MagnetContext> stage2 = new InitializeMagnetTorrentProcessingStage(stage3, torrentRegistry,
-                dataWorkerFactory, eventSink, config);
+                dataWorkerFactory, eventSink, metadataCache, config);
 
-        ProcessingStage<MagnetContext> stage1 = new FetchMetadataStage(stage2, metadataService, torrentRegistry,
-                trackerService, peerRegistry, config);
+        ProcessingStage<MagnetContext> stage1 = new FetchMetadataStage(stage2, metadataService, metadataCache, torrentRegistry,
+                trackerService, peerRegistry, eventSource, executor, config);
 
         ProcessingStage<MagnetContext> stage0 = new CreateSessionStage<>(stage1, torrentRegistry, eventSource,
                 connectionSource, messageDispatcher, messagingAgents, config);
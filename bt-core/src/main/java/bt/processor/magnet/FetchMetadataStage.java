@@ -16,6 +16,9 @@
 
 package bt.processor.magnet;
 
+import bt.event.EventSource;
+import bt.event.TorrentStoppedEvent;
+import bt.metainfo.IMetadataCache;
 import bt.metainfo.IMetadataService;
 import bt.metainfo.Torrent;
 import bt.metainfo.TorrentFile;
@@ -33,45 +36,84 @@ import bt.torrent.messaging.BitfieldCollectingConsumer;
 import bt.torrent.messaging.MetadataConsumer;
 import bt.tracker.AnnounceKey;
 import bt.tracker.ITrackerService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
 
 public class FetchMetadataStage extends TerminateOnErrorProcessingStage<MagnetContext> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(FetchMetadataStage.class);
 
     private IMetadataService metadataService;
+    private IMetadataCache metadataCache;
     private TorrentRegistry torrentRegistry;
     private ITrackerService trackerService;
     private IPeerRegistry peerRegistry;
+    private EventSource eventSource;
+    private ExecutorService executor;
     private Config config;
 
     public FetchMetadataStage(ProcessingStage<MagnetContext> next,
                               IMetadataService metadataService,
+                              IMetadataCache metadataCache,
                               TorrentRegistry torrentRegistry,
                               ITrackerService trackerService,
                               IPeerRegistry peerRegistry,
+                              EventSource eventSource,
+                              ExecutorService executor,
                               Config config) {
         super(next);
         this.metadataService = metadataService;
+        this.metadataCache = metadataCache;
         this.torrentRegistry = torrentRegistry;
         this.trackerService = trackerService;
         this.peerRegistry = peerRegistry;
+        this.eventSource = eventSource;
+        this.executor = executor;
         this.config = config;
     }
 
     @Override
     protected void doExecute(MagnetContext context) {
+        doExecuteAsync(context).join();
+    }
+
+    @Override
+    protected CompletableFuture<?> doExecuteAsync(MagnetContext context) {
         TorrentId torrentId = context.getMagnetUri().getTorrentId();
+        Optional<TorrentDescriptor> descriptor = torrentRegistry.getDescriptor(torrentId);
+        if (!descriptor.isPresent()) {
+            // torrent has been unregistered, i.e. stopped for good
+            return cancelled();
+        }
 
-        MetadataConsumer metadataConsumer = new MetadataConsumer(metadataService, torrentId, config);
-        context.getRouter().registerMessagingAgent(metadataConsumer);
+        // skip metadata exchange, if this torrent has been processed before
+        Optional<Torrent> cachedTorrent = getCachedTorrent(torrentId);
+
+        MetadataConsumer metadataConsumer = null;
+        if (!cachedTorrent.isPresent()) {
+            metadataConsumer = new MetadataConsumer(metadataService, torrentId, config);
+            context.getRouter().registerMessagingAgent(metadataConsumer);
+        }
 
         // need to also receive Bitfields and Haves (without validation for the number of pieces...)
         BitfieldCollectingConsumer bitfieldConsumer = new BitfieldCollectingConsumer();
         context.getRouter().registerMessagingAgent(bitfieldConsumer);
 
-        getDescriptor(torrentId).start();
+        // completed with the torrent, when its' metadata is available,
+        // or cancelled, when the torrent has been stopped, in which case processing terminates
+        CompletableFuture<Torrent> fetched = new CompletableFuture<>();
+        Consumer<TorrentStoppedEvent> onStopped = e -> fetched.cancel(false);
+        eventSource.onTorrentStopped(torrentId, onStopped);
+        // the listener holds on to the processing context, so don't keep it after this stage is over
+        fetched.whenComplete((torrent, e) -> eventSource.removeListener(torrentId, onStopped));
+
+        descriptor.get().start();
 
         context.getMagnetUri().getPeerAddresses().forEach(peerAddress -> {
             peerRegistry.addPeer(torrentId, new InetPeer(peerAddress));
@@ -85,17 +127,45 @@ public class FetchMetadataStage extends TerminateOnErrorProcessingStage<MagnetCo
 //        TrackerAnnouncer announcer = new TrackerAnnouncer(trackerService, torrentId, null);
 //        announcer.start();
 
-        Torrent torrent = metadataConsumer.waitForTorrent();
-        torrent = amendTorrent(torrent, context.getMagnetUri().getDisplayName());
+        if (cachedTorrent.isPresent()) {
+            fetched.complete(cachedTorrent.get());
+        } else {
+            metadataConsumer.getTorrentFuture().thenAccept(fetched::complete);
+        }
+        if (!descriptor.get().isActive()) {
+            fetched.cancel(false);
+        }
 
-        context.setTorrent(torrent);
+        // caching the metadata performs I/O, so don't do it in the thread that has verified the metadata
+        return fetched.thenAcceptAsync(torrent -> {
+            if (!cachedTorrent.isPresent()) {
+                metadataCache.put(torrentId, torrent.getSource().getExchangedMetadata());
+            }
+            context.setTorrent(amendTorrent(torrent, context.getMagnetUri().getDisplayName()));
+            context.setBitfieldConsumer(bitfieldConsumer);
+        }, executor);
+    }
 
-        context.setBitfieldConsumer(bitfieldConsumer);
+    private static CompletableFuture<?> cancelled() {
+        CompletableFuture<?> future = new CompletableFuture<>();
+        future.cancel(false);
+        return future;
     }
 
-    private TorrentDescriptor getDescriptor(TorrentId torrentId) {
-        return torrentRegistry.getDescriptor(torrentId)
-                .orElseThrow(() -> new IllegalStateException("No descriptor present for torrent ID: " + torrentId));
+    private Optional<Torrent> getCachedTorrent(TorrentId torrentId) {
+        Optional<byte[]> infoDictionary = metadataCache.get(torrentId);
+        if (infoDictionary.isPresent()) {
+            try {
+                Torrent torrent = metadataService.fromByteArray(infoDictionary.get());
+                if (LOGGER.isDebugEnabled()) {
+                    LOGGER.debug("Using cached metadata for torrent ID: {}", torrentId);
+                }
+                return Optional.of(torrent);
+            } catch (Exception e) {
+                LOGGER.warn("Failed to process cached metadata, will fetch from peers: " + torrentId, e);
+            }
+        }
+        return Optional.empty();
     }
 
     private Torrent amendTorrent(Torrent delegate, Optional<String> displayName) {
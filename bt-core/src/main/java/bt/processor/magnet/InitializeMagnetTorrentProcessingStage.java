@@ -18,6 +18,7 @@ package bt.processor.magnet;
 
 import bt.data.Bitfield;
 import bt.event.EventSink;
+import bt.metainfo.IMetadataCache;
 import bt.metainfo.TorrentId;
 import bt.net.Peer;
 import bt.processor.ProcessingStage;
@@ -43,8 +44,9 @@ public class InitializeMagnetTorrentProcessingStage extends InitializeTorrentPro
                                                   TorrentRegistry torrentRegistry,
                                                   IDataWorkerFactory dataWorkerFactory,
                                                   EventSink eventSink,
+                                                  IMetadataCache metadataCache,
                                                   Config config) {
-        super(next, torrentRegistry, dataWorkerFactory, eventSink, config);
+        super(next, torrentRegistry, dataWorkerFactory, eventSink, metadataCache, config);
         this.eventSink = eventSink;
     }
 
@@ -16,17 +16,22 @@
 
 package bt.processor.magnet;
 
+import bt.event.EventSource;
 import bt.processor.ProcessingStage;
 import bt.processor.torrent.ProcessTorrentStage;
 import bt.torrent.TorrentRegistry;
 import bt.tracker.ITrackerService;
 
+import java.util.concurrent.ExecutorService;
+
 public class ProcessMagnetTorrentStage extends ProcessTorrentStage<MagnetContext> {
 
     public ProcessMagnetTorrentStage(ProcessingStage<MagnetContext> next,
                                      TorrentRegistry torrentRegistry,
-                                     ITrackerService trackerService) {
-        super(next, torrentRegistry, trackerService);
+                                     ITrackerService trackerService,
+                                     EventSource eventSource,
+                                     ExecutorService executor) {
+        super(next, torrentRegistry, trackerService, eventSource, executor);
     }
 
     @Override
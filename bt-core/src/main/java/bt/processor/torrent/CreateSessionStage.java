@@ -29,6 +29,7 @@ import bt.torrent.BitfieldBasedStatistics;
 import bt.torrent.DefaultTorrentSessionState;
 import bt.torrent.TorrentDescriptor;
 import bt.torrent.TorrentRegistry;
+import bt.torrent.TransferRate;
 import bt.torrent.messaging.Assignments;
 import bt.torrent.messaging.DefaultMessageRouter;
 import bt.torrent.messaging.IPeerWorkerFactory;
@@ -70,7 +71,9 @@ public class CreateSessionStage<C extends TorrentContext> extends TerminateOnErr
         TorrentDescriptor descriptor = torrentRegistry.register(torrentId);
 
         MessageRouter router = new DefaultMessageRouter(messagingAgents);
-        IPeerWorkerFactory peerWorkerFactory = new PeerWorkerFactory(router);
+        TransferRate downloaded = new TransferRate();
+        TransferRate uploaded = new TransferRate();
+        IPeerWorkerFactory peerWorkerFactory = new PeerWorkerFactory(router, downloaded, uploaded);
 
         Supplier<Bitfield> bitfieldSupplier = context::getBitfield;
         Supplier<Assignments> assignmentsSupplier = context::getAssignments;
@@ -78,7 +81,7 @@ public class CreateSessionStage<C extends TorrentContext> extends TerminateOnErr
         TorrentWorker torrentWorker = new TorrentWorker(torrentId, messageDispatcher, connectionSource, peerWorkerFactory,
                 bitfieldSupplier, assignmentsSupplier, statisticsSupplier, eventSource, config);
 
-        context.setState(new DefaultTorrentSessionState(descriptor, torrentWorker));
+        context.setState(new DefaultTorrentSessionState(descriptor, torrentWorker, downloaded, uploaded));
         context.setRouter(router);
     }
 
@@ -18,6 +18,7 @@ package bt.processor.torrent;
 
 import bt.data.Bitfield;
 import bt.event.EventSink;
+import bt.metainfo.IMetadataCache;
 import bt.metainfo.Torrent;
 import bt.processor.ProcessingStage;
 import bt.processor.TerminateOnErrorProcessingStage;
@@ -40,17 +41,20 @@ public class InitializeTorrentProcessingStage<C extends TorrentContext> extends
     private TorrentRegistry torrentRegistry;
     private IDataWorkerFactory dataWorkerFactory;
     private EventSink eventSink;
+    private IMetadataCache metadataCache;
     private Config config;
 
     public InitializeTorrentProcessingStage(ProcessingStage<C> next,
                                             TorrentRegistry torrentRegistry,
                                             IDataWorkerFactory dataWorkerFactory,
                                             EventSink eventSink,
+                                            IMetadataCache metadataCache,
                                             Config config) {
         super(next);
         this.torrentRegistry = torrentRegistry;
         this.dataWorkerFactory = dataWorkerFactory;
         this.eventSink = eventSink;
+        this.metadataCache = metadataCache;
         this.config = config;
     }
 
@@ -59,6 +63,12 @@ public class InitializeTorrentProcessingStage<C extends TorrentContext> extends
         Torrent torrent = context.getTorrent().get();
         TorrentDescriptor descriptor = torrentRegistry.register(torrent, context.getStorage());
 
+        if (!torrent.isPrivate()) {
+            // make this torrent's metadata available for subsequent magnet links;
+            // done here rather than when serving ut_metadata requests to keep disk I/O off the messaging loop
+            metadataCache.put(torrent.getTorrentId(), torrent.getSource().getExchangedMetadata());
+        }
+
         Bitfield bitfield = descriptor.getDataDescriptor().getBitfield();
         BitfieldBasedStatistics pieceStatistics = createPieceStatistics(bitfield);
 
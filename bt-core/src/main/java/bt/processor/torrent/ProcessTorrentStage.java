@@ -16,6 +16,8 @@
 
 package bt.processor.torrent;
 
+import bt.event.EventSource;
+import bt.event.TorrentStoppedEvent;
 import bt.metainfo.Torrent;
 import bt.metainfo.TorrentId;
 import bt.processor.ProcessingStage;
@@ -30,24 +32,43 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
 
 public class ProcessTorrentStage<C extends TorrentContext> extends TerminateOnErrorProcessingStage<C> {
     private static final Logger LOGGER = LoggerFactory.getLogger(ProcessTorrentStage.class);
 
     private TorrentRegistry torrentRegistry;
     private ITrackerService trackerService;
+    private EventSource eventSource;
+    private ExecutorService executor;
 
     public ProcessTorrentStage(ProcessingStage<C> next,
                                TorrentRegistry torrentRegistry,
-                               ITrackerService trackerService) {
+                               ITrackerService trackerService,
+                               EventSource eventSource,
+                               ExecutorService executor) {
         super(next);
         this.torrentRegistry = torrentRegistry;
         this.trackerService = trackerService;
+        this.eventSource = eventSource;
+        this.executor = executor;
     }
 
     @Override
     protected void doExecute(C context) {
-        TorrentDescriptor descriptor = getDescriptor(context.getTorrentId().get());
+        doExecuteAsync(context).join();
+    }
+
+    @Override
+    protected CompletableFuture<?> doExecuteAsync(C context) {
+        TorrentId torrentId = context.getTorrentId().get();
+        Optional<TorrentDescriptor> descriptor = torrentRegistry.getDescriptor(torrentId);
+        if (!descriptor.isPresent()) {
+            // torrent has been unregistered, i.e. stopped for good
+            return CompletableFuture.completedFuture(null);
+        }
 
         Torrent torrent = context.getTorrent().get();
         Optional<AnnounceKey> announceKey = torrent.getAnnounceKey();
@@ -56,20 +77,28 @@ public class ProcessTorrentStage<C extends TorrentContext> extends TerminateOnEr
             context.setAnnouncer(announcer);
         }
 
-        descriptor.start();
+        // completed with true, when all pieces have been downloaded and verified,
+        // or with false, when the torrent has been stopped
+        CompletableFuture<Boolean> downloaded = new CompletableFuture<>();
+        Consumer<TorrentStoppedEvent> onStopped = e -> downloaded.complete(false);
+        eventSource.onTorrentStopped(torrentId, onStopped);
+        // the listener holds on to the processing context, so don't keep it after this stage is over
+        downloaded.whenComplete((complete, e) -> eventSource.removeListener(torrentId, onStopped));
+
+        descriptor.get().start();
         start(context);
 
-        while (descriptor.isActive()) {
-            try {
-                Thread.sleep(1000);
-                if (context.getState().get().getPiecesRemaining() == 0) {
-                    complete(context);
-                    break;
-                }
-            } catch (InterruptedException e) {
-                throw new RuntimeException("Unexpectedly interrupted", e);
-            }
+        context.getBitfield().addCompletionListener(() -> downloaded.complete(true));
+        if (!descriptor.get().isActive()) {
+            downloaded.complete(false);
         }
+
+        // announcing completion may block, so don't do it in the thread that has verified the last piece
+        return downloaded.thenAcceptAsync(complete -> {
+            if (complete) {
+                complete(context);
+            }
+        }, executor);
     }
 
     private void start(C context) {
@@ -86,7 +115,10 @@ public class ProcessTorrentStage<C extends TorrentContext> extends TerminateOnEr
 
     private void complete(C context) {
         try {
-            context.getTorrentId().ifPresent(torrentId -> getDescriptor(torrentId).complete());
+            // descriptor is not present, if the torrent has been unregistered in the meantime
+            context.getTorrentId()
+                    .flatMap(torrentRegistry::getDescriptor)
+                    .ifPresent(TorrentDescriptor::complete);
             onCompleted(context);
         } catch (Exception e) {
             LOGGER.error("Unexpected error", e);
@@ -97,11 +129,6 @@ public class ProcessTorrentStage<C extends TorrentContext> extends TerminateOnEr
         context.getAnnouncer().ifPresent(TrackerAnnouncer::complete);
     }
 
-    private TorrentDescriptor getDescriptor(TorrentId torrentId) {
-        return torrentRegistry.getDescriptor(torrentId)
-                .orElseThrow(() -> new IllegalStateException("No descriptor present for torrent ID: " + torrentId));
-    }
-
     @Override
     public ProcessingEvent after() {
         return ProcessingEvent.DOWNLOAD_COMPLETE;
@@ -16,6 +16,8 @@
 
 package bt.processor.torrent;
 
+import bt.event.EventSource;
+import bt.event.TorrentStoppedEvent;
 import bt.metainfo.TorrentId;
 import bt.processor.ProcessingStage;
 import bt.processor.TerminateOnErrorProcessingStage;
@@ -23,32 +25,43 @@ import bt.processor.listener.ProcessingEvent;
 import bt.torrent.TorrentDescriptor;
 import bt.torrent.TorrentRegistry;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
 public class SeedStage<C extends TorrentContext> extends TerminateOnErrorProcessingStage<C> {
 
     private TorrentRegistry torrentRegistry;
+    private EventSource eventSource;
 
     public SeedStage(ProcessingStage<C> next,
-                     TorrentRegistry torrentRegistry) {
+                     TorrentRegistry torrentRegistry,
+                     EventSource eventSource) {
         super(next);
         this.torrentRegistry = torrentRegistry;
+        this.eventSource = eventSource;
     }
 
     @Override
     protected void doExecute(C context) {
-        TorrentDescriptor descriptor = getDescriptor(context.getTorrentId().get());
-
-        while (descriptor.isActive()) {
-            try {
-                Thread.sleep(1000);
-            } catch (InterruptedException e) {
-                throw new RuntimeException("Unexpectedly interrupted", e);
-            }
-        }
+        doExecuteAsync(context).join();
     }
 
-    private TorrentDescriptor getDescriptor(TorrentId torrentId) {
-        return torrentRegistry.getDescriptor(torrentId)
-                .orElseThrow(() -> new IllegalStateException("No descriptor present for torrent ID: " + torrentId));
+    @Override
+    protected CompletableFuture<?> doExecuteAsync(C context) {
+        TorrentId torrentId = context.getTorrentId().get();
+
+        CompletableFuture<Void> stopped = new CompletableFuture<>();
+        Consumer<TorrentStoppedEvent> onStopped = e -> stopped.complete(null);
+        eventSource.onTorrentStopped(torrentId, onStopped);
+        stopped.whenComplete((r, e) -> eventSource.removeListener(torrentId, onStopped));
+        // descriptor is not present, if the torrent has been unregistered, i.e. stopped for good
+        boolean active = torrentRegistry.getDescriptor(torrentId)
+                .map(TorrentDescriptor::isActive)
+                .orElse(false);
+        if (!active) {
+            stopped.complete(null);
+        }
+        return stopped;
     }
 
     @Override
@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2016—2017 Andrei Tomashpolskiy and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package bt.protocol.crypto;
+
+import java.nio.ByteBuffer;
+
+/**
+ * ARC4 keystream, that encrypts or decrypts data in place.
+ *
+ * Unlike a JCE {@link javax.crypto.Cipher}, this implementation does not allocate
+ * intermediate arrays and works directly on both heap and direct buffers.
+ * Encryption and decryption are the same operation.
+ *
+ * Instances are stateful and not thread-safe.
+ *
+ * @since 1.8
+ */
+public class ARC4 {
+
+    private final byte[] state;
+    private int i;
+    private int j;
+
+    /**
+     * Create a keystream, initialized with the given key.
+     *
+     * @param key Key bytes (1 to 256 bytes)
+     * @since 1.8
+     */
+    public ARC4(byte[] key) {
+        if (key.length == 0 || key.length > 256) {
+            throw new IllegalArgumentException("Invalid key length: " + key.length);
+        }
+        this.state = new byte[256];
+        for (int k = 0; k < 256; k++) {
+            state[k] = (byte) k;
+        }
+        int j = 0;
+        for (int k = 0; k < 256; k++) {
+            j = (j + state[k] + key[k % key.length]) & 0xFF;
+            byte t = state[k];
+            state[k] = state[j];
+            state[j] = t;
+        }
+    }
+
+    /**
+     * Discard the next {@code n} bytes of the keystream.
+     *
+     * @since 1.8
+     */
+    public void skip(int n) {
+        byte[] s = this.state;
+        int i = this.i, j = this.j;
+        for (int k = 0; k < n; k++) {
+            i = (i + 1) & 0xFF;
+            byte si = s[i];
+            j = (j + si) & 0xFF;
+            s[i] = s[j];
+            s[j] = si;
+        }
+        this.i = i;
+        this.j = j;
+    }
+
+    /**
+     * Process the remaining bytes of the buffer in place.
+     * Upon return the buffer's position will be equal to its' limit.
+     *
+     * @since 1.8
+     */
+    public void update(ByteBuffer buffer) {
+        int position = buffer.position();
+        int limit = buffer.limit();
+        if (buffer.hasArray()) {
+            update(buffer.array(), buffer.arrayOffset() + position, limit - position);
+        } else {
+            byte[] s = this.state;
+            int i = this.i, j = this.j;
+            for (int k = position; k < limit; k++) {
+                i = (i + 1) & 0xFF;
+                byte si = s[i];
+                j = (j + si) & 0xFF;
+                byte sj = s[j];
+                s[i] = sj;
+                s[j] = si;
+                buffer.put(k, (byte) (buffer.get(k) ^ s[(si + sj) & 0xFF]));
+            }
+            this.i = i;
+            this.j = j;
+        }
+        buffer.position(limit);
+    }
+
+    /**
+     * Process a region of the array in place.
+     *
+     * @since 1.8
+     */
+    public void update(byte[] bytes, int offset, int length) {
+        if (offset < 0 || length < 0 || offset + length > bytes.length) {
+            throw new IndexOutOfBoundsException("offset: " + offset + ", length: " + length
+                    + ", array length: " + bytes.length);
+        }
+        byte[] s = this.state;
+        int i = this.i, j = this.j;
+        for (int k = offset, end = offset + length; k < end; k++) {
+            i = (i + 1) & 0xFF;
+            byte si = s[i];
+            j = (j + si) & 0xFF;
+            byte sj = s[j];
+            s[i] = sj;
+            s[j] = si;
+            bytes[k] ^= s[(si + sj) & 0xFF];
+        }
+        this.i = i;
+        this.j = j;
+    }
+
+    /**
+     * Process the whole array in place.
+     *
+     * @return The same array
+     * @since 1.8
+     */
+    public byte[] update(byte[] bytes) {
+        update(bytes, 0, bytes.length);
+        return bytes;
+    }
+}
@@ -22,14 +22,13 @@ import bt.metainfo.TorrentId;
 import javax.crypto.Cipher;
 import javax.crypto.spec.SecretKeySpec;
 import java.nio.charset.Charset;
-import java.security.Key;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 
 /**
  * RC4-drop1024 stream cipher, used in Message Stream Encryption protocol.
  *
- * Ciphers that are returned by {@link #getEncryptionCipher()} and {@link #getDecryptionCipher()}
+ * Keystreams that are returned by {@link #getEncryptor()} and {@link #getDecryptor()}
  * will be different, depending on which of the factory methods was used to build an instance of this class:
  * - connection initiating side should use {@link #forInitiator(byte[], TorrentId)} factory method
  * - receiver of connection request should use {@link #forReceiver(byte[], TorrentId)} factory method
@@ -40,8 +39,15 @@ public class MSECipher {
 
     private static final String transformation = "ARCFOUR/ECB/NoPadding";
 
-    private final Cipher incomingCipher;
-    private final Cipher outgoingCipher;
+    private static final int DROP_BYTES = 1024;
+
+    private final byte[] incomingKey;
+    private final byte[] outgoingKey;
+    private final ARC4 decryptor;
+    private final ARC4 encryptor;
+
+    private volatile Cipher incomingCipher;
+    private volatile Cipher outgoingCipher;
 
     /**
      * @throws BtException if the check can't be performed,
@@ -88,44 +94,86 @@ public class MSECipher {
     }
 
     private MSECipher(byte[] S, TorrentId torrentId, boolean initiator) {
-        Key initiatorKey = getInitiatorEncryptionKey(S, torrentId.getBytes());
-        Key receiverKey = getReceiverEncryptionKey(S, torrentId.getBytes());
-        Key outgoingKey = initiator ? initiatorKey : receiverKey;
-        Key incomingKey = initiator ? receiverKey : initiatorKey;
-        this.incomingCipher = createCipher(Cipher.DECRYPT_MODE, transformation, incomingKey);
-        this.outgoingCipher = createCipher(Cipher.ENCRYPT_MODE, transformation, outgoingKey);
+        byte[] initiatorKey = getInitiatorEncryptionKey(S, torrentId.getBytes());
+        byte[] receiverKey = getReceiverEncryptionKey(S, torrentId.getBytes());
+        this.outgoingKey = initiator ? initiatorKey : receiverKey;
+        this.incomingKey = initiator ? receiverKey : initiatorKey;
+        this.decryptor = createKeystream(incomingKey);
+        this.encryptor = createKeystream(outgoingKey);
+    }
+
+    /**
+     * @return Keystream for encrypting outgoing data in place
+     * @since 1.8
+     */
+    public ARC4 getEncryptor() {
+        return encryptor;
+    }
+
+    /**
+     * @return Keystream for decrypting incoming data in place
+     * @since 1.8
+     */
+    public ARC4 getDecryptor() {
+        return decryptor;
     }
 
     /**
+     * Returned cipher is created on first access with the same key and initial state
+     * as the keystream, returned by {@link #getEncryptor()}, but is independent of it:
+     * connections encrypt data with the keystream, which is not advanced by this cipher, and vice versa.
+     *
      * @return Cipher for encrypting outgoing data
      * @since 1.2
+     * @deprecated since 1.8 in favor of {@link #getEncryptor()}
      */
+    @Deprecated
     public Cipher getEncryptionCipher() {
+        if (outgoingCipher == null) {
+            synchronized (this) {
+                if (outgoingCipher == null) {
+                    outgoingCipher = createCipher(Cipher.ENCRYPT_MODE, transformation, outgoingKey);
+                }
+            }
+        }
         return outgoingCipher;
     }
 
     /**
+     * Returned cipher is created on first access with the same key and initial state
+     * as the keystream, returned by {@link #getDecryptor()}, but is independent of it:
+     * connections decrypt data with the keystream, which is not advanced by this cipher, and vice versa.
+     *
      * @return Cipher for decrypting incoming data
      * @since 1.2
+     * @deprecated since 1.8 in favor of {@link #getDecryptor()}
      */
+    @Deprecated
     public Cipher getDecryptionCipher() {
+        if (incomingCipher == null) {
+            synchronized (this) {
+                if (incomingCipher == null) {
+                    incomingCipher = createCipher(Cipher.DECRYPT_MODE, transformation, incomingKey);
+                }
+            }
+        }
         return incomingCipher;
     }
 
-    private Key getInitiatorEncryptionKey(byte[] S, byte[] SKEY) {
+    private byte[] getInitiatorEncryptionKey(byte[] S, byte[] SKEY) {
         return getEncryptionKey("keyA", S, SKEY);
     }
 
-    private Key getReceiverEncryptionKey(byte[] S, byte[] SKEY) {
+    private byte[] getReceiverEncryptionKey(byte[] S, byte[] SKEY) {
         return getEncryptionKey("keyB", S, SKEY);
     }
 
-    private Key getEncryptionKey(String s, byte[] S, byte[] SKEY) {
+    private byte[] getEncryptionKey(String s, byte[] S, byte[] SKEY) {
         MessageDigest digest = getDigest("SHA-1");
         digest.update(s.getBytes(Charset.forName("ASCII")));
         digest.update(S);
         digest.update(SKEY);
-        return new SecretKeySpec(digest.digest(), "ARCFOUR");
+        return digest.digest();
     }
 
     private MessageDigest getDigest(String algorithm) {
@@ -136,12 +184,18 @@ public class MSECipher {
         }
     }
 
-    private Cipher createCipher(int mode, String transformation, Key key) {
+    private ARC4 createKeystream(byte[] key) {
+        ARC4 keystream = new ARC4(key);
+        keystream.skip(DROP_BYTES); // discard first 1024 bytes
+        return keystream;
+    }
+
+    private Cipher createCipher(int mode, String transformation, byte[] key) {
         Cipher cipher;
         try {
             cipher = Cipher.getInstance(transformation);
-            cipher.init(mode, key);
-            cipher.update(new byte[1024]); // discard first 1024 bytes
+            cipher.init(mode, new SecretKeySpec(key, "ARCFOUR"));
+            cipher.update(new byte[DROP_BYTES]); // discard first 1024 bytes
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
@@ -56,6 +56,7 @@ public final class ExtendedHandshake extends ExtendedMessage {
 
     private Map<String, BEObject<?>> data;
     private Set<String> supportedMessageTypes;
+    private volatile BEMap encodedForm;
 
     ExtendedHandshake(Map<String, BEObject<?>> data) {
         this.data = Collections.unmodifiableMap(data);
@@ -76,6 +77,18 @@ public final class ExtendedHandshake extends ExtendedMessage {
         return data;
     }
 
+    /**
+     * @return Payload of this extended handshake as a dictionary; created once,
+     *         so that the key order is computed only once for all peers, that this handshake is sent to
+     */
+    BEMap asMap() {
+        BEMap map = encodedForm;
+        if (map == null) {
+            encodedForm = map = new BEMap(null, data);
+        }
+        return map;
+    }
+
     /**
      * @return Set of message type names, that are specified
      *         in this handshake's message type mapping.
@@ -18,6 +18,7 @@ package bt.protocol.extended;
 
 import bt.bencoding.model.BEInteger;
 import bt.bencoding.model.BEString;
+import bt.event.EventSource;
 import bt.metainfo.TorrentId;
 import bt.protocol.IExtendedHandshakeFactory;
 import bt.protocol.crypto.EncryptionPolicy;
@@ -57,6 +58,7 @@ public class ExtendedHandshakeFactory implements IExtendedHandshakeFactory {
 
     @Inject
     public ExtendedHandshakeFactory(TorrentRegistry torrentRegistry,
+                                    EventSource eventSource,
                                     ExtendedMessageTypeMapping messageTypeMapping,
                                     ApplicationService applicationService,
                                     Config config) {
@@ -66,6 +68,8 @@ public class ExtendedHandshakeFactory implements IExtendedHandshakeFactory {
         this.encryptionPolicy = config.getEncryptionPolicy();
         this.tcpAcceptorPort = config.getAcceptorPort();
         this.extendedHandshakes = new ConcurrentHashMap<>();
+
+        eventSource.onTorrentUnregistered(e -> extendedHandshakes.remove(e.getTorrentId()));
     }
 
     @Override
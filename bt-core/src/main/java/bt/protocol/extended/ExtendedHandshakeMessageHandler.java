@@ -17,6 +17,7 @@
 package bt.protocol.extended;
 
 import bt.BtException;
+import bt.bencoding.BEEncoder;
 import bt.bencoding.BEParser;
 import bt.bencoding.BEType;
 import bt.bencoding.model.BEInteger;
@@ -28,8 +29,6 @@ import bt.protocol.InvalidMessageException;
 import bt.protocol.DecodingContext;
 import bt.protocol.handler.MessageHandler;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.Collection;
 import java.util.Collections;
@@ -133,20 +132,6 @@ class ExtendedHandshakeMessageHandler implements MessageHandler<ExtendedHandshak
 
     @Override
     public boolean encode(EncodingContext context, ExtendedHandshake message, ByteBuffer buffer) {
-
-        ByteArrayOutputStream out = new ByteArrayOutputStream();
-        try {
-            new BEMap(null, message.getData()).writeTo(out);
-        } catch (IOException e) {
-            // can't happen
-        }
-
-        byte[] payload = out.toByteArray();
-        if (buffer.remaining() < payload.length) {
-            return false;
-        }
-
-        buffer.put(payload);
-        return true;
+        return BEEncoder.encoder().encode(message.asMap(), buffer);
     }
 }
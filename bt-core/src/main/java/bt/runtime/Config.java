@@ -18,8 +18,10 @@ package bt.runtime;
 
 import bt.protocol.crypto.EncryptionPolicy;
 import bt.service.NetworkUtil;
+import bt.tracker.MultiTrackerPolicy;
 
 import java.net.InetAddress;
+import java.nio.file.Path;
 import java.time.Duration;
 
 /**
@@ -55,7 +57,17 @@ public class Config {
     private int metadataExchangeBlockSize;
     private int metadataExchangeMaxSize;
     private int msePrivateKeySize;
+    private int mseKeyPairPoolSize;
     private int numberOfPeersToRequestFromTracker;
+    private MultiTrackerPolicy multiTrackerPolicy;
+    private Path metadataCacheDirectory;
+    private long metadataCacheMaxSize;
+    private int asyncEventQueueSize;
+    private long maxBufferPoolSize;
+    private Duration idleBufferReleaseThreshold;
+    private Duration trackerConnectionTimeout;
+    private Duration trackerResponseTimeout;
+    private int maxTrackerConnectionsPerHost;
 
     /**
      * Create a config with default parameters.
@@ -89,7 +101,17 @@ public class Config {
         this.metadataExchangeBlockSize = 16 * 1024; // 16 KB
         this.metadataExchangeMaxSize = 2 * 1024 * 1024; // 2 MB
         this.msePrivateKeySize = 20; // 20 bytes
+        this.mseKeyPairPoolSize = 16;
         this.numberOfPeersToRequestFromTracker = 50;
+        this.multiTrackerPolicy = MultiTrackerPolicy.SEQUENTIAL;
+        this.metadataCacheDirectory = null; // disabled by default
+        this.metadataCacheMaxSize = 64 * 1024 * 1024; // 64 MB
+        this.asyncEventQueueSize = 1000;
+        this.maxBufferPoolSize = 128 * 1024 * 1024; // 128 MB
+        this.idleBufferReleaseThreshold = Duration.ofSeconds(30);
+        this.trackerConnectionTimeout = Duration.ofSeconds(10);
+        this.trackerResponseTimeout = Duration.ofSeconds(30);
+        this.maxTrackerConnectionsPerHost = 2;
     }
 
     /**
@@ -125,7 +147,17 @@ public class Config {
         this.metadataExchangeBlockSize = config.getMetadataExchangeBlockSize();
         this.metadataExchangeMaxSize = config.getMetadataExchangeMaxSize();
         this.msePrivateKeySize = config.getMsePrivateKeySize();
+        this.mseKeyPairPoolSize = config.getMseKeyPairPoolSize();
         this.numberOfPeersToRequestFromTracker = config.getNumberOfPeersToRequestFromTracker();
+        this.multiTrackerPolicy = config.getMultiTrackerPolicy();
+        this.metadataCacheDirectory = config.getMetadataCacheDirectory();
+        this.metadataCacheMaxSize = config.getMetadataCacheMaxSize();
+        this.asyncEventQueueSize = config.getAsyncEventQueueSize();
+        this.maxBufferPoolSize = config.getMaxBufferPoolSize();
+        this.idleBufferReleaseThreshold = config.getIdleBufferReleaseThreshold();
+        this.trackerConnectionTimeout = config.getTrackerConnectionTimeout();
+        this.trackerResponseTimeout = config.getTrackerResponseTimeout();
+        this.maxTrackerConnectionsPerHost = config.getMaxTrackerConnectionsPerHost();
     }
 
     /**
@@ -552,6 +584,23 @@ public class Config {
         return msePrivateKeySize;
     }
 
+    /**
+     * @param mseKeyPairPoolSize Number of MSE key pairs, that are precomputed in background,
+     *                           so that Diffie-Hellman key generation is not performed during the handshake.
+     *                           Set to 0 to generate a new key pair synchronously for each handshake.
+     * @since 1.8
+     */
+    public void setMseKeyPairPoolSize(int mseKeyPairPoolSize) {
+        this.mseKeyPairPoolSize = mseKeyPairPoolSize;
+    }
+
+    /**
+     * @since 1.8
+     */
+    public int getMseKeyPairPoolSize() {
+        return mseKeyPairPoolSize;
+    }
+
     /**
      * @param numberOfPeersToRequestFromTracker Number of peers to request from a tracker
      * @since 1.5
@@ -566,4 +615,150 @@ public class Config {
     public int getNumberOfPeersToRequestFromTracker() {
         return numberOfPeersToRequestFromTracker;
     }
+
+    /**
+     * @param multiTrackerPolicy Determines how torrents with multiple trackers (BEP-12) are announced to.
+     *                           Sequential querying of trackers per BEP-12 is used by default.
+     * @since 1.8
+     */
+    public void setMultiTrackerPolicy(MultiTrackerPolicy multiTrackerPolicy) {
+        this.multiTrackerPolicy = multiTrackerPolicy;
+    }
+
+    /**
+     * @since 1.8
+     */
+    public MultiTrackerPolicy getMultiTrackerPolicy() {
+        return multiTrackerPolicy;
+    }
+
+    /**
+     * @param metadataCacheDirectory Directory to store info dictionaries of torrents, that have been processed before.
+     *                               Allows to skip the metadata exchange phase when processing magnet links.
+     *                               Cache is disabled, if this parameter is not set (default).
+     * @since 1.8
+     */
+    public void setMetadataCacheDirectory(Path metadataCacheDirectory) {
+        this.metadataCacheDirectory = metadataCacheDirectory;
+    }
+
+    /**
+     * @since 1.8
+     */
+    public Path getMetadataCacheDirectory() {
+        return metadataCacheDirectory;
+    }
+
+    /**
+     * @param metadataCacheMaxSize Max total size of cached info dictionaries, in bytes.
+     *                             Least recently used entries are evicted, when this limit is exceeded.
+     * @since 1.8
+     */
+    public void setMetadataCacheMaxSize(long metadataCacheMaxSize) {
+        this.metadataCacheMaxSize = metadataCacheMaxSize;
+    }
+
+    /**
+     * @since 1.8
+     */
+    public long getMetadataCacheMaxSize() {
+        return metadataCacheMaxSize;
+    }
+
+    /**
+     * @param asyncEventQueueSize Max number of pending events per asynchronous event listener.
+     *                            Events are dropped, if the listener can't keep up.
+     * @see bt.event.EventSource#async()
+     * @since 1.8
+     */
+    public void setAsyncEventQueueSize(int asyncEventQueueSize) {
+        this.asyncEventQueueSize = asyncEventQueueSize;
+    }
+
+    /**
+     * @since 1.8
+     */
+    public int getAsyncEventQueueSize() {
+        return asyncEventQueueSize;
+    }
+
+    /**
+     * @param maxBufferPoolSize Max total size of direct memory, that can be allocated for I/O buffers, in bytes.
+     *                          When this limit is reached, and there are no free buffers in the pool,
+     *                          new buffers are allocated on the heap.
+     * @since 1.8
+     */
+    public void setMaxBufferPoolSize(long maxBufferPoolSize) {
+        this.maxBufferPoolSize = maxBufferPoolSize;
+    }
+
+    /**
+     * @since 1.8
+     */
+    public long getMaxBufferPoolSize() {
+        return maxBufferPoolSize;
+    }
+
+    /**
+     * @param idleBufferReleaseThreshold Empty I/O buffers, that have not been used for this amount of time
+     *                                   (e.g. inbound buffers of idle connections), may be returned to the pool
+     *                                   and re-acquired on the next use.
+     * @since 1.8
+     */
+    public void setIdleBufferReleaseThreshold(Duration idleBufferReleaseThreshold) {
+        this.idleBufferReleaseThreshold = idleBufferReleaseThreshold;
+    }
+
+    /**
+     * @since 1.8
+     */
+    public Duration getIdleBufferReleaseThreshold() {
+        return idleBufferReleaseThreshold;
+    }
+
+    /**
+     * @param trackerConnectionTimeout Timeout for establishing a connection to a tracker
+     * @since 1.8
+     */
+    public void setTrackerConnectionTimeout(Duration trackerConnectionTimeout) {
+        this.trackerConnectionTimeout = trackerConnectionTimeout;
+    }
+
+    /**
+     * @since 1.8
+     */
+    public Duration getTrackerConnectionTimeout() {
+        return trackerConnectionTimeout;
+    }
+
+    /**
+     * @param trackerResponseTimeout Max time to wait for data from a tracker, once the request has been sent
+     * @since 1.8
+     */
+    public void setTrackerResponseTimeout(Duration trackerResponseTimeout) {
+        this.trackerResponseTimeout = trackerResponseTimeout;
+    }
+
+    /**
+     * @since 1.8
+     */
+    public Duration getTrackerResponseTimeout() {
+        return trackerResponseTimeout;
+    }
+
+    /**
+     * @param maxTrackerConnectionsPerHost Max number of simultaneous connections to a single tracker host.
+     *                                     Requests in excess of this limit wait for a free connection.
+     * @since 1.8
+     */
+    public void setMaxTrackerConnectionsPerHost(int maxTrackerConnectionsPerHost) {
+        this.maxTrackerConnectionsPerHost = maxTrackerConnectionsPerHost;
+    }
+
+    /**
+     * @since 1.8
+     */
+    public int getMaxTrackerConnectionsPerHost() {
+        return maxTrackerConnectionsPerHost;
+    }
 }
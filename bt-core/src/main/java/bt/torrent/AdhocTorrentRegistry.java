@@ -16,13 +16,17 @@
 
 package bt.torrent;
 
+import bt.data.DataDescriptor;
 import bt.data.IDataDescriptorFactory;
 import bt.data.Storage;
 import bt.event.EventSink;
 import bt.metainfo.Torrent;
 import bt.metainfo.TorrentId;
 import bt.service.IRuntimeLifecycleBinder;
+import bt.torrent.data.IDataWorkerFactory;
 import com.google.inject.Inject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.Collection;
@@ -40,9 +44,10 @@ import java.util.concurrent.ConcurrentMap;
  * Hence, is not a part of the public API and is a subject to change.</b></p>
  */
 public class AdhocTorrentRegistry implements TorrentRegistry {
+    private static final Logger LOGGER = LoggerFactory.getLogger(AdhocTorrentRegistry.class);
 
     private IDataDescriptorFactory dataDescriptorFactory;
-    private IRuntimeLifecycleBinder lifecycleBinder;
+    private IDataWorkerFactory dataWorkerFactory;
     private EventSink eventSink;
 
     private Set<TorrentId> torrentIds;
@@ -51,16 +56,19 @@ public class AdhocTorrentRegistry implements TorrentRegistry {
 
     @Inject
     public AdhocTorrentRegistry(IDataDescriptorFactory dataDescriptorFactory,
+                                IDataWorkerFactory dataWorkerFactory,
                                 IRuntimeLifecycleBinder lifecycleBinder,
                                 EventSink eventSink) {
 
         this.dataDescriptorFactory = dataDescriptorFactory;
-        this.lifecycleBinder = lifecycleBinder;
+        this.dataWorkerFactory = dataWorkerFactory;
         this.eventSink = eventSink;
 
         this.torrentIds = ConcurrentHashMap.newKeySet();
         this.torrents = new ConcurrentHashMap<>();
         this.descriptors = new ConcurrentHashMap<>();
+
+        lifecycleBinder.onShutdown("Closing data descriptors", () -> descriptors.values().forEach(this::closeData));
     }
 
     @Override
@@ -116,7 +124,6 @@ public class AdhocTorrentRegistry implements TorrentRegistry {
                 descriptor = existing;
             } else {
                 torrentIds.add(torrentId);
-                addShutdownHook(torrentId, descriptor);
             }
         }
 
@@ -134,7 +141,6 @@ public class AdhocTorrentRegistry implements TorrentRegistry {
                 descriptor = existing;
             } else {
                 torrentIds.add(torrentId);
-                addShutdownHook(torrentId, descriptor);
             }
 
             return descriptor;
@@ -149,15 +155,36 @@ public class AdhocTorrentRegistry implements TorrentRegistry {
                 && (!descriptor.isPresent() || descriptor.get().isActive());
     }
 
-    private void addShutdownHook(TorrentId torrentId, TorrentDescriptor descriptor) {
-        lifecycleBinder.onShutdown("Closing data descriptor for torrent ID: " + torrentId, () -> {
-            if (descriptor.getDataDescriptor() != null) {
-                try {
-                    descriptor.getDataDescriptor().close();
-                } catch (IOException e) {
-                    e.printStackTrace();
-                }
+    @Override
+    public void unregister(TorrentId torrentId) {
+        Objects.requireNonNull(torrentId, "Missing torrent ID");
+
+        DefaultTorrentDescriptor descriptor = descriptors.remove(torrentId);
+        torrentIds.remove(torrentId);
+        torrents.remove(torrentId);
+        if (descriptor == null) {
+            return;
+        }
+
+        if (descriptor.isActive()) {
+            descriptor.stop();
+        }
+        DataDescriptor dataDescriptor = descriptor.getDataDescriptor();
+        if (dataDescriptor != null) {
+            // blocks, that have been received before the torrent was stopped, might still be waiting to be written
+            dataWorkerFactory.stopWorker(dataDescriptor).whenComplete((r, e) -> closeData(descriptor));
+        }
+        eventSink.fireTorrentUnregistered(torrentId);
+    }
+
+    private void closeData(TorrentDescriptor descriptor) {
+        DataDescriptor dataDescriptor = descriptor.getDataDescriptor();
+        if (dataDescriptor != null) {
+            try {
+                dataDescriptor.close();
+            } catch (IOException e) {
+                LOGGER.error("Failed to close data descriptor: " + dataDescriptor, e);
             }
-        });
+        }
     }
 }
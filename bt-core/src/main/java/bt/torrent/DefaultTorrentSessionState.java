@@ -21,38 +21,30 @@ import bt.torrent.messaging.ConnectionState;
 import bt.torrent.messaging.TorrentWorker;
 
 import java.util.Collections;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.atomic.AtomicLong;
-
-import static java.util.stream.Collectors.summingLong;
 
 public class DefaultTorrentSessionState implements TorrentSessionState {
 
     /**
-     * Recently calculated amounts of downloaded and uploaded data
-     */
-    private final Map<Peer, TransferAmounts> recentAmountsForConnectedPeers;
-
-    /**
-     * Historical data (amount of data downloaded from disconnected peers)
-     */
-    private final AtomicLong downloadedFromDisconnected;
-
-    /**
-     * Historical data (amount of data uploaded to disconnected peers)
+     * Data downloaded and uploaded via this session, including the peers that have already disconnected
      */
-    private final AtomicLong uploadedToDisconnected;
+    private final TransferRate downloaded;
+    private final TransferRate uploaded;
 
     private final TorrentDescriptor descriptor;
     private final TorrentWorker worker;
 
-    public DefaultTorrentSessionState(TorrentDescriptor descriptor, TorrentWorker worker) {
-        this.recentAmountsForConnectedPeers = new HashMap<>();
-        this.downloadedFromDisconnected = new AtomicLong();
-        this.uploadedToDisconnected = new AtomicLong();
+    /**
+     * @param downloaded Per-torrent download rate, that all peer connections of this session report to
+     * @param uploaded Per-torrent upload rate, that all peer connections of this session report to
+     * @since 1.8
+     */
+    public DefaultTorrentSessionState(TorrentDescriptor descriptor,
+                                      TorrentWorker worker,
+                                      TransferRate downloaded,
+                                      TransferRate uploaded) {
+        this.downloaded = downloaded;
+        this.uploaded = uploaded;
         this.descriptor = descriptor;
         this.worker = worker;
     }
@@ -112,71 +104,39 @@ public class DefaultTorrentSessionState implements TorrentSessionState {
     }
 
     @Override
-    public synchronized long getDownloaded() {
-        long downloaded = getCurrentAmounts().values().stream().collect(summingLong(TransferAmounts::getDownloaded));
-        downloaded += downloadedFromDisconnected.get();
-        return downloaded;
+    public long getDownloaded() {
+        return downloaded.getTotal();
     }
 
     @Override
-    public synchronized long getUploaded() {
-        long uploaded = getCurrentAmounts().values().stream().collect(summingLong(TransferAmounts::getUploaded));
-        uploaded += uploadedToDisconnected.get();
-        return uploaded;
+    public long getUploaded() {
+        return uploaded.getTotal();
     }
 
-    private synchronized Map<Peer, TransferAmounts> getCurrentAmounts() {
-        Map<Peer, TransferAmounts> connectedPeers = getAmountsForConnectedPeers();
-
-        Set<Peer> disconnectedPeers = new HashSet<>();
-        recentAmountsForConnectedPeers.forEach((peer, amounts) -> {
-            if (!connectedPeers.containsKey(peer)) {
-                downloadedFromDisconnected.addAndGet(amounts.getDownloaded());
-                uploadedToDisconnected.addAndGet(amounts.getUploaded());
-                disconnectedPeers.add(peer);
-            }
-        });
-        recentAmountsForConnectedPeers.keySet().removeAll(disconnectedPeers);
+    @Override
+    public long getDownloadRate() {
+        return downloaded.getRate();
+    }
 
-        recentAmountsForConnectedPeers.putAll(connectedPeers);
+    @Override
+    public long getUploadRate() {
+        return uploaded.getRate();
+    }
 
-        return recentAmountsForConnectedPeers;
+    @Override
+    public long getDownloadRate(Peer peer) {
+        ConnectionState connectionState = worker.getConnectionState(peer);
+        return (connectionState == null) ? 0 : connectionState.getDownloadRate();
     }
 
-    private Map<Peer, TransferAmounts> getAmountsForConnectedPeers() {
-        return worker.getPeers().stream()
-                .collect(
-                        HashMap::new,
-                        (acc, peer) -> {
-                            ConnectionState connectionState = worker.getConnectionState(peer);
-                            acc.put(
-                                    peer,
-                                    new TransferAmounts(connectionState.getDownloaded(), connectionState.getUploaded())
-                            );
-                        },
-                        HashMap::putAll);
+    @Override
+    public long getUploadRate(Peer peer) {
+        ConnectionState connectionState = worker.getConnectionState(peer);
+        return (connectionState == null) ? 0 : connectionState.getUploadRate();
     }
 
     @Override
     public Set<Peer> getConnectedPeers() {
         return Collections.unmodifiableSet(worker.getPeers());
     }
-
-    private static class TransferAmounts {
-        private final long downloaded;
-        private final long uploaded;
-
-        public TransferAmounts(long downloaded, long uploaded) {
-            this.downloaded = downloaded;
-            this.uploaded = uploaded;
-        }
-
-        public long getDownloaded() {
-            return downloaded;
-        }
-
-        public long getUploaded() {
-            return uploaded;
-        }
-    }
 }
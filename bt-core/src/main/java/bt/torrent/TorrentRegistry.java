@@ -103,5 +103,19 @@ public interface TorrentRegistry {
      */
     TorrentDescriptor register(TorrentId torrentId);
 
+    /**
+     * Remove a torrent from the runtime and release all resources, that are associated with it
+     * (i.e. stop processing, if the torrent is active, close its' data and discard any per-torrent state
+     * in other runtime services). Subsystems are notified via {@link bt.event.TorrentUnregisteredEvent}.
+     * Data is closed as soon as the blocks, that are currently being processed, have been written.
+     * Has no effect, if the torrent is not registered.
+     *
+     * @throws UnsupportedOperationException if removal of torrents is not supported by this registry
+     * @since 1.8
+     */
+    default void unregister(TorrentId torrentId) {
+        throw new UnsupportedOperationException("Removal of torrents is not supported by this registry");
+    }
+
     boolean isSupportedAndActive(TorrentId torrentId);
 }
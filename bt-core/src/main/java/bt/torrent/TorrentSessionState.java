@@ -75,6 +75,34 @@ public interface TorrentSessionState {
      */
     long getUploaded();
 
+    /**
+     * @return Recent download rate of this session (in bytes per second)
+     * @since 1.8
+     */
+    long getDownloadRate();
+
+    /**
+     * @return Recent upload rate of this session (in bytes per second)
+     * @since 1.8
+     */
+    long getUploadRate();
+
+    /**
+     * @param peer Remote peer
+     * @return Recent download rate from a given peer (in bytes per second),
+     *         or 0 if this session is not connected to the peer
+     * @since 1.8
+     */
+    long getDownloadRate(Peer peer);
+
+    /**
+     * @param peer Remote peer
+     * @return Recent upload rate to a given peer (in bytes per second),
+     *         or 0 if this session is not connected to the peer
+     * @since 1.8
+     */
+    long getUploadRate(Peer peer);
+
     /**
      * @return Collection of peers, that this session is connected to
      * @since 1.0
@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2016—2017 Andrei Tomashpolskiy and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package bt.torrent;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Tracks the total amount of transferred data and estimates the transfer rate
+ * over a sliding window of recent time.
+ *
+ * <p>The window is a ring of fixed-duration buckets. Each bucket is a single {@code long},
+ * that holds both the bucket's epoch (in the upper bits) and the amount of data recorded during that epoch,
+ * so both {@link #record(long)} and {@link #getRate()} are lock-free and allocation-free.
+ * Buckets that have fallen out of the window are lazily reset by the next write that lands on them
+ * and are ignored by readers.</p>
+ *
+ * <p>A rate may have a parent, in which case all data recorded in the child is also recorded in the parent
+ * (e.g. per-peer rates feeding the per-torrent rate).</p>
+ *
+ * @since 1.8
+ */
+public class TransferRate {
+
+    private static final Duration DEFAULT_BUCKET_DURATION = Duration.ofMillis(250);
+    private static final int DEFAULT_BUCKET_COUNT = 20;
+
+    private static final int COUNT_BITS = 40;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+    private static final long EPOCH_MASK = (1L << (Long.SIZE - COUNT_BITS)) - 1;
+
+    private final TransferRate parent;
+    private final LongSupplier clock;
+    private final long bucketNanos;
+    private final int bucketCount;
+    private final long origin;
+
+    private final AtomicLongArray buckets;
+    private final LongAdder total;
+
+    /**
+     * Create a standalone rate with the default window of 5 seconds.
+     *
+     * @since 1.8
+     */
+    public TransferRate() {
+        this(null);
+    }
+
+    /**
+     * Create a rate with the default window of 5 seconds.
+     *
+     * @param parent Rate to propagate all recorded data to; may be null
+     * @since 1.8
+     */
+    public TransferRate(TransferRate parent) {
+        this(parent, DEFAULT_BUCKET_DURATION, DEFAULT_BUCKET_COUNT);
+    }
+
+    /**
+     * @param parent Rate to propagate all recorded data to; may be null
+     * @param bucketDuration Time resolution of the estimator
+     * @param bucketCount Number of buckets in the window (window length = bucketDuration * bucketCount)
+     * @since 1.8
+     */
+    public TransferRate(TransferRate parent, Duration bucketDuration, int bucketCount) {
+        this(parent, bucketDuration, bucketCount, System::nanoTime);
+    }
+
+    TransferRate(TransferRate parent, Duration bucketDuration, int bucketCount, LongSupplier clock) {
+        if (bucketDuration.isNegative() || bucketDuration.isZero()) {
+            throw new IllegalArgumentException("Invalid bucket duration: " + bucketDuration);
+        }
+        if (bucketCount < 2 || bucketCount > EPOCH_MASK / 2) {
+            throw new IllegalArgumentException("Invalid bucket count: " + bucketCount);
+        }
+        this.parent = parent;
+        this.clock = clock;
+        this.bucketNanos = bucketDuration.toNanos();
+        this.bucketCount = bucketCount;
+        this.origin = clock.getAsLong();
+        this.buckets = new AtomicLongArray(bucketCount);
+        this.total = new LongAdder();
+    }
+
+    /**
+     * Record transfer of a given amount of data.
+     *
+     * @param bytes Amount of data (in bytes)
+     * @since 1.8
+     */
+    public void record(long bytes) {
+        if (bytes <= 0) {
+            return;
+        }
+        total.add(bytes);
+
+        long epoch = currentEpoch(clock.getAsLong());
+        int index = (int) (epoch % bucketCount);
+        long stamp = (epoch & EPOCH_MASK) << COUNT_BITS;
+        long current, updated;
+        do {
+            current = buckets.get(index);
+            if ((current & ~COUNT_MASK) == stamp) {
+                updated = stamp | ((current + bytes) & COUNT_MASK);
+            } else {
+                updated = stamp | (bytes & COUNT_MASK);
+            }
+        } while (!buckets.compareAndSet(index, current, updated));
+
+        if (parent != null) {
+            parent.record(bytes);
+        }
+    }
+
+    /**
+     * @return Total amount of recorded data (in bytes)
+     * @since 1.8
+     */
+    public long getTotal() {
+        return total.sum();
+    }
+
+    /**
+     * @return Average transfer rate over the sliding window (in bytes per second)
+     * @since 1.8
+     */
+    public long getRate() {
+        long now = clock.getAsLong();
+        long epoch = currentEpoch(now);
+
+        long sum = 0;
+        for (int i = 0; i < bucketCount; i++) {
+            long value = buckets.get(i);
+            long age = (epoch - (value >>> COUNT_BITS)) & EPOCH_MASK;
+            if (age < bucketCount) {
+                sum += value & COUNT_MASK;
+            }
+        }
+        if (sum == 0) {
+            return 0;
+        }
+
+        // the current bucket is only partially filled,
+        // and the estimator might be younger than the whole window
+        long elapsed = Math.min((bucketCount - 1) * bucketNanos + (now - origin) % bucketNanos, now - origin);
+        elapsed = Math.max(elapsed, bucketNanos);
+        return (long) (sum * 1_000_000_000d / elapsed);
+    }
+
+    private long currentEpoch(long now) {
+        return (now - origin) / bucketNanos;
+    }
+}
@@ -39,6 +39,21 @@ public interface CompilerVisitor {
      */
     <T extends Message> void visitConsumer(Class<T> consumedType, MethodHandle handle);
 
+    /**
+     * Visit a message consumer method.
+     * Default implementation delegates to {@link #visitConsumer(Class, MethodHandle)}.
+     *
+     * @param consumedType Class, representing a message type,
+     *                     that this consumer is interested in
+     * @param handle Method handle. Method arity is 1 or 2.
+     * @param invoker Compiled invoker, that is more efficient than the method handle
+     * @param <T> (A subtype of) Message type
+     * @since 1.8
+     */
+    default <T extends Message> void visitConsumer(Class<T> consumedType, MethodHandle handle, ConsumerInvoker invoker) {
+        visitConsumer(consumedType, handle);
+    }
+
     /**
      * Visit a message producer method.
      *
@@ -47,4 +62,16 @@ public interface CompilerVisitor {
      * @since 1.0
      */
     void visitProducer(MethodHandle handle);
+
+    /**
+     * Visit a message producer method.
+     * Default implementation delegates to {@link #visitProducer(MethodHandle)}.
+     *
+     * @param handle Method handle. Method arity is 1 or 2.
+     * @param invoker Compiled invoker, that is more efficient than the method handle
+     * @since 1.8
+     */
+    default void visitProducer(MethodHandle handle, ProducerInvoker invoker) {
+        visitProducer(handle);
+    }
 }
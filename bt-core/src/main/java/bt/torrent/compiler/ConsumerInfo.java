@@ -23,6 +23,7 @@ import java.lang.invoke.MethodHandle;
 class ConsumerInfo {
 
     private MethodHandle handle;
+    private ConsumerInvoker invoker;
     private Class<? extends Message> consumedMessageType;
 
     public MethodHandle getHandle() {
@@ -33,6 +34,14 @@ class ConsumerInfo {
         this.handle = handle;
     }
 
+    public ConsumerInvoker getInvoker() {
+        return invoker;
+    }
+
+    public void setInvoker(ConsumerInvoker invoker) {
+        this.invoker = invoker;
+    }
+
     public Class<? extends Message> getConsumedMessageType() {
         return consumedMessageType;
     }
@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2016—2017 Andrei Tomashpolskiy and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package bt.torrent.compiler;
+
+import bt.protocol.Message;
+import bt.torrent.messaging.MessageContext;
+
+import java.lang.invoke.MethodHandle;
+
+/**
+ * Compiled invoker of a message consumer method.
+ * Unlike a generic {@link java.lang.invoke.MethodHandle}, does not require boxing of arguments
+ * into an array and type checks on each invocation.
+ *
+ * @see bt.torrent.annotation.Consumes
+ * @since 1.8
+ */
+@FunctionalInterface
+public interface ConsumerInvoker {
+
+    /**
+     * Invoke the consumer method.
+     *
+     * @param agent Messaging agent, that declares the consumer method
+     * @param message Message of the type, that the consumer method accepts
+     * @param context Message context; ignored, if the consumer method does not accept it
+     * @since 1.8
+     */
+    void consume(Object agent, Message message, MessageContext context);
+
+    /**
+     * Compile an invoker for a consumer method.
+     *
+     * @param handle Handle of a consumer method, as provided by {@link CompilerVisitor#visitConsumer(Class, MethodHandle)}
+     *               (i.e. the messaging agent is the first parameter of the handle)
+     * @since 1.8
+     */
+    static ConsumerInvoker fromHandle(MethodHandle handle) {
+        return Invokers.consumerInvoker(handle);
+    }
+}
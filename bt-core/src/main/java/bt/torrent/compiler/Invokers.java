@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2016—2017 Andrei Tomashpolskiy and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package bt.torrent.compiler;
+
+import bt.protocol.Message;
+import bt.torrent.messaging.MessageContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Modifier;
+import java.util.function.Consumer;
+
+/**
+ * Builds exact-typed invokers for consumer/producer methods.
+ *
+ * <p>Invokers are spun with {@link LambdaMetafactory}, so that the JIT can treat them as ordinary virtual calls.
+ * If that's not possible (e.g. the agent class is not visible from this class' loader),
+ * falls back to {@link MethodHandle#invokeExact(Object...)} on a handle, adapted to the erased signature.</p>
+ */
+class Invokers {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Invokers.class);
+
+    private static final MethodType CONSUMER_TYPE =
+            MethodType.methodType(void.class, Object.class, Message.class, MessageContext.class);
+    private static final MethodType REDUCED_CONSUMER_TYPE =
+            MethodType.methodType(void.class, Object.class, Message.class);
+    private static final MethodType PRODUCER_TYPE =
+            MethodType.methodType(void.class, Object.class, Consumer.class, MessageContext.class);
+    private static final MethodType REDUCED_PRODUCER_TYPE =
+            MethodType.methodType(void.class, Object.class, Consumer.class);
+
+    @FunctionalInterface
+    interface ReducedConsumerInvoker {
+        void consume(Object agent, Message message);
+    }
+
+    @FunctionalInterface
+    interface ReducedProducerInvoker {
+        void produce(Object agent, Consumer<Message> messageConsumer);
+    }
+
+    /**
+     * @param handle Handle of a consumer method; the agent is the first parameter (i.e. the handle is not bound)
+     */
+    static ConsumerInvoker consumerInvoker(MethodHandle handle) {
+        boolean reduced = handle.type().parameterCount() == 2;
+        if (canSpin(handle)) {
+            try {
+                if (reduced) {
+                    ReducedConsumerInvoker invoker = spin(ReducedConsumerInvoker.class, "consume", REDUCED_CONSUMER_TYPE, handle);
+                    return (agent, message, context) -> invoker.consume(agent, message);
+                } else {
+                    return spin(ConsumerInvoker.class, "consume", CONSUMER_TYPE, handle);
+                }
+            } catch (Throwable e) {
+                logFallback(handle, e);
+            }
+        }
+
+        MethodHandle exactHandle = reduced ? MethodHandles.dropArguments(handle, 2, MessageContext.class) : handle;
+        MethodHandle erasedHandle = exactHandle.asType(CONSUMER_TYPE);
+        return (agent, message, context) -> {
+            try {
+                erasedHandle.invokeExact(agent, message, context);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new RuntimeException(t);
+            }
+        };
+    }
+
+    /**
+     * @param handle Handle of a producer method; the agent is the first parameter (i.e. the handle is not bound)
+     */
+    static ProducerInvoker producerInvoker(MethodHandle handle) {
+        boolean reduced = handle.type().parameterCount() == 2;
+        if (canSpin(handle)) {
+            try {
+                if (reduced) {
+                    ReducedProducerInvoker invoker = spin(ReducedProducerInvoker.class, "produce", REDUCED_PRODUCER_TYPE, handle);
+                    return (agent, messageConsumer, context) -> invoker.produce(agent, messageConsumer);
+                } else {
+                    return spin(ProducerInvoker.class, "produce", PRODUCER_TYPE, handle);
+                }
+            } catch (Throwable e) {
+                logFallback(handle, e);
+            }
+        }
+
+        MethodHandle exactHandle = reduced ? MethodHandles.dropArguments(handle, 2, MessageContext.class) : handle;
+        MethodHandle erasedHandle = exactHandle.asType(PRODUCER_TYPE);
+        return (agent, messageConsumer, context) -> {
+            try {
+                erasedHandle.invokeExact(agent, messageConsumer, context);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new RuntimeException(t);
+            }
+        };
+    }
+
+    /**
+     * Spun classes are defined in this class' loader, so they must be able to resolve the agent class by name.
+     */
+    private static boolean canSpin(MethodHandle handle) {
+        Class<?> declaringClass = handle.type().parameterType(0);
+        if (!Modifier.isPublic(declaringClass.getModifiers())) {
+            return false;
+        }
+        try {
+            return Class.forName(declaringClass.getName(), false, Invokers.class.getClassLoader()) == declaringClass;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    private static <T> T spin(Class<T> invokerType, String methodName, MethodType erasedType, MethodHandle handle)
+            throws Throwable {
+        MethodHandle factory = LambdaMetafactory.metafactory(
+                MethodHandles.lookup(),
+                methodName,
+                MethodType.methodType(invokerType),
+                erasedType,
+                handle,
+                handle.type()).getTarget();
+        return invokerType.cast(factory.invoke());
+    }
+
+    private static void logFallback(MethodHandle handle, Throwable e) {
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Failed to spin invoker for method handle " + handle + ", will use method handle instead", e);
+        }
+    }
+}
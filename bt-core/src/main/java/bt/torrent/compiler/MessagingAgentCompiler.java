@@ -48,13 +48,20 @@ public class MessagingAgentCompiler {
     private static final String CONSUMERS_KEY = "consumers";
     private static final String PRODUCERS_KEY = "producers";
 
-    private Map<Class<?>, Map<String, Collection<?>>> compiledTypes;
+    // compiled types are shared by all compiler instances (there is one per torrent),
+    // so that the invokers are spun only once per messaging agent type
+    private static final ClassValue<Map<String, Collection<?>>> COMPILED_TYPES =
+            new ClassValue<Map<String, Collection<?>>>() {
+                @Override
+                protected Map<String, Collection<?>> computeValue(Class<?> type) {
+                    return compileType(type);
+                }
+            };
 
     /**
      * @since 1.0
      */
     public MessagingAgentCompiler() {
-        this.compiledTypes = new HashMap<>();
     }
 
     /**
@@ -67,25 +74,20 @@ public class MessagingAgentCompiler {
      */
     public void compileAndVisit(Object object, CompilerVisitor visitor) {
 
-        Class<?> objectType = object.getClass();
-        Map<String, Collection<?>> compiledType = compiledTypes.get(objectType);
-        if (compiledType == null) {
-            compiledType = compileType(objectType);
-            compiledTypes.put(objectType, compiledType);
-        }
+        Map<String, Collection<?>> compiledType = COMPILED_TYPES.get(object.getClass());
 
         compiledType.get(CONSUMERS_KEY).forEach(o -> {
             ConsumerInfo consumerInfo = (ConsumerInfo) o;
-            visitor.visitConsumer(consumerInfo.getConsumedMessageType(), consumerInfo.getHandle());
+            visitor.visitConsumer(consumerInfo.getConsumedMessageType(), consumerInfo.getHandle(), consumerInfo.getInvoker());
         });
 
         compiledType.get(PRODUCERS_KEY).forEach(o -> {
             ProducerInfo producerInfo = (ProducerInfo) o;
-            visitor.visitProducer(producerInfo.getHandle());
+            visitor.visitProducer(producerInfo.getHandle(), producerInfo.getInvoker());
         });
     }
 
-    private Map<String, Collection<?>> compileType(Class<?> type) {
+    private static Map<String, Collection<?>> compileType(Class<?> type) {
 
         if (LOGGER.isDebugEnabled()) {
             LOGGER.debug("Compiling messaging agent type: " + type.getName());
@@ -109,7 +111,7 @@ public class MessagingAgentCompiler {
     /**
      * @return Total number of consumer/producer methods compiled
      */
-    private int compileType(Class<?> type, Collection<ConsumerInfo> consumersAcc, Collection<ProducerInfo> producerAcc) {
+    private static int compileType(Class<?> type, Collection<ConsumerInfo> consumersAcc, Collection<ProducerInfo> producerAcc) {
 
         int methodCount = 0;
 
@@ -193,11 +195,12 @@ public class MessagingAgentCompiler {
             throw new RuntimeException("Failed to create method handle: " + method.getName(), e);
         }
         consumerInfo.setHandle(handle);
+        consumerInfo.setInvoker(Invokers.consumerInvoker(handle));
 
         return consumerInfo;
     }
 
-    private ProducerInfo buildProducerInfo(Method method) {
+    private static ProducerInfo buildProducerInfo(Method method) {
 
         Class<?>[] parameterTypes = method.getParameterTypes();
 
@@ -228,6 +231,7 @@ public class MessagingAgentCompiler {
 
         ProducerInfo producerInfo = new ProducerInfo();
         producerInfo.setHandle(handle);
+        producerInfo.setInvoker(Invokers.producerInvoker(handle));
         return producerInfo;
     }
 
@@ -21,6 +21,7 @@ import java.lang.invoke.MethodHandle;
 class ProducerInfo {
 
     private MethodHandle handle;
+    private ProducerInvoker invoker;
 
     public MethodHandle getHandle() {
         return handle;
@@ -29,4 +30,12 @@ class ProducerInfo {
     public void setHandle(MethodHandle handle) {
         this.handle = handle;
     }
+
+    public ProducerInvoker getInvoker() {
+        return invoker;
+    }
+
+    public void setInvoker(ProducerInvoker invoker) {
+        this.invoker = invoker;
+    }
 }
@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2016—2017 Andrei Tomashpolskiy and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package bt.torrent.compiler;
+
+import bt.protocol.Message;
+import bt.torrent.messaging.MessageContext;
+
+import java.lang.invoke.MethodHandle;
+import java.util.function.Consumer;
+
+/**
+ * Compiled invoker of a message producer method.
+ *
+ * @see bt.torrent.annotation.Produces
+ * @since 1.8
+ */
+@FunctionalInterface
+public interface ProducerInvoker {
+
+    /**
+     * Invoke the producer method.
+     *
+     * @param agent Messaging agent, that declares the producer method
+     * @param messageConsumer Consumer of the produced messages
+     * @param context Message context; ignored, if the producer method does not accept it
+     * @since 1.8
+     */
+    void produce(Object agent, Consumer<Message> messageConsumer, MessageContext context);
+
+    /**
+     * Compile an invoker for a producer method.
+     *
+     * @param handle Handle of a producer method, as provided by {@link CompilerVisitor#visitProducer(MethodHandle)}
+     *               (i.e. the messaging agent is the first parameter of the handle)
+     * @since 1.8
+     */
+    static ProducerInvoker fromHandle(MethodHandle handle) {
+        return Invokers.producerInvoker(handle);
+    }
+}
@@ -16,28 +16,65 @@
 
 package bt.torrent.data;
 
+import bt.CountingThreadFactory;
 import bt.data.ChunkVerifier;
 import bt.data.DataDescriptor;
+import bt.metrics.Metrics;
 import bt.service.IRuntimeLifecycleBinder;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
 /**
  *<p><b>Note that this class implements a service.
  * Hence, is not a part of the public API and is a subject to change.</b></p>
  */
 public class DataWorkerFactory implements IDataWorkerFactory {
 
-    private IRuntimeLifecycleBinder lifecycleBinder;
     private ChunkVerifier verifier;
+    private Metrics metrics;
     private int maxIOQueueSize;
+    private ExecutorService executor;
+    private ConcurrentMap<DataDescriptor, DefaultDataWorker> workers;
 
-    public DataWorkerFactory(IRuntimeLifecycleBinder lifecycleBinder, ChunkVerifier verifier, int maxIOQueueSize) {
-        this.lifecycleBinder = lifecycleBinder;
+    public DataWorkerFactory(IRuntimeLifecycleBinder lifecycleBinder,
+                             ChunkVerifier verifier,
+                             Metrics metrics,
+                             int maxIOQueueSize) {
         this.verifier = verifier;
+        this.metrics = metrics;
         this.maxIOQueueSize = maxIOQueueSize;
+        this.workers = new ConcurrentHashMap<>();
+        // shared by all torrents; each worker still processes its' tasks sequentially
+        this.executor = Executors.newFixedThreadPool(Math.max(1, Runtime.getRuntime().availableProcessors()),
+                CountingThreadFactory.factory("bt.torrent.data.worker"));
+
+        lifecycleBinder.onShutdown("Shutdown data workers", this.executor::shutdownNow);
     }
 
     @Override
     public DataWorker createWorker(DataDescriptor dataDescriptor) {
-        return new DefaultDataWorker(lifecycleBinder, dataDescriptor, verifier, maxIOQueueSize);
+        DefaultDataWorker worker =
+                new DefaultDataWorker(dataDescriptor, verifier, metrics, maxIOQueueSize, new SerialExecutor(executor));
+        workers.put(dataDescriptor, worker);
+        return worker;
+    }
+
+    @Override
+    public CompletableFuture<?> stopWorker(DataDescriptor dataDescriptor) {
+        DefaultDataWorker worker = workers.remove(dataDescriptor);
+        if (worker == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        try {
+            return worker.shutdown();
+        } catch (RejectedExecutionException e) {
+            // runtime is shutting down, and the pending tasks will never be executed
+            return CompletableFuture.completedFuture(null);
+        }
     }
 }
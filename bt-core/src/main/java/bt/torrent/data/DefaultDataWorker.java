@@ -19,15 +19,16 @@ package bt.torrent.data;
 import bt.data.ChunkDescriptor;
 import bt.data.ChunkVerifier;
 import bt.data.DataDescriptor;
+import bt.metrics.Counter;
+import bt.metrics.Histogram;
+import bt.metrics.MetricNames;
+import bt.metrics.Metrics;
 import bt.net.Peer;
-import bt.service.IRuntimeLifecycleBinder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicInteger;
 
 class DefaultDataWorker implements DataWorker {
@@ -37,48 +38,69 @@ class DefaultDataWorker implements DataWorker {
     private DataDescriptor data;
     private ChunkVerifier verifier;
 
-    private final ExecutorService executor;
+    private final Executor executor;
     private final int maxPendingTasks;
     private final AtomicInteger pendingTasksCount;
-
-    public DefaultDataWorker(IRuntimeLifecycleBinder lifecycleBinder,
-                             DataDescriptor data,
+    private volatile boolean shutdown;
+
+    private final boolean metricsEnabled;
+    private final Counter pendingTasksCounter;
+    private final Counter rejectedTasksCounter;
+    private final Histogram blockReadTime;
+    private final Histogram blockWriteTime;
+    private final Counter verifiedBytes;
+    private final Histogram verificationTime;
+    private final Counter verificationFailures;
+
+    public DefaultDataWorker(DataDescriptor data,
                              ChunkVerifier verifier,
-                             int maxQueueLength) {
+                             Metrics metrics,
+                             int maxQueueLength,
+                             Executor executor) {
 
         this.data = data;
         this.verifier = verifier;
-        this.executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
-
-            private AtomicInteger i = new AtomicInteger();
-
-            @Override
-            public Thread newThread(Runnable r) {
-                return new Thread(r, "bt.torrent.data.worker-" + i.incrementAndGet());
-            }
-        });
+        this.executor = executor;
         this.maxPendingTasks = maxQueueLength;
         this.pendingTasksCount = new AtomicInteger();
 
-        lifecycleBinder.onShutdown("Shutdown data worker for descriptor: " + data, this.executor::shutdownNow);
+        this.metricsEnabled = metrics.isEnabled();
+        this.pendingTasksCounter = metrics.counter(MetricNames.DATA_WORKER_PENDING_TASKS);
+        this.rejectedTasksCounter = metrics.counter(MetricNames.DATA_WORKER_REJECTED_TASKS);
+        this.blockReadTime = metrics.histogram(MetricNames.DATA_BLOCK_READ_TIME);
+        this.blockWriteTime = metrics.histogram(MetricNames.DATA_BLOCK_WRITE_TIME);
+        this.verifiedBytes = metrics.counter(MetricNames.DATA_VERIFIED_BYTES);
+        this.verificationTime = metrics.histogram(MetricNames.DATA_VERIFICATION_TIME);
+        this.verificationFailures = metrics.counter(MetricNames.DATA_VERIFICATION_FAILURES);
     }
 
     @Override
     public CompletableFuture<BlockRead> addBlockRequest(Peer peer, int pieceIndex, int offset, int length) {
-        if (pendingTasksCount.get() >= maxPendingTasks) {
+        if (shutdown) {
+            return CompletableFuture.completedFuture(BlockRead.rejected(peer, pieceIndex, offset));
+        } else if (pendingTasksCount.get() >= maxPendingTasks) {
             LOGGER.warn("Can't accept read block request from peer (" + peer + ") -- queue is full");
+            rejectedTasksCounter.inc();
             return CompletableFuture.completedFuture(BlockRead.rejected(peer, pieceIndex, offset));
         } else {
             pendingTasksCount.incrementAndGet();
+            pendingTasksCounter.inc();
             return CompletableFuture.supplyAsync(() -> {
+                long started = metricsEnabled ? System.nanoTime() : 0;
                 try {
-                    ChunkDescriptor chunk = data.getChunkDescriptors().get(pieceIndex);
-                    byte[] block = chunk.getData().getSubrange(offset, length).getBytes();
+                    if (shutdown) {
+                        return BlockRead.rejected(peer, pieceIndex, offset);
+                    }
+                    byte[] block = data.readBlock(pieceIndex, offset, length);
+                    if (metricsEnabled) {
+                        blockReadTime.update(System.nanoTime() - started);
+                    }
                     return BlockRead.complete(peer, pieceIndex, offset, block);
                 } catch (Throwable e) {
                     return BlockRead.exceptional(peer, e, pieceIndex, offset);
                 } finally {
                     pendingTasksCount.decrementAndGet();
+                    pendingTasksCounter.dec();
                 }
             }, executor);
         }
@@ -86,14 +108,21 @@ class DefaultDataWorker implements DataWorker {
 
     @Override
     public CompletableFuture<BlockWrite> addBlock(Peer peer, int pieceIndex, int offset, byte[] block) {
-        if (pendingTasksCount.get() >= maxPendingTasks) {
+        if (shutdown) {
+            return CompletableFuture.completedFuture(BlockWrite.rejected(peer, pieceIndex, offset, block));
+        } else if (pendingTasksCount.get() >= maxPendingTasks) {
             LOGGER.warn("Can't accept write block request -- queue is full");
+            rejectedTasksCounter.inc();
             return CompletableFuture.completedFuture(BlockWrite.rejected(peer, pieceIndex, offset, block));
         } else {
             pendingTasksCount.incrementAndGet();
+            pendingTasksCounter.inc();
             return CompletableFuture.supplyAsync(() -> {
+                long started = metricsEnabled ? System.nanoTime() : 0;
                 try {
-                    if (data.getBitfield().isVerified(pieceIndex)) {
+                    if (shutdown) {
+                        return BlockWrite.rejected(peer, pieceIndex, offset, block);
+                    } else if (data.getBitfield().isVerified(pieceIndex)) {
                         if (LOGGER.isTraceEnabled()) {
                             LOGGER.trace("Rejecting request to write block because the chunk is already complete and verified: " +
                                     "piece index {" + pieceIndex + "}, offset {" + offset + "}, length {" + block.length + "}");
@@ -101,19 +130,32 @@ class DefaultDataWorker implements DataWorker {
                         return BlockWrite.rejected(peer, pieceIndex, offset, block);
                     }
 
-                    ChunkDescriptor chunk = data.getChunkDescriptors().get(pieceIndex);
-                    chunk.getData().getSubrange(offset).putBytes(block);
+                    data.writeBlock(pieceIndex, offset, block);
+                    if (metricsEnabled) {
+                        blockWriteTime.update(System.nanoTime() - started);
+                    }
                     if (LOGGER.isTraceEnabled()) {
                         LOGGER.trace("Successfully processed block: " +
                                 "piece index {" + pieceIndex + "}, offset {" + offset + "}, length {" + block.length + "}");
                     }
 
                     CompletableFuture<Boolean> verificationFuture = null;
+                    ChunkDescriptor chunk = data.getChunkDescriptors().get(pieceIndex);
                     if (chunk.isComplete()) {
                         verificationFuture = CompletableFuture.supplyAsync(() -> {
+                            if (shutdown) {
+                                return false;
+                            }
+                            long verificationStarted = metricsEnabled ? System.nanoTime() : 0;
                             boolean verified = verifier.verify(chunk);
+                            if (metricsEnabled) {
+                                verificationTime.update(System.nanoTime() - verificationStarted);
+                                verifiedBytes.inc(chunk.getData().length());
+                            }
                             if (verified) {
                                 data.getBitfield().markVerified(pieceIndex);
+                            } else {
+                                verificationFailures.inc();
                             }
                             return verified;
                         }, executor);
@@ -124,8 +166,20 @@ class DefaultDataWorker implements DataWorker {
                     return BlockWrite.exceptional(peer, e, pieceIndex, offset, block);
                 } finally {
                     pendingTasksCount.decrementAndGet();
+                    pendingTasksCounter.dec();
                 }
             }, executor);
         }
     }
+
+    /**
+     * Stop accepting new requests; requests, that have not been processed yet, are rejected.
+     *
+     * @return Future, that is completed, when the data is not accessed by this worker anymore
+     */
+    CompletableFuture<?> shutdown() {
+        shutdown = true;
+        // tasks are executed one at a time, so this one will run after the task, that is being processed now
+        return CompletableFuture.runAsync(() -> {}, executor);
+    }
 }
@@ -18,6 +18,8 @@ package bt.torrent.data;
 
 import bt.data.DataDescriptor;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Factory of data workers.
  *
@@ -31,4 +33,16 @@ public interface IDataWorkerFactory {
      * @since 1.0
      */
     DataWorker createWorker(DataDescriptor dataDescriptor);
+
+    /**
+     * Stop the data worker, that has been created for a given data descriptor (if any).
+     * Requests, that have not been processed by the worker yet, are rejected.
+     *
+     * @return Future, that is completed, when the data is not accessed by the worker anymore
+     *         and hence can be safely closed
+     * @since 1.8
+     */
+    default CompletableFuture<?> stopWorker(DataDescriptor dataDescriptor) {
+        return CompletableFuture.completedFuture(null);
+    }
 }
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2016—2017 Andrei Tomashpolskiy and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package bt.torrent.data;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Executes tasks one at a time and in the order of submission,
+ * borrowing threads from a shared delegate executor.
+ * Does not occupy any thread, when there are no pending tasks,
+ * and releases the borrowed thread after each batch of tasks,
+ * so that a busy executor does not starve the others, sharing the same delegate.
+ *
+ * @since 1.8
+ */
+class SerialExecutor implements Executor {
+
+    private static final int MAX_BATCH_SIZE = 16;
+
+    private final Executor delegate;
+    private final Queue<Runnable> tasks;
+    private final AtomicBoolean scheduled;
+
+    SerialExecutor(Executor delegate) {
+        this.delegate = delegate;
+        this.tasks = new ConcurrentLinkedQueue<>();
+        this.scheduled = new AtomicBoolean(false);
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        tasks.add(task);
+        schedule();
+    }
+
+    private void schedule() {
+        if (!tasks.isEmpty() && scheduled.compareAndSet(false, true)) {
+            try {
+                delegate.execute(this::drain);
+            } catch (RuntimeException e) {
+                scheduled.set(false);
+                throw e;
+            }
+        }
+    }
+
+    private void drain() {
+        try {
+            Runnable task;
+            for (int i = 0; i < MAX_BATCH_SIZE && (task = tasks.poll()) != null; i++) {
+                task.run();
+            }
+        } finally {
+            scheduled.set(false);
+            // re-submit remaining tasks to the back of the delegate's queue;
+            // also a task might have been added after the last poll, but before the flag was reset
+            schedule();
+        }
+    }
+}
@@ -18,11 +18,9 @@ package bt.torrent.messaging;
 
 import bt.protocol.Cancel;
 import bt.protocol.Request;
+import bt.torrent.TransferRate;
 import bt.torrent.data.BlockWrite;
 
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
 import java.util.Optional;
 import java.util.Queue;
 import java.util.Set;
@@ -41,27 +39,41 @@ public class ConnectionState {
     private volatile boolean choking;
     private volatile boolean peerChoking;
 
-    private volatile long downloaded;
-    private volatile long uploaded;
+    private final TransferRate downloaded;
+    private final TransferRate uploaded;
 
     private Optional<Boolean> shouldChoke;
     private long lastChoked;
 
-    private Set<Object> cancelledPeerRequests;
-    private Set<Object> pendingRequests;
-    private Map<Object, CompletableFuture<BlockWrite>> pendingWrites;
+    private RequestTracker cancelledPeerRequests;
+    private RequestTracker pendingRequests;
+    private Set<Object> cancelledPeerRequestKeys;
+    private Set<Object> pendingRequestKeys;
+    private LongObjectMap<CompletableFuture<BlockWrite>> pendingWrites;
 
     private Queue<Request> requestQueue;
     private boolean initializedRequestQueue;
     private Optional<Assignment> assignment;
 
     ConnectionState() {
+        this(null, null);
+    }
+
+    /**
+     * @param torrentDownloaded Per-torrent download rate, that data downloaded via this connection is propagated to
+     * @param torrentUploaded Per-torrent upload rate, that data uploaded via this connection is propagated to
+     */
+    ConnectionState(TransferRate torrentDownloaded, TransferRate torrentUploaded) {
+        this.downloaded = new TransferRate(torrentDownloaded);
+        this.uploaded = new TransferRate(torrentUploaded);
         this.choking = true;
         this.peerChoking = true;
         this.shouldChoke = Optional.empty();
-        this.cancelledPeerRequests = new HashSet<>();
-        this.pendingRequests = new HashSet<>();
-        this.pendingWrites = new HashMap<>();
+        this.cancelledPeerRequests = new RequestTracker();
+        this.pendingRequests = new RequestTracker();
+        this.cancelledPeerRequestKeys = new RequestKeySet(cancelledPeerRequests);
+        this.pendingRequestKeys = new RequestKeySet(pendingRequests);
+        this.pendingWrites = new LongObjectMap<>();
 
         this.requestQueue = new LinkedBlockingQueue<>();
 
@@ -172,7 +184,15 @@ public class ConnectionState {
      * @since 1.0
      */
     public long getDownloaded() {
-        return downloaded;
+        return downloaded.getTotal();
+    }
+
+    /**
+     * @return Recent download rate from remote peer via this connection (in bytes per second)
+     * @since 1.8
+     */
+    public long getDownloadRate() {
+        return downloaded.getRate();
     }
 
     /**
@@ -180,7 +200,7 @@ public class ConnectionState {
      * @since 1.0
      */
     public void incrementDownloaded(long downloaded) {
-        this.downloaded += downloaded;
+        this.downloaded.record(downloaded);
     }
 
     /**
@@ -188,7 +208,15 @@ public class ConnectionState {
      * @since 1.0
      */
     public long getUploaded() {
-        return uploaded;
+        return uploaded.getTotal();
+    }
+
+    /**
+     * @return Recent upload rate to remote peer via this connection (in bytes per second)
+     * @since 1.8
+     */
+    public long getUploadRate() {
+        return uploaded.getRate();
     }
 
     /**
@@ -196,17 +224,30 @@ public class ConnectionState {
      * @since 1.0
      */
     public void incrementUploaded(long uploaded) {
-        this.uploaded += uploaded;
+        this.uploaded.record(uploaded);
     }
 
     /**
      * Get keys of block requests, that have been cancelled by remote peer.
+     * Returned set is a view of {@link #getCancelledPeerRequestTracker()}.
      *
      * @see Mapper#buildKey(int, int, int)
      * @return Set of block request keys
      * @since 1.0
+     * @deprecated since 1.8 in favor of {@link #getCancelledPeerRequestTracker()}
      */
+    @Deprecated
     public Set<Object> getCancelledPeerRequests() {
+        return cancelledPeerRequestKeys;
+    }
+
+    /**
+     * Get block requests, that have been cancelled by remote peer.
+     *
+     * @return Block requests, that have been cancelled by remote peer
+     * @since 1.8
+     */
+    public RequestTracker getCancelledPeerRequestTracker() {
         return cancelledPeerRequests;
     }
 
@@ -216,36 +257,46 @@ public class ConnectionState {
      * @since 1.0
      */
     public void onCancel(Cancel cancel) {
-        cancelledPeerRequests.add(Mapper.mapper().buildKey(
-                cancel.getPieceIndex(), cancel.getOffset(), cancel.getLength()));
+        cancelledPeerRequests.add(cancel.getPieceIndex(), cancel.getOffset(), cancel.getLength());
     }
 
     /**
      * Get keys of block requests, that have been sent to the remote peer.
+     * Returned set is a view of {@link #getPendingRequestTracker()}.
      *
      * @see Mapper#buildKey(int, int, int)
      * @return Set of block request keys
      * @since 1.0
+     * @deprecated since 1.8 in favor of {@link #getPendingRequestTracker()}
      */
+    @Deprecated
     public Set<Object> getPendingRequests() {
-        return pendingRequests;
+        return pendingRequestKeys;
     }
 
     /**
-     * Get pending block writes, mapped by keys of corresponding requests.
+     * Get block requests, that have been sent to the remote peer and not yet fulfilled.
+     * Also provides the round-trip time estimate and the age of the oldest pending request.
      *
-     * @see Mapper#buildKey(int, int, int)
-     * @return Pending block writes, mapped by keys of corresponding requests.
-     * @since 1.0
+     * @return Block requests, that have been sent to the remote peer
+     * @since 1.8
      */
-    public Map<Object, CompletableFuture<BlockWrite>> getPendingWrites() {
-        return pendingWrites;
+    public RequestTracker getPendingRequestTracker() {
+        return pendingRequests;
     }
 
     /**************************************************/
     // Methods below are not a part of the public API //
     /**************************************************/
 
+    /**
+     * @return Pending block writes, mapped by compact keys of corresponding requests
+     * @see RequestTracker#key(int, int)
+     */
+    LongObjectMap<CompletableFuture<BlockWrite>> getPendingWrites() {
+        return pendingWrites;
+    }
+
     Queue<Request> getRequestQueue() {
         return requestQueue;
     }
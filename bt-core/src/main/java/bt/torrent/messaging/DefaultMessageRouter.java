@@ -18,29 +18,50 @@ package bt.torrent.messaging;
 
 import bt.protocol.Message;
 import bt.torrent.compiler.CompilerVisitor;
+import bt.torrent.compiler.ConsumerInvoker;
 import bt.torrent.compiler.MessagingAgentCompiler;
+import bt.torrent.compiler.ProducerInvoker;
 
 import java.lang.invoke.MethodHandle;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 
+/**
+ * Routes messages to compiled consumer and producer methods of messaging agents.
+ *
+ * <p>Consumers are dispatched through an array, indexed by the consumed message type,
+ * and invoked via exact-typed invokers, produced by {@link MessagingAgentCompiler}.
+ * Registration changes are published as an immutable snapshot,
+ * so routing of messages does not require any locking.</p>
+ *
+ * @since 1.3
+ */
 public class DefaultMessageRouter implements MessageRouter {
 
-    private MessagingAgentCompiler compiler;
+    private static final ConsumerBinding[] NO_CONSUMERS = new ConsumerBinding[0];
+    private static final ProducerBinding[] NO_PRODUCERS = new ProducerBinding[0];
 
-    private List<MessageConsumer<Message>> genericConsumers;
-    private Map<Class<?>, Collection<MessageConsumer<?>>> typedConsumers;
-    private List<MessageProducer> producers;
+    /**
+     * Assigns dense indices to message types.
+     * Indices are global, so that they are the same in all routers.
+     */
+    private static final AtomicInteger TYPE_INDEX_SEQUENCE = new AtomicInteger();
+    private static final ClassValue<Integer> TYPE_INDICES = new ClassValue<Integer>() {
+        @Override
+        protected Integer computeValue(Class<?> type) {
+            return TYPE_INDEX_SEQUENCE.getAndIncrement();
+        }
+    };
+
+    private final MessagingAgentCompiler compiler;
 
-    // collection of added consumers/producers in the form of runnable "commands"..
-    // quick and dirty!
-    private List<Runnable> changes;
-    private final Object changesLock;
+    // guarded by this
+    private final List<Registration> registrations;
+    private volatile Routes routes;
 
     public DefaultMessageRouter() {
         this(Collections.emptyList());
@@ -48,13 +69,8 @@ public class DefaultMessageRouter implements MessageRouter {
 
     public DefaultMessageRouter(Collection<Object> messagingAgents) {
         this.compiler = new MessagingAgentCompiler();
-
-        this.genericConsumers = new ArrayList<>();
-        this.typedConsumers = new HashMap<>();
-        this.producers = new ArrayList<>();
-
-        this.changes = new ArrayList<>();
-        this.changesLock = new Object();
+        this.registrations = new ArrayList<>();
+        this.routes = new Routes(NO_CONSUMERS, new ConsumerBinding[0][], NO_PRODUCERS);
 
         messagingAgents.forEach(this::registerMessagingAgent);
     }
@@ -63,91 +79,147 @@ public class DefaultMessageRouter implements MessageRouter {
     public final void registerMessagingAgent(Object agent) {
         CollectingCompilerVisitor visitor = new CollectingCompilerVisitor(agent);
         compiler.compileAndVisit(agent, visitor);
-        addConsumers(visitor.getConsumers());
-        addProducers(visitor.getProducers());
+
+        synchronized (this) {
+            registrations.add(new Registration(agent, visitor.getConsumers(), visitor.getProducers()));
+            routes = buildRoutes(registrations);
+        }
     }
 
     @Override
     public void unregisterMessagingAgent(Object agent) {
-        // TODO
+        synchronized (this) {
+            if (registrations.removeIf(registration -> registration.agent == agent)) {
+                routes = buildRoutes(registrations);
+            }
+        }
     }
 
-    @SuppressWarnings("unchecked")
-    private void addConsumers(List<MessageConsumer<?>> messageConsumers) {
-
-        List<MessageConsumer<Message>> genericConsumers = new ArrayList<>();
-        Map<Class<?>, Collection<MessageConsumer<?>>> typedMessageConsumers = new HashMap<>();
-
-        messageConsumers.forEach(consumer -> {
-            Class<?> consumedType = consumer.getConsumedType();
-            if (Message.class.equals(consumedType)) {
-                genericConsumers.add((MessageConsumer<Message>) consumer);
-            } else {
-                typedMessageConsumers.computeIfAbsent(consumedType, k -> new ArrayList<>()).add(consumer);
+    private static Routes buildRoutes(List<Registration> registrations) {
+        List<ConsumerBinding> genericConsumers = new ArrayList<>();
+        List<List<ConsumerBinding>> typedConsumers = new ArrayList<>();
+        List<ProducerBinding> producers = new ArrayList<>();
+
+        for (Registration registration : registrations) {
+            for (ConsumerBinding consumer : registration.consumers) {
+                if (Message.class.equals(consumer.consumedType)) {
+                    genericConsumers.add(consumer);
+                } else {
+                    int index = TYPE_INDICES.get(consumer.consumedType);
+                    while (typedConsumers.size() <= index) {
+                        typedConsumers.add(null);
+                    }
+                    List<ConsumerBinding> consumers = typedConsumers.get(index);
+                    if (consumers == null) {
+                        consumers = new ArrayList<>();
+                        typedConsumers.set(index, consumers);
+                    }
+                    consumers.add(consumer);
+                }
             }
-        });
-
-        synchronized (changesLock) {
-            this.changes.add(() -> {
-                this.genericConsumers.addAll(genericConsumers);
-                typedMessageConsumers.keySet().forEach(key -> this.typedConsumers
-                        .computeIfAbsent(key, k -> new ArrayList<>()).addAll(typedMessageConsumers.get(key))
-                );
-            });
+            producers.addAll(registration.producers);
         }
-    }
 
-    private void addProducers(Collection<MessageProducer> producers) {
-        synchronized (changesLock) {
-            this.changes.add(() -> {
-                this.producers.addAll(producers);
-            });
+        ConsumerBinding[][] typedConsumersArray = new ConsumerBinding[typedConsumers.size()][];
+        for (int i = 0; i < typedConsumersArray.length; i++) {
+            List<ConsumerBinding> consumers = typedConsumers.get(i);
+            typedConsumersArray[i] = (consumers == null) ? NO_CONSUMERS : consumers.toArray(NO_CONSUMERS);
         }
+
+        return new Routes(genericConsumers.toArray(NO_CONSUMERS), typedConsumersArray, producers.toArray(NO_PRODUCERS));
     }
 
     @Override
     public void consume(Message message, MessageContext context) {
-        mergeChanges();
-        doConsume(message, context);
-    }
+        Routes routes = this.routes;
 
-    private <T extends Message> void doConsume(T message, MessageContext context) {
-        genericConsumers.forEach(consumer -> {
+        for (ConsumerBinding consumer : routes.genericConsumers) {
             consumer.consume(message, context);
-        });
+        }
 
-        Collection<MessageConsumer<?>> consumers = typedConsumers.get(message.getClass());
-        if (consumers != null) {
-            consumers.forEach(consumer -> {
-                @SuppressWarnings("unchecked")
-                MessageConsumer<T> typedConsumer = (MessageConsumer<T>) consumer;
-                typedConsumer.consume(message, context);
-            });
+        int index = TYPE_INDICES.get(message.getClass());
+        ConsumerBinding[][] typedConsumers = routes.typedConsumers;
+        if (index < typedConsumers.length) {
+            for (ConsumerBinding consumer : typedConsumers[index]) {
+                consumer.consume(message, context);
+            }
         }
     }
 
     @Override
     public void produce(Consumer<Message> messageConsumer, MessageContext context) {
-        mergeChanges();
-        producers.forEach(producer -> {
+        for (ProducerBinding producer : routes.producers) {
             producer.produce(messageConsumer, context);
-        });
+        }
+    }
+
+    private static class Routes {
+        private final ConsumerBinding[] genericConsumers;
+        private final ConsumerBinding[][] typedConsumers;
+        private final ProducerBinding[] producers;
+
+        Routes(ConsumerBinding[] genericConsumers, ConsumerBinding[][] typedConsumers, ProducerBinding[] producers) {
+            this.genericConsumers = genericConsumers;
+            this.typedConsumers = typedConsumers;
+            this.producers = producers;
+        }
     }
 
-    private void mergeChanges() {
-        synchronized (changesLock) {
-            if (!changes.isEmpty()) {
-                changes.forEach(Runnable::run);
-                changes.clear();
+    private static class Registration {
+        private final Object agent;
+        private final List<ConsumerBinding> consumers;
+        private final List<ProducerBinding> producers;
+
+        Registration(Object agent, List<ConsumerBinding> consumers, List<ProducerBinding> producers) {
+            this.agent = agent;
+            this.consumers = consumers;
+            this.producers = producers;
+        }
+    }
+
+    private static class ConsumerBinding {
+        private final Object agent;
+        private final Class<?> consumedType;
+        private final ConsumerInvoker invoker;
+
+        ConsumerBinding(Object agent, Class<?> consumedType, ConsumerInvoker invoker) {
+            this.agent = agent;
+            this.consumedType = consumedType;
+            this.invoker = invoker;
+        }
+
+        void consume(Message message, MessageContext context) {
+            try {
+                invoker.consume(agent, message, context);
+            } catch (Throwable t) {
+                throw new RuntimeException("Failed to invoke message consumer", t);
+            }
+        }
+    }
+
+    private static class ProducerBinding {
+        private final Object agent;
+        private final ProducerInvoker invoker;
+
+        ProducerBinding(Object agent, ProducerInvoker invoker) {
+            this.agent = agent;
+            this.invoker = invoker;
+        }
+
+        void produce(Consumer<Message> messageConsumer, MessageContext context) {
+            try {
+                invoker.produce(agent, messageConsumer, context);
+            } catch (Throwable t) {
+                throw new RuntimeException("Failed to invoke message producer", t);
             }
         }
     }
 
     private static class CollectingCompilerVisitor implements CompilerVisitor {
 
-        private Object agent;
-        private final List<MessageConsumer<?>> consumers;
-        private final List<MessageProducer> producers;
+        private final Object agent;
+        private final List<ConsumerBinding> consumers;
+        private final List<ProducerBinding> producers;
 
         public CollectingCompilerVisitor(Object agent) {
             this.agent = agent;
@@ -157,51 +229,29 @@ public class DefaultMessageRouter implements MessageRouter {
 
         @Override
         public <T extends Message> void visitConsumer(Class<T> consumedType, MethodHandle handle) {
-            // full handle sig is (obj, message, context):void
-            boolean reduced = handle.type().parameterCount() == 2;
-            consumers.add(new MessageConsumer<T>() {
-                @Override
-                public Class<T> getConsumedType() {
-                    return consumedType;
-                }
+            visitConsumer(consumedType, handle, ConsumerInvoker.fromHandle(handle));
+        }
 
-                @Override
-                public void consume(T message, MessageContext context) {
-                    try {
-                        if (reduced) {
-                            handle.invoke(agent, message);
-                        } else {
-                            handle.invoke(agent, message, context);
-                        }
-                    } catch (Throwable t) {
-                        throw new RuntimeException("Failed to invoke message consumer", t);
-                    }
-                }
-            });
+        @Override
+        public <T extends Message> void visitConsumer(Class<T> consumedType, MethodHandle handle, ConsumerInvoker invoker) {
+            consumers.add(new ConsumerBinding(agent, consumedType, invoker));
         }
 
         @Override
         public void visitProducer(MethodHandle handle) {
-            // full handle sig is (obj, consumer, context):void
-            boolean reduced = handle.type().parameterCount() == 2;
-            producers.add((messageConsumer, context) -> {
-                try {
-                    if (reduced) {
-                            handle.invoke(agent, messageConsumer);
-                        } else {
-                            handle.invoke(agent, messageConsumer, context);
-                        }
-                } catch (Throwable t) {
-                    throw new RuntimeException("Failed to invoke message producer", t);
-                }
-            });
+            visitProducer(handle, ProducerInvoker.fromHandle(handle));
+        }
+
+        @Override
+        public void visitProducer(MethodHandle handle, ProducerInvoker invoker) {
+            producers.add(new ProducerBinding(agent, invoker));
         }
 
-        public List<MessageProducer> getProducers() {
+        public List<ProducerBinding> getProducers() {
             return producers;
         }
 
-        public List<MessageConsumer<?>> getConsumers() {
+        public List<ConsumerBinding> getConsumers() {
             return consumers;
         }
     }
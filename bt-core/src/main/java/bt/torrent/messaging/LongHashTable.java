@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2016—2017 Andrei Tomashpolskiy and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package bt.torrent.messaging;
+
+/**
+ * Open-addressing hash table with linear probing over primitive long keys.
+ * Subclasses keep their values in parallel arrays, indexed by slot,
+ * and are notified when the values must be moved, cleared or re-allocated.
+ *
+ * <p>Typical insertion: find the slot with {@link #indexOf(long)}; if it's not used,
+ * store the values at this slot and then call {@link #insert(int, long)}.</p>
+ *
+ * <p>This class is not thread-safe.</p>
+ *
+ * @since 1.8
+ */
+abstract class LongHashTable {
+
+    static final int DEFAULT_CAPACITY = 16;
+
+    private long[] keys;
+    private boolean[] used;
+    private int size;
+
+    LongHashTable() {
+        this.keys = new long[DEFAULT_CAPACITY];
+        this.used = new boolean[DEFAULT_CAPACITY];
+    }
+
+    /**
+     * Allocate value arrays of a given capacity, discarding the current ones.
+     */
+    abstract void allocateValues(int capacity);
+
+    /**
+     * Move values from one slot to another (the source slot is freed afterwards).
+     */
+    abstract void moveValues(int from, int to);
+
+    /**
+     * Release references, held by a freed slot.
+     */
+    abstract void clearValues(int i);
+
+    /**
+     * Allocate value arrays of a given capacity and copy the current values into them.
+     *
+     * @param newIndices New slot for each of the current slots, or -1 for unused slots
+     */
+    abstract void resizeValues(int capacity, int[] newIndices);
+
+    /**
+     * @return Index of the slot, that contains the key, or of the first free slot, where the key can be inserted
+     */
+    final int indexOf(long key) {
+        int mask = keys.length - 1;
+        int i = slot(key, keys.length);
+        while (used[i] && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    final boolean isUsed(int i) {
+        return used[i];
+    }
+
+    final long keyAt(int i) {
+        return keys[i];
+    }
+
+    /**
+     * @return Number of slots; for iteration in conjunction with {@link #isUsed(int)}
+     */
+    final int capacity() {
+        return keys.length;
+    }
+
+    /**
+     * Mark a free slot, returned by {@link #indexOf(long)}, as used by a given key.
+     * Values must be stored before calling this method, because the table might be resized.
+     */
+    final void insert(int i, long key) {
+        keys[i] = key;
+        used[i] = true;
+        if (++size * 2 > keys.length) {
+            resize(keys.length * 2);
+        }
+    }
+
+    /**
+     * Free a used slot.
+     */
+    final void removeAt(int i) {
+        // backward shift deletion: move subsequent entries of the same probe sequence into the freed slot
+        int mask = keys.length - 1;
+        int j = i;
+        for (;;) {
+            used[i] = false;
+            int home;
+            do {
+                j = (j + 1) & mask;
+                if (!used[j]) {
+                    clearValues(i);
+                    size--;
+                    return;
+                }
+                home = slot(keys[j], keys.length);
+                // entry can't be moved, if its' home slot lies cyclically in (i, j]
+            } while ((i <= j) ? (i < home && home <= j) : (i < home || home <= j));
+
+            keys[i] = keys[j];
+            moveValues(j, i);
+            used[i] = true;
+            i = j;
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        if (size > 0) {
+            this.keys = new long[DEFAULT_CAPACITY];
+            this.used = new boolean[DEFAULT_CAPACITY];
+            this.size = 0;
+            allocateValues(DEFAULT_CAPACITY);
+        }
+    }
+
+    private static int slot(long key, int capacity) {
+        // Fibonacci hashing; capacity is always a power of two
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> (Long.SIZE - Integer.numberOfTrailingZeros(capacity)));
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        boolean[] oldUsed = used;
+
+        this.keys = new long[capacity];
+        this.used = new boolean[capacity];
+        int[] newIndices = new int[oldKeys.length];
+        for (int k = 0; k < oldKeys.length; k++) {
+            if (oldUsed[k]) {
+                int i = indexOf(oldKeys[k]);
+                keys[i] = oldKeys[k];
+                used[i] = true;
+                newIndices[k] = i;
+            } else {
+                newIndices[k] = -1;
+            }
+        }
+        resizeValues(capacity, newIndices);
+    }
+}
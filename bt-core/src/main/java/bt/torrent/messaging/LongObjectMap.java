@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2016—2017 Andrei Tomashpolskiy and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package bt.torrent.messaging;
+
+/**
+ * Map with primitive long keys and non-null values.
+ *
+ * <p>This class is not thread-safe.</p>
+ *
+ * @since 1.8
+ */
+class LongObjectMap<V> extends LongHashTable {
+
+    private Object[] values;
+
+    LongObjectMap() {
+        this.values = new Object[DEFAULT_CAPACITY];
+    }
+
+    @SuppressWarnings("unchecked")
+    V get(long key) {
+        int i = indexOf(key);
+        return isUsed(i) ? (V) values[i] : null;
+    }
+
+    void put(long key, V value) {
+        if (value == null) {
+            throw new NullPointerException("Null values are not supported");
+        }
+        int i = indexOf(key);
+        values[i] = value;
+        if (!isUsed(i)) {
+            insert(i, key);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    V remove(long key) {
+        int i = indexOf(key);
+        if (!isUsed(i)) {
+            return null;
+        }
+        V value = (V) values[i];
+        removeAt(i);
+        return value;
+    }
+
+    @Override
+    void allocateValues(int capacity) {
+        this.values = new Object[capacity];
+    }
+
+    @Override
+    void moveValues(int from, int to) {
+        values[to] = values[from];
+    }
+
+    @Override
+    void clearValues(int i) {
+        values[i] = null;
+    }
+
+    @Override
+    void resizeValues(int capacity, int[] newIndices) {
+        Object[] oldValues = values;
+        this.values = new Object[capacity];
+        for (int k = 0; k < newIndices.length; k++) {
+            if (newIndices[k] >= 0) {
+                values[newIndices[k]] = oldValues[k];
+            }
+        }
+    }
+}
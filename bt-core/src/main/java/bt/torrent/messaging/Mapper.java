@@ -23,7 +23,9 @@ import java.util.Optional;
  * Creates unique keys, that can be tested for equality with each other.
  *
  * @since 1.0
+ * @deprecated since 1.8, block requests are tracked with compact primitive keys by {@link RequestTracker}
  */
+@Deprecated
 public class Mapper {
 
     private static final Mapper instance = new Mapper();
@@ -33,9 +33,10 @@ import java.time.Duration;
 import java.util.Arrays;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.ExecutionException;
 import java.util.function.Consumer;
 
 public class MetadataConsumer {
@@ -56,8 +57,8 @@ public class MetadataConsumer {
 
     private final TorrentId torrentId;
 
-    // set immediately after metadata has been fetched and verified
-    private final AtomicReference<Torrent> torrent;
+    // completed immediately after metadata has been fetched and verified
+    private final CompletableFuture<Torrent> torrent;
 
     private final int metadataExchangeBlockSize;
     private final int metadataExchangeMaxSize;
@@ -75,7 +76,7 @@ public class MetadataConsumer {
         this.metadataService = metadataService;
 
         this.torrentId = Objects.requireNonNull(torrentId);
-        this.torrent = new AtomicReference<>();
+        this.torrent = new CompletableFuture<>();
 
         this.metadataExchangeBlockSize = config.getMetadataExchangeBlockSize();
         this.metadataExchangeMaxSize = config.getMetadataExchangeMaxSize();
@@ -133,12 +134,9 @@ public class MetadataConsumer {
                     }
 
                     if (fetchedTorrent != null) {
-                        synchronized (torrent) {
-                            torrent.set(fetchedTorrent);
-                            requestedFirstPeers.clear();
-                            requestedAllPeers.clear();
-                            torrent.notifyAll();
-                        }
+                        requestedFirstPeers.clear();
+                        requestedAllPeers.clear();
+                        torrent.complete(fetchedTorrent);
                     }
                 } else {
                     LOGGER.warn("Metadata fetched, but hash does not match the torrent ID: {}. Will re-fetch", torrentId);
@@ -154,7 +152,7 @@ public class MetadataConsumer {
     @Produces
     public void produce(Consumer<Message> messageConsumer, MessageContext context) {
         // stop here if metadata has already been fetched
-        if (torrent.get() != null) {
+        if (torrent.isDone()) {
             return;
         }
 
@@ -186,21 +184,24 @@ public class MetadataConsumer {
         }
     }
 
+    /**
+     * @return Future, that is completed with the torrent, when its' metadata has been fetched and verified
+     * @since 1.8
+     */
+    public CompletableFuture<Torrent> getTorrentFuture() {
+        return torrent;
+    }
+
     /**
      * @return Torrent, blocking the calling thread if it hasn't been fetched yet
+     * @deprecated since 1.8 in favor of {@link #getTorrentFuture()}
      */
+    @Deprecated
     public Torrent waitForTorrent() {
-        while (torrent.get() == null) {
-            synchronized (torrent) {
-                if (torrent.get() == null) {
-                    try {
-                        torrent.wait();
-                    } catch (InterruptedException e) {
-                        throw new RuntimeException(e);
-                    }
-                }
-            }
+        try {
+            return torrent.get();
+        } catch (InterruptedException | ExecutionException e) {
+            throw new RuntimeException(e);
         }
-        return torrent.get();
     }
 }
@@ -18,6 +18,7 @@ package bt.torrent.messaging;
 
 import bt.metainfo.TorrentId;
 import bt.net.Peer;
+import bt.torrent.TransferRate;
 
 import java.util.Optional;
 
@@ -28,9 +29,22 @@ import java.util.Optional;
 public class PeerWorkerFactory implements IPeerWorkerFactory {
 
     private MessageRouter router;
+    private TransferRate downloaded;
+    private TransferRate uploaded;
 
     public PeerWorkerFactory(MessageRouter router) {
+        this(router, null, null);
+    }
+
+    /**
+     * @param downloaded Per-torrent download rate, that each peer's download rate is propagated to; may be null
+     * @param uploaded Per-torrent upload rate, that each peer's upload rate is propagated to; may be null
+     * @since 1.8
+     */
+    public PeerWorkerFactory(MessageRouter router, TransferRate downloaded, TransferRate uploaded) {
         this.router = router;
+        this.downloaded = downloaded;
+        this.uploaded = uploaded;
     }
 
     @Override
@@ -44,6 +58,6 @@ public class PeerWorkerFactory implements IPeerWorkerFactory {
     }
 
     private PeerWorker createPeerWorker(Optional<TorrentId> torrentId, Peer peer) {
-        return new RoutingPeerWorker(peer, torrentId, router);
+        return new RoutingPeerWorker(peer, torrentId, router, downloaded, uploaded);
     }
 }
@@ -99,8 +99,8 @@ public class PieceConsumer {
     }
 
     private boolean checkBlockIsExpected(Peer peer, ConnectionState connectionState, Piece piece) {
-        Object key = Mapper.mapper().buildKey(piece.getPieceIndex(), piece.getOffset(), piece.getBlock().length);
-        boolean expected = connectionState.getPendingRequests().remove(key);
+        boolean expected = connectionState.getPendingRequestTracker()
+                .remove(piece.getPieceIndex(), piece.getOffset(), piece.getBlock().length);
         if (!expected && LOGGER.isTraceEnabled()) {
             LOGGER.trace("Discarding unexpected block {} from peer: {}", piece, peer);
         }
@@ -122,8 +122,7 @@ public class PieceConsumer {
         }
 
         CompletableFuture<BlockWrite> future = dataWorker.addBlock(peer, pieceIndex, offset, block);
-        connectionState.getPendingWrites().put(
-                Mapper.mapper().buildKey(pieceIndex, offset, block.length), future);
+        connectionState.getPendingWrites().put(RequestTracker.key(pieceIndex, offset), future);
         return future;
     }
 
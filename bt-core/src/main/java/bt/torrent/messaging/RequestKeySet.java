@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2016—2017 Andrei Tomashpolskiy and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package bt.torrent.messaging;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * View of a request tracker as a set of keys, created by {@link Mapper#buildKey(int, int, int)}.
+ * Retains the pre-1.8 API of {@link ConnectionState}.
+ *
+ * @since 1.8
+ */
+@SuppressWarnings("deprecation")
+class RequestKeySet extends AbstractSet<Object> {
+
+    private final RequestTracker tracker;
+
+    RequestKeySet(RequestTracker tracker) {
+        this.tracker = tracker;
+    }
+
+    @Override
+    public int size() {
+        return tracker.size();
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        Optional<Mapper.Key> key = Mapper.decodeKey(o);
+        return key.isPresent() && tracker.contains(key.get().getPieceIndex(), key.get().getOffset(), key.get().getLength());
+    }
+
+    @Override
+    public boolean add(Object o) {
+        Mapper.Key key = Mapper.decodeKey(o)
+                .orElseThrow(() -> new IllegalArgumentException("Not a block request key: " + o));
+        return tracker.add(key.getPieceIndex(), key.getOffset(), key.getLength());
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        Optional<Mapper.Key> key = Mapper.decodeKey(o);
+        return key.isPresent() && tracker.remove(key.get().getPieceIndex(), key.get().getOffset(), key.get().getLength());
+    }
+
+    @Override
+    public void clear() {
+        tracker.clear();
+    }
+
+    @Override
+    public Iterator<Object> iterator() {
+        // tracker can't be modified while it's being visited, so iterate over a snapshot
+        List<Object> keys = new ArrayList<>(tracker.size());
+        tracker.forEach((pieceIndex, offset, length) -> keys.add(Mapper.mapper().buildKey(pieceIndex, offset, length)));
+        Iterator<Object> iter = keys.iterator();
+
+        return new Iterator<Object>() {
+            private Object current;
+
+            @Override
+            public boolean hasNext() {
+                return iter.hasNext();
+            }
+
+            @Override
+            public Object next() {
+                current = iter.next();
+                return current;
+            }
+
+            @Override
+            public void remove() {
+                if (current == null) {
+                    throw new IllegalStateException();
+                }
+                RequestKeySet.this.remove(current);
+                current = null;
+            }
+        };
+    }
+}
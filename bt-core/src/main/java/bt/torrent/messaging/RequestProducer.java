@@ -87,34 +87,31 @@ public class RequestProducer {
         }
 
         Queue<Request> requestQueue = connectionState.getRequestQueue();
-        while (!requestQueue.isEmpty() && connectionState.getPendingRequests().size() <= MAX_PENDING_REQUESTS) {
+        while (!requestQueue.isEmpty() && connectionState.getPendingRequestTracker().size() <= MAX_PENDING_REQUESTS) {
             Request request = requestQueue.poll();
-            Object key = Mapper.mapper().buildKey(request.getPieceIndex(), request.getOffset(), request.getLength());
             messageConsumer.accept(request);
-            connectionState.getPendingRequests().add(key);
+            connectionState.getPendingRequestTracker().add(request.getPieceIndex(), request.getOffset(), request.getLength());
         }
     }
 
     private void resetConnection(ConnectionState connectionState, Consumer<Message> messageConsumer) {
         connectionState.getRequestQueue().clear();
         connectionState.setInitializedRequestQueue(false);
-        connectionState.getPendingRequests().forEach(r -> {
-            Mapper.decodeKey(r).ifPresent(key -> {
-                messageConsumer.accept(new Cancel(key.getPieceIndex(), key.getOffset(), key.getLength()));
-            });
+        connectionState.getPendingRequestTracker().forEach((pieceIndex, offset, length) -> {
+            messageConsumer.accept(new Cancel(pieceIndex, offset, length));
         });
-        connectionState.getPendingRequests().clear();
+        connectionState.getPendingRequestTracker().clear();
     }
 
     private void initializeRequestQueue(ConnectionState connectionState, int pieceIndex) {
         List<Request> requests = buildRequests(pieceIndex).stream()
             .filter(request -> {
-                Object key = Mapper.mapper().buildKey(
-                    request.getPieceIndex(), request.getOffset(), request.getLength());
-                if (connectionState.getPendingRequests().contains(key)) {
+                if (connectionState.getPendingRequestTracker().contains(
+                        request.getPieceIndex(), request.getOffset(), request.getLength())) {
                     return false;
                 }
 
+                long key = RequestTracker.key(request.getPieceIndex(), request.getOffset());
                 CompletableFuture<BlockWrite> future = connectionState.getPendingWrites().get(key);
                 if (future == null) {
                     return true;
@@ -0,0 +1,223 @@
+/*
+ * Copyright (c) 2016—2017 Andrei Tomashpolskiy and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package bt.torrent.messaging;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Set of block requests, that also records the time when each request has been added.
+ *
+ * <p>Requests are keyed by piece index and offset, packed into a single {@code long},
+ * and stored in an open-addressing hash table with linear probing,
+ * so that adding, checking and removing requests does not allocate.
+ * Upon removal of a request, the time since it has been added is used to update
+ * the smoothed round-trip time estimate (same as TCP's SRTT, with a gain of 1/8).</p>
+ *
+ * <p>This class is not thread-safe.</p>
+ *
+ * @since 1.8
+ */
+public class RequestTracker extends LongHashTable {
+
+    private final LongSupplier clock;
+
+    private int[] lengths;
+    private long[] sentTimes;
+
+    private long roundTripTime;
+
+    /**
+     * @since 1.8
+     */
+    public RequestTracker() {
+        this(System::nanoTime);
+    }
+
+    /**
+     * @param clock Source of time in nanoseconds
+     */
+    RequestTracker(LongSupplier clock) {
+        this.clock = clock;
+        allocateValues(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @return Compact key of a block request
+     */
+    static long key(int pieceIndex, int offset) {
+        return ((long) pieceIndex << 32) | (offset & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Add a block request and record the current time as the time when it has been sent.
+     *
+     * @return true, if the request has been added; false, if it is already present
+     * @since 1.8
+     */
+    public boolean add(int pieceIndex, int offset, int length) {
+        long key = key(pieceIndex, offset);
+        int i = indexOf(key);
+        if (isUsed(i)) {
+            return false;
+        }
+        lengths[i] = length;
+        sentTimes[i] = clock.getAsLong();
+        insert(i, key);
+        return true;
+    }
+
+    /**
+     * @return true, if this tracker contains the given block request
+     * @since 1.8
+     */
+    public boolean contains(int pieceIndex, int offset, int length) {
+        int i = indexOf(key(pieceIndex, offset));
+        return isUsed(i) && lengths[i] == length;
+    }
+
+    /**
+     * Remove a block request (e.g. when the corresponding block has been received)
+     * and update the round-trip time estimate.
+     *
+     * @return true, if the request was present in this tracker
+     * @since 1.8
+     */
+    public boolean remove(int pieceIndex, int offset, int length) {
+        int i = indexOf(key(pieceIndex, offset));
+        if (!isUsed(i) || lengths[i] != length) {
+            return false;
+        }
+
+        long sample = Math.max(0, clock.getAsLong() - sentTimes[i]);
+        roundTripTime = (roundTripTime == 0) ? sample : roundTripTime + (sample - roundTripTime) / 8;
+
+        removeAt(i);
+        return true;
+    }
+
+    /**
+     * @return Number of requests in this tracker
+     * @since 1.8
+     */
+    @Override
+    public int size() {
+        return super.size();
+    }
+
+    /**
+     * @since 1.8
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Remove all requests. Round-trip time estimate is not affected.
+     *
+     * @since 1.8
+     */
+    @Override
+    public void clear() {
+        super.clear();
+    }
+
+    /**
+     * Visit all requests in this tracker. The visitor must not modify the tracker.
+     *
+     * @since 1.8
+     */
+    public void forEach(Visitor visitor) {
+        for (int i = 0; i < capacity(); i++) {
+            if (isUsed(i)) {
+                long key = keyAt(i);
+                visitor.visit((int) (key >>> 32), (int) key, lengths[i]);
+            }
+        }
+    }
+
+    /**
+     * @return Smoothed round-trip time of removed requests, or {@link Duration#ZERO}, if no requests have been removed yet
+     * @since 1.8
+     */
+    public Duration getRoundTripTime() {
+        return Duration.ofNanos(roundTripTime);
+    }
+
+    /**
+     * @return Time since the oldest request in this tracker has been added,
+     *         or {@link Duration#ZERO}, if the tracker is empty
+     * @since 1.8
+     */
+    public Duration getOldestRequestAge() {
+        if (isEmpty()) {
+            return Duration.ZERO;
+        }
+        long now = clock.getAsLong();
+        long maxAge = 0;
+        for (int i = 0; i < capacity(); i++) {
+            if (isUsed(i)) {
+                maxAge = Math.max(maxAge, now - sentTimes[i]);
+            }
+        }
+        return Duration.ofNanos(maxAge);
+    }
+
+    @Override
+    void allocateValues(int capacity) {
+        this.lengths = new int[capacity];
+        this.sentTimes = new long[capacity];
+    }
+
+    @Override
+    void moveValues(int from, int to) {
+        lengths[to] = lengths[from];
+        sentTimes[to] = sentTimes[from];
+    }
+
+    @Override
+    void clearValues(int i) {
+        // nothing to release
+    }
+
+    @Override
+    void resizeValues(int capacity, int[] newIndices) {
+        int[] oldLengths = lengths;
+        long[] oldSentTimes = sentTimes;
+
+        allocateValues(capacity);
+        for (int k = 0; k < newIndices.length; k++) {
+            int i = newIndices[k];
+            if (i >= 0) {
+                lengths[i] = oldLengths[k];
+                sentTimes[i] = oldSentTimes[k];
+            }
+        }
+    }
+
+    /**
+     * @since 1.8
+     */
+    @FunctionalInterface
+    public interface Visitor {
+
+        /**
+         * @since 1.8
+         */
+        void visit(int pieceIndex, int offset, int length);
+    }
+}
@@ -25,6 +25,7 @@ import bt.protocol.Message;
 import bt.protocol.NotInterested;
 import bt.protocol.Piece;
 import bt.protocol.Unchoke;
+import bt.torrent.TransferRate;
 
 import java.util.Deque;
 import java.util.Optional;
@@ -49,7 +50,15 @@ class RoutingPeerWorker implements PeerWorker {
     private Choker choker;
 
     public RoutingPeerWorker(Peer peer, Optional<TorrentId> torrentId, MessageRouter router) {
-        this.connectionState = new ConnectionState();
+        this(peer, torrentId, router, null, null);
+    }
+
+    public RoutingPeerWorker(Peer peer,
+                             Optional<TorrentId> torrentId,
+                             MessageRouter router,
+                             TransferRate torrentDownloaded,
+                             TransferRate torrentUploaded) {
+        this.connectionState = new ConnectionState(torrentDownloaded, torrentUploaded);
         this.router = router;
         this.context = new MessageContext(torrentId, peer, connectionState);
         this.outgoingMessages = new LinkedBlockingDeque<>();
@@ -138,7 +147,7 @@ class RoutingPeerWorker implements PeerWorker {
                 offset = piece.getOffset(),
                 length = piece.getBlock().length;
 
-        return connectionState.getCancelledPeerRequests().remove(Mapper.mapper().buildKey(pieceIndex, offset, length));
+        return connectionState.getCancelledPeerRequestTracker().remove(pieceIndex, offset, length);
     }
 
     private void updateConnection() {
@@ -100,23 +100,9 @@ public class TorrentWorker {
         this.assignmentsSupplier = assignmentsSupplier;
         this.statisticsSupplier = statisticsSupplier;
 
-        eventSource.onPeerDiscovered(e -> {
-            if (torrentId.equals(e.getTorrentId())) {
-                onPeerDiscovered(e.getPeer());
-            }
-        });
-
-        eventSource.onPeerConnected(e -> {
-            if (torrentId.equals(e.getTorrentId())) {
-                onPeerConnected(e.getPeer());
-            }
-        });
-
-        eventSource.onPeerDisconnected(e -> {
-            if (torrentId.equals(e.getTorrentId())) {
-                onPeerDisconnected(e.getPeer());
-            }
-        });
+        eventSource.onPeerDiscovered(torrentId, e -> onPeerDiscovered(e.getPeer()))
+                .onPeerConnected(torrentId, e -> onPeerConnected(e.getPeer()))
+                .onPeerDisconnected(torrentId, e -> onPeerDisconnected(e.getPeer()));
     }
 
     private Bitfield getBitfield() {
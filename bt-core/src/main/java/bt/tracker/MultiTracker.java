@@ -18,12 +18,28 @@ package bt.tracker;
 
 import bt.BtException;
 import bt.metainfo.TorrentId;
+import bt.net.Peer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
@@ -31,30 +47,55 @@ class MultiTracker implements Tracker {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(MultiTracker.class);
 
-    private ITrackerService trackerService;
-    private List<List<Tracker>> trackerTiers;
+    private static final Consumer<Peer> NO_OP_CONSUMER = peer -> {};
+
+    private final ITrackerService trackerService;
+    private final List<List<LazyTracker>> trackerTiers;
+    private final MultiTrackerPolicy policy;
+    private final TrackerHealthRegistry healthRegistry;
+    private final ExecutorService executor;
 
     MultiTracker(ITrackerService trackerService, AnnounceKey announceKey) {
         this(trackerService, announceKey, true);
     }
 
     MultiTracker(ITrackerService trackerService, AnnounceKey announceKey, boolean shouldShuffleTiers) {
+        this(trackerService, announceKey, shouldShuffleTiers,
+                MultiTrackerPolicy.SEQUENTIAL, new TrackerHealthRegistry(), null);
+    }
+
+    /**
+     * @param executor Executor for querying trackers in parallel; may be null for {@link MultiTrackerPolicy#SEQUENTIAL}
+     * @since 1.8
+     */
+    MultiTracker(ITrackerService trackerService,
+                 AnnounceKey announceKey,
+                 boolean shouldShuffleTiers,
+                 MultiTrackerPolicy policy,
+                 TrackerHealthRegistry healthRegistry,
+                 ExecutorService executor) {
         if (!announceKey.isMultiKey()) {
             throw new IllegalArgumentException("Not a multi key: " + announceKey);
         }
+        if (policy != MultiTrackerPolicy.SEQUENTIAL && executor == null) {
+            throw new IllegalArgumentException("Executor is required for policy: " + policy);
+        }
         this.trackerService = trackerService;
         this.trackerTiers = initTrackers(announceKey, shouldShuffleTiers);
+        this.policy = policy;
+        this.healthRegistry = healthRegistry;
+        this.executor = executor;
     }
 
-    private List<List<Tracker>> initTrackers(AnnounceKey announceKey, boolean shouldShuffleTiers) {
+    private List<List<LazyTracker>> initTrackers(AnnounceKey announceKey, boolean shouldShuffleTiers) {
 
         List<List<String>> trackerUrls = announceKey.getTrackerUrls();
-        List<List<Tracker>> trackers = new ArrayList<>(trackerUrls.size() + 1);
+        List<List<LazyTracker>> trackers = new ArrayList<>(trackerUrls.size() + 1);
 
         for (List<String> tier : trackerUrls) {
-            List<Tracker> tierTrackers = new ArrayList<>(tier.size() + 1);
+            List<LazyTracker> tierTrackers = new ArrayList<>(tier.size() + 1);
             for (String trackerUrl : tier) {
-                tierTrackers.add(new LazyTracker(() -> trackerService.getTracker(trackerUrl)));
+                tierTrackers.add(new LazyTracker(trackerUrl, () -> trackerService.getTracker(trackerUrl)));
             }
             // per BEP-12 spec each tier must be shuffled
             if (shouldShuffleTiers) {
@@ -72,22 +113,47 @@ class MultiTracker implements Tracker {
 
             @Override
             public TrackerResponse start() {
-                return tryForAllTrackers(tracker -> getDelegate(tracker, torrentId).start());
+                return await(startAsync());
             }
 
             @Override
             public TrackerResponse stop() {
-                return tryForAllTrackers(tracker -> getDelegate(tracker, torrentId).stop());
+                return await(stopAsync());
             }
 
             @Override
             public TrackerResponse complete() {
-                return tryForAllTrackers(tracker -> getDelegate(tracker, torrentId).complete());
+                return await(completeAsync());
             }
 
             @Override
             public TrackerResponse query() {
-                return tryForAllTrackers(tracker -> getDelegate(tracker, torrentId).query());
+                return await(queryAsync());
+            }
+
+            @Override
+            public CompletableFuture<TrackerResponse> startAsync() {
+                return tryForAllTrackers(tracker -> getDelegate(tracker, torrentId).startAsync(), NO_OP_CONSUMER);
+            }
+
+            @Override
+            public CompletableFuture<TrackerResponse> stopAsync() {
+                return tryForAllTrackers(tracker -> getDelegate(tracker, torrentId).stopAsync(), NO_OP_CONSUMER);
+            }
+
+            @Override
+            public CompletableFuture<TrackerResponse> completeAsync() {
+                return tryForAllTrackers(tracker -> getDelegate(tracker, torrentId).completeAsync(), NO_OP_CONSUMER);
+            }
+
+            @Override
+            public CompletableFuture<TrackerResponse> queryAsync() {
+                return queryAsync(NO_OP_CONSUMER);
+            }
+
+            @Override
+            public CompletableFuture<TrackerResponse> queryAsync(Consumer<Peer> peerConsumer) {
+                return tryForAllTrackers(tracker -> getDelegate(tracker, torrentId).queryAsync(), peerConsumer);
             }
 
             private TrackerRequestBuilder getDelegate(Tracker tracker, TorrentId torrentId) {
@@ -110,54 +176,256 @@ class MultiTracker implements Tracker {
 
                 return delegate;
             }
+        };
+    }
+
+    private static TrackerResponse await(CompletableFuture<TrackerResponse> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BtException("Unexpectedly interrupted while waiting for responses from the trackers", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof BtException) {
+                throw (BtException) e.getCause();
+            }
+            throw new BtException("Unexpected error when querying trackers", e.getCause());
+        }
+    }
+
+    private CompletableFuture<TrackerResponse> tryForAllTrackers(Function<Tracker, CompletableFuture<TrackerResponse>> func,
+                                                                 Consumer<Peer> peerConsumer) {
+        switch (policy) {
+            case SEQUENTIAL: {
+                return tryTrackersSequentially(func, peerConsumer, 0, 0, new ArrayList<>());
+            }
+            case CONCURRENT_TIER: {
+                return tryTiersConcurrently(func, peerConsumer, 0, Collections.synchronizedList(new ArrayList<>()));
+            }
+            case CONCURRENT_ALL: {
+                return tryAllTrackersConcurrently(func, peerConsumer);
+            }
+            default: {
+                throw new BtException("Unexpected multi-tracker policy: " + policy);
+            }
+        }
+    }
+
+    private CompletableFuture<TrackerResponse> tryTrackersSequentially(Function<Tracker, CompletableFuture<TrackerResponse>> func,
+                                                                       Consumer<Peer> peerConsumer,
+                                                                       int tierIndex,
+                                                                       int trackerIndex,
+                                                                       List<TrackerResponse> responses) {
+        if (tierIndex == trackerTiers.size()) {
+            return allTrackersFailed(responses);
+        }
+
+        List<LazyTracker> trackerTier = trackerTiers.get(tierIndex);
+        LazyTracker currentTracker;
+        // tiers may be re-ordered by concurrent requests
+        synchronized (trackerTier) {
+            if (trackerIndex >= trackerTier.size()) {
+                currentTracker = null;
+            } else {
+                currentTracker = trackerTier.get(trackerIndex);
+            }
+        }
+        if (currentTracker == null) {
+            return tryTrackersSequentially(func, peerConsumer, tierIndex + 1, 0, responses);
+        }
+
+        return callTracker(currentTracker, func).thenCompose(response -> {
+            responses.add(response);
+
+            if (response.isSuccess()) {
+                if (trackerIndex != 0) {
+                    synchronized (trackerTier) {
+                        if (trackerTier.remove(currentTracker)) {
+                            trackerTier.add(0, currentTracker);
+                        }
+                    }
+                }
+                if (peerConsumer != NO_OP_CONSUMER) {
+                    response.getPeers().forEach(peerConsumer);
+                }
+                return CompletableFuture.completedFuture(response);
+            } else {
+                logFailure(currentTracker, response);
+                return tryTrackersSequentially(func, peerConsumer, tierIndex, trackerIndex + 1, responses);
+            }
+        });
+    }
 
-            private TrackerResponse tryForAllTrackers(Function<Tracker, TrackerResponse> func) {
+    private CompletableFuture<TrackerResponse> tryTiersConcurrently(Function<Tracker, CompletableFuture<TrackerResponse>> func,
+                                                                    Consumer<Peer> peerConsumer,
+                                                                    int tierIndex,
+                                                                    List<TrackerResponse> failures) {
+        if (tierIndex == trackerTiers.size()) {
+            return allTrackersFailed(failures);
+        }
 
-                List<TrackerResponse> responses = new ArrayList<>();
+        return queryConcurrently(trackerTiers.get(tierIndex), func, peerConsumer, failures).thenCompose(response ->
+                response.isPresent() ? CompletableFuture.completedFuture(response.get())
+                        : tryTiersConcurrently(func, peerConsumer, tierIndex + 1, failures));
+    }
 
-                for (List<Tracker> trackerTier : trackerTiers) {
+    private CompletableFuture<TrackerResponse> tryAllTrackersConcurrently(Function<Tracker, CompletableFuture<TrackerResponse>> func,
+                                                                          Consumer<Peer> peerConsumer) {
+        List<LazyTracker> trackers = new ArrayList<>();
+        trackerTiers.forEach(trackers::addAll);
 
-                    TrackerResponse response;
-                    Tracker currentTracker;
+        List<TrackerResponse> failures = Collections.synchronizedList(new ArrayList<>());
 
-                    for (int i = 0; i < trackerTier.size(); i++) {
-                        currentTracker = trackerTier.get(i);
-                        response = func.apply(currentTracker);
-                        responses.add(response);
+        return queryConcurrently(trackers, func, peerConsumer, failures).thenCompose(response ->
+                response.isPresent() ? CompletableFuture.completedFuture(response.get()) : allTrackersFailed(failures));
+    }
+
+    private static CompletableFuture<TrackerResponse> allTrackersFailed(List<TrackerResponse> responses) {
+        CompletableFuture<TrackerResponse> future = new CompletableFuture<>();
+        future.completeExceptionally(new BtException("All trackers failed; responses (in chrono order): " + responses));
+        return future;
+    }
+
+    /**
+     * Query all (non-backed off) trackers in parallel. The returned future is completed,
+     * as soon as either one of the trackers responds successfully, or all of them fail.
+     * Peers from all successful responses are passed to the consumer and merged into the returned response
+     * as each of the trackers responds, including the ones that respond after the future has been completed.
+     */
+    private CompletableFuture<Optional<TrackerResponse>> queryConcurrently(List<LazyTracker> trackers,
+                                                                           Function<Tracker, CompletableFuture<TrackerResponse>> func,
+                                                                           Consumer<Peer> peerConsumer,
+                                                                           List<TrackerResponse> failures) {
+        List<LazyTracker> selectedTrackers = selectTrackers(trackers);
+        if (selectedTrackers.isEmpty()) {
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
 
-                        if (response.isSuccess()) {
-                            if (trackerTier.size() > 1
-                                    && i != 0) {
-                                trackerTier.remove(i);
-                                trackerTier.add(0, currentTracker);
-                            }
-                            return response;
-                        } else if (response.getError().isPresent()) {
-                            Throwable e = response.getError().get();
-                            LOGGER.warn("Unexpected error during interaction with the tracker: " + currentTracker, e);
-                        } else {
-                            LOGGER.warn("Unexpected error during interaction with the tracker: " + currentTracker +
-                                    "; message: " + response.getErrorMessage());
+        MergedPeers peers = new MergedPeers(peerConsumer);
+        CompletableFuture<Optional<TrackerResponse>> result = new CompletableFuture<>();
+        AtomicInteger pendingRequests = new AtomicInteger(selectedTrackers.size());
+
+        for (LazyTracker tracker : selectedTrackers) {
+            CompletableFuture<TrackerResponse> future;
+            try {
+                // blocking trackers perform the request in the calling thread, so it's initiated from the executor
+                future = CompletableFuture.supplyAsync(() -> callTracker(tracker, func), executor)
+                        .thenCompose(Function.identity());
+            } catch (Exception e) {
+                // executor has been shutdown
+                future = CompletableFuture.completedFuture(TrackerResponse.exceptional(e));
+            }
+            future.whenComplete((response, e) -> {
+                try {
+                    if (e != null) {
+                        response = TrackerResponse.exceptional(e);
+                    }
+                    if (response.isSuccess()) {
+                        peers.addAll(response.getPeers());
+                        if (!result.isDone()) {
+                            result.complete(Optional.of(mergeResponses(response, peers)));
                         }
+                    } else {
+                        logFailure(tracker, response);
+                        failures.add(response);
+                    }
+                } catch (Exception ex) {
+                    LOGGER.error("Failed to process response from the tracker: " + tracker, ex);
+                } finally {
+                    if (pendingRequests.decrementAndGet() == 0) {
+                        result.complete(Optional.empty());
                     }
                 }
+            });
+        }
+        return result;
+    }
 
-                throw new BtException("All trackers failed; responses (in chrono order): " + responses);
+    private List<LazyTracker> selectTrackers(List<LazyTracker> trackers) {
+        Map<LazyTracker, Double> scores = new IdentityHashMap<>();
+        List<LazyTracker> selectedTrackers = new ArrayList<>(trackers.size());
+        for (LazyTracker tracker : trackers) {
+            TrackerHealth health = healthRegistry.getHealth(tracker.getUrl());
+            if (!health.isBackedOff()) {
+                selectedTrackers.add(tracker);
             }
-        };
+            scores.put(tracker, health.getScore());
+        }
+        if (selectedTrackers.isEmpty()) {
+            // all trackers seem to be dead, but we don't have any alternatives
+            selectedTrackers.addAll(trackers);
+        }
+        // most reliable trackers go first (scores are snapshotted, because they might change during sorting)
+        selectedTrackers.sort(Comparator.comparing(scores::get, Comparator.reverseOrder()));
+        return selectedTrackers;
+    }
+
+    private static TrackerResponse mergeResponses(TrackerResponse firstResponse, MergedPeers peers) {
+        TrackerResponse response = TrackerResponse.ok();
+        response.setInterval(firstResponse.getInterval());
+        response.setMinInterval(firstResponse.getMinInterval());
+        response.setSeederCount(firstResponse.getSeederCount());
+        response.setLeecherCount(firstResponse.getLeecherCount());
+        response.setWarningMessage(firstResponse.getWarningMessage());
+        response.setPeers(peers);
+        return response;
+    }
+
+    /**
+     * @return Future, that is always completed normally: failures are reported via {@link TrackerResponse#exceptional(Throwable)}
+     */
+    private CompletableFuture<TrackerResponse> callTracker(LazyTracker tracker,
+                                                           Function<Tracker, CompletableFuture<TrackerResponse>> func) {
+        TrackerHealth health = healthRegistry.getHealth(tracker.getUrl());
+        long startedAt = System.currentTimeMillis();
+
+        CompletableFuture<TrackerResponse> future;
+        try {
+            future = func.apply(tracker);
+        } catch (Exception e) {
+            future = CompletableFuture.completedFuture(TrackerResponse.exceptional(e));
+        }
+
+        return future.handle((response, e) -> {
+            if (e != null) {
+                response = TrackerResponse.exceptional((e instanceof CompletionException) ? e.getCause() : e);
+            }
+            if (response.isSuccess()) {
+                health.onSuccess(System.currentTimeMillis() - startedAt);
+            } else {
+                health.onFailure();
+            }
+            return response;
+        });
+    }
+
+    private static void logFailure(Tracker tracker, TrackerResponse response) {
+        if (response.getError().isPresent()) {
+            Throwable e = response.getError().get();
+            LOGGER.warn("Unexpected error during interaction with the tracker: " + tracker, e);
+        } else {
+            LOGGER.warn("Unexpected error during interaction with the tracker: " + tracker +
+                    "; message: " + response.getErrorMessage());
+        }
     }
 
     private static class LazyTracker implements Tracker {
 
+        private final String url;
         private volatile Tracker delegate;
         private Supplier<Tracker> delegateSupplier;
         private final Object lock;
 
-        LazyTracker(Supplier<Tracker> delegateSupplier) {
+        LazyTracker(String url, Supplier<Tracker> delegateSupplier) {
+            this.url = url;
             this.delegateSupplier = delegateSupplier;
             lock = new Object();
         }
 
+        String getUrl() {
+            return url;
+        }
+
         @Override
         public TrackerRequestBuilder request(TorrentId torrentId) {
             return getDelegate().request(torrentId);
@@ -181,6 +449,38 @@ class MultiTracker implements Tracker {
         }
     }
 
+    /**
+     * Peers, that are collected from several trackers at once.
+     * Each peer is passed to the consumer once, as soon as it's received from one of the trackers.
+     * Iteration does not block and returns the peers, that have been received so far.
+     */
+    private static class MergedPeers implements Iterable<Peer> {
+
+        private final Queue<Peer> peers;
+        private final Set<Peer> uniquePeers;
+        private final Consumer<Peer> peerConsumer;
+
+        MergedPeers(Consumer<Peer> peerConsumer) {
+            this.peers = new ConcurrentLinkedQueue<>();
+            this.uniquePeers = ConcurrentHashMap.newKeySet();
+            this.peerConsumer = peerConsumer;
+        }
+
+        void addAll(Iterable<Peer> newPeers) {
+            for (Peer peer : newPeers) {
+                if (uniquePeers.add(peer)) {
+                    peers.add(peer);
+                    peerConsumer.accept(peer);
+                }
+            }
+        }
+
+        @Override
+        public Iterator<Peer> iterator() {
+            return Collections.unmodifiableCollection(peers).iterator();
+        }
+    }
+
     @Override
     public String toString() {
         return "MultiTracker{" +
@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2016—2017 Andrei Tomashpolskiy and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package bt.tracker;
+
+/**
+ * Determines how multi-tracker torrents (BEP-12) are announced to.
+ *
+ * @since 1.8
+ */
+public enum MultiTrackerPolicy {
+
+    /**
+     * Trackers are tried one by one, tier after tier, until a successful response is received.
+     * The tracker, that responded successfully, is moved to the front of its' tier (as specified in BEP-12).
+     *
+     * @since 1.8
+     */
+    SEQUENTIAL,
+
+    /**
+     * All trackers of a tier are queried simultaneously.
+     * The next tier is queried only if all trackers of the current tier have failed.
+     *
+     * @since 1.8
+     */
+    CONCURRENT_TIER,
+
+    /**
+     * All trackers of all tiers are queried simultaneously.
+     *
+     * @since 1.8
+     */
+    CONCURRENT_ALL
+}
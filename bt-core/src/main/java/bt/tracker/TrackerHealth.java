@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2016—2017 Andrei Tomashpolskiy and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package bt.tracker;
+
+import java.time.Duration;
+
+/**
+ * Keeps track of how reliably a tracker responds to requests.
+ *
+ * @since 1.8
+ */
+class TrackerHealth {
+
+    // weight of the latest outcome in the score
+    private static final double ALPHA = 0.3;
+    private static final double INITIAL_SCORE = 0.5;
+
+    // number of consecutive failures, after which the tracker is not queried for some time
+    private static final int BACKOFF_THRESHOLD = 3;
+    private static final Duration MIN_BACKOFF = Duration.ofMinutes(1);
+    private static final Duration MAX_BACKOFF = Duration.ofHours(1);
+
+    private double score;
+    private long averageLatency;
+    private int consecutiveFailures;
+    private long lastFailedAt;
+
+    TrackerHealth() {
+        this.score = INITIAL_SCORE;
+    }
+
+    synchronized void onSuccess(long latencyMillis) {
+        score = score * (1 - ALPHA) + ALPHA;
+        averageLatency = (averageLatency == 0) ? latencyMillis
+                : (long) (averageLatency * (1 - ALPHA) + latencyMillis * ALPHA);
+        consecutiveFailures = 0;
+    }
+
+    synchronized void onFailure() {
+        score = score * (1 - ALPHA);
+        consecutiveFailures++;
+        lastFailedAt = System.currentTimeMillis();
+    }
+
+    /**
+     * @return Value between 0 and 1; the higher, the more reliable the tracker is
+     */
+    synchronized double getScore() {
+        return score;
+    }
+
+    synchronized long getAverageLatency() {
+        return averageLatency;
+    }
+
+    /**
+     * @return true, if the tracker has failed several times in a row,
+     *         and not enough time has passed since the last failure
+     */
+    synchronized boolean isBackedOff() {
+        if (consecutiveFailures < BACKOFF_THRESHOLD) {
+            return false;
+        }
+        int exponent = Math.min(consecutiveFailures - BACKOFF_THRESHOLD, 6);
+        long backoff = Math.min(MIN_BACKOFF.toMillis() << exponent, MAX_BACKOFF.toMillis());
+        return System.currentTimeMillis() - lastFailedAt < backoff;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "TrackerHealth{score=" + score + ", averageLatency=" + averageLatency
+                + ", consecutiveFailures=" + consecutiveFailures + "}";
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) 2016—2017 Andrei Tomashpolskiy and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package bt.tracker;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Health of all trackers known to the runtime, shared among all torrents.
+ *
+ * @since 1.8
+ */
+class TrackerHealthRegistry {
+
+    private final ConcurrentMap<String, TrackerHealth> trackerHealth;
+
+    TrackerHealthRegistry() {
+        this.trackerHealth = new ConcurrentHashMap<>();
+    }
+
+    TrackerHealth getHealth(String trackerUrl) {
+        return trackerHealth.computeIfAbsent(trackerUrl, url -> new TrackerHealth());
+    }
+}
@@ -18,8 +18,12 @@ package bt.tracker;
 
 import bt.BtException;
 import bt.metainfo.TorrentId;
+import bt.net.Peer;
 
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /**
  * Base class for tracker request builders.
@@ -75,6 +79,88 @@ public abstract class TrackerRequestBuilder {
      */
     public abstract TrackerResponse query();
 
+    /**
+     * Announce to tracker, that the client is starting a torrent session, without waiting for the response.
+     *
+     * <p>Default implementation performs a blocking {@link #start()} in the calling thread;
+     * trackers, that are capable of non-blocking I/O, should override this method.</p>
+     *
+     * @return Future tracker response
+     * @since 1.8
+     */
+    public CompletableFuture<TrackerResponse> startAsync() {
+        return callSynchronously(this::start);
+    }
+
+    /**
+     * Announce to tracker, that the client is stopping a torrent session, without waiting for the response.
+     *
+     * <p>Default implementation performs a blocking {@link #stop()} in the calling thread;
+     * trackers, that are capable of non-blocking I/O, should override this method.</p>
+     *
+     * @return Future tracker response
+     * @since 1.8
+     */
+    public CompletableFuture<TrackerResponse> stopAsync() {
+        return callSynchronously(this::stop);
+    }
+
+    /**
+     * Announce to tracker, that the client has completed downloading the torrent, without waiting for the response.
+     *
+     * <p>Default implementation performs a blocking {@link #complete()} in the calling thread;
+     * trackers, that are capable of non-blocking I/O, should override this method.</p>
+     *
+     * @return Future tracker response
+     * @since 1.8
+     */
+    public CompletableFuture<TrackerResponse> completeAsync() {
+        return callSynchronously(this::complete);
+    }
+
+    /**
+     * Query tracker for active peers without waiting for the response.
+     *
+     * <p>Default implementation performs a blocking {@link #query()} in the calling thread;
+     * trackers, that are capable of non-blocking I/O, should override this method.</p>
+     *
+     * @return Future tracker response
+     * @since 1.8
+     */
+    public CompletableFuture<TrackerResponse> queryAsync() {
+        return callSynchronously(this::query);
+    }
+
+    /**
+     * Query tracker for active peers without waiting for the response,
+     * and pass the peers to the consumer as soon as they are received.
+     *
+     * <p>Trackers, that aggregate responses of several other trackers, may pass peers to the consumer
+     * in several batches, including after the returned future has been completed.</p>
+     *
+     * @param peerConsumer Consumer of the received peers
+     * @return Future tracker response
+     * @since 1.8
+     */
+    public CompletableFuture<TrackerResponse> queryAsync(Consumer<Peer> peerConsumer) {
+        return queryAsync().thenApply(response -> {
+            if (response.isSuccess()) {
+                response.getPeers().forEach(peerConsumer);
+            }
+            return response;
+        });
+    }
+
+    private static CompletableFuture<TrackerResponse> callSynchronously(Supplier<TrackerResponse> call) {
+        CompletableFuture<TrackerResponse> future = new CompletableFuture<>();
+        try {
+            future.complete(call.get());
+        } catch (Exception e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
     /**
      * Optionally set the amount of data uploaded during the current session.
      *
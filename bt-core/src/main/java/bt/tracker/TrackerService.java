@@ -17,12 +17,19 @@
 package bt.tracker;
 
 import bt.BtException;
+import bt.CountingThreadFactory;
 import bt.module.TrackerFactories;
+import bt.runtime.Config;
+import bt.service.IRuntimeLifecycleBinder;
 import com.google.inject.Inject;
 
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  *<p><b>Note that this class implements a service.
@@ -30,13 +37,41 @@ import java.util.concurrent.ConcurrentMap;
  */
 public class TrackerService implements ITrackerService {
 
+    // trackers, that perform non-blocking I/O, release the thread as soon as the request is sent,
+    // so these threads are only occupied by blocking trackers
+    private static final int MAX_MULTI_TRACKER_THREADS = 8;
+
     private Map<String, TrackerFactory> trackerFactories;
     private ConcurrentMap<String, Tracker> knownTrackers;
 
-    @Inject
+    private MultiTrackerPolicy multiTrackerPolicy;
+    private TrackerHealthRegistry healthRegistry;
+    private ExecutorService executor;
+
     public TrackerService(@TrackerFactories Map<String, TrackerFactory> trackerFactories) {
         this.trackerFactories = trackerFactories;
         this.knownTrackers = new ConcurrentHashMap<>();
+        this.multiTrackerPolicy = MultiTrackerPolicy.SEQUENTIAL;
+        this.healthRegistry = new TrackerHealthRegistry();
+    }
+
+    /**
+     * @since 1.8
+     */
+    @Inject
+    public TrackerService(@TrackerFactories Map<String, TrackerFactory> trackerFactories,
+                          IRuntimeLifecycleBinder lifecycleBinder,
+                          Config config) {
+        this(trackerFactories);
+        this.multiTrackerPolicy = config.getMultiTrackerPolicy();
+        if (multiTrackerPolicy != MultiTrackerPolicy.SEQUENTIAL) {
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                    MAX_MULTI_TRACKER_THREADS, MAX_MULTI_TRACKER_THREADS, 1, TimeUnit.MINUTES,
+                    new LinkedBlockingQueue<>(), CountingThreadFactory.daemonFactory("bt.tracker.multi-tracker"));
+            executor.allowCoreThreadTimeOut(true);
+            this.executor = executor;
+            lifecycleBinder.onShutdown("Shutdown multi-tracker executor", executor::shutdownNow);
+        }
     }
 
     @Override
@@ -52,7 +87,7 @@ public class TrackerService implements ITrackerService {
     @Override
     public Tracker getTracker(AnnounceKey announceKey) {
         if (announceKey.isMultiKey()) {
-            return new MultiTracker(this, announceKey);
+            return new MultiTracker(this, announceKey, true, multiTrackerPolicy, healthRegistry, executor);
         } else {
             return getOrCreateTracker(announceKey.getTrackerUrl());
         }
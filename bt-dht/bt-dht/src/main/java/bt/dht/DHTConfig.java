@@ -18,6 +18,8 @@ package bt.dht;
 
 import bt.net.InetPeerAddress;
 
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
@@ -33,6 +35,11 @@ public class DHTConfig {
     private boolean useRouterBootstrap;
     private boolean useIPv6;
     private Collection<InetPeerAddress> bootstrapNodes;
+    private Path storageDirectory;
+    private Duration peerLookupInterval;
+    private Duration announceInterval;
+    private int maxLookupsPerSecond;
+    private boolean shouldAnnounce;
 
     private final Collection<InetPeerAddress> publicBootstrapNodes;
 
@@ -44,6 +51,10 @@ public class DHTConfig {
         this.useRouterBootstrap = false;
         this.useIPv6 = false;
         this.bootstrapNodes = Collections.emptyList();
+        this.peerLookupInterval = Duration.ofMinutes(5);
+        this.announceInterval = Duration.ofMinutes(15);
+        this.maxLookupsPerSecond = 10;
+        this.shouldAnnounce = true;
 
         this.publicBootstrapNodes = Arrays.asList(
             new InetPeerAddress("router.bittorrent.com", 6881),
@@ -117,6 +128,99 @@ public class DHTConfig {
         this.bootstrapNodes = bootstrapNodes;
     }
 
+    /**
+     * @see #setStorageDirectory(Path)
+     * @since 1.8
+     */
+    public Path getStorageDirectory() {
+        return storageDirectory;
+    }
+
+    /**
+     * @param storageDirectory Directory to persist the local node ID and routing table to
+     *                         (periodically and on shutdown). The persisted state is restored on startup,
+     *                         so that the DHT service does not have to bootstrap from scratch after each restart.
+     *                         The directory will be created, if it does not exist.
+     *                         If not set (default), a temporary directory is used, and the state is not persisted.
+     * @since 1.8
+     */
+    public void setStorageDirectory(Path storageDirectory) {
+        this.storageDirectory = storageDirectory;
+    }
+
+    /**
+     * @see #setPeerLookupInterval(Duration)
+     * @since 1.8
+     */
+    public Duration getPeerLookupInterval() {
+        return peerLookupInterval;
+    }
+
+    /**
+     * @param peerLookupInterval Interval between successive peer lookups for the same torrent.
+     *                           Actual interval is randomized by up to 20% to spread the lookups
+     *                           for multiple torrents over time.
+     * @since 1.8
+     */
+    public void setPeerLookupInterval(Duration peerLookupInterval) {
+        this.peerLookupInterval = peerLookupInterval;
+    }
+
+    /**
+     * @see #setAnnounceInterval(Duration)
+     * @since 1.8
+     */
+    public Duration getAnnounceInterval() {
+        return announceInterval;
+    }
+
+    /**
+     * @param announceInterval Interval between successive announces of the local peer for the same torrent.
+     *                         Actual interval is randomized by up to 20%.
+     *                         Announce is combined with the peer lookup, if both are due.
+     * @since 1.8
+     */
+    public void setAnnounceInterval(Duration announceInterval) {
+        this.announceInterval = announceInterval;
+    }
+
+    /**
+     * @see #setMaxLookupsPerSecond(int)
+     * @since 1.8
+     */
+    public int getMaxLookupsPerSecond() {
+        return maxLookupsPerSecond;
+    }
+
+    /**
+     * @param maxLookupsPerSecond Max number of peer lookups (including announces) to start each second.
+     *                            Lookups that exceed this limit are postponed until the next second.
+     * @since 1.8
+     */
+    public void setMaxLookupsPerSecond(int maxLookupsPerSecond) {
+        if (maxLookupsPerSecond <= 0) {
+            throw new IllegalArgumentException("Invalid max lookups per second: " + maxLookupsPerSecond);
+        }
+        this.maxLookupsPerSecond = maxLookupsPerSecond;
+    }
+
+    /**
+     * @see #setShouldAnnounce(boolean)
+     * @since 1.8
+     */
+    public boolean shouldAnnounce() {
+        return shouldAnnounce;
+    }
+
+    /**
+     * @param shouldAnnounce Indicates whether the local peer should be announced to the DHT
+     *                       for active torrents (true by default)
+     * @since 1.8
+     */
+    public void setShouldAnnounce(boolean shouldAnnounce) {
+        this.shouldAnnounce = shouldAnnounce;
+    }
+
     /***************** NOT PUBLIC ******************/
 
     /**
@@ -0,0 +1,232 @@
+/*
+ * Copyright (c) 2016—2017 Andrei Tomashpolskiy and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package bt.dht;
+
+import bt.data.Bitfield;
+import bt.data.DataDescriptor;
+import bt.metainfo.TorrentId;
+import bt.metrics.Counter;
+import bt.metrics.Histogram;
+import bt.metrics.MetricNames;
+import bt.metrics.Metrics;
+import bt.net.Peer;
+import bt.peer.IPeerRegistry;
+import bt.torrent.TorrentDescriptor;
+import bt.torrent.TorrentRegistry;
+import com.google.inject.Provider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Batches DHT peer lookups and announces for all active torrents.
+ *
+ * <p>Each torrent has its' own lookup and announce schedules (randomized to avoid bursts),
+ * and the total number of lookups started per tick is limited.
+ * Announce is combined with the lookup, if both are due at the same time.
+ * Discovered peers are passed to the peer registry as soon as they are received.
+ *
+ * <p>{@link #processSchedules()} is expected to be invoked once per second.
+ *
+ * @since 1.8
+ */
+class DHTLookupScheduler {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DHTLookupScheduler.class);
+
+    private static final double JITTER = 0.2;
+    private static final Duration RETRY_INTERVAL = Duration.ofSeconds(30);
+
+    private final DHTService dhtService;
+    private final TorrentRegistry torrentRegistry;
+    private final Provider<IPeerRegistry> peerRegistryProvider;
+
+    private final int port;
+    private final boolean shouldAnnounce;
+    private final long lookupIntervalMillis;
+    private final long announceIntervalMillis;
+    private final long retryIntervalMillis;
+    private final int maxLookupsPerTick;
+
+    private final ConcurrentMap<TorrentId, Schedule> schedules;
+
+    private final boolean metricsEnabled;
+    private final Counter lookups;
+    private final Counter lookupFailures;
+    private final Histogram lookupTime;
+    private final Counter peersDiscovered;
+
+    DHTLookupScheduler(DHTService dhtService,
+                       TorrentRegistry torrentRegistry,
+                       Provider<IPeerRegistry> peerRegistryProvider,
+                       Metrics metrics,
+                       DHTConfig config,
+                       int port) {
+        this.dhtService = dhtService;
+        this.torrentRegistry = torrentRegistry;
+        this.peerRegistryProvider = peerRegistryProvider;
+        this.port = port;
+        this.shouldAnnounce = config.shouldAnnounce();
+        this.lookupIntervalMillis = config.getPeerLookupInterval().toMillis();
+        this.announceIntervalMillis = config.getAnnounceInterval().toMillis();
+        this.retryIntervalMillis = Math.min(RETRY_INTERVAL.toMillis(), lookupIntervalMillis);
+        this.maxLookupsPerTick = config.getMaxLookupsPerSecond();
+        this.schedules = new ConcurrentHashMap<>();
+
+        this.metricsEnabled = metrics.isEnabled();
+        this.lookups = metrics.counter(MetricNames.DHT_LOOKUPS);
+        this.lookupFailures = metrics.counter(MetricNames.DHT_LOOKUP_FAILURES);
+        this.lookupTime = metrics.histogram(MetricNames.DHT_LOOKUP_TIME);
+        this.peersDiscovered = metrics.counter(MetricNames.DHT_PEERS);
+    }
+
+    /**
+     * Start periodic lookups (and announces) for a given torrent.
+     * Has no effect, if the torrent is already scheduled.
+     * The first lookup will be performed during the next tick.
+     */
+    void schedule(TorrentId torrentId) {
+        schedules.computeIfAbsent(torrentId, id -> new Schedule(id, System.currentTimeMillis()));
+    }
+
+    /**
+     * Stop periodic lookups for a given torrent.
+     * Lookup that is currently in progress is not interrupted.
+     */
+    void unschedule(TorrentId torrentId) {
+        schedules.remove(torrentId);
+    }
+
+    /**
+     * @return true if periodic lookups are performed for a given torrent
+     */
+    boolean isScheduled(TorrentId torrentId) {
+        return schedules.containsKey(torrentId);
+    }
+
+    void processSchedules() {
+        long now = System.currentTimeMillis();
+        List<Schedule> due = schedules.values().stream()
+                .filter(schedule -> !schedule.inProgress && schedule.nextLookupAt <= now)
+                .sorted(Comparator.comparingLong(schedule -> schedule.nextLookupAt))
+                .collect(Collectors.toList());
+
+        int started = 0;
+        for (Schedule schedule : due) {
+            if (started >= maxLookupsPerTick) {
+                if (LOGGER.isTraceEnabled()) {
+                    LOGGER.trace("Lookup limit reached, postponing {} lookups", due.size() - started);
+                }
+                break;
+            }
+            Optional<TorrentDescriptor> descriptor = torrentRegistry.getDescriptor(schedule.torrentId);
+            if (!descriptor.isPresent() || !descriptor.get().isActive()) {
+                // will be re-scheduled by the peer source, if the torrent is resumed
+                schedules.remove(schedule.torrentId, schedule);
+                continue;
+            }
+            start(schedule, descriptor.get(), now);
+            started++;
+        }
+    }
+
+    private void start(Schedule schedule, TorrentDescriptor descriptor, long now) {
+        TorrentId torrentId = schedule.torrentId;
+        boolean announce = shouldAnnounce && schedule.nextAnnounceAt <= now;
+        Consumer<Peer> peerConsumer = peer -> {
+            peersDiscovered.inc();
+            peerRegistryProvider.get().addPeer(torrentId, peer);
+            if (LOGGER.isTraceEnabled()) {
+                LOGGER.trace(String.format("Collected new peer (torrent ID: %s, peer: %s)", torrentId, peer));
+            }
+        };
+
+        schedule.inProgress = true;
+        lookups.inc();
+        long started = metricsEnabled ? System.nanoTime() : 0;
+        CompletableFuture<Void> future;
+        try {
+            future = announce ?
+                    dhtService.announce(torrentId, port, isSeed(descriptor), peerConsumer)
+                    : dhtService.getPeers(torrentId, peerConsumer);
+        } catch (Exception e) {
+            future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+        }
+
+        future.whenComplete((result, e) -> {
+            long completedAt = System.currentTimeMillis();
+            if (metricsEnabled) {
+                lookupTime.update(System.nanoTime() - started);
+            }
+            if (e == null) {
+                schedule.nextLookupAt = completedAt + randomize(lookupIntervalMillis);
+                if (announce) {
+                    schedule.nextAnnounceAt = completedAt + randomize(announceIntervalMillis);
+                }
+                if (LOGGER.isTraceEnabled()) {
+                    LOGGER.trace("Peer {} finished for torrent ID: {}", announce ? "announce" : "lookup", torrentId);
+                }
+            } else {
+                lookupFailures.inc();
+                schedule.nextLookupAt = completedAt + randomize(retryIntervalMillis);
+                LOGGER.warn("Peer " + (announce ? "announce" : "lookup") + " failed for torrent ID: " + torrentId, e);
+            }
+            schedule.inProgress = false;
+        });
+    }
+
+    private static boolean isSeed(TorrentDescriptor descriptor) {
+        DataDescriptor dataDescriptor = descriptor.getDataDescriptor();
+        if (dataDescriptor == null) {
+            // metadata has not been fetched yet
+            return false;
+        }
+        Bitfield bitfield = dataDescriptor.getBitfield();
+        return bitfield.getPiecesComplete() == bitfield.getPiecesTotal();
+    }
+
+    private static long randomize(long intervalMillis) {
+        double factor = 1 - JITTER + ThreadLocalRandom.current().nextDouble() * JITTER * 2;
+        return (long) (intervalMillis * factor);
+    }
+
+    private static class Schedule {
+
+        private final TorrentId torrentId;
+
+        private volatile long nextLookupAt;
+        private volatile long nextAnnounceAt;
+        private volatile boolean inProgress;
+
+        Schedule(TorrentId torrentId, long createdAt) {
+            this.torrentId = torrentId;
+            this.nextLookupAt = createdAt;
+            this.nextAnnounceAt = createdAt;
+        }
+    }
+}
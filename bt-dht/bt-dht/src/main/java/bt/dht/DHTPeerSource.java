@@ -18,43 +18,41 @@ package bt.dht;
 
 import bt.metainfo.TorrentId;
 import bt.net.Peer;
-import bt.peer.ScheduledPeerSource;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import bt.peer.PeerSource;
 
-import java.util.concurrent.ExecutorService;
-import java.util.function.Consumer;
-import java.util.stream.Stream;
+import java.util.Collection;
+import java.util.Collections;
 
 /**
+ * Peer source, that delegates to the shared {@link DHTLookupScheduler}.
+ * Peers are passed directly to the peer registry as soon as they are discovered,
+ * so this peer source never has any peers of its' own.
+ *
  * @since 1.1
  */
-public class DHTPeerSource extends ScheduledPeerSource {
-
-    private static final Logger LOGGER = LoggerFactory.getLogger(DHTPeerSource.class);
-
-    private static final int MAX_PEERS_PER_COLLECTION = 50;
+public class DHTPeerSource implements PeerSource {
 
     private final TorrentId torrentId;
-    private final DHTService dhtService;
+    private final DHTLookupScheduler scheduler;
 
-    DHTPeerSource(TorrentId torrentId, DHTService dhtService, ExecutorService executor) {
-        super(executor);
+    DHTPeerSource(TorrentId torrentId, DHTLookupScheduler scheduler) {
         this.torrentId = torrentId;
-        this.dhtService = dhtService;
+        this.scheduler = scheduler;
+    }
+
+    @Override
+    public boolean update() {
+        scheduler.schedule(torrentId);
+        return false;
+    }
+
+    @Override
+    public Collection<Peer> getPeers() {
+        return Collections.emptyList();
     }
 
     @Override
-    protected void collectPeers(Consumer<Peer> peerConsumer) {
-        Stream<Peer> peerStream = dhtService.getPeers(torrentId).limit(MAX_PEERS_PER_COLLECTION);
-        peerStream.forEach(peer -> {
-            peerConsumer.accept(peer);
-            if (LOGGER.isTraceEnabled()) {
-                LOGGER.trace(String.format("Collected new peer (torrent ID: %s, peer: %s)", torrentId, peer));
-            }
-        });
-        if (LOGGER.isTraceEnabled()) {
-            LOGGER.info("Peer collection finished for torrent ID: " + torrentId);
-        }
+    public String toString() {
+        return "DHTPeerSource{torrentId=" + torrentId + '}';
     }
 }
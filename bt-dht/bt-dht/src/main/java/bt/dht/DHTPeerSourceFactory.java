@@ -16,16 +16,25 @@
 
 package bt.dht;
 
+import bt.event.EventSource;
 import bt.metainfo.TorrentId;
+import bt.metrics.Metrics;
+import bt.peer.IPeerRegistry;
 import bt.peer.PeerSource;
 import bt.peer.PeerSourceFactory;
+import bt.runtime.Config;
 import bt.service.IRuntimeLifecycleBinder;
+import bt.torrent.TorrentRegistry;
 import com.google.inject.Inject;
+import com.google.inject.Provider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Factory of DHT peer sources
@@ -34,26 +43,58 @@ import java.util.concurrent.Executors;
  */
 public class DHTPeerSourceFactory implements PeerSourceFactory {
 
-    private DHTService dhtService;
-    private ExecutorService executor;
+    private static final Logger LOGGER = LoggerFactory.getLogger(DHTPeerSourceFactory.class);
+
+    private DHTLookupScheduler scheduler;
 
     private Map<TorrentId, DHTPeerSource> peerSources;
 
+    /**
+     * @param peerRegistryProvider Provider is used to break the circular dependency
+     *                             between the peer registry and peer source factories
+     * @since 1.8
+     */
     @Inject
     public DHTPeerSourceFactory(IRuntimeLifecycleBinder lifecycleBinder,
-                                DHTService dhtService) {
-        this.dhtService = dhtService;
-        this.executor = Executors.newCachedThreadPool(r -> new Thread(r, "bt.dht.executor"));
-        lifecycleBinder.onShutdown("Shutdown DHT peer sources", executor::shutdownNow);
+                                DHTService dhtService,
+                                TorrentRegistry torrentRegistry,
+                                EventSource eventSource,
+                                Provider<IPeerRegistry> peerRegistryProvider,
+                                Metrics metrics,
+                                Config config,
+                                DHTConfig dhtConfig) {
+        this.scheduler = new DHTLookupScheduler(dhtService, torrentRegistry, peerRegistryProvider,
+                metrics, dhtConfig, config.getAcceptorPort());
+
+        ScheduledExecutorService executor =
+                Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "bt.dht.lookup-scheduler"));
+        lifecycleBinder.onStartup("Schedule DHT peer lookups", () -> executor.scheduleWithFixedDelay(
+                this::processSchedules, 1, 1, TimeUnit.SECONDS));
+        lifecycleBinder.onShutdown("Shutdown DHT peer lookup scheduler", executor::shutdownNow);
 
         this.peerSources = new ConcurrentHashMap<>();
+
+        eventSource.onTorrentUnregistered(e -> onTorrentUnregistered(e.getTorrentId()));
+    }
+
+    private void onTorrentUnregistered(TorrentId torrentId) {
+        peerSources.remove(torrentId);
+        scheduler.unschedule(torrentId);
+    }
+
+    private void processSchedules() {
+        try {
+            scheduler.processSchedules();
+        } catch (Exception e) {
+            LOGGER.error("Unexpected error when processing DHT lookup schedules", e);
+        }
     }
 
     @Override
     public PeerSource getPeerSource(TorrentId torrentId) {
         DHTPeerSource peerSource = peerSources.get(torrentId);
         if (peerSource == null) {
-            peerSource = new DHTPeerSource(torrentId, dhtService, executor);
+            peerSource = new DHTPeerSource(torrentId, scheduler);
             DHTPeerSource existing = peerSources.putIfAbsent(torrentId, peerSource);
             if (existing != null) {
                 peerSource = existing;
@@ -20,6 +20,8 @@ import bt.metainfo.Torrent;
 import bt.metainfo.TorrentId;
 import bt.net.Peer;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
 
 /**
@@ -52,6 +54,41 @@ public interface DHTService {
      */
     Stream<Peer> getPeers(TorrentId torrentId);
 
+    /**
+     * Creates a peer lookup for a given torrent.
+     * Does not block the caller thread; peers are passed to the consumer as soon as they are received.
+     *
+     * @param peerConsumer Consumer of discovered peers. Is invoked from DHT threads.
+     * @return Future, that is completed when the current lookup is exhausted
+     * @since 1.8
+     */
+    CompletableFuture<Void> getPeers(TorrentId torrentId, Consumer<Peer> peerConsumer);
+
+    /**
+     * Announce the local peer to the DHT nodes, that are closest to the torrent's info hash (announce_peer).
+     * Does not block the caller thread.
+     *
+     * @param port Port, on which the local peer accepts incoming connections
+     * @return Future, that is completed when the announce is finished
+     * @since 1.8
+     */
+    default CompletableFuture<Void> announce(TorrentId torrentId, int port) {
+        return announce(torrentId, port, false, peer -> {});
+    }
+
+    /**
+     * Announce the local peer to the DHT nodes, that are closest to the torrent's info hash (announce_peer).
+     * Peers, that are discovered during the lookup preceding the announce, are passed to the consumer.
+     * Does not block the caller thread.
+     *
+     * @param port Port, on which the local peer accepts incoming connections
+     * @param seed Indicates whether the local peer has the complete torrent
+     * @param peerConsumer Consumer of discovered peers. Is invoked from DHT threads.
+     * @return Future, that is completed when the announce is finished
+     * @since 1.8
+     */
+    CompletableFuture<Void> announce(TorrentId torrentId, int port, boolean seed, Consumer<Peer> peerConsumer);
+
     /**
      * Add a DHT node.
      *
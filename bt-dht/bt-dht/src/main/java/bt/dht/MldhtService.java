@@ -27,26 +27,30 @@ import bt.net.portmapping.PortMapper;
 import bt.runtime.Config;
 import bt.service.IRuntimeLifecycleBinder;
 import bt.service.LifecycleBinding;
-import com.google.common.io.Files;
 import com.google.inject.Inject;
 import lbms.plugins.mldht.DHTConfiguration;
 import lbms.plugins.mldht.kad.DHT;
 import lbms.plugins.mldht.kad.DHT.DHTtype;
 import lbms.plugins.mldht.kad.DHT.LogLevel;
 import lbms.plugins.mldht.kad.DHTLogger;
+import lbms.plugins.mldht.kad.tasks.AnnounceTask;
 import lbms.plugins.mldht.kad.tasks.PeerLookupTask;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.net.InetAddress;
 import java.net.SocketException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Collection;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
 
@@ -105,17 +109,20 @@ public class MldhtService implements DHTService {
     }
 
     private DHTConfiguration toMldhtConfig(DHTConfig config) {
+        boolean persistent = (config.getStorageDirectory() != null);
+        Path storagePath = getOrCreateStorageDirectory(config);
+
         return new DHTConfiguration() {
             private final ConcurrentMap<InetAddress, Boolean> couldUseCacheMap = new ConcurrentHashMap<>();
 
             @Override
             public boolean isPersistingID() {
-                return false;
+                return persistent;
             }
 
             @Override
             public Path getStoragePath() {
-                return Files.createTempDir().toPath();
+                return storagePath;
             }
 
             @Override
@@ -152,6 +159,22 @@ public class MldhtService implements DHTService {
         };
     }
 
+    private static Path getOrCreateStorageDirectory(DHTConfig config) {
+        Path storageDirectory = config.getStorageDirectory();
+        try {
+            if (storageDirectory == null) {
+                return Files.createTempDirectory("bt-dht");
+            } else {
+                if (LOGGER.isDebugEnabled()) {
+                    LOGGER.debug("DHT state will be persisted to directory: " + storageDirectory);
+                }
+                return Files.createDirectories(storageDirectory);
+            }
+        } catch (IOException e) {
+            throw new BtException("Failed to create DHT storage directory", e);
+        }
+    }
+
     private void start() {
         if (!dht.isRunning()) {
             try {
@@ -211,6 +234,46 @@ public class MldhtService implements DHTService {
         }
     }
 
+    @Override
+    public CompletableFuture<Void> getPeers(TorrentId torrentId, Consumer<Peer> peerConsumer) {
+        return lookup(torrentId, peerConsumer).thenApply(lookup -> null);
+    }
+
+    @Override
+    public CompletableFuture<Void> announce(TorrentId torrentId, int port, boolean seed, Consumer<Peer> peerConsumer) {
+        return lookup(torrentId, peerConsumer).thenCompose(lookup -> {
+            CompletableFuture<Void> future = new CompletableFuture<>();
+            // announce task reuses the tokens, that have been received during the lookup
+            AnnounceTask announce = dht.announce(lookup, seed, port);
+            if (announce == null) {
+                future.completeExceptionally(new BtException("DHT is not running"));
+            } else {
+                announce.addListener(t -> future.complete(null));
+            }
+            return future;
+        });
+    }
+
+    private CompletableFuture<PeerLookupTask> lookup(TorrentId torrentId, Consumer<Peer> peerConsumer) {
+        if (!dht.isRunning()) {
+            CompletableFuture<PeerLookupTask> future = new CompletableFuture<>();
+            future.completeExceptionally(new BtException("DHT is not running"));
+            return future;
+        }
+        return dht.getServerManager().awaitActiveServer().thenCompose(server -> {
+            CompletableFuture<PeerLookupTask> future = new CompletableFuture<>();
+            PeerLookupTask lookup = dht.createPeerLookup(torrentId.getBytes());
+            if (lookup == null) {
+                future.completeExceptionally(new BtException("DHT is not running"));
+                return future;
+            }
+            lookup.setResultHandler((k, p) -> peerConsumer.accept(new InetPeer(p.getInetAddress(), p.getPort())));
+            lookup.addListener(t -> future.complete(lookup));
+            dht.getTaskManager().addTask(lookup);
+            return future;
+        });
+    }
+
     @Override
     public void addNode(Peer node) {
         addNode(node.getInetAddress().getHostAddress(), node.getPort());
@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) 2016—2017 Andrei Tomashpolskiy and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package bt.dht;
+
+import bt.metainfo.Torrent;
+import bt.metainfo.TorrentId;
+import bt.metrics.NoOpMetrics;
+import bt.net.InetPeer;
+import bt.net.Peer;
+import bt.peer.IPeerRegistry;
+import bt.torrent.TorrentDescriptor;
+import bt.torrent.TorrentRegistry;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class DHTLookupSchedulerTest {
+
+    private TorrentId torrentId1;
+    private TorrentId torrentId2;
+    private TorrentRegistry torrentRegistry;
+    private IPeerRegistry peerRegistry;
+    private MockDHTService dhtService;
+    private DHTConfig config;
+
+    @Before
+    public void setUp() {
+        torrentId1 = TorrentId.fromBytes(new byte[20]);
+        byte[] bytes = new byte[20];
+        bytes[0] = 1;
+        torrentId2 = TorrentId.fromBytes(bytes);
+
+        torrentRegistry = mock(TorrentRegistry.class);
+        mockActive(torrentId1, true);
+        mockActive(torrentId2, true);
+
+        peerRegistry = mock(IPeerRegistry.class);
+        dhtService = new MockDHTService();
+        config = new DHTConfig();
+    }
+
+    private void mockActive(TorrentId torrentId, boolean active) {
+        TorrentDescriptor descriptor = mock(TorrentDescriptor.class);
+        when(descriptor.isActive()).thenReturn(active);
+        when(torrentRegistry.getDescriptor(torrentId)).thenReturn(Optional.of(descriptor));
+    }
+
+    private DHTLookupScheduler createScheduler() {
+        return new DHTLookupScheduler(dhtService, torrentRegistry, () -> peerRegistry, new NoOpMetrics(), config, 6891);
+    }
+
+    @Test
+    public void testScheduler_FirstLookupIsCombinedWithAnnounce() {
+        DHTLookupScheduler scheduler = createScheduler();
+        scheduler.schedule(torrentId1);
+        scheduler.processSchedules();
+
+        assertEquals(1, dhtService.announces.size());
+        assertEquals(0, dhtService.lookups.size());
+        assertEquals(torrentId1, dhtService.announces.get(0));
+    }
+
+    @Test
+    public void testScheduler_AnnounceDisabled() {
+        config.setShouldAnnounce(false);
+        DHTLookupScheduler scheduler = createScheduler();
+        scheduler.schedule(torrentId1);
+        scheduler.processSchedules();
+
+        assertEquals(0, dhtService.announces.size());
+        assertEquals(1, dhtService.lookups.size());
+    }
+
+    @Test
+    public void testScheduler_PeersAreDeliveredToRegistry() {
+        Peer peer = new InetPeer(InetAddress.getLoopbackAddress(), 6881);
+        dhtService.peerToReturn = peer;
+
+        DHTLookupScheduler scheduler = createScheduler();
+        scheduler.schedule(torrentId1);
+        scheduler.processSchedules();
+
+        verify(peerRegistry).addPeer(torrentId1, peer);
+    }
+
+    @Test
+    public void testScheduler_NoRepeatedLookupBeforeInterval() {
+        DHTLookupScheduler scheduler = createScheduler();
+        scheduler.schedule(torrentId1);
+        scheduler.processSchedules();
+        scheduler.processSchedules();
+        scheduler.schedule(torrentId1);
+        scheduler.processSchedules();
+
+        assertEquals(1, dhtService.announces.size() + dhtService.lookups.size());
+    }
+
+    @Test
+    public void testScheduler_RateLimit() {
+        config.setMaxLookupsPerSecond(1);
+        DHTLookupScheduler scheduler = createScheduler();
+        scheduler.schedule(torrentId1);
+        scheduler.schedule(torrentId2);
+
+        scheduler.processSchedules();
+        assertEquals(1, dhtService.announces.size());
+
+        scheduler.processSchedules();
+        assertEquals(2, dhtService.announces.size());
+    }
+
+    @Test
+    public void testScheduler_InactiveTorrentIsUnscheduled() {
+        mockActive(torrentId1, false);
+        DHTLookupScheduler scheduler = createScheduler();
+        scheduler.schedule(torrentId1);
+        assertTrue(scheduler.isScheduled(torrentId1));
+
+        scheduler.processSchedules();
+        assertFalse(scheduler.isScheduled(torrentId1));
+        assertEquals(0, dhtService.announces.size() + dhtService.lookups.size());
+    }
+
+    private static class MockDHTService implements DHTService {
+
+        private final List<TorrentId> lookups = new ArrayList<>();
+        private final List<TorrentId> announces = new ArrayList<>();
+        private Peer peerToReturn;
+
+        @Override
+        public Stream<Peer> getPeers(Torrent torrent) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Stream<Peer> getPeers(TorrentId torrentId) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public CompletableFuture<Void> getPeers(TorrentId torrentId, Consumer<Peer> peerConsumer) {
+            lookups.add(torrentId);
+            return complete(peerConsumer);
+        }
+
+        @Override
+        public CompletableFuture<Void> announce(TorrentId torrentId, int port, boolean seed, Consumer<Peer> peerConsumer) {
+            announces.add(torrentId);
+            return complete(peerConsumer);
+        }
+
+        private CompletableFuture<Void> complete(Consumer<Peer> peerConsumer) {
+            if (peerToReturn != null) {
+                peerConsumer.accept(peerToReturn);
+            }
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public void addNode(Peer node) {
+        }
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2016—2017 Andrei Tomashpolskiy and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package bt.tracker.http;
+
+import bt.metainfo.TorrentId;
+import bt.net.Peer;
+import bt.peer.IPeerRegistry;
+import bt.protocol.crypto.EncryptionPolicy;
+import bt.service.IdentityService;
+import bt.tracker.SecretKey;
+import bt.tracker.TrackerRequestBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.net.InetAddress;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static bt.tracker.http.UrlEncoding.appendUrlEncoded;
+import static bt.tracker.http.UrlEncoding.urlEncode;
+
+/**
+ * Builds announce queries for HTTP trackers.
+ *
+ * Parameters, that do not change during the runtime's lifetime (peer ID, address, key, etc.),
+ * are encoded only once, and encoded info hashes of recently announced torrents are cached,
+ * so that only the transfer statistics have to be formatted on each announce.
+ *
+ * @since 1.8
+ */
+class AnnounceQueryBuilder {
+
+    /**
+     * @since 1.8
+     */
+    enum Event {
+        START("started"), STOP("stopped"), COMPLETE("completed"), QUERY(null);
+
+        private final String value;
+
+        Event(String value) {
+            this.value = value;
+        }
+    }
+
+    private static final int MAX_CACHED_INFO_HASHES = 256;
+
+    private final IdentityService idService;
+    private final IPeerRegistry peerRegistry;
+    private final EncryptionPolicy encryptionPolicy;
+    private final int numberOfPeersToRequestFromTracker;
+
+    private final Map<TorrentId, String> encodedInfoHashes;
+    private volatile String encodedStaticParameters;
+
+    AnnounceQueryBuilder(IdentityService idService,
+                         IPeerRegistry peerRegistry,
+                         EncryptionPolicy encryptionPolicy,
+                         int numberOfPeersToRequestFromTracker) {
+        this.idService = idService;
+        this.peerRegistry = peerRegistry;
+        this.encryptionPolicy = encryptionPolicy;
+        this.numberOfPeersToRequestFromTracker = numberOfPeersToRequestFromTracker;
+        this.encodedInfoHashes = Collections.synchronizedMap(
+                new LinkedHashMap<TorrentId, String>(16, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<TorrentId, String> eldest) {
+                        return size() > MAX_CACHED_INFO_HASHES;
+                    }
+                });
+    }
+
+    /**
+     * @param trackerId Tracker ID, received in one of the previous responses, or null
+     * @since 1.8
+     */
+    String buildQuery(Event event, TrackerRequestBuilder requestBuilder, byte[] trackerId) {
+        String encodedInfoHash = getEncodedInfoHash(requestBuilder.getTorrentId());
+        String staticParameters = getEncodedStaticParameters();
+
+        StringBuilder buf = new StringBuilder(encodedInfoHash.length() + staticParameters.length() + 128);
+
+        buf.append("info_hash=");
+        buf.append(encodedInfoHash);
+        buf.append(staticParameters);
+
+        buf.append("&uploaded=");
+        buf.append(requestBuilder.getUploaded());
+
+        buf.append("&downloaded=");
+        buf.append(requestBuilder.getDownloaded());
+
+        buf.append("&left=");
+        buf.append(requestBuilder.getLeft());
+
+        if (trackerId != null) {
+            buf.append("&trackerid=");
+            appendUrlEncoded(buf, trackerId);
+        }
+
+        if (event.value != null) {
+            buf.append("&event=");
+            buf.append(event.value);
+        }
+
+        return buf.toString();
+    }
+
+    private String getEncodedInfoHash(TorrentId torrentId) {
+        String encodedInfoHash = encodedInfoHashes.get(torrentId);
+        if (encodedInfoHash == null) {
+            encodedInfoHash = urlEncode(torrentId.getBytes());
+            encodedInfoHashes.put(torrentId, encodedInfoHash);
+        }
+        return encodedInfoHash;
+    }
+
+    // built lazily, because the peer registry might not be available at the time of instantiation
+    private String getEncodedStaticParameters() {
+        if (encodedStaticParameters == null) {
+            // races are harmless here, because the result is always the same
+            encodedStaticParameters = buildStaticParameters();
+        }
+        return encodedStaticParameters;
+    }
+
+    private String buildStaticParameters() {
+        StringBuilder buf = new StringBuilder();
+
+        buf.append("&peer_id=");
+        appendUrlEncoded(buf, idService.getLocalPeerId().getBytes());
+
+        Peer peer = peerRegistry.getLocalPeer();
+        InetAddress inetAddress = peer.getInetAddress();
+        if (inetAddress != null) {
+            buf.append("&ip=");
+            appendUrlEncoded(buf, inetAddress.getHostAddress().getBytes());
+        }
+
+        buf.append("&port=");
+        buf.append(peer.getPort());
+
+        buf.append("&compact=1");
+        buf.append("&numwant=");
+        buf.append(numberOfPeersToRequestFromTracker);
+
+        Optional<SecretKey> secretKey = idService.getSecretKey();
+        if (secretKey.isPresent()) {
+            buf.append("&key=");
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            secretKey.get().writeTo(bos);
+            appendUrlEncoded(buf, bos.toByteArray());
+        }
+
+        switch (encryptionPolicy) {
+            case PREFER_PLAINTEXT: {
+                buf.append("&supportcrypto=1");
+                break;
+            }
+            case PREFER_ENCRYPTED:
+            case REQUIRE_ENCRYPTED: {
+                buf.append("&requirecrypto=1");
+                break;
+            }
+            default: {
+                // do nothing
+            }
+        }
+
+        return buf.toString();
+    }
+}
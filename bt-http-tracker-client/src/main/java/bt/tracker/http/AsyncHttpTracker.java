@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2016—2017 Andrei Tomashpolskiy and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package bt.tracker.http;
+
+import bt.BtException;
+import bt.metainfo.TorrentId;
+import bt.tracker.Tracker;
+import bt.tracker.TrackerRequestBuilder;
+import bt.tracker.TrackerResponse;
+import bt.tracker.http.AnnounceQueryBuilder.Event;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * HTTP tracker client, that performs announces asynchronously
+ * via a connection pool shared with all other HTTP trackers of the runtime.
+ *
+ * Requests do not occupy a thread while waiting for the tracker's response,
+ * when performed via the asynchronous methods of the {@link TrackerRequestBuilder}
+ * (e.g. {@link TrackerRequestBuilder#queryAsync()});
+ * blocking methods wait for the same future in the calling thread.
+ *
+ * @since 1.8
+ */
+public class AsyncHttpTracker implements Tracker {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AsyncHttpTracker.class);
+
+    private final URI baseUri;
+    private final String baseUrlWithQuerySeparator;
+    private final AsyncHttpTrackerClient client;
+    private final AnnounceQueryBuilder queryBuilder;
+
+    private volatile byte[] trackerId;
+
+    AsyncHttpTracker(String trackerUrl, AsyncHttpTrackerClient client, AnnounceQueryBuilder queryBuilder) {
+        try {
+            this.baseUri = new URI(trackerUrl);
+        } catch (URISyntaxException e) {
+            throw new BtException("Invalid URL: " + trackerUrl, e);
+        }
+
+        String baseUrl = baseUri.toASCIIString();
+        if (baseUrl.endsWith("/")) {
+            baseUrl = baseUrl.substring(0, baseUrl.length() - 1);
+        }
+        this.baseUrlWithQuerySeparator = baseUrl + (baseUri.getRawQuery() == null ? "?" : "&");
+
+        this.client = client;
+        this.queryBuilder = queryBuilder;
+    }
+
+    @Override
+    public TrackerRequestBuilder request(TorrentId torrentId) {
+        return new TrackerRequestBuilder(torrentId) {
+            @Override
+            public TrackerResponse start() {
+                return await(startAsync());
+            }
+
+            @Override
+            public TrackerResponse stop() {
+                return await(stopAsync());
+            }
+
+            @Override
+            public TrackerResponse complete() {
+                return await(completeAsync());
+            }
+
+            @Override
+            public TrackerResponse query() {
+                return await(queryAsync());
+            }
+
+            @Override
+            public CompletableFuture<TrackerResponse> startAsync() {
+                return announce(Event.START, this);
+            }
+
+            @Override
+            public CompletableFuture<TrackerResponse> stopAsync() {
+                return announce(Event.STOP, this);
+            }
+
+            @Override
+            public CompletableFuture<TrackerResponse> completeAsync() {
+                return announce(Event.COMPLETE, this);
+            }
+
+            @Override
+            public CompletableFuture<TrackerResponse> queryAsync() {
+                return announce(Event.QUERY, this);
+            }
+        };
+    }
+
+    /**
+     * Send an announce to the tracker without blocking the calling thread.
+     *
+     * @return Future, that is always completed normally:
+     *         failures are reported via {@link TrackerResponse#exceptional(Throwable)}
+     * @since 1.8
+     */
+    CompletableFuture<TrackerResponse> announce(Event event, TrackerRequestBuilder requestBuilder) {
+        String requestUri = baseUrlWithQuerySeparator + queryBuilder.buildQuery(event, requestBuilder, trackerId);
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Executing tracker HTTP request of type " + event.name() +
+                    "; request URL: " + requestUri);
+        }
+        return client.execute(requestUri).thenApply(response -> {
+            if (response.isSuccess()) {
+                response.getTrackerId().ifPresent(id -> trackerId = id);
+            }
+            return response;
+        });
+    }
+
+    private static TrackerResponse await(CompletableFuture<TrackerResponse> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return TrackerResponse.exceptional(new BtException("Unexpectedly interrupted while waiting for response from the tracker", e));
+        } catch (ExecutionException e) {
+            return TrackerResponse.exceptional(e.getCause());
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "AsyncHttpTracker{" +
+                "baseUri=" + baseUri +
+                '}';
+    }
+}
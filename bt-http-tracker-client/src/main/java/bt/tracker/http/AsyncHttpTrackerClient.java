@@ -0,0 +1,229 @@
+/*
+ * Copyright (c) 2016—2017 Andrei Tomashpolskiy and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package bt.tracker.http;
+
+import bt.BtException;
+import bt.runtime.Config;
+import bt.service.IRuntimeLifecycleBinder;
+import bt.tracker.TrackerResponse;
+import org.apache.http.ConnectionClosedException;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.entity.GzipDecompressingEntity;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.reactor.IOReactorException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Non-blocking HTTP client, shared by all HTTP trackers of a runtime.
+ *
+ * Connections are pooled and kept alive between announces to the same tracker host;
+ * the number of simultaneous connections to each host is limited,
+ * and requests in excess of this limit are queued until a connection becomes available.
+ * Responses are requested and accepted in gzip-compressed form.
+ * A request is retried once, if the pooled connection turns out to have been closed by the tracker.
+ *
+ * @since 1.8
+ */
+class AsyncHttpTrackerClient {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AsyncHttpTrackerClient.class);
+
+    private static final int MAX_CONNECTIONS_TOTAL = 64;
+    private static final Duration MAX_IDLE_TIME = Duration.ofMinutes(1);
+
+    private final InetAddress localAddress;
+    private final int maxConnectionsPerHost;
+    private final Duration connectTimeout;
+    private final Duration socketTimeout;
+    private final CommonsHttpResponseHandler responseHandler;
+
+    private volatile PoolingNHttpClientConnectionManager connectionManager;
+    private volatile CloseableHttpAsyncClient client;
+    private volatile boolean shutdown;
+    private final Object lock;
+
+    private volatile long lastEvictedIdle;
+
+    AsyncHttpTrackerClient(InetAddress localAddress, IRuntimeLifecycleBinder lifecycleBinder, Config config) {
+        this.localAddress = localAddress;
+        this.maxConnectionsPerHost = config.getMaxTrackerConnectionsPerHost();
+        this.connectTimeout = config.getTrackerConnectionTimeout();
+        this.socketTimeout = config.getTrackerResponseTimeout();
+        this.responseHandler = new CommonsHttpResponseHandler(new HttpResponseHandler());
+        this.lock = new Object();
+
+        lifecycleBinder.onShutdown("Shutdown HTTP tracker client", this::shutdown);
+    }
+
+    /**
+     * Execute a GET request asynchronously.
+     *
+     * @param requestUri Full request URI, including the query
+     * @return Future, that is always completed normally:
+     *         failures are reported via {@link TrackerResponse#exceptional(Throwable)}
+     * @since 1.8
+     */
+    CompletableFuture<TrackerResponse> execute(String requestUri) {
+        CompletableFuture<TrackerResponse> future = new CompletableFuture<>();
+
+        URI uri;
+        try {
+            uri = new URI(requestUri);
+        } catch (Exception e) {
+            future.complete(TrackerResponse.exceptional(new BtException("Invalid tracker request URI: " + requestUri, e)));
+            return future;
+        }
+        execute(uri, future, true);
+        return future;
+    }
+
+    private void execute(URI uri, CompletableFuture<TrackerResponse> future, boolean mayRetry) {
+        HttpGet request = new HttpGet(uri);
+        request.setHeader(HttpHeaders.ACCEPT_ENCODING, "gzip");
+
+        CloseableHttpAsyncClient client;
+        try {
+            client = getClient();
+        } catch (Exception e) {
+            future.complete(TrackerResponse.exceptional(e));
+            return;
+        }
+        evictIdleConnectionsIfNeeded();
+
+        client.execute(request, new FutureCallback<HttpResponse>() {
+            @Override
+            public void completed(HttpResponse response) {
+                try {
+                    future.complete(responseHandler.handleResponse(decompressIfNeeded(response)));
+                } catch (Exception e) {
+                    future.complete(TrackerResponse.exceptional(new BtException("Failed to read tracker response", e)));
+                }
+            }
+
+            @Override
+            public void failed(Exception e) {
+                // kept-alive connection might have been closed by the tracker, while it was idle in the pool;
+                // announce is a GET request, so it's safe to repeat it
+                if (mayRetry && e instanceof ConnectionClosedException) {
+                    if (LOGGER.isDebugEnabled()) {
+                        LOGGER.debug("Connection has been closed by the tracker, will retry request: " + uri);
+                    }
+                    execute(uri, future, false);
+                } else {
+                    future.complete(TrackerResponse.exceptional(e));
+                }
+            }
+
+            @Override
+            public void cancelled() {
+                future.complete(TrackerResponse.exceptional(new BtException("Tracker request was cancelled")));
+            }
+        });
+    }
+
+    private static HttpResponse decompressIfNeeded(HttpResponse response) {
+        HttpEntity entity = response.getEntity();
+        if (entity != null) {
+            Header contentEncoding = entity.getContentEncoding();
+            if (contentEncoding != null && "gzip".equalsIgnoreCase(contentEncoding.getValue().trim())) {
+                response.setEntity(new GzipDecompressingEntity(entity));
+            }
+        }
+        return response;
+    }
+
+    private CloseableHttpAsyncClient getClient() throws IOReactorException {
+        if (client == null) {
+            synchronized (lock) {
+                if (shutdown) {
+                    throw new BtException("HTTP tracker client has been shut down");
+                }
+                if (client == null) {
+                    client = createClient();
+                    client.start();
+                }
+            }
+        }
+        return client;
+    }
+
+    private CloseableHttpAsyncClient createClient() throws IOReactorException {
+        IOReactorConfig reactorConfig = IOReactorConfig.custom()
+                .setIoThreadCount(1)
+                .setConnectTimeout((int) connectTimeout.toMillis())
+                .setSoTimeout((int) socketTimeout.toMillis())
+                .build();
+
+        connectionManager = new PoolingNHttpClientConnectionManager(new DefaultConnectingIOReactor(reactorConfig,
+                r -> new Thread(r, "bt.tracker.http.io-reactor")));
+        connectionManager.setDefaultMaxPerRoute(maxConnectionsPerHost);
+        connectionManager.setMaxTotal(MAX_CONNECTIONS_TOTAL);
+
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setLocalAddress(localAddress)
+                .setConnectTimeout((int) connectTimeout.toMillis())
+                .setSocketTimeout((int) socketTimeout.toMillis())
+                // time to wait for a free connection to the tracker's host, when the per-host limit is reached
+                .setConnectionRequestTimeout((int) connectTimeout.plus(socketTimeout).toMillis())
+                .build();
+
+        return HttpAsyncClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .build();
+    }
+
+    private void evictIdleConnectionsIfNeeded() {
+        long now = System.currentTimeMillis();
+        if (now - lastEvictedIdle >= MAX_IDLE_TIME.toMillis()) {
+            lastEvictedIdle = now;
+            connectionManager.closeExpiredConnections();
+            connectionManager.closeIdleConnections(MAX_IDLE_TIME.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void shutdown() {
+        synchronized (lock) {
+            shutdown = true;
+            if (client != null) {
+                try {
+                    client.close();
+                } catch (IOException e) {
+                    LOGGER.warn("Failed to shutdown HTTP tracker client", e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2016—2017 Andrei Tomashpolskiy and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package bt.tracker.http;
+
+import bt.peer.IPeerRegistry;
+import bt.runtime.Config;
+import bt.service.IRuntimeLifecycleBinder;
+import bt.service.IdentityService;
+import bt.tracker.Tracker;
+import bt.tracker.TrackerFactory;
+import com.google.inject.Inject;
+
+/**
+ * Creates asynchronous HTTP tracker clients, that share a single pool of persistent connections.
+ *
+ * @since 1.8
+ */
+public class AsyncHttpTrackerFactory implements TrackerFactory {
+
+    private final AsyncHttpTrackerClient client;
+    private final AnnounceQueryBuilder queryBuilder;
+
+    @Inject
+    public AsyncHttpTrackerFactory(IdentityService idService,
+                                   IPeerRegistry peerRegistry,
+                                   IRuntimeLifecycleBinder lifecycleBinder,
+                                   Config config) {
+        this.client = new AsyncHttpTrackerClient(config.getAcceptorAddress(), lifecycleBinder, config);
+        this.queryBuilder = new AnnounceQueryBuilder(idService, peerRegistry,
+                config.getEncryptionPolicy(), config.getNumberOfPeersToRequestFromTracker());
+    }
+
+    @Override
+    public Tracker getTracker(String trackerUrl) {
+        return new AsyncHttpTracker(trackerUrl, client, queryBuilder);
+    }
+}
@@ -17,29 +17,29 @@
 package bt.tracker.http;
 
 import bt.BtException;
-import bt.bencoding.BEParser;
-import bt.bencoding.model.BEMap;
-import bt.bencoding.model.BEObject;
-import bt.bencoding.model.BEObjectModel;
+import bt.bencoding.BEReader;
+import bt.bencoding.BEReader.Token;
+import bt.bencoding.BtParseException;
+import bt.bencoding.model.CompiledBEObjectModel;
 import bt.bencoding.model.ValidationResult;
 import bt.bencoding.model.YamlBEObjectModelLoader;
 import bt.tracker.CompactPeerInfo;
-import bt.tracker.TrackerResponse;
 import bt.tracker.CompactPeerInfo.AddressType;
+import bt.tracker.TrackerResponse;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.math.BigInteger;
 import java.nio.charset.Charset;
 import java.util.Arrays;
-import java.util.Map;
-
-import static bt.bencoding.model.ClassUtil.cast;
 
 /**
  * Basic HTTP tracker response handler,
  * that is expecting a response in the format specified in BEP-3.
  *
+ * <p>Response is validated against the /tracker_response.yml model and then read in a streaming fashion,
+ * without building a tree of bencoded objects; unknown keys are skipped.
+ *
  * @since 1.0
  */
 class HttpResponseHandler {
@@ -54,16 +54,15 @@ class HttpResponseHandler {
     private static final String PEERS_KEY = "peers";
     private static final String CRYPTO_FLAGS_KEY = "crypto_flags";
 
-    private BEObjectModel trackerResponseModel;
+    private final CompiledBEObjectModel trackerResponseModel;
 
     /**
      * @since 1.0
      */
     public HttpResponseHandler() {
-
         try {
             try (InputStream in = HttpResponseHandler.class.getResourceAsStream("/tracker_response.yml")) {
-                trackerResponseModel = new YamlBEObjectModelLoader().load(in);
+                trackerResponseModel = CompiledBEObjectModel.compile(new YamlBEObjectModelLoader().load(in));
             }
         } catch (IOException e) {
             throw new BtException("Failed to create tracker response handler", e);
@@ -77,11 +76,23 @@ class HttpResponseHandler {
      * @since 1.0
      */
     public TrackerResponse handleResponse(InputStream in, Charset charset) {
-        try (BEParser parser = new BEParser(in)) {
-            return handleResponse(parser, charset);
+        byte[] bytes;
+        try {
+            bytes = readAllBytes(in);
         } catch (Exception e) {
             return TrackerResponse.exceptional(e);
         }
+        return handleResponse(bytes, charset);
+    }
+
+    private static byte[] readAllBytes(InputStream in) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        byte[] buf = new byte[8192];
+        int read;
+        while ((read = in.read(buf)) > 0) {
+            bos.write(buf, 0, read);
+        }
+        return bos.toByteArray();
     }
 
     /**
@@ -91,81 +102,113 @@ class HttpResponseHandler {
      * @since 1.0
      */
     public TrackerResponse handleResponse(byte[] bytes, Charset charset) {
-        try (BEParser parser = new BEParser(bytes)) {
-            return handleResponse(parser, charset);
-        } catch (Exception e) {
-            return TrackerResponse.exceptional(e);
-        }
-    }
-
-    private TrackerResponse handleResponse(BEParser parser, Charset charset) {
-
-        BEMap responseMap = parser.readMap();
-
-        ValidationResult validationResult = trackerResponseModel.validate(responseMap);
-        if (!validationResult.isSuccess()) {
-            return TrackerResponse.exceptional(new BtException("Validation failed for tracker response: "
-                    + Arrays.toString(validationResult.getMessages().toArray())));
-        }
-
         try {
-            return buildResponse(responseMap, charset);
+            ValidationResult validationResult = trackerResponseModel.validate(new BEReader(bytes));
+            if (!validationResult.isSuccess()) {
+                return TrackerResponse.exceptional(new BtException("Validation failed for tracker response: "
+                        + Arrays.toString(validationResult.getMessages().toArray())));
+            }
+            return buildResponse(new BEReader(bytes), charset);
+        } catch (BtParseException e) {
+            return TrackerResponse.exceptional(e);
         } catch (Exception e) {
             return TrackerResponse.exceptional(new BtException("Invalid tracker response format", e));
         }
     }
 
-    private TrackerResponse buildResponse(BEMap root, Charset charset) throws Exception {
+    private TrackerResponse buildResponse(BEReader reader, Charset charset) {
+
+        // types of the values have been checked during validation
+        reader.nextToken();
+
+        String failureReason = null, warningMessage = null;
+        Long interval = null, minInterval = null, complete = null, incomplete = null;
+        byte[] trackerId = null, peers = null, cryptoFlags = null;
+
+        while (reader.nextToken() != Token.END) {
+            String key = reader.readString();
+            reader.nextToken();
+            switch (key) {
+                case FAILURE_REASON_KEY: {
+                    failureReason = reader.readString(charset);
+                    break;
+                }
+                case WARNING_MESSAGE_KEY: {
+                    warningMessage = reader.readString(charset);
+                    break;
+                }
+                case INTERVAL_KEY: {
+                    interval = reader.readLong();
+                    break;
+                }
+                case MIN_INTERVAL_KEY: {
+                    minInterval = reader.readLong();
+                    break;
+                }
+                case TRACKER_ID_KEY: {
+                    trackerId = reader.readBytes();
+                    break;
+                }
+                case COMPLETE_KEY: {
+                    complete = reader.readLong();
+                    break;
+                }
+                case INCOMPLETE_KEY: {
+                    incomplete = reader.readLong();
+                    break;
+                }
+                case PEERS_KEY: {
+                    peers = reader.readBytes();
+                    break;
+                }
+                case CRYPTO_FLAGS_KEY: {
+                    cryptoFlags = reader.readBytes();
+                    break;
+                }
+                default: {
+                    reader.skipValue();
+                }
+            }
+        }
 
         TrackerResponse response;
-
-        Map<String, BEObject<?>> responseMap = root.getValue();
-        if (responseMap.get(FAILURE_REASON_KEY) != null) {
-
-            byte[] failureReason = cast(byte[].class, FAILURE_REASON_KEY, responseMap.get(FAILURE_REASON_KEY).getValue());
-            response = TrackerResponse.failure(new String(failureReason, charset));
-
+        if (failureReason != null) {
+            response = TrackerResponse.failure(failureReason);
         } else {
-            response = TrackerResponse.ok();
+            // interval and peers are required by BEP-3, when failure reason is not present
+            if (interval == null) {
+                throw new BtException("Missing required key: " + INTERVAL_KEY);
+            }
+            if (peers == null) {
+                throw new BtException("Missing required key: " + PEERS_KEY);
+            }
 
-            if (responseMap.get(WARNING_MESSAGE_KEY) != null) {
-                byte[] warningMessage = cast(byte[].class, WARNING_MESSAGE_KEY, responseMap.get(WARNING_MESSAGE_KEY).getValue());
-                response.setWarningMessage(new String(warningMessage, charset));
+            response = TrackerResponse.ok();
+            if (warningMessage != null) {
+                response.setWarningMessage(warningMessage);
             }
 
             // possible truncation of integer values is not a problem
-            BigInteger interval = cast(BigInteger.class, INTERVAL_KEY, responseMap.get(INTERVAL_KEY).getValue());
             response.setInterval(interval.intValue());
-
-            if (responseMap.get(MIN_INTERVAL_KEY) != null) {
-                BigInteger minInterval = cast(BigInteger.class, MIN_INTERVAL_KEY, responseMap.get(MIN_INTERVAL_KEY).getValue());
+            if (minInterval != null) {
                 response.setMinInterval(minInterval.intValue());
             }
-
-            if (responseMap.get(TRACKER_ID_KEY) != null) {
-                byte[] trackerId = cast(byte[].class, TRACKER_ID_KEY, responseMap.get(TRACKER_ID_KEY).getValue());
+            if (trackerId != null) {
                 response.setTrackerId(trackerId);
             }
-
-            if (responseMap.get(COMPLETE_KEY) != null) {
-                BigInteger complete = cast(BigInteger.class, COMPLETE_KEY, responseMap.get(COMPLETE_KEY).getValue());
+            if (complete != null) {
                 response.setSeederCount(complete.intValue());
             }
-
-            if (responseMap.get(INCOMPLETE_KEY) != null) {
-                BigInteger incomplete = cast(BigInteger.class, INCOMPLETE_KEY, responseMap.get(INCOMPLETE_KEY).getValue());
+            if (incomplete != null) {
                 response.setLeecherCount(incomplete.intValue());
             }
 
-            byte[] peers = cast(byte[].class, PEERS_KEY, responseMap.get(PEERS_KEY).getValue());
-            if (responseMap.get(CRYPTO_FLAGS_KEY) != null) {
-                byte[] cryptoFlags = cast(byte[].class, CRYPTO_FLAGS_KEY, responseMap.get(CRYPTO_FLAGS_KEY).getValue());
+            if (cryptoFlags != null) {
                 response.setPeers(new CompactPeerInfo(peers, AddressType.IPV4, cryptoFlags));
             } else {
                 response.setPeers(new CompactPeerInfo(peers, AddressType.IPV4));
             }
         }
-
         return response;
     }
 }
@@ -43,6 +43,8 @@ import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
+import static bt.tracker.http.UrlEncoding.urlEncode;
+
 /**
  * Simple implementation of an HTTP tracker client.
  *
@@ -241,32 +243,6 @@ public class HttpTracker implements Tracker {
         return buf.toString();
     }
 
-    private String urlEncode(byte[] bytes) {
-
-        StringBuilder buf = new StringBuilder();
-        for (byte b : bytes) {
-            char c = (char) b;
-            if   ( (c >= 48 && c <= 57) // 0-9
-                || (c >= 65 && c <= 90) // A-Z
-                || (c >= 97 && c <= 122) // a-z
-                ||  c == 45  // -
-                ||  c == 46  // .
-                ||  c == 95  // _
-                ||  c == 126 // ~
-            ) {
-                buf.append(c);
-            } else {
-                buf.append("%");
-                String hex = Integer.toHexString(b & 0xFF).toUpperCase();
-                if (hex.length() == 1) {
-                    buf.append("0");
-                }
-                buf.append(hex);
-            }
-        }
-        return buf.toString();
-    }
-
     @Override
     public String toString() {
         return "HttpTracker{" +
@@ -23,12 +23,14 @@ import com.google.inject.Module;
 /**
  * Provides support for integration with HTTP trackers.
  *
+ * Since 1.8 trackers are served by {@link AsyncHttpTrackerFactory}.
+ *
  * @since 1.0
  */
 public class HttpTrackerModule implements Module {
 
     @Override
     public void configure(Binder binder) {
-        ServiceModule.extend(binder).addTrackerFactory(HttpTrackerFactory.class, "http", "https");
+        ServiceModule.extend(binder).addTrackerFactory(AsyncHttpTrackerFactory.class, "http", "https");
     }
 }
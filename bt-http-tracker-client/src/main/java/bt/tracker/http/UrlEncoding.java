@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2016—2017 Andrei Tomashpolskiy and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package bt.tracker.http;
+
+/**
+ * Percent-encoding of binary values in tracker request queries.
+ *
+ * @since 1.8
+ */
+class UrlEncoding {
+
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+    /**
+     * Percent-encode a binary value, leaving only the unreserved characters (RFC 3986) as is.
+     *
+     * @since 1.8
+     */
+    static String urlEncode(byte[] bytes) {
+        StringBuilder buf = new StringBuilder(bytes.length * 3);
+        appendUrlEncoded(buf, bytes);
+        return buf.toString();
+    }
+
+    /**
+     * Percent-encode a binary value and append it to the provided buffer.
+     *
+     * @since 1.8
+     */
+    static void appendUrlEncoded(StringBuilder buf, byte[] bytes) {
+        for (byte b : bytes) {
+            char c = (char) b;
+            if   ( (c >= 48 && c <= 57) // 0-9
+                || (c >= 65 && c <= 90) // A-Z
+                || (c >= 97 && c <= 122) // a-z
+                ||  c == 45  // -
+                ||  c == 46  // .
+                ||  c == 95  // _
+                ||  c == 126 // ~
+            ) {
+                buf.append(c);
+            } else {
+                buf.append('%');
+                buf.append(HEX_DIGITS[(b >> 4) & 0x0F]);
+                buf.append(HEX_DIGITS[b & 0x0F]);
+            }
+        }
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright (c) 2016—2017 Andrei Tomashpolskiy and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package bt.tracker.http;
+
+import bt.metainfo.TorrentId;
+import bt.net.InetPeer;
+import bt.net.Peer;
+import bt.net.PeerId;
+import bt.peer.IPeerRegistry;
+import bt.protocol.crypto.EncryptionPolicy;
+import bt.runtime.Config;
+import bt.service.IRuntimeLifecycleBinder;
+import bt.service.IdentityService;
+import bt.tracker.TrackerResponse;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class AsyncHttpTrackerTest {
+
+    private static final TorrentId TORRENT_ID = TorrentId.fromBytes(new byte[]{
+            1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19, (byte) 0xFF});
+
+    private HttpServer server;
+    private List<String> receivedQueries;
+    private Runnable clientShutdownHook;
+
+    private AsyncHttpTrackerClient client;
+    private AnnounceQueryBuilder queryBuilder;
+    private AsyncHttpTracker tracker;
+
+    @Before
+    public void setUp() throws Exception {
+        byte[] gzippedResponse = gzip(readResource("tracker_response_success1"));
+        receivedQueries = new CopyOnWriteArrayList<>();
+
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/announce", exchange -> {
+            receivedQueries.add(exchange.getRequestURI().getRawQuery());
+            if ("gzip".equals(exchange.getRequestHeaders().getFirst("Accept-Encoding"))) {
+                exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+                exchange.sendResponseHeaders(200, gzippedResponse.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(gzippedResponse);
+                }
+            } else {
+                exchange.sendResponseHeaders(400, -1);
+                exchange.close();
+            }
+        });
+        server.start();
+
+        IdentityService idService = mock(IdentityService.class);
+        when(idService.getLocalPeerId()).thenReturn(PeerId.fromBytes(new byte[PeerId.length()]));
+        when(idService.getSecretKey()).thenReturn(Optional.empty());
+
+        IPeerRegistry peerRegistry = mock(IPeerRegistry.class);
+        when(peerRegistry.getLocalPeer()).thenReturn(new InetPeer(InetAddress.getLoopbackAddress(), 6891));
+
+        IRuntimeLifecycleBinder lifecycleBinder = mock(IRuntimeLifecycleBinder.class);
+        client = new AsyncHttpTrackerClient(InetAddress.getLoopbackAddress(), lifecycleBinder, new Config());
+        ArgumentCaptor<Runnable> shutdownHook = ArgumentCaptor.forClass(Runnable.class);
+        verify(lifecycleBinder).onShutdown(anyString(), shutdownHook.capture());
+        clientShutdownHook = shutdownHook.getValue();
+
+        queryBuilder = new AnnounceQueryBuilder(idService, peerRegistry,
+                EncryptionPolicy.PREFER_PLAINTEXT, 50);
+        String trackerUrl = "http://127.0.0.1:" + server.getAddress().getPort() + "/announce";
+        tracker = new AsyncHttpTracker(trackerUrl, client, queryBuilder);
+    }
+
+    @After
+    public void tearDown() {
+        clientShutdownHook.run();
+        server.stop(0);
+    }
+
+    @Test
+    public void testAsyncHttpTracker_GzippedResponse() {
+        TrackerResponse response = tracker.request(TORRENT_ID).start();
+
+        assertTrue(response.isSuccess());
+        assertEquals(3591, response.getInterval());
+        assertTrue(response.getPeers().iterator().hasNext());
+
+        assertEquals(1, receivedQueries.size());
+        String query = receivedQueries.get(0);
+        assertTrue(query.startsWith("info_hash=%01%02%03%04%05%06%07%08%09%0A%0B%0C%0D%0E%0F%10%11%12%13%FF&"));
+        assertTrue(query.contains("&port=6891"));
+        assertTrue(query.contains("&compact=1"));
+        assertTrue(query.contains("&numwant=50"));
+        assertTrue(query.contains("&supportcrypto=1"));
+        assertTrue(query.endsWith("&event=started"));
+    }
+
+    @Test
+    public void testAsyncHttpTracker_MultipleAnnounces() {
+        for (int i = 0; i < 5; i++) {
+            TrackerResponse response = tracker.request(TORRENT_ID).uploaded(i).query();
+            assertTrue(response.isSuccess());
+        }
+
+        assertEquals(5, receivedQueries.size());
+        for (int i = 0; i < 5; i++) {
+            String query = receivedQueries.get(i);
+            assertTrue(query.contains("&uploaded=" + i + "&"));
+            assertFalse(query.contains("&event="));
+        }
+    }
+
+    @Test
+    public void testAsyncHttpTracker_QueryAsync_DoesNotBlockCaller() throws Exception {
+        CountDownLatch requestReceived = new CountDownLatch(1);
+        CountDownLatch responseAllowed = new CountDownLatch(1);
+        server.createContext("/slow", exchange -> {
+            requestReceived.countDown();
+            try {
+                responseAllowed.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(500, -1);
+            exchange.close();
+        });
+        AsyncHttpTracker slowTracker = new AsyncHttpTracker(
+                "http://127.0.0.1:" + server.getAddress().getPort() + "/slow", client, queryBuilder);
+
+        List<Peer> peers = new CopyOnWriteArrayList<>();
+        CompletableFuture<TrackerResponse> future = slowTracker.request(TORRENT_ID).queryAsync(peers::add);
+        assertTrue(requestReceived.await(10, TimeUnit.SECONDS));
+        assertFalse(future.isDone());
+
+        responseAllowed.countDown();
+        assertFalse(future.get(10, TimeUnit.SECONDS).isSuccess());
+        assertTrue(peers.isEmpty());
+
+        TrackerResponse response = tracker.request(TORRENT_ID).queryAsync(peers::add).get(10, TimeUnit.SECONDS);
+        assertTrue(response.isSuccess());
+        assertFalse(peers.isEmpty());
+    }
+
+    @Test
+    public void testAsyncHttpTracker_UnreachableTracker() throws Exception {
+        server.stop(0);
+
+        TrackerResponse response = tracker.request(TORRENT_ID).query();
+
+        assertFalse(response.isSuccess());
+        assertTrue(response.getError().isPresent());
+    }
+
+    private static byte[] readResource(String name) throws Exception {
+        try (InputStream in = AsyncHttpTrackerTest.class.getResourceAsStream(name)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buf = new byte[8192];
+            int read;
+            while ((read = in.read(buf)) > 0) {
+                out.write(buf, 0, read);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    private static byte[] gzip(byte[] bytes) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        }
+        return out.toByteArray();
+    }
+}
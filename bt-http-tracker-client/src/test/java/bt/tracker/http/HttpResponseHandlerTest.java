@@ -110,4 +110,17 @@ public class HttpResponseHandlerTest {
         assertFalse(trackerResponse.getError().isPresent());
         assertEquals("Invalid info_hash (0 - )", trackerResponse.getErrorMessage());
     }
+
+    @Test
+    public void handleResponse_InvalidType() {
+
+        // interval must be an integer
+        byte[] response = "d8:interval4:36005:peers0:e".getBytes(defaultCharset);
+        TrackerResponse trackerResponse = responseHandler.handleResponse(response, defaultCharset);
+
+        assertNotNull(trackerResponse);
+        assertFalse(trackerResponse.isSuccess());
+        assertTrue(trackerResponse.getError().isPresent());
+        assertTrue(trackerResponse.getError().get().getMessage().startsWith("Validation failed for tracker response"));
+    }
 }
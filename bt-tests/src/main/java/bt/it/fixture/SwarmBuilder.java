@@ -32,6 +32,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
@@ -57,6 +58,23 @@ public class SwarmBuilder {
     private Supplier<Path> swarmFileRootSupplier;
     private Collection<Closeable> swarmResources;
 
+    /**
+     * Create a swarm builder for an arbitrary set of files.
+     *
+     * <p>Unlike {@link BaseBtTest#buildSwarm()}, this method does not provide a torrent supplier,
+     * so a torrent, that describes the provided files, should be set via {@link #torrentSupplier(Supplier)}.
+     *
+     * @param name Swarm name, used as the name of swarm's root directory
+     * @param defaultFsRelativeRoot Parent of swarm's root directory on the default (normal) file system
+     * @param files Mapping from file paths (relative to peer's root directory) to file contents
+     * @since 1.8
+     */
+    public static SwarmBuilder builder(String name, Path defaultFsRelativeRoot, Map<String[], byte[]> files) {
+        SwarmBuilder builder = new SwarmBuilder(name, defaultFsRelativeRoot, new TorrentFiles(files));
+        builder.module(new TestExecutorModule());
+        return builder;
+    }
+
     SwarmBuilder(String name,
                  Path defaultFsRelativeRoot,
                  TorrentFiles torrentFiles) {
@@ -0,0 +1,217 @@
+/*
+ * Copyright (c) 2016—2017 Andrei Tomashpolskiy and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package bt.data;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+import static bt.data.ChunkDescriptorTestUtil.mockStorageUnits;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ChunkTableTest {
+
+    @Test
+    public void testFileOffsetTable_UnitIndex() {
+        FileOffsetTable table = new FileOffsetTable(mockStorageUnits(10, 1, 5, 20));
+
+        assertEquals(36, table.length());
+        assertEquals(0, table.unitIndex(0));
+        assertEquals(0, table.unitIndex(9));
+        assertEquals(1, table.unitIndex(10));
+        assertEquals(2, table.unitIndex(11));
+        assertEquals(2, table.unitIndex(15));
+        assertEquals(3, table.unitIndex(16));
+        assertEquals(3, table.unitIndex(35));
+    }
+
+    @Test
+    public void testFileOffsetTable_RangeSpanningUnits() {
+        List<StorageUnit> units = mockStorageUnits(10, 1, 5, 20);
+        FileOffsetTable table = new FileOffsetTable(units);
+
+        DataRange range = table.getRange(8, 10);
+        assertEquals(10, range.length());
+
+        long[][] visited = new long[4][];
+        int[] count = new int[1];
+        range.visitUnits((unit, off, lim) -> {
+            visited[count[0]++] = new long[]{units.indexOf(unit), off, lim};
+            return true;
+        });
+
+        assertEquals(4, count[0]);
+        assertArrayEquals(new long[]{0, 8, 10}, visited[0]);
+        assertArrayEquals(new long[]{1, 0, 1}, visited[1]);
+        assertArrayEquals(new long[]{2, 0, 5}, visited[2]);
+        assertArrayEquals(new long[]{3, 0, 2}, visited[3]);
+    }
+
+    @Test
+    public void testFileOffsetTable_ReadWriteBlockSpanningUnits() {
+        List<StorageUnit> units = Arrays.asList(new MemoryStorageUnit(3), new MemoryStorageUnit(1), new MemoryStorageUnit(6));
+        FileOffsetTable table = new FileOffsetTable(units);
+
+        table.writeBlock(2, ByteBuffer.wrap(new byte[]{1, 2, 3, 4, 5}));
+        assertArrayEquals(new byte[]{0, 0, 1}, ((MemoryStorageUnit) units.get(0)).data);
+        assertArrayEquals(new byte[]{2}, ((MemoryStorageUnit) units.get(1)).data);
+        assertArrayEquals(new byte[]{3, 4, 5, 0, 0, 0}, ((MemoryStorageUnit) units.get(2)).data);
+
+        ByteBuffer buffer = ByteBuffer.allocate(4);
+        table.readBlock(3, buffer);
+        assertEquals(4, buffer.position());
+        assertArrayEquals(new byte[]{2, 3, 4, 5}, buffer.array());
+    }
+
+    @Test
+    public void testChunkTable_ReadWriteBlock() {
+        List<StorageUnit> units = Arrays.asList(new MemoryStorageUnit(5), new MemoryStorageUnit(5));
+        ChunkTable chunks = new ChunkTable(new FileOffsetTable(units), 4, 2, new byte[3], 1);
+
+        chunks.writeBlock(1, 0, new byte[]{1, 2, 3});
+        assertTrue(chunks.get(1).isPresent(0));
+        assertFalse(chunks.get(1).isPresent(1));
+
+        chunks.writeBlock(1, 3, new byte[]{4});
+        assertFalse(chunks.get(1).isComplete());
+
+        assertArrayEquals(new byte[]{2, 3, 4}, chunks.readBlock(1, 1, 3));
+        assertArrayEquals(new byte[]{2, 3, 4}, chunks.get(1).getData().getSubrange(1, 3).getBytes());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testChunkTable_WriteBlockPastChunkEnd() {
+        List<StorageUnit> units = Arrays.asList(new MemoryStorageUnit(5), new MemoryStorageUnit(5));
+        ChunkTable chunks = new ChunkTable(new FileOffsetTable(units), 4, 2, new byte[3], 1);
+
+        chunks.writeBlock(0, 2, new byte[3]);
+    }
+
+    @Test
+    public void testChunkTable_Chunks() {
+        FileOffsetTable table = new FileOffsetTable(mockStorageUnits(10, 1, 5, 20));
+        byte[] checksums = new byte[4 * 3];
+        checksums[4] = 1;
+
+        ChunkTable chunks = new ChunkTable(table, 16, 4, checksums, 4);
+        assertEquals(3, chunks.size());
+
+        assertEquals(16, chunks.get(0).length());
+        assertEquals(4, chunks.get(0).blockCount());
+        assertArrayEquals(new byte[]{1, 0, 0, 0}, chunks.get(1).getChecksum());
+
+        ChunkDescriptor last = chunks.get(2);
+        assertEquals(4, last.length());
+        assertEquals(1, last.blockCount());
+        assertEquals(4, last.lastBlockSize());
+    }
+
+    @Test
+    public void testChunkTable_Lifecycle_PartialLastBlock() {
+        FileOffsetTable table = new FileOffsetTable(mockStorageUnits(7, 4));
+        ChunkTable chunks = new ChunkTable(table, 8, 3, new byte[2], 1);
+
+        ChunkDescriptor first = chunks.get(0);
+        ChunkDescriptor second = chunks.get(1);
+        assertEquals(3, first.blockCount());
+        assertEquals(2, first.lastBlockSize());
+        assertTrue(first.isEmpty());
+
+        // spans two units
+        first.getData().getSubrange(3, 3).putBytes(new byte[3]);
+        assertTrue(first.isPresent(1));
+        assertFalse(first.isEmpty() || first.isComplete());
+
+        first.getData().getSubrange(6).putBytes(new byte[2]);
+        assertTrue(first.isPresent(2));
+
+        first.getData().putBytes(new byte[2]);
+        assertFalse(first.isPresent(0));
+
+        first.getData().putBytes(new byte[3]);
+        assertTrue(first.isComplete());
+
+        // chunk views share state
+        assertTrue(chunks.get(0).isComplete());
+        assertTrue(second.isEmpty());
+    }
+
+    @Test
+    public void testChunkTable_ManyBlocksPerChunk() {
+        int blocksPerChunk = 100;
+        FileOffsetTable table = new FileOffsetTable(mockStorageUnits(blocksPerChunk * 3));
+        ChunkTable chunks = new ChunkTable(table, blocksPerChunk, 1, new byte[3], 1);
+
+        ChunkDescriptor chunk = chunks.get(1);
+        for (int i = 0; i < blocksPerChunk; i++) {
+            assertFalse(chunk.isComplete());
+            chunk.getData().getSubrange(i, 1).putBytes(new byte[1]);
+        }
+        assertTrue(chunk.isComplete());
+
+        assertTrue(chunks.get(0).isEmpty());
+        assertTrue(chunks.get(2).isEmpty());
+    }
+
+    private static class MemoryStorageUnit implements StorageUnit {
+
+        private final byte[] data;
+
+        MemoryStorageUnit(int capacity) {
+            this.data = new byte[capacity];
+        }
+
+        @Override
+        public void readBlock(ByteBuffer buffer, long offset) {
+            buffer.put(data, (int) offset, buffer.remaining());
+        }
+
+        @Override
+        public byte[] readBlock(long offset, int length) {
+            return Arrays.copyOfRange(data, (int) offset, (int) offset + length);
+        }
+
+        @Override
+        public void writeBlock(ByteBuffer buffer, long offset) {
+            buffer.get(data, (int) offset, buffer.remaining());
+        }
+
+        @Override
+        public void writeBlock(byte[] block, long offset) {
+            System.arraycopy(block, 0, data, (int) offset, block.length);
+        }
+
+        @Override
+        public long capacity() {
+            return data.length;
+        }
+
+        @Override
+        public long size() {
+            return data.length;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright (c) 2016—2017 Andrei Tomashpolskiy and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package bt.event;
+
+import bt.metainfo.TorrentId;
+import bt.net.InetPeer;
+import bt.net.Peer;
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class EventBusTest {
+
+    private static final TorrentId TORRENT1 = TorrentId.fromBytes(new byte[20]);
+    private static final TorrentId TORRENT2 = TorrentId.fromBytes(new byte[] {
+            1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19, 20});
+
+    private static Peer peer(int port) {
+        return new InetPeer(InetAddress.getLoopbackAddress(), port);
+    }
+
+    @Test
+    public void testTorrentListener_ReceivesOnlyEventsForTorrent() {
+        EventBus bus = new EventBus();
+
+        List<PeerConnectedEvent> torrent1Events = new ArrayList<>();
+        List<PeerConnectedEvent> torrent2Events = new ArrayList<>();
+        List<PeerConnectedEvent> allEvents = new ArrayList<>();
+        bus.onPeerConnected(TORRENT1, torrent1Events::add)
+                .onPeerConnected(TORRENT2, torrent2Events::add)
+                .onPeerConnected(allEvents::add);
+
+        bus.firePeerConnected(TORRENT1, peer(1));
+        bus.firePeerConnected(TORRENT2, peer(2));
+        bus.firePeerConnected(TORRENT1, peer(3));
+
+        assertEquals(2, torrent1Events.size());
+        assertTrue(torrent1Events.stream().allMatch(e -> TORRENT1.equals(e.getTorrentId())));
+        assertEquals(1, torrent2Events.size());
+        assertEquals(peer(2), torrent2Events.get(0).getPeer());
+        assertEquals(3, allEvents.size());
+    }
+
+    @Test
+    public void testTorrentUnregistered_DiscardsTorrentListeners() {
+        EventBus bus = new EventBus();
+
+        List<TorrentEvent> torrent1Events = new ArrayList<>();
+        List<TorrentEvent> torrent2Events = new ArrayList<>();
+        bus.onTorrentStopped(TORRENT1, torrent1Events::add)
+                .onTorrentUnregistered(TORRENT1, torrent1Events::add)
+                .onTorrentStopped(TORRENT2, torrent2Events::add);
+
+        bus.fireTorrentUnregistered(TORRENT1);
+        assertEquals(1, torrent1Events.size());
+        assertTrue(torrent1Events.get(0) instanceof TorrentUnregisteredEvent);
+
+        bus.fireTorrentStopped(TORRENT1);
+        bus.fireTorrentUnregistered(TORRENT1);
+        bus.fireTorrentStopped(TORRENT2);
+        assertEquals(1, torrent1Events.size());
+        assertEquals(1, torrent2Events.size());
+    }
+
+    @Test
+    public void testRemoveListener() {
+        EventBus bus = new EventBus();
+
+        List<TorrentEvent> events = new ArrayList<>();
+        Consumer<TorrentEvent> listener = events::add;
+        List<TorrentEvent> otherEvents = new ArrayList<>();
+        bus.onTorrentStarted(listener::accept)
+                .onTorrentStarted(TORRENT1, listener::accept)
+                .onTorrentStopped(TORRENT1, otherEvents::add);
+
+        // listeners are matched by identity, and method references create new instances
+        assertFalse(bus.removeListener(listener));
+
+        Consumer<TorrentStartedEvent> started = events::add;
+        bus.onTorrentStarted(started).onTorrentStarted(TORRENT2, started);
+        bus.fireTorrentStarted(TORRENT2);
+        assertEquals(3, events.size());
+
+        events.clear();
+        assertTrue(bus.removeListener(started));
+        assertFalse(bus.removeListener(started));
+        bus.fireTorrentStarted(TORRENT2);
+        bus.fireTorrentStopped(TORRENT1);
+        assertEquals(1, events.size());
+        assertEquals(1, otherEvents.size());
+    }
+
+    @Test
+    public void testRemoveListener_Torrent() {
+        EventBus bus = new EventBus();
+
+        List<TorrentEvent> events = new ArrayList<>();
+        Consumer<TorrentEvent> listener = events::add;
+        bus.onTorrentStarted(listener::accept);
+        Consumer<TorrentStartedEvent> started = events::add;
+        Consumer<TorrentStoppedEvent> stopped = events::add;
+        bus.onTorrentStarted(started)
+                .onTorrentStarted(TORRENT1, started)
+                .onTorrentStarted(TORRENT2, started)
+                .onTorrentStopped(TORRENT1, stopped);
+
+        assertFalse(bus.removeListener(TORRENT2, stopped));
+        assertTrue(bus.removeListener(TORRENT1, started));
+        assertFalse(bus.removeListener(TORRENT1, started));
+
+        // global subscription and subscriptions for other torrents are not affected
+        bus.fireTorrentStarted(TORRENT1);
+        assertEquals(2, events.size());
+        events.clear();
+        bus.fireTorrentStarted(TORRENT2);
+        assertEquals(3, events.size());
+        events.clear();
+        bus.fireTorrentStopped(TORRENT1);
+        assertEquals(1, events.size());
+    }
+
+    @Test
+    public void testListener_FailureDoesNotAffectOtherListeners() {
+        EventBus bus = new EventBus();
+
+        List<TorrentStartedEvent> events = new ArrayList<>();
+        bus.onTorrentStarted(e -> {
+            throw new RuntimeException();
+        }).onTorrentStarted(TORRENT1, events::add);
+
+        bus.fireTorrentStarted(TORRENT1);
+        assertEquals(1, events.size());
+    }
+
+    @Test
+    public void testAsyncListener_ReceivesEventsInOrder() throws Exception {
+        ExecutorService executor = Executors.newCachedThreadPool();
+        try {
+            EventBus bus = new EventBus(executor, 1000);
+
+            int count = 500;
+            CountDownLatch latch = new CountDownLatch(count);
+            List<PeerDiscoveredEvent> events = new CopyOnWriteArrayList<>();
+            bus.async().onPeerDiscovered(TORRENT1, e -> {
+                events.add(e);
+                latch.countDown();
+            });
+
+            for (int i = 0; i < count; i++) {
+                bus.firePeerDiscovered(TORRENT1, peer(i + 1));
+            }
+
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+            for (int i = 0; i < count; i++) {
+                assertEquals(peer(i + 1), events.get(i).getPeer());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testAsyncListener_DropsEventsWhenQueueIsFull() {
+        List<Runnable> tasks = new ArrayList<>();
+        EventBus bus = new EventBus(tasks::add, 2);
+
+        List<TorrentStoppedEvent> events = new ArrayList<>();
+        bus.async().onTorrentStopped(events::add);
+
+        bus.fireTorrentStopped(TORRENT1);
+        bus.fireTorrentStopped(TORRENT1);
+        bus.fireTorrentStopped(TORRENT2);
+
+        // delivery is scheduled only once, until the queue is drained
+        assertEquals(1, tasks.size());
+        tasks.get(0).run();
+
+        assertEquals(2, events.size());
+        assertEquals(TORRENT1, events.get(0).getTorrentId());
+        assertEquals(TORRENT1, events.get(1).getTorrentId());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testAsync_NotSupported() {
+        new EventBus().async();
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2016—2017 Andrei Tomashpolskiy and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package bt.magnet;
+
+import bt.protocol.DecodingContext;
+import bt.protocol.EncodingContext;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class UtMetadataMessageHandlerTest {
+
+    private static final Charset ASCII = Charset.forName("ASCII");
+
+    private final UtMetadataMessageHandler handler = new UtMetadataMessageHandler();
+
+    @Test
+    public void testEncode_Request() {
+        assertEncoded("d8:msg_typei0e5:piecei3ee", UtMetadata.request(3));
+    }
+
+    @Test
+    public void testEncode_Data() {
+        assertEncoded("d8:msg_typei1e5:piecei12e10:total_sizei16389eeDATA",
+                UtMetadata.data(12, 16389, "DATA".getBytes(ASCII)));
+    }
+
+    @Test
+    public void testEncode_InsufficientSpace() {
+        ByteBuffer buffer = ByteBuffer.allocate(10);
+        assertFalse(handler.encode(new EncodingContext(null), UtMetadata.data(1, 100, new byte[4]), buffer));
+        assertEquals(0, buffer.position());
+    }
+
+    @Test
+    public void testEncode_RoundTrip() {
+        ByteBuffer buffer = ByteBuffer.allocate(100);
+        assertTrue(handler.encode(new EncodingContext(null), UtMetadata.data(7, 1000, "DATA".getBytes(ASCII)), buffer));
+        buffer.flip();
+
+        DecodingContext context = new DecodingContext(null);
+        assertEquals(buffer.limit(), handler.decode(context, buffer));
+
+        UtMetadata message = (UtMetadata) context.getMessage();
+        assertEquals(UtMetadata.Type.DATA, message.getType());
+        assertEquals(7, message.getPieceIndex());
+        assertEquals(1000, (int) message.getTotalSize().get());
+        assertArrayEquals("DATA".getBytes(ASCII), message.getData().get());
+    }
+
+    private void assertEncoded(String expected, UtMetadata message) {
+        ByteBuffer buffer = ByteBuffer.allocate(100);
+        assertTrue(handler.encode(new EncodingContext(null), message, buffer));
+        buffer.flip();
+        byte[] actual = new byte[buffer.remaining()];
+        buffer.get(actual);
+        assertEquals(expected, new String(actual, ASCII));
+    }
+}
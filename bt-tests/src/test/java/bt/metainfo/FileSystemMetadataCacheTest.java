@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2016—2017 Andrei Tomashpolskiy and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package bt.metainfo;
+
+import bt.runtime.Config;
+import bt.service.CryptoUtil;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class FileSystemMetadataCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path directory;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = folder.newFolder("metadata").toPath();
+    }
+
+    private Config config(long maxSize) {
+        Config config = new Config();
+        config.setMetadataCacheDirectory(directory);
+        config.setMetadataCacheMaxSize(maxSize);
+        return config;
+    }
+
+    private static byte[] infoDictionary(int size, int seed) {
+        byte[] bytes = new byte[size];
+        for (int i = 0; i < size; i++) {
+            bytes[i] = (byte) (seed + i);
+        }
+        return bytes;
+    }
+
+    private static TorrentId torrentId(byte[] infoDictionary) {
+        return TorrentId.fromBytes(CryptoUtil.getSha1Digest(infoDictionary));
+    }
+
+    @Test
+    public void testCache_PutAndGet() {
+        FileSystemMetadataCache cache = new FileSystemMetadataCache(config(1024));
+        byte[] info = infoDictionary(100, 1);
+        TorrentId torrentId = torrentId(info);
+
+        assertFalse(cache.get(torrentId).isPresent());
+        cache.put(torrentId, info);
+        assertArrayEquals(info, cache.get(torrentId).get());
+    }
+
+    @Test
+    public void testCache_PersistedAcrossInstances() {
+        byte[] info = infoDictionary(100, 1);
+        TorrentId torrentId = torrentId(info);
+        new FileSystemMetadataCache(config(1024)).put(torrentId, info);
+
+        FileSystemMetadataCache cache = new FileSystemMetadataCache(config(1024));
+        assertArrayEquals(info, cache.get(torrentId).get());
+    }
+
+    @Test
+    public void testCache_MismatchingDigestIsNotStored() {
+        FileSystemMetadataCache cache = new FileSystemMetadataCache(config(1024));
+        byte[] info = infoDictionary(100, 1);
+        TorrentId torrentId = torrentId(infoDictionary(100, 2));
+
+        cache.put(torrentId, info);
+        assertFalse(cache.get(torrentId).isPresent());
+    }
+
+    @Test
+    public void testCache_CorruptedEntryIsRemoved() throws Exception {
+        byte[] info = infoDictionary(100, 1);
+        TorrentId torrentId = torrentId(info);
+        new FileSystemMetadataCache(config(1024)).put(torrentId, info);
+
+        try (Stream<Path> files = Files.list(directory)) {
+            Path file = files.findFirst().get();
+            Files.write(file, infoDictionary(100, 2));
+        }
+
+        FileSystemMetadataCache cache = new FileSystemMetadataCache(config(1024));
+        assertFalse(cache.get(torrentId).isPresent());
+        try (Stream<Path> files = Files.list(directory)) {
+            assertFalse(files.findAny().isPresent());
+        }
+    }
+
+    @Test
+    public void testCache_StaleTempFilesAreDeleted() throws Exception {
+        byte[] info = infoDictionary(100, 1);
+        TorrentId torrentId = torrentId(info);
+        new FileSystemMetadataCache(config(1024)).put(torrentId, info);
+
+        Path tempFile = directory.resolve("0123456789012345678901234567890123456789.info.tmp");
+        Files.write(tempFile, infoDictionary(50, 2));
+
+        FileSystemMetadataCache cache = new FileSystemMetadataCache(config(1024));
+        assertFalse(Files.exists(tempFile));
+        assertArrayEquals(info, cache.get(torrentId).get());
+    }
+
+    @Test
+    public void testCache_LeastRecentlyUsedEntryIsEvicted() {
+        FileSystemMetadataCache cache = new FileSystemMetadataCache(config(250));
+        byte[] info1 = infoDictionary(100, 1), info2 = infoDictionary(100, 2), info3 = infoDictionary(100, 3);
+        TorrentId id1 = torrentId(info1), id2 = torrentId(info2), id3 = torrentId(info3);
+
+        cache.put(id1, info1);
+        cache.put(id2, info2);
+        // access the first entry, so that the second becomes the least recently used one
+        assertTrue(cache.get(id1).isPresent());
+        cache.put(id3, info3);
+
+        assertTrue(cache.get(id1).isPresent());
+        assertFalse(cache.get(id2).isPresent());
+        assertTrue(cache.get(id3).isPresent());
+    }
+
+    @Test
+    public void testCache_DisabledByDefault() {
+        FileSystemMetadataCache cache = new FileSystemMetadataCache(new Config());
+        byte[] info = infoDictionary(100, 1);
+        TorrentId torrentId = torrentId(info);
+
+        cache.put(torrentId, info);
+        Optional<byte[]> cached = cache.get(torrentId);
+        assertFalse(cached.isPresent());
+    }
+}
@@ -16,6 +16,7 @@
 
 package bt.metainfo;
 
+import bt.BtException;
 import bt.bencoding.BtParseException;
 import bt.tracker.AnnounceKey;
 import org.junit.Before;
@@ -31,6 +32,7 @@ import java.util.Optional;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 public class MetadataServiceTest {
 
@@ -111,6 +113,43 @@ public class MetadataServiceTest {
         assertEquals(creationDate, torrent.getCreationDate());
         assertEquals(createdBy, torrent.getCreatedBy());
     }
+    @Test
+    public void testBuildTorrent_FromByteArray_MatchesSourceBytes() {
+
+        String info = "d6:lengthi1024e4:name4:test12:piece lengthi512e6:pieces40:"
+                + "0123456789012345678901234567890123456789e";
+        String metainfo = "d8:announce15:http://t.co/ann4:info" + info + "e";
+        byte[] bytes = metainfo.getBytes(Charset.forName("ASCII"));
+
+        Torrent torrent = metadataService.fromByteArray(bytes);
+
+        assertArrayEquals(bytes, torrent.getSource().getMetadata().get());
+        assertArrayEquals(info.getBytes(Charset.forName("ASCII")), torrent.getSource().getExchangedMetadata());
+        assertEquals("test", torrent.getName());
+        assertEquals(1024, torrent.getSize());
+        assertEquals(new AnnounceKey("http://t.co/ann"), torrent.getAnnounceKey().get());
+    }
+
+    @Test
+    public void testBuildTorrent_ValidationFailed() {
+
+        // missing pieces, wrong type of piece length
+        String metainfo = "d8:announce15:http://t.co/ann4:infod6:lengthi1024e12:piece length3:512ee";
+        byte[] bytes = metainfo.getBytes(Charset.forName("ASCII"));
+
+        BtException exception = null;
+        try {
+            metadataService.fromByteArray(bytes);
+        } catch (BtException e) {
+            exception = e;
+        }
+
+        assertNotNull(exception);
+        assertTrue(exception.getMessage(), exception.getMessage().startsWith("Validation failed for torrent metainfo"));
+        assertTrue(exception.getMessage(), exception.getMessage().contains("Standard torrent model"));
+        assertTrue(exception.getMessage(), exception.getMessage().contains("pieces"));
+    }
+
     @Test
     public void testBuildTorrent_ParseExceptionContents() {
 
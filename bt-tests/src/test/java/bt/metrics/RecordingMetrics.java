@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2016—2017 Andrei Tomashpolskiy and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package bt.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Keeps the current values of counters and gauges, and the count of histogram updates.
+ */
+public class RecordingMetrics implements Metrics {
+
+    private final Map<String, AtomicLong> counters = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> histogramUpdates = new ConcurrentHashMap<>();
+    private final Map<String, LongSupplier> gauges = new ConcurrentHashMap<>();
+
+    @Override
+    public Counter counter(String name) {
+        AtomicLong value = counters.computeIfAbsent(name, it -> new AtomicLong());
+        return value::addAndGet;
+    }
+
+    @Override
+    public Histogram histogram(String name) {
+        AtomicLong updates = histogramUpdates.computeIfAbsent(name, it -> new AtomicLong());
+        return value -> updates.incrementAndGet();
+    }
+
+    @Override
+    public void gauge(String name, LongSupplier value) {
+        gauges.put(name, value);
+    }
+
+    public long getCounter(String name) {
+        AtomicLong value = counters.get(name);
+        return (value == null) ? 0 : value.get();
+    }
+
+    public long getHistogramUpdates(String name) {
+        AtomicLong updates = histogramUpdates.get(name);
+        return (updates == null) ? 0 : updates.get();
+    }
+
+    public long getGauge(String name) {
+        LongSupplier value = gauges.get(name);
+        if (value == null) {
+            throw new IllegalStateException("Gauge is not registered: " + name);
+        }
+        return value.getAsLong();
+    }
+}
@@ -0,0 +1,391 @@
+/*
+ * Copyright (c) 2016—2017 Andrei Tomashpolskiy and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package bt.net;
+
+import bt.event.EventBus;
+import bt.event.EventSink;
+import bt.metainfo.TorrentId;
+import bt.metrics.MetricNames;
+import bt.metrics.RecordingMetrics;
+import bt.protocol.Message;
+import bt.runtime.Config;
+import bt.service.IRuntimeLifecycleBinder;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class PeerConnectionPoolTest {
+
+    private static final long SECOND = 1000;
+
+    private static final TorrentId TORRENT_1 = TorrentId.fromBytes(new byte[20]);
+    private static final TorrentId TORRENT_2 = TorrentId.fromBytes(new byte[] {
+            1, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0});
+
+    private final AtomicLong clock = new AtomicLong(1_000_000);
+    private final AtomicInteger ports = new AtomicInteger(1);
+
+    private EventSink eventSink;
+    private EventBus eventBus;
+    private RecordingMetrics metrics;
+    private PeerConnectionPool pool;
+
+    @Before
+    public void setUp() {
+        Config config = new Config();
+        config.setMaxPeerConnections(3);
+        config.setPeerConnectionInactivityThreshold(Duration.ofSeconds(10));
+
+        eventSink = mock(EventSink.class);
+        eventBus = new EventBus();
+        metrics = new RecordingMetrics();
+        pool = new PeerConnectionPool(eventSink, eventBus, mock(IRuntimeLifecycleBinder.class), metrics, config, clock::get);
+    }
+
+    @Test
+    public void testAddConnection_LimitExceeded() {
+        for (int i = 0; i < 3; i++) {
+            StubConnection connection = newConnection(TORRENT_1);
+            assertSame(connection, pool.addConnectionIfAbsent(connection));
+        }
+
+        StubConnection rejected = newConnection(TORRENT_1);
+        try {
+            pool.addConnectionIfAbsent(rejected);
+            fail("Exception expected");
+        } catch (RuntimeException e) {
+            // expected
+        }
+        assertTrue(rejected.isClosed());
+        assertNull(pool.getConnection(rejected.getRemotePeer(), TORRENT_1));
+
+        assertEquals(3, pool.size());
+        assertEquals(3, metrics.getGauge(MetricNames.POOL_CONNECTIONS));
+        assertEquals(3, metrics.getCounter(MetricNames.POOL_CONNECTIONS_ADDED));
+        assertEquals(1, metrics.getCounter(MetricNames.POOL_CONNECTIONS_REJECTED));
+    }
+
+    @Test
+    public void testAddConnection_AlreadyExists() {
+        StubConnection existing = newConnection(TORRENT_1);
+        pool.addConnectionIfAbsent(existing);
+
+        StubConnection duplicate = new StubConnection(existing.getRemotePeer(), TORRENT_1, clock.get());
+        assertSame(existing, pool.addConnectionIfAbsent(duplicate));
+        assertTrue(duplicate.isClosed());
+        assertFalse(existing.isClosed());
+        assertEquals(1, pool.size());
+        verify(eventSink, times(1)).firePeerConnected(TORRENT_1, existing.getRemotePeer());
+    }
+
+    @Test
+    public void testVisitConnections_ByTorrent() {
+        StubConnection c1 = newConnection(TORRENT_1);
+        StubConnection c2 = newConnection(TORRENT_2);
+        StubConnection c3 = newConnection(TORRENT_1);
+        pool.addConnectionIfAbsent(c1);
+        pool.addConnectionIfAbsent(c2);
+        pool.addConnectionIfAbsent(c3);
+
+        List<PeerConnection> visited = new ArrayList<>();
+        pool.visitConnections(TORRENT_1, visited::add);
+        assertEquals(2, visited.size());
+        assertTrue(visited.contains(c1) && visited.contains(c3));
+
+        c2.close();
+        pool.getConnection(c2.getRemotePeer(), TORRENT_2);
+        pool.cleanup();
+
+        visited.clear();
+        pool.visitConnections(TORRENT_2, visited::add);
+        assertTrue(visited.isEmpty());
+    }
+
+    @Test
+    public void testTorrentUnregistered_ConnectionsClosed() {
+        StubConnection c1 = newConnection(TORRENT_1);
+        StubConnection c2 = newConnection(TORRENT_2);
+        StubConnection c3 = newConnection(TORRENT_1);
+        pool.addConnectionIfAbsent(c1);
+        pool.addConnectionIfAbsent(c2);
+        pool.addConnectionIfAbsent(c3);
+
+        eventBus.fireTorrentUnregistered(TORRENT_1);
+
+        assertTrue(c1.isClosed());
+        assertTrue(c3.isClosed());
+        assertFalse(c2.isClosed());
+        assertEquals(1, pool.size());
+        assertNull(pool.getConnection(c1.getRemotePeer(), TORRENT_1));
+        verify(eventSink).firePeerDisconnected(TORRENT_1, c1.getRemotePeer());
+        verify(eventSink).firePeerDisconnected(TORRENT_1, c3.getRemotePeer());
+    }
+
+    @Test
+    public void testCleanup_ClosedConnectionPurgedOnNextTick() {
+        StubConnection connection = newConnection(TORRENT_1);
+        pool.addConnectionIfAbsent(connection);
+
+        connection.close();
+        assertSame(connection, pool.getConnection(connection.getRemotePeer(), TORRENT_1));
+
+        clock.addAndGet(SECOND);
+        pool.cleanup();
+        assertNull(pool.getConnection(connection.getRemotePeer(), TORRENT_1));
+        assertEquals(0, pool.size());
+        assertEquals(1, metrics.getCounter(MetricNames.POOL_CONNECTIONS_REMOVED));
+        verify(eventSink).firePeerDisconnected(TORRENT_1, connection.getRemotePeer());
+
+        // slot is released
+        for (int i = 0; i < 3; i++) {
+            pool.addConnectionIfAbsent(newConnection(TORRENT_1));
+        }
+        assertEquals(3, pool.size());
+    }
+
+    @Test
+    public void testClosedConnectionPurged_WhenNotified() throws Exception {
+        NotifyingConnection connection = new NotifyingConnection(
+                new InetPeer(InetAddress.getLoopbackAddress(), ports.getAndIncrement()), TORRENT_1, clock.get());
+        pool.addConnectionIfAbsent(connection);
+        assertEquals(1, pool.size());
+
+        // no lookups and no cleaner ticks
+        connection.close();
+
+        long deadline = System.currentTimeMillis() + 5 * SECOND;
+        while (pool.size() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, pool.size());
+        assertEquals(1, metrics.getCounter(MetricNames.POOL_CONNECTIONS_REMOVED));
+        verify(eventSink).firePeerDisconnected(TORRENT_1, connection.getRemotePeer());
+    }
+
+    @Test
+    public void testCleanup_InactiveConnection() {
+        StubConnection idle = newConnection(TORRENT_1);
+        StubConnection active = newConnection(TORRENT_1);
+        pool.addConnectionIfAbsent(idle);
+        pool.addConnectionIfAbsent(active);
+
+        advance(5 * SECOND);
+        active.lastActive = clock.get();
+
+        advance(6 * SECOND);
+        assertTrue(idle.isClosed());
+        assertFalse(active.isClosed());
+        assertEquals(1, pool.size());
+
+        advance(3 * SECOND);
+        assertFalse(active.isClosed());
+
+        advance(2 * SECOND);
+        assertTrue(active.isClosed());
+        assertEquals(0, pool.size());
+        assertEquals(2, metrics.getCounter(MetricNames.POOL_CONNECTIONS_REMOVED));
+    }
+
+    @Test
+    public void testCleanup_DelayedCleaner() {
+        StubConnection connection = newConnection(TORRENT_1);
+        pool.addConnectionIfAbsent(connection);
+
+        // more than a full rotation of the wheel
+        clock.addAndGet(60 * SECOND);
+        pool.cleanup();
+        assertTrue(connection.isClosed());
+        assertEquals(0, pool.size());
+    }
+
+    @Test
+    public void testConcurrentAddAndRemove() throws Exception {
+        int threads = 8, connectionsPerThread = 1000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch done = new CountDownLatch(threads);
+        AtomicInteger added = new AtomicInteger();
+        AtomicInteger limitViolations = new AtomicInteger();
+
+        for (int t = 0; t < threads; t++) {
+            executor.execute(() -> {
+                try {
+                    for (int i = 0; i < connectionsPerThread; i++) {
+                        StubConnection connection = newConnection((i % 2 == 0) ? TORRENT_1 : TORRENT_2);
+                        try {
+                            if (pool.addConnectionIfAbsent(connection) == connection) {
+                                added.incrementAndGet();
+                            }
+                        } catch (RuntimeException e) {
+                            // limit exceeded
+                        }
+                        if (pool.size() > 3) {
+                            limitViolations.incrementAndGet();
+                        }
+                        connection.close();
+                        pool.getConnection(connection.getRemotePeer(), connection.getTorrentId());
+                        if (i % 10 == 0) {
+                            synchronized (pool) {
+                                pool.cleanup();
+                            }
+                        }
+                    }
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        executor.shutdown();
+        assertEquals(0, limitViolations.get());
+
+        pool.cleanup();
+        assertEquals(0, pool.size());
+        assertEquals(added.get(), metrics.getCounter(MetricNames.POOL_CONNECTIONS_ADDED));
+        assertEquals(added.get(), metrics.getCounter(MetricNames.POOL_CONNECTIONS_REMOVED));
+        assertEquals(threads * connectionsPerThread - added.get(),
+                metrics.getCounter(MetricNames.POOL_CONNECTIONS_REJECTED));
+
+        List<PeerConnection> visited = new ArrayList<>();
+        pool.visitConnections(TORRENT_1, visited::add);
+        pool.visitConnections(TORRENT_2, visited::add);
+        assertTrue(visited.isEmpty());
+    }
+
+    private void advance(long millis) {
+        for (long i = 0; i < millis / SECOND; i++) {
+            clock.addAndGet(SECOND);
+            pool.cleanup();
+        }
+    }
+
+    private StubConnection newConnection(TorrentId torrentId) {
+        Peer peer = new InetPeer(InetAddress.getLoopbackAddress(), ports.getAndIncrement());
+        return new StubConnection(peer, torrentId, clock.get());
+    }
+
+    private static class StubConnection implements PeerConnection {
+
+        private final Peer peer;
+        private final TorrentId torrentId;
+        private volatile long lastActive;
+        private volatile boolean closed;
+
+        StubConnection(Peer peer, TorrentId torrentId, long lastActive) {
+            this.peer = peer;
+            this.torrentId = torrentId;
+            this.lastActive = lastActive;
+        }
+
+        @Override
+        public Peer getRemotePeer() {
+            return peer;
+        }
+
+        @Override
+        public TorrentId setTorrentId(TorrentId torrentId) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public TorrentId getTorrentId() {
+            return torrentId;
+        }
+
+        @Override
+        public Message readMessageNow() {
+            return null;
+        }
+
+        @Override
+        public Message readMessage(long timeout) {
+            return null;
+        }
+
+        @Override
+        public void postMessage(Message message) {
+        }
+
+        @Override
+        public long getLastActive() {
+            return lastActive;
+        }
+
+        @Override
+        public void closeQuietly() {
+            close();
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+
+        @Override
+        public boolean isClosed() {
+            return closed;
+        }
+    }
+
+    private static class NotifyingConnection extends StubConnection {
+
+        private final Queue<Runnable> closeListeners = new ConcurrentLinkedQueue<>();
+
+        NotifyingConnection(Peer peer, TorrentId torrentId, long lastActive) {
+            super(peer, torrentId, lastActive);
+        }
+
+        @Override
+        public void close() {
+            super.close();
+            Runnable listener;
+            while ((listener = closeListeners.poll()) != null) {
+                listener.run();
+            }
+        }
+
+        @Override
+        public void addCloseListener(Runnable listener) {
+            closeListeners.add(listener);
+            if (isClosed()) {
+                close();
+            }
+        }
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2016—2017 Andrei Tomashpolskiy and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package bt.net.buffer;
+
+import bt.metrics.MetricNames;
+import bt.metrics.RecordingMetrics;
+import bt.runtime.Config;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BufferManagerTest {
+
+    private RecordingMetrics metrics;
+    private BufferManager bufferManager;
+
+    @Before
+    public void setUp() {
+        metrics = new RecordingMetrics();
+        bufferManager = new BufferManager(new Config(), metrics);
+    }
+
+    @Test
+    public void testMetrics_BorrowAndRelease() {
+        BorrowedBuffer<ByteBuffer> b1 = bufferManager.borrowByteBuffer();
+        BorrowedBuffer<ByteBuffer> b2 = bufferManager.borrowByteBuffer();
+
+        assertEquals(2, metrics.getCounter(MetricNames.BUFFERS_BORROWED));
+        assertEquals(2, metrics.getCounter(MetricNames.BUFFERS_ALLOCATED));
+        assertEquals(0, metrics.getGauge(MetricNames.BUFFERS_POOLED));
+
+        b1.release();
+        // repeated release is a no-op
+        b1.release();
+
+        assertEquals(1, metrics.getCounter(MetricNames.BUFFERS_BORROWED));
+        assertEquals(1, metrics.getGauge(MetricNames.BUFFERS_POOLED));
+
+        b2.release();
+
+        assertEquals(0, metrics.getCounter(MetricNames.BUFFERS_BORROWED));
+        assertEquals(2, metrics.getGauge(MetricNames.BUFFERS_POOLED));
+    }
+
+    @Test
+    public void testMetrics_ReleasedBufferIsReused() {
+        bufferManager.borrowByteBuffer().release();
+        BorrowedBuffer<ByteBuffer> buffer = bufferManager.borrowByteBuffer();
+
+        assertEquals(1, metrics.getCounter(MetricNames.BUFFERS_BORROWED));
+        assertEquals(1, metrics.getCounter(MetricNames.BUFFERS_ALLOCATED));
+        assertEquals(0, metrics.getGauge(MetricNames.BUFFERS_POOLED));
+
+        buffer.release();
+    }
+
+    @Test
+    public void testSizeClasses() {
+        Config config = new Config();
+        config.setMaxTransferBlockSize(16 * 1024);
+        BufferManager bufferManager = new BufferManager(config, metrics);
+
+        assertEquals(32 * 1024, capacity(bufferManager.borrowByteBuffer()));
+        assertEquals(32 * 1024, capacity(bufferManager.borrowByteBuffer(20 * 1024)));
+        assertEquals(16 * 1024, capacity(bufferManager.borrowByteBuffer(16 * 1024)));
+        assertEquals(4 * 1024, capacity(bufferManager.borrowByteBuffer(1)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSizeClasses_TooLarge() {
+        bufferManager.borrowByteBuffer(new Config().getMaxTransferBlockSize() * 2 + 1);
+    }
+
+    @Test
+    public void testMaxPoolSize_HeapBuffersAreNotPooled() {
+        Config config = new Config();
+        config.setMaxTransferBlockSize(16 * 1024);
+        config.setMaxBufferPoolSize(32 * 1024);
+        BufferManager bufferManager = new BufferManager(config, metrics);
+
+        BorrowedBuffer<ByteBuffer> b1 = bufferManager.borrowByteBuffer();
+        BorrowedBuffer<ByteBuffer> b2 = bufferManager.borrowByteBuffer();
+
+        assertTrue(isDirect(b1));
+        assertFalse(isDirect(b2));
+        assertEquals(1, metrics.getCounter(MetricNames.BUFFERS_HEAP_ALLOCATED));
+        assertEquals(32 * 1024L, metrics.getGauge(MetricNames.BUFFERS_POOL_CAPACITY));
+        assertEquals(32 * 1024L, metrics.getGauge(MetricNames.BUFFERS_POOL_USED));
+
+        b2.release();
+        assertEquals(0, metrics.getGauge(MetricNames.BUFFERS_POOLED));
+
+        b1.release();
+        assertEquals(1, metrics.getGauge(MetricNames.BUFFERS_POOLED));
+        assertEquals(0L, metrics.getGauge(MetricNames.BUFFERS_POOL_USED));
+    }
+
+    @Test
+    public void testIdleBufferIsReleasedAndReacquired() {
+        Config config = new Config();
+        config.setMaxTransferBlockSize(16 * 1024);
+        config.setMaxBufferPoolSize(64 * 1024);
+        config.setIdleBufferReleaseThreshold(Duration.ZERO);
+        BufferManager bufferManager = new BufferManager(config, metrics);
+
+        BorrowedBuffer<ByteBuffer> nonEmpty = bufferManager.borrowByteBuffer();
+        nonEmpty.lockAndGet().put((byte) 1);
+        nonEmpty.unlock();
+        BorrowedBuffer<ByteBuffer> idle = bufferManager.borrowByteBuffer();
+        assertEquals(0, metrics.getCounter(MetricNames.BUFFERS_IDLE_RELEASED));
+
+        // empty buffer of the idle borrower is re-used
+        BorrowedBuffer<ByteBuffer> b3 = bufferManager.borrowByteBuffer();
+        assertTrue(isDirect(b3));
+        assertEquals(1, metrics.getCounter(MetricNames.BUFFERS_IDLE_RELEASED));
+        assertEquals(0, metrics.getCounter(MetricNames.BUFFERS_HEAP_ALLOCATED));
+
+        // borrower of the released buffer gets a new one on the next use
+        ByteBuffer reacquired = idle.lockAndGet();
+        assertTrue(reacquired.isDirect());
+        assertEquals(0, reacquired.position());
+        idle.unlock();
+        assertEquals(1, nonEmpty.lockAndGet().position());
+        nonEmpty.unlock();
+        assertEquals(3, metrics.getCounter(MetricNames.BUFFERS_BORROWED));
+    }
+
+    private static int capacity(BorrowedBuffer<ByteBuffer> buffer) {
+        try {
+            return buffer.lockAndGet().capacity();
+        } finally {
+            buffer.unlock();
+        }
+    }
+
+    private static boolean isDirect(BorrowedBuffer<ByteBuffer> buffer) {
+        try {
+            return buffer.lockAndGet().isDirect();
+        } finally {
+            buffer.unlock();
+        }
+    }
+}
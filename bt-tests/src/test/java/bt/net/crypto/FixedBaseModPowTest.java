@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2016—2017 Andrei Tomashpolskiy and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package bt.net.crypto;
+
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.security.KeyPair;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class FixedBaseModPowTest {
+
+    private static final BigInteger P = new BigInteger(
+            "FFFFFFFFFFFFFFFFC90FDAA22168C234C4C6628B80DC1CD1" +
+            "29024E088A67CC74020BBEA63B139B22514A08798E3404DD" +
+            "EF9519B3CD3A431B302B0A6DF25F14374FE1356D6D51C245" +
+            "E485B576625E7EC6F44C42E9A63A36210000000000090563", 16);
+
+    private static final BigInteger G = BigInteger.valueOf(2);
+
+    @Test
+    public void testPow_RandomExponents() {
+        Random random = new Random(0);
+        for (int windowBits : new int[] {1, 3, 5, 8}) {
+            FixedBaseModPow modPow = new FixedBaseModPow(G, P, 160, windowBits);
+            for (int i = 0; i < 100; i++) {
+                BigInteger exponent = new BigInteger(1 + random.nextInt(160), random);
+                assertEquals(G.modPow(exponent, P), modPow.pow(exponent));
+            }
+        }
+    }
+
+    @Test
+    public void testPow_EdgeCases() {
+        FixedBaseModPow modPow = new FixedBaseModPow(G, P, 160);
+
+        assertEquals(BigInteger.ONE, modPow.pow(BigInteger.ZERO));
+        assertEquals(G, modPow.pow(BigInteger.ONE));
+
+        BigInteger maxExponent = BigInteger.ONE.shiftLeft(160).subtract(BigInteger.ONE);
+        assertEquals(G.modPow(maxExponent, P), modPow.pow(maxExponent));
+
+        // longer than the table
+        BigInteger longExponent = BigInteger.ONE.shiftLeft(200).add(BigInteger.TEN);
+        assertEquals(G.modPow(longExponent, P), modPow.pow(longExponent));
+    }
+
+    @Test
+    public void testKeyPairGenerator_PooledKeysAgree() {
+        MSEKeyPairGenerator generator = new MSEKeyPairGenerator(20, 4);
+
+        for (int i = 0; i < 10; i++) {
+            KeyPair keys1 = generator.generateKeyPair();
+            KeyPair keys2 = generator.generateKeyPair();
+            assertNotEquals(publicKey(keys1), publicKey(keys2));
+
+            BigInteger secret1 = generator.calculateSharedSecret(publicKey(keys2), keys1.getPrivate());
+            BigInteger secret2 = generator.calculateSharedSecret(publicKey(keys1), keys2.getPrivate());
+            assertEquals(secret1, secret2);
+        }
+    }
+
+    private static BigInteger publicKey(KeyPair keyPair) {
+        return new BigInteger(1, keyPair.getPublic().getEncoded());
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2016—2017 Andrei Tomashpolskiy and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package bt.net.crypto;
+
+import bt.metainfo.TorrentId;
+import org.junit.Test;
+
+import java.security.MessageDigest;
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class SkeyHashIndexTest {
+
+    private static final TorrentId TORRENT_ID = TorrentId.fromBytes(new byte[] {
+            0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19});
+
+    private static byte[] req2Hash(TorrentId torrentId) throws Exception {
+        MessageDigest digest = MessageDigest.getInstance("SHA-1");
+        digest.update("req2".getBytes("ASCII"));
+        digest.update(torrentId.getBytes());
+        return digest.digest();
+    }
+
+    @Test
+    public void testIndex_Lookup() throws Exception {
+        SkeyHashIndex index = new SkeyHashIndex();
+        index.add(TORRENT_ID);
+        index.add(TorrentId.fromBytes(new byte[20]));
+
+        assertEquals(Optional.of(TORRENT_ID), index.get(req2Hash(TORRENT_ID)));
+        assertFalse(index.get(new byte[20]).isPresent());
+    }
+
+    @Test
+    public void testIndex_Remove() throws Exception {
+        SkeyHashIndex index = new SkeyHashIndex();
+        index.add(TORRENT_ID);
+        index.remove(TORRENT_ID);
+
+        assertFalse(index.get(req2Hash(TORRENT_ID)).isPresent());
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2016—2017 Andrei Tomashpolskiy and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package bt.peer;
+
+import bt.metainfo.TorrentId;
+import bt.metrics.MetricNames;
+import bt.metrics.RecordingMetrics;
+import bt.net.InetPeer;
+import bt.net.Peer;
+import bt.tracker.Tracker;
+import bt.tracker.TrackerRequestBuilder;
+import bt.tracker.TrackerResponse;
+import org.junit.After;
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TrackerPeerSourceTest {
+
+    private static final TorrentId TORRENT_ID = TorrentId.fromBytes(new byte[20]);
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testCollectPeersAsync_DoesNotOccupyExecutorWhileWaitingForResponse() throws Exception {
+        CompletableFuture<TrackerResponse> pendingResponse = new CompletableFuture<>();
+        RecordingMetrics metrics = new RecordingMetrics();
+        TrackerPeerSource peerSource = new TrackerPeerSource(executor, asyncTracker(pendingResponse),
+                TORRENT_ID, metrics, Duration.ofMinutes(1));
+
+        List<Peer> peers = new CopyOnWriteArrayList<>();
+        CompletableFuture<?> collection = peerSource.collectPeersAsync(peers::add);
+
+        // the single executor thread is free, while the tracker has not responded yet
+        executor.submit(() -> {}).get(10, TimeUnit.SECONDS);
+        assertFalse(collection.isDone());
+
+        Peer peer = new InetPeer(InetAddress.getLoopbackAddress(), 6891);
+        TrackerResponse response = TrackerResponse.ok();
+        response.setPeers(Collections.singletonList(peer));
+        pendingResponse.complete(response);
+
+        collection.get(10, TimeUnit.SECONDS);
+        assertEquals(Collections.singletonList(peer), peers);
+        assertEquals(1, metrics.getCounter(MetricNames.TRACKER_QUERIES));
+        assertEquals(1, metrics.getCounter(MetricNames.TRACKER_PEERS));
+        assertEquals(0, metrics.getCounter(MetricNames.TRACKER_QUERY_FAILURES));
+
+        // query interval has not passed yet
+        assertTrue(peerSource.collectPeersAsync(peers::add).isDone());
+        assertEquals(1, metrics.getCounter(MetricNames.TRACKER_QUERIES));
+    }
+
+    @Test
+    public void testCollectPeersAsync_Failure() throws Exception {
+        CompletableFuture<TrackerResponse> pendingResponse = new CompletableFuture<>();
+        RecordingMetrics metrics = new RecordingMetrics();
+        TrackerPeerSource peerSource = new TrackerPeerSource(executor, asyncTracker(pendingResponse),
+                TORRENT_ID, metrics, Duration.ofMinutes(1));
+
+        CompletableFuture<?> collection = peerSource.collectPeersAsync(peer -> {});
+        pendingResponse.complete(TrackerResponse.exceptional(new IllegalStateException()));
+
+        try {
+            collection.get(10, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            // expected
+        }
+        assertTrue(collection.isCompletedExceptionally());
+        assertEquals(1, metrics.getCounter(MetricNames.TRACKER_QUERY_FAILURES));
+    }
+
+    private static Tracker asyncTracker(CompletableFuture<TrackerResponse> response) {
+        return torrentId -> new TrackerRequestBuilder(torrentId) {
+            @Override
+            public TrackerResponse start() {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public TrackerResponse stop() {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public TrackerResponse complete() {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public TrackerResponse query() {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public CompletableFuture<TrackerResponse> queryAsync() {
+                return response;
+            }
+        };
+    }
+}
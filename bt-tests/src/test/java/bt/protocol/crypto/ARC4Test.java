@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2016—2017 Andrei Tomashpolskiy and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package bt.protocol.crypto;
+
+import bt.metainfo.TorrentId;
+import bt.protocol.Protocols;
+import org.junit.Test;
+
+import javax.crypto.Cipher;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class ARC4Test {
+
+    private static final TorrentId TORRENT_ID = TorrentId.fromBytes(new byte[] {
+            0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19});
+
+    @Test
+    public void testKeystream_KnownVector() throws Exception {
+        ARC4 keystream = new ARC4("Key".getBytes("ASCII"));
+        byte[] encrypted = keystream.update("Plaintext".getBytes("ASCII"));
+        assertEquals("bbf316e8d940af0ad3", Protocols.toHex(encrypted));
+    }
+
+    @SuppressWarnings("deprecation")
+    @Test
+    public void testKeystream_MatchesJCECipher_HeapAndDirectBuffers() throws Exception {
+        byte[] S = new byte[96];
+        new Random(42).nextBytes(S);
+        MSECipher mseCipher = MSECipher.forInitiator(S, TORRENT_ID);
+        ARC4 keystream = mseCipher.getEncryptor();
+        Cipher cipher = mseCipher.getEncryptionCipher();
+
+        Random random = new Random(0);
+        for (int i = 0; i < 100; i++) {
+            byte[] data = new byte[random.nextInt(20000)];
+            random.nextBytes(data);
+            byte[] expected = cipher.update(data);
+            if (expected == null) {
+                expected = new byte[0];
+            }
+
+            ByteBuffer buffer = (i % 2 == 0) ? ByteBuffer.allocate(data.length + 10) : ByteBuffer.allocateDirect(data.length + 10);
+            buffer.position(5);
+            buffer.put(data);
+            buffer.limit(data.length + 5);
+            buffer.position(5);
+            keystream.update(buffer);
+            assertEquals(data.length + 5, buffer.position());
+
+            byte[] actual = new byte[data.length];
+            buffer.position(5);
+            buffer.get(actual);
+            assertArrayEquals(expected, actual);
+        }
+    }
+
+    @Test
+    public void testKeystream_Roundtrip() {
+        byte[] S = new byte[96];
+        new Random(7).nextBytes(S);
+        MSECipher initiator = MSECipher.forInitiator(S, TORRENT_ID);
+        MSECipher receiver = MSECipher.forReceiver(S, TORRENT_ID);
+
+        byte[] data = new byte[4096];
+        new Random(1).nextBytes(data);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(data.length);
+        buffer.put(data);
+        buffer.flip();
+
+        initiator.getEncryptor().update(buffer);
+        buffer.flip();
+        receiver.getDecryptor().update(buffer);
+        buffer.flip();
+
+        byte[] actual = new byte[data.length];
+        buffer.get(actual);
+        assertArrayEquals(data, actual);
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2016—2017 Andrei Tomashpolskiy and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package bt.torrent;
+
+import bt.data.Bitfield;
+import bt.data.DataDescriptor;
+import bt.data.IDataDescriptorFactory;
+import bt.data.Storage;
+import bt.event.EventBus;
+import bt.event.TorrentUnregisteredEvent;
+import bt.magnet.MagnetUri;
+import bt.metainfo.IMetadataCache;
+import bt.metainfo.IMetadataService;
+import bt.metainfo.Torrent;
+import bt.metainfo.TorrentId;
+import bt.peer.IPeerRegistry;
+import bt.processor.ProcessingStage;
+import bt.processor.magnet.FetchMetadataStage;
+import bt.processor.magnet.MagnetContext;
+import bt.processor.torrent.ProcessTorrentStage;
+import bt.processor.torrent.SeedStage;
+import bt.processor.torrent.TorrentContext;
+import bt.runtime.Config;
+import bt.service.IRuntimeLifecycleBinder;
+import bt.torrent.data.IDataWorkerFactory;
+import bt.torrent.messaging.MessageRouter;
+import bt.torrent.selector.PieceSelector;
+import bt.tracker.ITrackerService;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class AdhocTorrentRegistryTest {
+
+    private static final TorrentId TORRENT_ID = TorrentId.fromBytes(new byte[20]);
+
+    private EventBus eventBus;
+    private DataDescriptor dataDescriptor;
+    private IDataWorkerFactory dataWorkerFactory;
+    private CompletableFuture<Object> stopWorker;
+    private AdhocTorrentRegistry registry;
+
+    @Before
+    public void setUp() {
+        eventBus = new EventBus();
+        dataDescriptor = mock(DataDescriptor.class);
+        IDataDescriptorFactory dataDescriptorFactory = mock(IDataDescriptorFactory.class);
+        when(dataDescriptorFactory.createDescriptor(any(), any())).thenReturn(dataDescriptor);
+        dataWorkerFactory = mock(IDataWorkerFactory.class);
+        stopWorker = new CompletableFuture<>();
+        when(dataWorkerFactory.stopWorker(dataDescriptor)).thenAnswer(invocation -> stopWorker);
+        registry = new AdhocTorrentRegistry(dataDescriptorFactory, dataWorkerFactory,
+                mock(IRuntimeLifecycleBinder.class), eventBus);
+    }
+
+    @Test
+    public void testUnregister() throws Exception {
+        Torrent torrent = mock(Torrent.class);
+        when(torrent.getTorrentId()).thenReturn(TORRENT_ID);
+
+        List<TorrentUnregisteredEvent> events = new ArrayList<>();
+        eventBus.onTorrentUnregistered(events::add);
+
+        TorrentDescriptor descriptor = registry.register(torrent, mock(Storage.class));
+        descriptor.start();
+
+        registry.unregister(TORRENT_ID);
+
+        assertFalse(descriptor.isActive());
+        verify(dataWorkerFactory).stopWorker(dataDescriptor);
+        // data is closed only after the worker has finished writing
+        verify(dataDescriptor, never()).close();
+        stopWorker.complete(null);
+        verify(dataDescriptor).close();
+        assertFalse(registry.getDescriptor(TORRENT_ID).isPresent());
+        assertFalse(registry.getTorrent(TORRENT_ID).isPresent());
+        assertTrue(registry.getTorrentIds().isEmpty());
+        assertEquals(1, events.size());
+        assertEquals(TORRENT_ID, events.get(0).getTorrentId());
+
+        // not registered anymore
+        registry.unregister(TORRENT_ID);
+        assertEquals(1, events.size());
+    }
+
+    @Test
+    public void testUnregister_ActiveTorrent_ProcessingStagesDoNotFail() throws Exception {
+        Torrent torrent = mock(Torrent.class);
+        when(torrent.getTorrentId()).thenReturn(TORRENT_ID);
+        when(torrent.getAnnounceKey()).thenReturn(Optional.empty());
+        registry.register(torrent, mock(Storage.class));
+
+        TorrentContext context = new TorrentContext(mock(PieceSelector.class), mock(Storage.class), () -> torrent);
+        context.setTorrentId(TORRENT_ID);
+        context.setTorrent(torrent);
+        context.setBitfield(mock(Bitfield.class));
+
+        @SuppressWarnings("unchecked")
+        ProcessingStage<TorrentContext> finalStage = mock(ProcessingStage.class);
+        SeedStage<TorrentContext> seedStage = new SeedStage<>(finalStage, registry, eventBus);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            ProcessTorrentStage<TorrentContext> processTorrentStage = new ProcessTorrentStage<>(
+                    seedStage, registry, mock(ITrackerService.class), eventBus, executor);
+
+            CompletableFuture<ProcessingStage<TorrentContext>> downloaded = processTorrentStage.executeAsync(context);
+            assertTrue(registry.getDescriptor(TORRENT_ID).get().isActive());
+            assertFalse(downloaded.isDone());
+
+            registry.unregister(TORRENT_ID);
+
+            // stages that fail terminate the chain, i.e. return no next stage
+            assertSame(seedStage, downloaded.get(10, TimeUnit.SECONDS));
+            assertSame(finalStage, seedStage.executeAsync(context).get(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testStop_FetchingMetadata_ProcessingTerminates() throws Exception {
+        registry.register(TORRENT_ID);
+
+        MagnetContext context = new MagnetContext(MagnetUri.torrentId(TORRENT_ID).buildUri(),
+                mock(PieceSelector.class), mock(Storage.class));
+        context.setRouter(mock(MessageRouter.class));
+
+        IMetadataCache metadataCache = mock(IMetadataCache.class);
+        when(metadataCache.get(TORRENT_ID)).thenReturn(Optional.empty());
+
+        @SuppressWarnings("unchecked")
+        ProcessingStage<MagnetContext> nextStage = mock(ProcessingStage.class);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            FetchMetadataStage fetchMetadataStage = new FetchMetadataStage(nextStage, mock(IMetadataService.class),
+                    metadataCache, registry, mock(ITrackerService.class), mock(IPeerRegistry.class),
+                    eventBus, executor, new Config());
+
+            CompletableFuture<ProcessingStage<MagnetContext>> fetched = fetchMetadataStage.executeAsync(context);
+            assertTrue(registry.getDescriptor(TORRENT_ID).get().isActive());
+            assertFalse(fetched.isDone());
+
+            registry.getDescriptor(TORRENT_ID).get().stop();
+
+            // no metadata, so there is nothing to process further
+            assertNull(fetched.get(10, TimeUnit.SECONDS));
+            assertFalse(context.getTorrent().isPresent());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
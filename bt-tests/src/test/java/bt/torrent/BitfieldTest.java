@@ -25,6 +25,7 @@ import org.junit.Test;
 import java.util.Arrays;
 import java.util.BitSet;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static bt.TestUtil.assertExceptionWithMessage;
 import static bt.data.Bitfield.PieceStatus.COMPLETE;
@@ -214,6 +215,31 @@ public class BitfieldTest extends BaseBitfieldTest {
         assertEquals(3, bitfield.getPiecesRemaining());
     }
 
+    @Test
+    public void testBitfield_CompletionListener() {
+        List<ChunkDescriptor> chunks = Arrays.asList(completeChunk, completeChunk, emptyChunk);
+        Bitfield bitfield = new Bitfield(chunks);
+        AtomicInteger notified = new AtomicInteger();
+        bitfield.addCompletionListener(notified::incrementAndGet);
+
+        bitfield.markVerified(0);
+        assertEquals(0, notified.get());
+
+        bitfield.skip(2);
+        assertEquals(0, notified.get());
+
+        bitfield.markVerified(1);
+        assertEquals(1, notified.get());
+
+        // one-time callback
+        bitfield.skip(1);
+        assertEquals(1, notified.get());
+
+        // already complete
+        bitfield.addCompletionListener(notified::incrementAndGet);
+        assertEquals(2, notified.get());
+    }
+
     @Test
     public void testBitfield_Exceptional_markVerified_NotComplete() {
         List<ChunkDescriptor> chunks = Arrays.asList(completeChunk, emptyChunk);
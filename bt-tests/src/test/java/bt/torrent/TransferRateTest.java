@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2016—2017 Andrei Tomashpolskiy and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package bt.torrent;
+
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+
+public class TransferRateTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private TransferRate createRate(TransferRate parent) {
+        return new TransferRate(parent, Duration.ofSeconds(1), 4, clock::get);
+    }
+
+    @Test
+    public void testRate_SteadyTransfer() {
+        TransferRate rate = createRate(null);
+        for (int i = 0; i < 5; i++) {
+            clock.set(i * SECOND);
+            rate.record(1000);
+        }
+        clock.set(5 * SECOND - 1);
+
+        assertEquals(5000, rate.getTotal());
+        assertEquals(1000, rate.getRate());
+    }
+
+    @Test
+    public void testRate_YoungerThanWindow() {
+        TransferRate rate = createRate(null);
+        clock.set(SECOND / 2);
+        rate.record(1000);
+        assertEquals(1000, rate.getRate());
+
+        clock.set(2 * SECOND);
+        rate.record(1000);
+        assertEquals(1000, rate.getRate());
+    }
+
+    @Test
+    public void testRate_ExpiredBuckets() {
+        TransferRate rate = createRate(null);
+        rate.record(1000);
+
+        clock.set(4 * SECOND);
+        assertEquals(0, rate.getRate());
+        assertEquals(1000, rate.getTotal());
+
+        // lands on the same bucket as the expired data
+        rate.record(500);
+        clock.set(5 * SECOND - 1);
+        assertEquals(1500, rate.getTotal());
+        assertEquals(125, rate.getRate());
+    }
+
+    @Test
+    public void testRate_IgnoresNonPositiveAmounts() {
+        TransferRate rate = createRate(null);
+        rate.record(0);
+        rate.record(-1);
+        assertEquals(0, rate.getTotal());
+        assertEquals(0, rate.getRate());
+    }
+
+    @Test
+    public void testRate_PropagatesToParent() {
+        TransferRate parent = createRate(null);
+        TransferRate child1 = createRate(parent);
+        TransferRate child2 = createRate(parent);
+
+        child1.record(1000);
+        child2.record(3000);
+
+        assertEquals(1000, child1.getTotal());
+        assertEquals(3000, child2.getTotal());
+        assertEquals(4000, parent.getTotal());
+        assertEquals(4000, parent.getRate());
+    }
+
+    @Test
+    public void testRate_ConcurrentWriters() throws Exception {
+        int threadCount = 4, recordsPerThread = 100_000;
+        TransferRate parent = createRate(null);
+
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < threadCount; i++) {
+            TransferRate child = createRate(parent);
+            threads.add(new Thread(() -> {
+                for (int j = 0; j < recordsPerThread; j++) {
+                    child.record(1);
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(threadCount * recordsPerThread, parent.getTotal());
+        assertEquals(threadCount * recordsPerThread, parent.getRate());
+    }
+}
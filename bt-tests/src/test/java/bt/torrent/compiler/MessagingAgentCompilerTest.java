@@ -272,6 +272,101 @@ public class MessagingAgentCompilerTest {
         assertTrue(p3.isExecuted());
     }
 
+    @Test
+    public void testCompiler_Consumer_Invoker() {
+
+        C1 c1 = new C1();
+        C3 c3 = new C3();
+
+        CompilerVisitor visitor = new CompilerVisitor() {
+            @Override
+            public <T extends Message> void visitConsumer(Class<T> consumedType, MethodHandle handle) {
+                throw new IllegalStateException("Expected visit with invoker");
+            }
+
+            @Override
+            public <T extends Message> void visitConsumer(Class<T> consumedType, MethodHandle handle, ConsumerInvoker invoker) {
+                if (Message.class.equals(consumedType)) {
+                    invoker.consume(c1, KeepAlive.instance(), null);
+                } else {
+                    invoker.consume(c3, KeepAlive.instance(), null);
+                }
+            }
+
+            @Override
+            public void visitProducer(MethodHandle handle) {
+                throw new IllegalStateException("Not expecting a message producer");
+            }
+        };
+
+        compiler.compileAndVisit(c1, visitor);
+        compiler.compileAndVisit(c3, visitor);
+
+        assertTrue(c1.isExecuted());
+        assertTrue(c3.isExecuted());
+    }
+
+    @Test
+    public void testCompiler_Producer_Invoker() {
+
+        P2 p2 = new P2();
+
+        CompilerVisitor visitor = new CompilerVisitor() {
+            @Override
+            public <T extends Message> void visitConsumer(Class<T> consumedType, MethodHandle handle) {
+                throw new IllegalStateException("Not expecting a message consumer");
+            }
+
+            @Override
+            public void visitProducer(MethodHandle handle) {
+                throw new IllegalStateException("Expected visit with invoker");
+            }
+
+            @Override
+            public void visitProducer(MethodHandle handle, ProducerInvoker invoker) {
+                invoker.produce(p2, message -> {}, null);
+            }
+        };
+
+        compiler.compileAndVisit(p2, visitor);
+
+        assertTrue(p2.isExecuted());
+    }
+
+    @Test
+    public void testCompiler_Consumer_InvokerFromHandle() {
+
+        C1 c1 = new C1();
+        C3 c3 = new C3();
+
+        compiler.compileAndVisit(c1, createVisitor((c, h) -> {
+            ConsumerInvoker.fromHandle(h).consume(c1, KeepAlive.instance(), null);
+        }, null));
+        compiler.compileAndVisit(c3, createVisitor((c, h) -> {
+            ConsumerInvoker.fromHandle(h).consume(c3, KeepAlive.instance(), null);
+        }, null));
+
+        assertTrue(c1.isExecuted());
+        assertTrue(c3.isExecuted());
+    }
+
+    @Test
+    public void testCompiler_Producer_InvokerFromHandle() {
+
+        P1 p1 = new P1();
+        P3 p3 = new P3();
+
+        compiler.compileAndVisit(p1, createVisitor(null, h -> {
+            ProducerInvoker.fromHandle(h).produce(p1, message -> {}, null);
+        }));
+        compiler.compileAndVisit(p3, createVisitor(null, h -> {
+            ProducerInvoker.fromHandle(h).produce(p3, message -> {}, null);
+        }));
+
+        assertTrue(p1.isExecuted());
+        assertTrue(p3.isExecuted());
+    }
+
     @Test
     public void testCompiler_Consumer_WrongParameters() {
 
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2016—2017 Andrei Tomashpolskiy and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package bt.torrent.data;
+
+import bt.data.Bitfield;
+import bt.data.ChunkDescriptor;
+import bt.data.ChunkVerifier;
+import bt.data.DataDescriptor;
+import bt.metrics.RecordingMetrics;
+import bt.net.Peer;
+import bt.service.IRuntimeLifecycleBinder;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class DataWorkerFactoryTest {
+
+    @Test
+    public void testStopWorker_PendingWritesRejected() throws Exception {
+        CountDownLatch writeStarted = new CountDownLatch(1);
+        CountDownLatch releaseWrite = new CountDownLatch(1);
+
+        DataDescriptor data = mock(DataDescriptor.class);
+        ChunkDescriptor chunk = mock(ChunkDescriptor.class);
+        when(data.getBitfield()).thenReturn(new Bitfield(1));
+        when(data.getChunkDescriptors()).thenReturn(Collections.singletonList(chunk));
+        doAnswer(invocation -> {
+            writeStarted.countDown();
+            releaseWrite.await();
+            return null;
+        }).when(data).writeBlock(anyInt(), anyInt(), any());
+
+        DataWorkerFactory factory = new DataWorkerFactory(
+                mock(IRuntimeLifecycleBinder.class), mock(ChunkVerifier.class), new RecordingMetrics(), 100);
+        DataWorker worker = factory.createWorker(data);
+
+        Peer peer = mock(Peer.class);
+        CompletableFuture<BlockWrite> inProgress = worker.addBlock(peer, 0, 0, new byte[1]);
+        CompletableFuture<BlockWrite> pending = worker.addBlock(peer, 0, 1, new byte[1]);
+        assertTrue(writeStarted.await(5, TimeUnit.SECONDS));
+
+        CompletableFuture<?> stopped = factory.stopWorker(data);
+        assertFalse(stopped.isDone());
+        assertTrue(worker.addBlock(peer, 0, 2, new byte[1]).get().isRejected());
+
+        releaseWrite.countDown();
+        stopped.get(5, TimeUnit.SECONDS);
+
+        assertFalse(inProgress.get().isRejected());
+        assertTrue(pending.get().isRejected());
+        verify(data, times(1)).writeBlock(anyInt(), anyInt(), any());
+    }
+
+    @Test
+    public void testStopWorker_UnknownData() {
+        DataWorkerFactory factory = new DataWorkerFactory(
+                mock(IRuntimeLifecycleBinder.class), mock(ChunkVerifier.class), new RecordingMetrics(), 100);
+        assertTrue(factory.stopWorker(mock(DataDescriptor.class)).isDone());
+    }
+}
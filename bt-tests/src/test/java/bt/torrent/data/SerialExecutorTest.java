@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2016—2017 Andrei Tomashpolskiy and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package bt.torrent.data;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SerialExecutorTest {
+
+    @Test
+    public void testExecutor_PreservesOrder() {
+        ManualExecutor delegate = new ManualExecutor();
+        SerialExecutor executor = new SerialExecutor(delegate);
+
+        List<Integer> executed = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            int k = i;
+            executor.execute(() -> executed.add(k));
+        }
+        delegate.runAll();
+
+        assertEquals(100, executed.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, (int) executed.get(i));
+        }
+    }
+
+    @Test
+    public void testExecutor_DoesNotStarveOtherExecutors() {
+        ManualExecutor delegate = new ManualExecutor();
+        SerialExecutor busy = new SerialExecutor(delegate);
+        SerialExecutor other = new SerialExecutor(delegate);
+
+        List<String> executed = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            busy.execute(() -> executed.add("busy"));
+        }
+        other.execute(() -> executed.add("other"));
+        delegate.runAll();
+
+        assertEquals(1001, executed.size());
+        int index = executed.indexOf("other");
+        assertTrue("Task was starved: " + index, index > 0 && index < 100);
+    }
+
+    private static class ManualExecutor implements Executor {
+
+        private final Queue<Runnable> tasks = new LinkedList<>();
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        void runAll() {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                task.run();
+            }
+        }
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2016—2017 Andrei Tomashpolskiy and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package bt.torrent.messaging;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class LongObjectMapTest {
+
+    @Test
+    public void testRandomOperations_ConsistentWithHashMap() {
+        LongObjectMap<String> map = new LongObjectMap<>();
+        Map<Long, String> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 100_000; i++) {
+            long key = RequestTracker.key(random.nextInt(64), random.nextInt(16) * 16384);
+            switch (random.nextInt(3)) {
+                case 0: {
+                    String value = String.valueOf(i);
+                    map.put(key, value);
+                    expected.put(key, value);
+                    break;
+                }
+                case 1: {
+                    assertEquals(expected.remove(key), map.remove(key));
+                    break;
+                }
+                default: {
+                    assertEquals(expected.get(key), map.get(key));
+                }
+            }
+            assertEquals(expected.size(), map.size());
+        }
+
+        for (Map.Entry<Long, String> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), map.get(entry.getKey()));
+        }
+
+        map.clear();
+        assertEquals(0, map.size());
+        assertNull(map.get(RequestTracker.key(0, 0)));
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2016—2017 Andrei Tomashpolskiy and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package bt.torrent.messaging;
+
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RequestTrackerTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    public void testAddContainsRemove() {
+        RequestTracker tracker = new RequestTracker(clock::get);
+        assertTrue(tracker.isEmpty());
+
+        assertTrue(tracker.add(1, 16384, 16384));
+        assertFalse(tracker.add(1, 16384, 16384));
+        assertEquals(1, tracker.size());
+
+        assertTrue(tracker.contains(1, 16384, 16384));
+        assertFalse(tracker.contains(1, 16384, 1000));
+        assertFalse(tracker.contains(1, 0, 16384));
+        assertFalse(tracker.contains(16384, 1, 16384));
+
+        assertFalse(tracker.remove(1, 16384, 1000));
+        assertTrue(tracker.remove(1, 16384, 16384));
+        assertFalse(tracker.remove(1, 16384, 16384));
+        assertTrue(tracker.isEmpty());
+    }
+
+    @Test
+    public void testLargeValues() {
+        RequestTracker tracker = new RequestTracker(clock::get);
+        tracker.add(Integer.MAX_VALUE, Integer.MAX_VALUE - 1, Integer.MAX_VALUE);
+
+        int[] visited = new int[3];
+        tracker.forEach((pieceIndex, offset, length) -> {
+            visited[0] = pieceIndex;
+            visited[1] = offset;
+            visited[2] = length;
+        });
+        assertEquals(Integer.MAX_VALUE, visited[0]);
+        assertEquals(Integer.MAX_VALUE - 1, visited[1]);
+        assertEquals(Integer.MAX_VALUE, visited[2]);
+    }
+
+    @Test
+    public void testRandomOperations_ConsistentWithHashSet() {
+        RequestTracker tracker = new RequestTracker(clock::get);
+        Set<Long> expected = new HashSet<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 100_000; i++) {
+            int pieceIndex = random.nextInt(64);
+            int offset = random.nextInt(16) * 16384;
+            long key = ((long) pieceIndex << 32) | offset;
+            if (random.nextBoolean()) {
+                assertEquals(expected.add(key), tracker.add(pieceIndex, offset, 16384));
+            } else {
+                assertEquals(expected.remove(key), tracker.remove(pieceIndex, offset, 16384));
+            }
+            assertEquals(expected.size(), tracker.size());
+        }
+
+        Set<Long> actual = new HashSet<>();
+        tracker.forEach((pieceIndex, offset, length) -> actual.add(((long) pieceIndex << 32) | offset));
+        assertEquals(expected, actual);
+
+        tracker.clear();
+        assertTrue(tracker.isEmpty());
+        assertFalse(tracker.contains(0, 0, 16384));
+    }
+
+    @SuppressWarnings("deprecation")
+    @Test
+    public void testKeySetView() {
+        RequestTracker tracker = new RequestTracker(clock::get);
+        Set<Object> keys = new RequestKeySet(tracker);
+        Object key = Mapper.mapper().buildKey(1, 16384, 16384);
+
+        assertTrue(keys.add(key));
+        assertTrue(tracker.contains(1, 16384, 16384));
+        assertTrue(keys.contains(Mapper.mapper().buildKey(1, 16384, 16384)));
+        assertFalse(keys.contains(Mapper.mapper().buildKey(1, 16384, 1000)));
+        assertFalse(keys.contains("not a key"));
+
+        tracker.add(2, 0, 16384);
+        assertEquals(2, keys.size());
+        Set<Object> expected = new HashSet<>();
+        expected.add(key);
+        expected.add(Mapper.mapper().buildKey(2, 0, 16384));
+        assertEquals(expected, new HashSet<>(keys));
+
+        keys.removeIf(key::equals);
+        assertFalse(tracker.contains(1, 16384, 16384));
+        assertTrue(keys.remove(Mapper.mapper().buildKey(2, 0, 16384)));
+        assertTrue(tracker.isEmpty());
+    }
+
+    @Test
+    public void testRoundTripTime() {
+        RequestTracker tracker = new RequestTracker(clock::get);
+        assertEquals(Duration.ZERO, tracker.getRoundTripTime());
+
+        clock.set(0);
+        tracker.add(0, 0, 1);
+        tracker.add(0, 1, 1);
+        clock.set(800);
+        assertEquals(Duration.ofNanos(800), tracker.getOldestRequestAge());
+
+        tracker.remove(0, 0, 1);
+        assertEquals(Duration.ofNanos(800), tracker.getRoundTripTime());
+
+        clock.set(1600);
+        tracker.remove(0, 1, 1);
+        // 800 + (1600 - 800) / 8
+        assertEquals(Duration.ofNanos(900), tracker.getRoundTripTime());
+        assertEquals(Duration.ZERO, tracker.getOldestRequestAge());
+    }
+}
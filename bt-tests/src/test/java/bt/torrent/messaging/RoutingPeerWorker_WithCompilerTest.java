@@ -28,6 +28,7 @@ import org.junit.Test;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -41,6 +42,7 @@ public class RoutingPeerWorker_WithCompilerTest {
 
     private C1 c1;
     private P1 p1;
+    private DefaultMessageRouter router;
     private PeerWorker peerWorker;
 
     @Before
@@ -53,7 +55,7 @@ public class RoutingPeerWorker_WithCompilerTest {
             add(p1);
         }};
 
-        DefaultMessageRouter router = new DefaultMessageRouter(agents);
+        this.router = new DefaultMessageRouter(agents);
         IPeerWorkerFactory peerWorkerFactory = new PeerWorkerFactory(router);
         this.peerWorker = peerWorkerFactory.createPeerWorker(mock(Peer.class));
     }
@@ -155,6 +157,23 @@ public class RoutingPeerWorker_WithCompilerTest {
         assertAllExecuted(p1, Arrays.asList("produce1", "produce2"));
     }
 
+    @Test
+    public void testPeerWorker_Consumer_Have() {
+        peerWorker.accept(new Have(0));
+        assertAllExecuted(c1, Arrays.asList("consume_generic", "consume_have"));
+    }
+
+    @Test
+    public void testPeerWorker_UnregisteredAgent() {
+        router.unregisterMessagingAgent(c1);
+        router.unregisterMessagingAgent(p1);
+
+        peerWorker.accept(new Piece(0,0,new byte[1]));
+        peerWorker.get();
+        assertAllExecuted(c1, Collections.emptyList());
+        assertAllExecuted(p1, Collections.emptyList());
+    }
+
     private static void assertAllExecuted(Executable executable, Collection<String> executedMethods) {
         executable.getMethods().forEach(method -> {
             if (executedMethods.contains(method)) {
@@ -16,17 +16,36 @@
 
 package bt.tracker;
 
+import bt.BtException;
 import bt.metainfo.TorrentId;
+import bt.net.InetPeer;
+import bt.net.Peer;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.net.InetAddress;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -51,6 +70,8 @@ public class MultiTrackerTest {
     private ITrackerService trackerService;
     private List<Tracker> accessLog;
     private StoppableTracker tracker1, tracker2, tracker3, backup1, backup2;
+    private ExecutorService executor;
+    private AtomicInteger pendingTasks;
 
     @Before
     public void setUp() {
@@ -61,7 +82,7 @@ public class MultiTrackerTest {
 
         torrentId = TorrentId.fromBytes(new byte[20]);
 
-        accessLog = new ArrayList<>();
+        accessLog = Collections.synchronizedList(new ArrayList<>());
 
         tracker1 = new StoppableTracker(trackerUrl1, torrentId, accessLog::add);
         tracker2 = new StoppableTracker(trackerUrl2, torrentId, accessLog::add);
@@ -75,6 +96,25 @@ public class MultiTrackerTest {
         when(trackerService.getTracker(trackerUrl3)).thenReturn(tracker3);
         when(trackerService.getTracker(backupUrl1)).thenReturn(backup1);
         when(trackerService.getTracker(backupUrl2)).thenReturn(backup2);
+
+        pendingTasks = new AtomicInteger();
+        executor = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60, TimeUnit.SECONDS, new SynchronousQueue<>()) {
+            @Override
+            public void execute(Runnable command) {
+                pendingTasks.incrementAndGet();
+                super.execute(command);
+            }
+
+            @Override
+            protected void afterExecute(Runnable r, Throwable t) {
+                pendingTasks.decrementAndGet();
+            }
+        };
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
     }
 
     @Test
@@ -137,6 +177,135 @@ public class MultiTrackerTest {
         assertLogHasTrackers(tracker1, tracker2, tracker3, backup2);
     }
 
+    @Test
+    public void testMultiTracker_ConcurrentTier() {
+
+        MultiTracker tracker = createConcurrentTracker(MultiTrackerPolicy.CONCURRENT_TIER);
+
+        tracker.request(torrentId).start();
+        awaitPendingRequests();
+        assertLogHasTrackersInAnyOrder(tracker1, tracker2, tracker3);
+
+        clearLog();
+        tracker1.shutdown();
+        tracker2.shutdown();
+        tracker.request(torrentId).query();
+        awaitPendingRequests();
+        assertLogHasTrackersInAnyOrder(tracker1, tracker2, tracker3);
+
+        clearLog();
+        tracker3.shutdown();
+        tracker.request(torrentId).query();
+        awaitPendingRequests();
+        assertLogHasTrackersInAnyOrder(tracker1, tracker2, tracker3, backup1, backup2);
+    }
+
+    @Test
+    public void testMultiTracker_ConcurrentAll_MergesPeers() {
+
+        MultiTracker tracker = createConcurrentTracker(MultiTrackerPolicy.CONCURRENT_ALL);
+
+        Peer peer1 = new InetPeer(InetAddress.getLoopbackAddress(), 1);
+        Peer peer2 = new InetPeer(InetAddress.getLoopbackAddress(), 2);
+        Peer peer3 = new InetPeer(InetAddress.getLoopbackAddress(), 3);
+        tracker1.setPeers(peer1, peer2);
+        tracker3.setPeers(peer2);
+        backup2.setPeers(peer3);
+        tracker2.shutdown();
+
+        TrackerResponse response = tracker.request(torrentId).query();
+        assertTrue(response.isSuccess());
+        awaitPendingRequests();
+
+        List<Peer> peers = collectPeers(response);
+        assertEquals(3, peers.size());
+        assertEquals(new HashSet<>(Arrays.asList(peer1, peer2, peer3)), new HashSet<>(peers));
+        assertLogHasTrackersInAnyOrder(tracker1, tracker2, tracker3, backup1, backup2);
+    }
+
+    @Test(expected = BtException.class)
+    public void testMultiTracker_ConcurrentAll_AllTrackersFailed() {
+
+        MultiTracker tracker = createConcurrentTracker(MultiTrackerPolicy.CONCURRENT_ALL);
+
+        Arrays.asList(tracker1, tracker2, tracker3, backup1, backup2).forEach(StoppableTracker::shutdown);
+        tracker.request(torrentId).query();
+    }
+
+    @Test
+    public void testMultiTracker_ConcurrentAll_FailingTrackerIsBackedOff() {
+
+        MultiTracker tracker = createConcurrentTracker(MultiTrackerPolicy.CONCURRENT_ALL);
+
+        tracker1.shutdown();
+        for (int i = 0; i < 3; i++) {
+            tracker.request(torrentId).query();
+            awaitPendingRequests();
+        }
+
+        clearLog();
+        tracker.request(torrentId).query();
+        awaitPendingRequests();
+        assertLogHasTrackersInAnyOrder(tracker2, tracker3, backup1, backup2);
+    }
+
+    @Test
+    public void testMultiTracker_ConcurrentAll_YieldsPeersAsTrackersRespond() throws Exception {
+
+        MultiTracker tracker = createConcurrentTracker(MultiTrackerPolicy.CONCURRENT_ALL);
+
+        Peer peer1 = new InetPeer(InetAddress.getLoopbackAddress(), 1);
+        Peer peer2 = new InetPeer(InetAddress.getLoopbackAddress(), 2);
+        tracker1.setPeers(peer1);
+        backup1.setPeers(peer2);
+
+        // all trackers respond only when allowed to, so that the order of responses is deterministic
+        CountDownLatch fastTrackerResponse = new CountDownLatch(1);
+        CountDownLatch slowTrackersResponse = new CountDownLatch(1);
+        tracker1.blockUntil(fastTrackerResponse);
+        Arrays.asList(tracker2, tracker3, backup1, backup2).forEach(t -> t.blockUntil(slowTrackersResponse));
+
+        List<Peer> peers = new CopyOnWriteArrayList<>();
+        CompletableFuture<TrackerResponse> future = tracker.request(torrentId).queryAsync(peers::add);
+        assertFalse(future.isDone());
+
+        // not waiting for the slow trackers
+        fastTrackerResponse.countDown();
+        assertTrue(future.get(10, TimeUnit.SECONDS).isSuccess());
+        assertEquals(Collections.singletonList(peer1), peers);
+
+        slowTrackersResponse.countDown();
+        awaitPendingRequests();
+        assertEquals(Arrays.asList(peer1, peer2), peers);
+        assertEquals(2, collectPeers(future.get()).size());
+    }
+
+    private void awaitPendingRequests() {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (pendingTasks.get() > 0) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("Timeout while waiting for tracker requests to complete");
+            }
+            Thread.yield();
+        }
+    }
+
+    private static List<Peer> collectPeers(TrackerResponse response) {
+        List<Peer> peers = new ArrayList<>();
+        response.getPeers().forEach(peers::add);
+        return peers;
+    }
+
+    private MultiTracker createConcurrentTracker(MultiTrackerPolicy policy) {
+        return new MultiTracker(trackerService, announceKey, false, policy, new TrackerHealthRegistry(), executor);
+    }
+
+    private void assertLogHasTrackersInAnyOrder(Tracker... trackers) {
+        Set<Tracker> visitedTrackers = new HashSet<>(accessLog);
+        assertEquals(trackers.length, accessLog.size());
+        assertEquals(new HashSet<>(Arrays.asList(trackers)), visitedTrackers);
+    }
+
     private void assertLogHasTrackers(Tracker... trackersInVisitingOrder) {
         Tracker[] visitedTrackers = accessLog.toArray(new Tracker[accessLog.size()]);
         assertArrayEquals(trackersInVisitingOrder, visitedTrackers);
@@ -151,7 +320,9 @@ public class MultiTrackerTest {
         private Tracker instance;
         private final String url;
         private TrackerRequestBuilder requestBuilder;
-        private boolean shutdown;
+        private volatile boolean shutdown;
+        private volatile List<Peer> peers = Collections.emptyList();
+        private volatile CountDownLatch responseLatch;
 
         public StoppableTracker(String url, TorrentId torrentId, Consumer<Tracker> accessLog) {
 
@@ -181,7 +352,20 @@ public class MultiTrackerTest {
 
                 private TrackerResponse logAndResponse() {
                     accessLog.accept(instance);
-                    return shutdown? TrackerResponse.exceptional(new IOException("shutdown")) : TrackerResponse.ok();
+                    CountDownLatch latch = responseLatch;
+                    if (latch != null) {
+                        try {
+                            latch.await();
+                        } catch (InterruptedException e) {
+                            return TrackerResponse.exceptional(e);
+                        }
+                    }
+                    if (shutdown) {
+                        return TrackerResponse.exceptional(new IOException("shutdown"));
+                    }
+                    TrackerResponse response = TrackerResponse.ok();
+                    response.setPeers(peers);
+                    return response;
                 }
             };
         }
@@ -191,6 +375,14 @@ public class MultiTrackerTest {
             return requestBuilder;
         }
 
+        public void setPeers(Peer... peers) {
+            this.peers = Arrays.asList(peers);
+        }
+
+        public void blockUntil(CountDownLatch latch) {
+            this.responseLatch = latch;
+        }
+
         public void startup() {
             shutdown = false;
         }